@@ -2,7 +2,6 @@
 package de.freese.jsync;
 
 import java.net.URI;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +17,8 @@ import de.freese.jsync.client.listener.ConsoleClientListener;
 import de.freese.jsync.filesystem.EFileSystem;
 import de.freese.jsync.model.SyncItem;
 import de.freese.jsync.model.SyncPair;
+import de.freese.jsync.model.SyncPairStore;
+import de.freese.jsync.model.SyncStatus;
 
 /**
  * @author Thomas Freese
@@ -79,6 +80,13 @@ public final class JSyncConsole {
                 .followSymLinks(argumentParser.followSymlinks())
                 .dryRun(argumentParser.dryRun())
                 .checksum(argumentParser.checksum())
+                .checksumAlgorithm(argumentParser.checksumAlgorithm())
+                .delta(argumentParser.delta())
+                .compression(argumentParser.compression())
+                .compressionLevel(argumentParser.compressionLevel())
+                .durability(argumentParser.durability())
+                .manifest(argumentParser.manifest())
+                .bandwidthLimit(argumentParser.bandwidthLimit())
                 .build();
 
         final URI senderUri = new URI(argumentParser.sender());
@@ -109,9 +117,13 @@ public final class JSyncConsole {
                     syncItem.setChecksum(checksum);
                 });
 
-        final List<SyncPair> syncPairs = client.mergeSyncItems(syncItemsSender.collectList().block(), syncItemsReceiver.collectList().block());
-
-        syncPairs.forEach(SyncPair::validateStatus);
+        // Streaming Merge-Join, the synchronized Pairs are not needed anymore, the others are copied into a compact Store.
+        final SyncPairStore syncPairs = client.mergeSyncItems(syncItemsSender, syncItemsReceiver)
+                .doOnNext(SyncPair::validateStatus)
+                .filter(syncPair -> !SyncStatus.SYNCHRONIZED.equals(syncPair.getStatus()))
+                .collect(SyncPairStore::new, SyncPairStore::add)
+                .block();
+        syncPairs.trimToSize();
 
         client.syncReceiver(syncPairs, clientListener);
 
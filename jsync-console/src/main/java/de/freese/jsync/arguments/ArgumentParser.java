@@ -7,21 +7,51 @@ import java.io.PrintStream;
  * @author Thomas Freese
  */
 public interface ArgumentParser {
+    /**
+     * Option: --bwlimit; Bytes per Second like '512k', '10m'; Default: 0 = unlimited
+     */
+    long bandwidthLimit();
+
     /**
      * Option: -c; --checksum
      */
     boolean checksum();
 
+    /**
+     * Option: --checksum-algorithm; Default: sha256
+     */
+    String checksumAlgorithm();
+
+    /**
+     * Option: --compress; Default: none
+     */
+    String compression();
+
+    /**
+     * Option: --compress-level; Default: -1
+     */
+    int compressionLevel();
+
     /**
      * Option: --delete
      */
     boolean delete();
 
+    /**
+     * Option: --delta
+     */
+    boolean delta();
+
     /**
      * Option: -n; --dry-run
      */
     boolean dryRun();
 
+    /**
+     * Option: --durability; Default: file
+     */
+    String durability();
+
     /**
      * Option: -f; --follow-symlinks
      */
@@ -29,6 +59,11 @@ public interface ArgumentParser {
 
     boolean hasArgs();
 
+    /**
+     * Option: --manifest
+     */
+    boolean manifest();
+
     void printHelp(PrintStream printStream);
 
     /**
@@ -14,6 +14,8 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.help.HelpFormatter;
 
+import de.freese.jsync.utils.JSyncUtils;
+
 /**
  * @author Thomas Freese
  */
@@ -34,6 +36,13 @@ public class ArgumentParserApacheCommonsCli implements ArgumentParser {
         options.addOption(Option.builder("f").longOpt("follow-symlinks").desc("Dateien von SymLinks kopieren").get());
         options.addOption(Option.builder("n").longOpt("dry-run").desc("Synchronisation nur Simulieren").get());
         options.addOption(Option.builder("c").longOpt("checksum").desc("Zusätzlich Prüfsumme für Vergleich berechnen").get());
+        options.addOption(Option.builder().longOpt("checksum-algorithm").hasArg().argName("ALGORITHM").desc("Algorithmus der Prüfsumme: sha256, sha256-tree, crc32c, xxh64").get());
+        options.addOption(Option.builder().longOpt("delta").desc("Geänderte Dateien nur als Delta übertragen").get());
+        options.addOption(Option.builder().longOpt("compress").hasArg().argName("CODEC").desc("Kompression bei entfernten Dateisystemen: none, deflate, lz4").get());
+        options.addOption(Option.builder().longOpt("compress-level").hasArg().argName("LEVEL").desc("Level der Kompression, z.B. 1-9 bei deflate").get());
+        options.addOption(Option.builder().longOpt("durability").hasArg().argName("MODE").desc("fsync der geschriebenen Dateien: none, file, dir").get());
+        options.addOption(Option.builder().longOpt("bwlimit").hasArg().argName("RATE").desc("Maximale Bandbreite in Bytes/s, z.B. 512k, 10m; 0 = unbegrenzt").get());
+        options.addOption(Option.builder().longOpt("manifest").desc("Empfänger nur bei geänderten Verzeichnissen durchlaufen").get());
 
         options.addOption(Option.builder("s").longOpt("sender").hasArg().argName("DIR").desc("Quell-Verzeichnis").required().get());
         options.addOption(Option.builder("r").longOpt("receiver").hasArg().argName("DIR").desc("Ziel-Verzeichnis").required().get());
@@ -50,21 +59,51 @@ public class ArgumentParserApacheCommonsCli implements ArgumentParser {
         }
     }
 
+    @Override
+    public long bandwidthLimit() {
+        return JSyncUtils.parseSize(line.getOptionValue("bwlimit", "0"));
+    }
+
     @Override
     public boolean checksum() {
         return line.hasOption("checksum");
     }
 
+    @Override
+    public String checksumAlgorithm() {
+        return line.getOptionValue("checksum-algorithm", "sha256");
+    }
+
+    @Override
+    public String compression() {
+        return line.getOptionValue("compress", "none");
+    }
+
+    @Override
+    public int compressionLevel() {
+        return Integer.parseInt(line.getOptionValue("compress-level", "-1"));
+    }
+
     @Override
     public boolean delete() {
         return line.hasOption("delete");
     }
 
+    @Override
+    public boolean delta() {
+        return line.hasOption("delta");
+    }
+
     @Override
     public boolean dryRun() {
         return line.hasOption("dry-run");
     }
 
+    @Override
+    public String durability() {
+        return line.getOptionValue("durability", "file");
+    }
+
     @Override
     public boolean followSymlinks() {
         return line.hasOption("follow-symlinks");
@@ -77,6 +116,11 @@ public class ArgumentParserApacheCommonsCli implements ArgumentParser {
         return opts != null && opts.length > 0;
     }
 
+    @Override
+    public boolean manifest() {
+        return line.hasOption("manifest");
+    }
+
     @Override
     public void printHelp(final PrintStream printStream) {
         final HelpFormatter formatter = HelpFormatter.builder()
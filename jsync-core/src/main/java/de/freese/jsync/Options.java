@@ -4,6 +4,11 @@ package de.freese.jsync;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.filesystem.Durability;
+
 /**
  * @author Thomas Freese
  */
@@ -19,6 +24,10 @@ public final class Options {
     public static final String EMPTY_STRING = "";
     public static final boolean IS_LINUX = System.getProperty("os.name").toLowerCase().startsWith("linux");
     public static final boolean IS_WINDOWS = System.getProperty("os.name").toLowerCase().startsWith("windows");
+    /**
+     * Default: 64 kB, maximale Größe eines Bursts bei einer begrenzten Bandbreite.
+     */
+    public static final int PACING_SLICE_SIZE = 1024 * 64;
 
     /**
      * @author Thomas Freese
@@ -32,6 +41,19 @@ public final class Options {
             options = new Options();
         }
 
+        /**
+         * Maximale Bandbreite der Datei-Übertragung in Bytes pro Sekunde wie bei rsync --bwlimit; 0 = unbegrenzt (Default).<br>
+         * Die Chunks werden in Stücke von {@link #PACING_SLICE_SIZE} geteilt und gleichmäßig gesendet, damit keine Bursts von {@link #BUFFER_SIZE} entstehen.
+         */
+        public Builder bandwidthLimit(final long bytesPerSecond) {
+            if (bytesPerSecond < 0L) {
+                throw new IllegalArgumentException("bandwidthLimit must be >= 0: " + bytesPerSecond);
+            }
+
+            options.bandwidthLimit = bytesPerSecond;
+            return this;
+        }
+
         public Options build() {
             return options;
         }
@@ -41,37 +63,172 @@ public final class Options {
             return this;
         }
 
+        /**
+         * Algorithmus der Prüfsummen: sha256 (Default), sha256-tree, crc32c, xxh64.<br>
+         * crc32c und xxh64 sind nicht kryptographisch, aber um ein Vielfaches schneller.<br>
+         * sha256-tree berechnet grosse Dateien parallel in Blöcken von 16 MB.
+         */
+        public Builder checksumAlgorithm(final String algorithmName) {
+            options.checksumAlgorithm = ChecksumAlgorithm.fromName(algorithmName);
+            return this;
+        }
+
+        /**
+         * Kompression der Datei-Daten bei entfernten Dateisystemen: none, deflate, lz4 oder ein Codec des ServiceLoaders.
+         */
+        public Builder compression(final String codecName) {
+            options.compressionCodec = CompressionCodecs.get(codecName);
+            return this;
+        }
+
+        /**
+         * Level des Codecs, z.B. 1 (schnell) bis 9 (beste) bei deflate; -1 = Default des Codecs.
+         */
+        public Builder compressionLevel(final int compressionLevel) {
+            if (compressionLevel < -1 || compressionLevel > 9) {
+                throw new IllegalArgumentException("compressionLevel must be between -1 and 9: " + compressionLevel);
+            }
+
+            options.compressionLevel = compressionLevel;
+            return this;
+        }
+
         public Builder delete(final boolean delete) {
             options.delete = delete;
             return this;
         }
 
+        /**
+         * Geänderte Dateien, die beim Empfänger existieren, werden wie bei rsync nur als Delta übertragen.
+         */
+        public Builder delta(final boolean delta) {
+            options.delta = delta;
+            return this;
+        }
+
         public Builder dryRun(final boolean dryRun) {
             options.dryRun = dryRun;
             return this;
         }
 
+        /**
+         * fsync der geschriebenen Dateien: none, file (Default) oder dir (Datei und Verzeichnis).<br>
+         * Die Dateien werden immer in eine Temp-Datei geschrieben und atomar umbenannt.
+         */
+        public Builder durability(final String durabilityName) {
+            options.durability = Durability.fromName(durabilityName);
+            return this;
+        }
+
         public Builder followSymLinks(final boolean followSymLinks) {
             options.followSymLinks = followSymLinks;
             return this;
         }
 
+        /**
+         * Speichert den Stand des Empfängers nach einer erfolgreichen Synchronisation in einem Manifest.<br>
+         * Beim nächsten Lauf wird der Empfänger nicht mehr durchlaufen, solange sich die Änderungszeiten seiner Verzeichnisse nicht geändert haben.
+         */
+        public Builder manifest(final boolean manifest) {
+            options.manifest = manifest;
+            return this;
+        }
+
+        /**
+         * Maximum Anzahl an Bytes, die bei paralleler Verarbeitung gleichzeitig kopiert werden.<br>
+         * Eine Datei, die größer ist, wird nur allein kopiert.
+         */
+        public Builder maxInFlightBytes(final long maxInFlightBytes) {
+            if (maxInFlightBytes <= 0L) {
+                throw new IllegalArgumentException("maxInFlightBytes must be > 0: " + maxInFlightBytes);
+            }
+
+            options.maxInFlightBytes = maxInFlightBytes;
+            return this;
+        }
+
+        /**
+         * Maximum Anzahl an Dateien, die bei paralleler Verarbeitung gleichzeitig kopiert werden.
+         */
+        public Builder maxInFlightFiles(final int maxInFlightFiles) {
+            if (maxInFlightFiles <= 0) {
+                throw new IllegalArgumentException("maxInFlightFiles must be > 0: " + maxInFlightFiles);
+            }
+
+            options.maxInFlightFiles = maxInFlightFiles;
+            return this;
+        }
+
         public Builder parallel(final boolean parallel) {
             options.parallel = parallel;
             return this;
         }
+
+        /**
+         * Anzahl der Threads, welche die Verzeichnisse gleichzeitig durchlaufen; 1 = sequentiell.
+         */
+        public Builder walkerParallelism(final int walkerParallelism) {
+            if (walkerParallelism <= 0) {
+                throw new IllegalArgumentException("walkerParallelism must be > 0: " + walkerParallelism);
+            }
+
+            options.walkerParallelism = walkerParallelism;
+            return this;
+        }
     }
 
+    private long bandwidthLimit;
     private boolean checksum;
+    private ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.SHA256;
+    private CompressionCodec compressionCodec = CompressionCodecs.NONE;
+    private int compressionLevel = -1;
     private boolean delete;
+    private boolean delta;
     private boolean dryRun = true;
+    private Durability durability = Durability.FILE;
     private boolean followSymLinks = true;
+    private boolean manifest;
+    private long maxInFlightBytes = BUFFER_SIZE * 16L;
+    private int maxInFlightFiles = 4;
     private boolean parallel;
+    private int walkerParallelism = 1;
 
     private Options() {
         super();
     }
 
+    public long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    public ChecksumAlgorithm getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    public int getMaxInFlightFiles() {
+        return maxInFlightFiles;
+    }
+
+    public int getWalkerParallelism() {
+        return walkerParallelism;
+    }
+
     public boolean isChecksum() {
         return checksum;
     }
@@ -80,6 +237,10 @@ public final class Options {
         return delete;
     }
 
+    public boolean isDelta() {
+        return delta;
+    }
+
     public boolean isDryRun() {
         return dryRun;
     }
@@ -88,6 +249,10 @@ public final class Options {
         return followSymLinks;
     }
 
+    public boolean isManifest() {
+        return manifest;
+    }
+
     public boolean isParallel() {
         return parallel;
     }
@@ -0,0 +1,69 @@
+// Created: 18.10.2026
+package de.freese.jsync.checksum;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Algorithms for the Checksums of the Files.<br>
+ * SHA-256 is cryptographic, CRC32C (JDK-Intrinsic) and XXH64 are much faster and sufficient for a Change-Detection in trusted Networks.<br>
+ * SHA-256-Tree hashes the Chunks of large Files parallel, see {@link Sha256TreeDigest}.<br>
+ * Sender and Receiver must use the same Algorithm, it is negotiated with the Server by the CONNECT-Command.
+ *
+ * @author Thomas Freese
+ */
+public enum ChecksumAlgorithm {
+    CRC32C("crc32c") {
+        @Override
+        public ChecksumDigest newDigest() {
+            return new Crc32cDigest();
+        }
+    },
+    SHA256("sha256") {
+        @Override
+        public ChecksumDigest newDigest() {
+            return new Sha256Digest();
+        }
+    },
+    SHA256_TREE("sha256-tree") {
+        @Override
+        public ChecksumDigest newDigest() {
+            return new Sha256TreeDigest();
+        }
+    },
+    XXH64("xxh64") {
+        @Override
+        public ChecksumDigest newDigest() {
+            return new Xxh64Digest();
+        }
+    };
+
+    /**
+     * @throws IllegalArgumentException if the Algorithm is unknown
+     */
+    public static ChecksumAlgorithm fromName(final String name) {
+        for (final ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.getName().equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+
+        throw new IllegalArgumentException("unknown checksum algorithm: " + name);
+    }
+
+    public static List<String> getNames() {
+        return Arrays.stream(values()).map(ChecksumAlgorithm::getName).toList();
+    }
+
+    private final String name;
+
+    ChecksumAlgorithm(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract ChecksumDigest newDigest();
+}
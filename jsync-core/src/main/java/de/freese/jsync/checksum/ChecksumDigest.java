@@ -0,0 +1,29 @@
+// Created: 18.10.2026
+package de.freese.jsync.checksum;
+
+import java.nio.ByteBuffer;
+
+import de.freese.jsync.utils.JSyncUtils;
+
+/**
+ * Incremental Calculation of a Checksum, see {@link ChecksumAlgorithm#newDigest()}.<br>
+ * An Instance is not thread-safe and can only be used for one Checksum.
+ *
+ * @author Thomas Freese
+ */
+public interface ChecksumDigest {
+    /**
+     * The raw Bytes of the Checksum.
+     */
+    byte[] digest();
+
+    default String digestAsHex() {
+        return JSyncUtils.bytesToHex(digest());
+    }
+
+    /**
+     * Updates the Checksum with the Bytes from the Position to the Limit.<br>
+     * The Position of the {@link ByteBuffer} is unchanged.
+     */
+    void update(ByteBuffer buffer);
+}
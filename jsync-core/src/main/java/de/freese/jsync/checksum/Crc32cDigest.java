@@ -0,0 +1,28 @@
+// Created: 18.10.2026
+package de.freese.jsync.checksum;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * CRC32C with the JDK-Intrinsic (SSE4.2 / ARMv8 CRC), the Checksum has 4 Bytes.
+ *
+ * @author Thomas Freese
+ */
+final class Crc32cDigest implements ChecksumDigest {
+    private final CRC32C crc = new CRC32C();
+
+    @Override
+    public byte[] digest() {
+        return ByteBuffer.allocate(4).putInt((int) crc.getValue()).array();
+    }
+
+    @Override
+    public void update(final ByteBuffer buffer) {
+        final int position = buffer.position();
+
+        crc.update(buffer);
+
+        buffer.position(position);
+    }
+}
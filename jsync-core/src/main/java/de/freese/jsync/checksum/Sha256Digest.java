@@ -0,0 +1,26 @@
+// Created: 18.10.2026
+package de.freese.jsync.checksum;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+import de.freese.jsync.utils.DigestUtils;
+
+/**
+ * SHA-256 of the {@link MessageDigest}, the Checksum has 32 Bytes.
+ *
+ * @author Thomas Freese
+ */
+final class Sha256Digest implements ChecksumDigest {
+    private final MessageDigest messageDigest = DigestUtils.createSha256Digest();
+
+    @Override
+    public byte[] digest() {
+        return messageDigest.digest();
+    }
+
+    @Override
+    public void update(final ByteBuffer buffer) {
+        DigestUtils.digest(messageDigest, buffer);
+    }
+}
@@ -0,0 +1,207 @@
+// Created: 18.10.2026
+package de.freese.jsync.checksum;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+import de.freese.jsync.utils.DigestUtils;
+
+/**
+ * Merkle-Tree of SHA-256 over Chunks with {@link #CHUNK_SIZE}, the Checksum has 32 Bytes.<br>
+ * Leaf: SHA-256(0x00 + Chunk), Node: SHA-256(0x01 + Left + Right), an odd Node is taken to the next Level.<br>
+ * The Chunks of a File are independent, see {@link #digest(FileChannel, LongConsumer)}.
+ *
+ * @author Thomas Freese
+ */
+public final class Sha256TreeDigest implements ChecksumDigest {
+    /**
+     * Default: 16 MB
+     */
+    public static final int CHUNK_SIZE = 1024 * 1024 * 16;
+
+    private static final byte LEAF = 0x00;
+    private static final byte NODE = 0x01;
+    /**
+     * The mapped Regions are read blocking by Page-Faults, this must not starve the common ForkJoin-Pool.
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("checksum-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+
+        return thread;
+    }, null, false);
+
+    /**
+     * Hashes the Chunks of the File parallel by memory-mapped Regions in an own ForkJoin-Pool.<br>
+     * The Result is the same as with {@link ChecksumAlgorithm#newDigest()}.
+     *
+     * @param consumerBytesRead {@link LongConsumer}; optional, is called after every Chunk with increasing Values
+     */
+    public static byte[] digest(final FileChannel fileChannel, final LongConsumer consumerBytesRead) throws IOException {
+        final long size = fileChannel.size();
+
+        if (consumerBytesRead != null) {
+            consumerBytesRead.accept(0);
+        }
+
+        if (size == 0L) {
+            return root(List.of(newLeafDigest().digest()));
+        }
+
+        final int chunkCount = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final AtomicLong bytesRead = new AtomicLong(0L);
+
+        final Callable<List<byte[]>> task = () -> IntStream.range(0, chunkCount).parallel().mapToObj(chunk -> {
+            final long position = (long) chunk * CHUNK_SIZE;
+            final long length = Math.min(CHUNK_SIZE, size - position);
+
+            final byte[] leaf = digestChunk(fileChannel, position, length);
+
+            // Sum and Report under the same Lock, so the Progress can not go backwards.
+            synchronized (bytesRead) {
+                final long read = bytesRead.addAndGet(length);
+
+                if (consumerBytesRead != null) {
+                    consumerBytesRead.accept(read);
+                }
+            }
+
+            return leaf;
+        }).toList();
+
+        final ForkJoinTask<List<byte[]>> future = POOL.submit(task);
+
+        try {
+            return root(future.get());
+        }
+        catch (final InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException uioex) {
+                throw uioex.getCause();
+            }
+
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private static byte[] digestChunk(final FileChannel fileChannel, final long position, final long length) {
+        final MessageDigest messageDigest = newLeafDigest();
+
+        // The Arena unmaps the Region immediately, not first by the GC.
+        try (Arena arena = Arena.ofConfined()) {
+            final MemorySegment segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length, arena);
+
+            messageDigest.update(segment.asByteBuffer());
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return messageDigest.digest();
+    }
+
+    private static MessageDigest newLeafDigest() {
+        final MessageDigest messageDigest = DigestUtils.createSha256Digest();
+        messageDigest.update(LEAF);
+
+        return messageDigest;
+    }
+
+    private static byte[] root(final List<byte[]> leaves) {
+        List<byte[]> level = leaves;
+
+        while (level.size() > 1) {
+            final List<byte[]> nextLevel = new ArrayList<>((level.size() + 1) / 2);
+
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 == level.size()) {
+                    nextLevel.add(level.get(i));
+                    continue;
+                }
+
+                final MessageDigest messageDigest = DigestUtils.createSha256Digest();
+                messageDigest.update(NODE);
+                messageDigest.update(level.get(i));
+                messageDigest.update(level.get(i + 1));
+
+                nextLevel.add(messageDigest.digest());
+            }
+
+            level = nextLevel;
+        }
+
+        return level.getFirst();
+    }
+
+    private final List<byte[]> leaves = new ArrayList<>();
+
+    private MessageDigest chunkDigest = newLeafDigest();
+    private int chunkLength;
+
+    Sha256TreeDigest() {
+        super();
+    }
+
+    @Override
+    public byte[] digest() {
+        if (chunkLength > 0 || leaves.isEmpty()) {
+            leaves.add(chunkDigest.digest());
+        }
+
+        final byte[] digest = root(leaves);
+
+        leaves.clear();
+        chunkDigest = newLeafDigest();
+        chunkLength = 0;
+
+        return digest;
+    }
+
+    @Override
+    public void update(final ByteBuffer buffer) {
+        final int position = buffer.position();
+        final int limit = buffer.limit();
+
+        int current = position;
+
+        while (current < limit) {
+            final int length = Math.min(CHUNK_SIZE - chunkLength, limit - current);
+
+            buffer.limit(current + length).position(current);
+            chunkDigest.update(buffer);
+
+            current += length;
+            chunkLength += length;
+
+            if (chunkLength == CHUNK_SIZE) {
+                leaves.add(chunkDigest.digest());
+                chunkDigest = newLeafDigest();
+                chunkLength = 0;
+            }
+        }
+
+        buffer.limit(limit).position(position);
+    }
+}
@@ -0,0 +1,125 @@
+// Created: 18.10.2026
+package de.freese.jsync.checksum;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * XXH64 (Seed 0) in pure Java, the Checksum has 8 Bytes.<br>
+ * The Input is processed in Stripes of 32 Bytes, the Rest is buffered until the next Update.<br>
+ * See <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">xxHash-Specification</a>
+ *
+ * @author Thomas Freese
+ */
+final class Xxh64Digest implements ChecksumDigest {
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE_SIZE = 32;
+
+    private static long mergeRound(final long acc, final long value) {
+        final long result = acc ^ round(0L, value);
+
+        return result * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long round(final long acc, final long input) {
+        final long result = acc + input * PRIME64_2;
+
+        return Long.rotateLeft(result, 31) * PRIME64_1;
+    }
+
+    /**
+     * Rest of the last Update, smaller than a Stripe.
+     */
+    private final ByteBuffer memory = ByteBuffer.allocate(STRIPE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long totalLength;
+    private long v1 = PRIME64_1 + PRIME64_2;
+    private long v2 = PRIME64_2;
+    private long v3;
+    private long v4 = -PRIME64_1;
+
+    @Override
+    public byte[] digest() {
+        long hash;
+
+        if (totalLength >= STRIPE_SIZE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME64_5;
+        }
+
+        hash += totalLength;
+
+        memory.flip();
+
+        while (memory.remaining() >= 8) {
+            hash ^= round(0L, memory.getLong());
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+        }
+
+        if (memory.remaining() >= 4) {
+            hash ^= (memory.getInt() & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+        }
+
+        while (memory.hasRemaining()) {
+            hash ^= (memory.get() & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+        }
+
+        memory.clear();
+
+        // Avalanche
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        return ByteBuffer.allocate(8).putLong(hash).array();
+    }
+
+    @Override
+    public void update(final ByteBuffer buffer) {
+        final ByteBuffer input = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        totalLength += input.remaining();
+
+        if (memory.position() > 0) {
+            // Complete the Stripe of the last Update.
+            final int length = Math.min(memory.remaining(), input.remaining());
+            memory.put(memory.position(), input, input.position(), length);
+            memory.position(memory.position() + length);
+            input.position(input.position() + length);
+
+            if (memory.hasRemaining()) {
+                return;
+            }
+
+            memory.flip();
+            processStripe(memory);
+            memory.clear();
+        }
+
+        while (input.remaining() >= STRIPE_SIZE) {
+            processStripe(input);
+        }
+
+        memory.put(input);
+    }
+
+    private void processStripe(final ByteBuffer input) {
+        v1 = round(v1, input.getLong());
+        v2 = round(v2, input.getLong());
+        v3 = round(v3, input.getLong());
+        v4 = round(v4, input.getLong());
+    }
+}
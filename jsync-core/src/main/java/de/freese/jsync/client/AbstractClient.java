@@ -1,36 +1,70 @@
 // Created: 05.04.2018
 package de.freese.jsync.client;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import de.freese.jsync.Options;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
 import de.freese.jsync.client.listener.ClientListener;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.compression.CompressionStatistics;
 import de.freese.jsync.filesystem.EFileSystem;
 import de.freese.jsync.filesystem.FileSystem;
 import de.freese.jsync.filesystem.FileSystemFactory;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filesystem.Sender;
+import de.freese.jsync.filesystem.local.LocalFileTransfer;
+import de.freese.jsync.filesystem.local.LocalhostReceiver;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.model.SyncItemStore;
 import de.freese.jsync.model.SyncPair;
 import de.freese.jsync.model.SyncStatus;
 import de.freese.jsync.utils.JSyncUtils;
+import de.freese.jsync.utils.ReactiveUtils;
+import de.freese.jsync.utils.bandwidth.TokenBucket;
 
 /**
  * @author Thomas Freese
  */
 public abstract class AbstractClient implements Client {
+    /**
+     * Shared by the parallel Copies, null without {@link Options#getBandwidthLimit()}.
+     */
+    private final TokenBucket bandwidthLimiter;
+    private ChecksumAlgorithm checksumAlgorithm;
+    private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+    private final boolean localTransfer;
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Path manifestFile;
+    private final SyncItemStore manifestReceiverItems = new SyncItemStore();
+    private final SyncItemStore manifestSenderItems = new SyncItemStore();
     private final Options options;
     private final Receiver receiver;
     private final String receiverPath;
@@ -39,6 +73,12 @@ public abstract class AbstractClient implements Client {
     private final String senderPath;
     private final URI senderUri;
 
+    private SyncManifest manifest;
+    /**
+     * Partial Files of interrupted Transfers in the Listing of the Receiver, set by {@link #copyFiles(List, ClientListener)}.
+     */
+    private Map<String, SyncItem> partialFiles = Map.of();
+
     protected AbstractClient(final Options options, final URI senderUri, final URI receiverUri) {
         super();
 
@@ -51,12 +91,45 @@ public abstract class AbstractClient implements Client {
 
         sender = FileSystemFactory.getInstance().createSender(senderUri);
         receiver = FileSystemFactory.getInstance().createReceiver(receiverUri);
+
+        // The Zero-Copy of local Files can not be paced.
+        localTransfer = options.getBandwidthLimit() == 0L && LocalFileTransfer.isLocal(senderUri, receiverUri);
+        bandwidthLimiter = options.getBandwidthLimit() > 0L ? new TokenBucket(options.getBandwidthLimit(), Options.PACING_SLICE_SIZE) : null;
+        checksumAlgorithm = options.getChecksumAlgorithm();
+        manifestFile = options.isManifest() ? SyncManifest.getManifestFile(senderUri, receiverUri) : null;
+
+        if (!CompressionCodecs.isNone(options.getCompressionCodec())) {
+            sender.setCompression(options.getCompressionCodec(), options.getCompressionLevel(), compressionStatistics);
+            receiver.setCompression(options.getCompressionCodec(), options.getCompressionLevel(), compressionStatistics);
+        }
     }
 
+    /**
+     * Sender and Receiver must support the configured {@link ChecksumAlgorithm}, otherwise SHA-256 is used.<br>
+     * With {@link Options#isManifest()} the {@link SyncManifest} of the last Synchronisation is loaded, if it is still valid.
+     */
     @Override
     public void connectFileSystems() {
         getSender().connect(getSenderUri());
         getReceiver().connect(getReceiverUri());
+
+        final ChecksumAlgorithm algorithm = getOptions().getChecksumAlgorithm();
+
+        if (getSender().isChecksumAlgorithmSupported(algorithm) && getReceiver().isChecksumAlgorithmSupported(algorithm)) {
+            checksumAlgorithm = algorithm;
+        } else {
+            getLogger().warn("checksum algorithm '{}' is not supported by the servers, using '{}'", algorithm.getName(), ChecksumAlgorithm.SHA256.getName());
+            checksumAlgorithm = ChecksumAlgorithm.SHA256;
+        }
+
+        if (manifestFile != null) {
+            manifest = SyncManifest.load(manifestFile);
+
+            if (manifest != null && !manifest.isUpToDate(getReceiver(), getReceiverPath())) {
+                getLogger().info("manifest is outdated, the receiver is listed: {}", manifestFile);
+                manifest = null;
+            }
+        }
     }
 
     @Override
@@ -65,12 +138,19 @@ public abstract class AbstractClient implements Client {
         getReceiver().disconnect();
     }
 
+    /**
+     * The Checksum of an Item of the {@link SyncManifest} is not calculated again.
+     */
     @Override
     public String generateChecksum(final EFileSystem fileSystem, final SyncItem syncItem, final LongConsumer consumerChecksumBytesRead) {
         if (!getOptions().isChecksum() || !syncItem.isFile()) {
             return null;
         }
 
+        if (syncItem.getChecksum() != null) {
+            return syncItem.getChecksum();
+        }
+
         FileSystem fs = null;
         String baseDir = null;
 
@@ -82,23 +162,50 @@ public abstract class AbstractClient implements Client {
             baseDir = getReceiverPath();
         }
 
-        return fs.generateChecksum(baseDir, syncItem.getRelativePath(), consumerChecksumBytesRead);
+        return fs.generateChecksum(baseDir, syncItem.getRelativePath(), getChecksumAlgorithm(), consumerChecksumBytesRead);
     }
 
+    /**
+     * With a valid {@link SyncManifest} the Receiver is not listed, the Items of the Manifest are used.<br>
+     * The Sender is always listed.
+     */
     @Override
     public Flux<SyncItem> generateSyncItems(final EFileSystem fileSystem, final PathFilter pathFilter) {
         FileSystem fs = null;
         String baseDir = null;
+        SyncItemStore manifestItems = null;
 
         if (EFileSystem.SENDER.equals(fileSystem)) {
             fs = getSender();
             baseDir = getSenderPath();
+            manifestItems = manifestSenderItems;
         } else {
             fs = getReceiver();
             baseDir = getReceiverPath();
+            manifestItems = manifestReceiverItems;
+        }
+
+        final Flux<SyncItem> syncItems;
+
+        if (EFileSystem.RECEIVER.equals(fileSystem) && manifest != null) {
+            getLogger().info("use manifest for the receiver: {} items", manifest.size());
+
+            syncItems = Flux.fromIterable(manifest.createSyncItems(getOptions().isChecksum() ? getChecksumAlgorithm() : null));
+        } else {
+            syncItems = fs.generateSyncItems(baseDir, getOptions().isFollowSymLinks(), getOptions().getWalkerParallelism(), pathFilter);
+        }
+
+        if (manifestFile == null || getOptions().isDryRun()) {
+            return syncItems.doOnError(ex -> getLogger().error(ex.getMessage(), ex));
         }
 
-        return fs.generateSyncItems(baseDir, getOptions().isFollowSymLinks(), pathFilter)
+        manifestItems.clear();
+
+        // The Items are held as Flyweights of the Store, the Checksum set by the Caller is written into the Store.
+        final SyncItemStore store = manifestItems;
+
+        return syncItems
+                .map(store::append)
                 .doOnError(ex -> getLogger().error(ex.getMessage(), ex))
                 ;
     }
@@ -113,12 +220,63 @@ public abstract class AbstractClient implements Client {
 
         final long sizeOfFile = syncItem.getSize();
 
+        // The Receiver compares the Checksum with the Digest of the written Bytes.
+        final String checksum = getOptions().isChecksum() ? syncItem.getChecksum() : null;
+
         try {
-            final Flux<ByteBuffer> fileList = getSender().readFile(getSenderPath(), syncItem.getRelativePath(), sizeOfFile);
+            final long position = getResumePosition(syncItem);
+
+            Flux<ByteBuffer> fileList = getSender().readFile(getSenderPath(), syncItem.getRelativePath(), position, sizeOfFile);
+
+            if (bandwidthLimiter != null) {
+                fileList = ReactiveUtils.pace(fileList, bandwidthLimiter, Options.PACING_SLICE_SIZE);
+            }
+
+            final AtomicLong bytesTransferred = new AtomicLong(position);
+
+            getReceiver().writeFile(getReceiverPath(), syncItem.getRelativePath(), position, sizeOfFile, getChecksumAlgorithm(), checksum, getOptions().getDurability(), fileList)
+                    .doOnNext(bytesWritten -> {
+                        getLogger().debug("CHUNK_COMPLETED: bytesWritten = {}", bytesWritten);
+
+                        final long writtenBytesSum = bytesTransferred.addAndGet(bytesWritten);
+                        clientListener.copyProgress(getOptions(), syncItem, writtenBytesSum);
+                    }).blockLast();
+        }
+        catch (final Exception ex) {
+            clientListener.error(ex.getMessage(), ex);
+
+            return;
+        }
+
+        validateFile(syncItem, clientListener, getOptions().isChecksum() && checksum == null);
+    }
+
+    /**
+     * Überträgt nur die Unterschiede zur vorhandenen Datei des Empfängers, siehe {@link de.freese.jsync.delta.DeltaUtils}.
+     */
+    protected void copyFileDelta(final SyncItem syncItem, final ClientListener clientListener) {
+        clientListener.copyProgress(getOptions(), syncItem, 0);
+
+        if (getOptions().isDryRun()) {
+            clientListener.copyProgress(getOptions(), syncItem, syncItem.getSize());
+            return;
+        }
+
+        final long sizeOfFile = syncItem.getSize();
+
+        try {
+            final FileSignature signature = getReceiver().generateSignature(getReceiverPath(), syncItem.getRelativePath());
+
+            Flux<ByteBuffer> deltaFlux = getSender().readDelta(getSenderPath(), syncItem.getRelativePath(), sizeOfFile, signature);
+
+            if (bandwidthLimiter != null) {
+                // The Instructions must not be split.
+                deltaFlux = ReactiveUtils.pace(deltaFlux, bandwidthLimiter);
+            }
 
             final AtomicLong bytesTransferred = new AtomicLong(0L);
 
-            getReceiver().writeFile(getReceiverPath(), syncItem.getRelativePath(), sizeOfFile, fileList)
+            getReceiver().patchFile(getReceiverPath(), syncItem.getRelativePath(), sizeOfFile, signature.getBlockSize(), deltaFlux)
                     .doOnNext(bytesWritten -> {
                         getLogger().debug("CHUNK_COMPLETED: bytesWritten = {}", bytesWritten);
 
@@ -132,36 +290,72 @@ public abstract class AbstractClient implements Client {
             return;
         }
 
+        validateFile(syncItem, clientListener);
+    }
+
+    /**
+     * Zero-Copy for Sender and Receiver on the local Filesystem, see {@link LocalFileTransfer}.
+     */
+    protected void copyFileLocal(final SyncItem syncItem, final ClientListener clientListener) {
+        clientListener.copyProgress(getOptions(), syncItem, 0);
+
+        if (getOptions().isDryRun()) {
+            clientListener.copyProgress(getOptions(), syncItem, syncItem.getSize());
+            return;
+        }
+
         try {
-            // Datei überprüfen.
-            clientListener.validate(getOptions(), syncItem);
-            getReceiver().validateFile(getReceiverPath(), syncItem, getOptions().isChecksum(), bytesRead -> clientListener.checksumProgress(getOptions(), syncItem, bytesRead));
+            final AtomicLong bytesTransferred = new AtomicLong(0L);
+
+            LocalFileTransfer.transfer(Paths.get(getSenderPath(), syncItem.getRelativePath()), Paths.get(getReceiverPath(), syncItem.getRelativePath()))
+                    .doOnNext(bytesWritten -> {
+                        getLogger().debug("CHUNK_COMPLETED: bytesWritten = {}", bytesWritten);
+
+                        final long writtenBytesSum = bytesTransferred.addAndGet(bytesWritten);
+                        clientListener.copyProgress(getOptions(), syncItem, writtenBytesSum);
+                    }).blockLast();
         }
         catch (final Exception ex) {
             clientListener.error(ex.getMessage(), ex);
+
+            return;
         }
+
+        validateFile(syncItem, clientListener);
     }
 
     protected void copyFiles(final List<SyncPair> syncPairs, final ClientListener clientListener) {
-        final Predicate<SyncPair> isExisting = p -> p.getSenderItem() != null;
-        final Predicate<SyncPair> isFile = p -> p.getSenderItem().isFile();
-        final Predicate<SyncPair> isOnlyInSource = p -> SyncStatus.ONLY_IN_SOURCE.equals(p.getStatus());
-        final Predicate<SyncPair> isDifferentTimestamp = p -> SyncStatus.DIFFERENT_LAST_MODIFIEDTIME.equals(p.getStatus());
-        final Predicate<SyncPair> isDifferentSize = p -> SyncStatus.DIFFERENT_SIZE.equals(p.getStatus());
-        final Predicate<SyncPair> isDifferentChecksum = p -> SyncStatus.DIFFERENT_CHECKSUM.equals(p.getStatus());
-
-        final Predicate<SyncPair> filter = isExisting
-                .and(isFile)
-                .and(isOnlyInSource
-                        .or(isDifferentTimestamp)
-                        .or(isDifferentSize)
-                        .or(isDifferentChecksum)
-                );
+        final Predicate<SyncPair> filter = createCopyFilter();
+
+        // Only the Files with a partial File in the Receiver are asked for their ResumePoint.
+        partialFiles = syncPairs.stream()
+                .map(SyncPair::getReceiverItem)
+                .filter(item -> item != null && item.isFile() && item.getRelativePath().endsWith(LocalhostReceiver.TEMP_FILE_SUFFIX))
+                .collect(Collectors.toMap(SyncItem::getRelativePath, Function.identity()));
+
+        final long rawBytes = compressionStatistics.getRawBytes();
+        final long compressedBytes = compressionStatistics.getCompressedBytes();
+
+        if (!getOptions().isParallel()) {
+            syncPairs.stream()
+                    .filter(filter)
+                    .forEach(pair -> copyFile(pair, clientListener))
+            ;
+        } else {
+            // Mehrere Dateien gleichzeitig kopieren, begrenzt durch Anzahl der Dateien und Summe der Bytes.
+            // Die Methode blockiert bis alle Dateien kopiert sind, die Reihenfolge delete -> copy -> update -> mkdir bleibt erhalten.
+            final InFlightBytesLimiter bytesLimiter = new InFlightBytesLimiter(getOptions().getMaxInFlightBytes());
+
+            Flux.fromStream(syncPairs.stream().filter(filter))
+                    .flatMap(pair -> Mono.<Void>fromRunnable(() -> copyFile(pair, clientListener, bytesLimiter))
+                            .subscribeOn(Schedulers.boundedElastic()), getOptions().getMaxInFlightFiles())
+                    .blockLast()
+            ;
+        }
 
-        syncPairs.stream()
-                .filter(filter)
-                .forEach(pair -> copyFile(pair.getSenderItem(), clientListener))
-        ;
+        if (compressionStatistics.getRawBytes() > rawBytes) {
+            clientListener.compression(getOptions(), compressionStatistics.getRawBytes() - rawBytes, compressionStatistics.getCompressedBytes() - compressedBytes);
+        }
     }
 
     protected void createDirectories(final List<SyncPair> syncPairs, final ClientListener clientListener) {
@@ -175,38 +369,14 @@ public abstract class AbstractClient implements Client {
                 .and(isOnlyInTarget)
                 .and(isEmpty);
 
+        final ReceiverBatcher batcher = createBatcher(clientListener);
+
         syncPairs.stream()
                 .filter(filter)
-                .forEach(pair -> createDirectory(pair.getSenderItem(), clientListener))
+                .forEach(pair -> createDirectory(pair.getSenderItem(), batcher))
         ;
-    }
-
-    protected void createDirectory(final SyncItem syncItem, final ClientListener clientListener) {
-        if (getOptions().isDryRun()) {
-            return;
-        }
 
-        try {
-            getReceiver().createDirectory(getReceiverPath(), syncItem.getRelativePath());
-        }
-        catch (final Exception ex) {
-            clientListener.error(ex.getMessage(), ex);
-        }
-    }
-
-    protected void delete(final SyncItem syncItem, final ClientListener clientListener) {
-        clientListener.delete(getOptions(), syncItem);
-
-        if (getOptions().isDryRun()) {
-            return;
-        }
-
-        try {
-            getReceiver().delete(getReceiverPath(), syncItem.getRelativePath(), getOptions().isFollowSymLinks());
-        }
-        catch (final Exception ex) {
-            clientListener.error(ex.getMessage(), ex);
-        }
+        batcher.flush();
     }
 
     protected void deleteDirectories(final List<SyncPair> syncPairs, final ClientListener clientListener) {
@@ -218,10 +388,14 @@ public abstract class AbstractClient implements Client {
                 .and(isDirectory)
                 .and(isOnlyInTarget);
 
+        final ReceiverBatcher batcher = createBatcher(clientListener);
+
         syncPairs.stream()
                 .filter(filter)
-                .forEach(pair -> delete(pair.getReceiverItem(), clientListener))
+                .forEach(pair -> delete(pair.getReceiverItem(), clientListener, batcher))
         ;
+
+        batcher.flush();
     }
 
     protected void deleteFiles(final List<SyncPair> syncPairs, final ClientListener clientListener) {
@@ -229,14 +403,49 @@ public abstract class AbstractClient implements Client {
         final Predicate<SyncPair> isFile = p -> p.getReceiverItem().isFile();
         final Predicate<SyncPair> isOnlyInTarget = p -> SyncStatus.ONLY_IN_TARGET.equals(p.getStatus());
 
+        // The partial Files of the Files to copy are kept for a Resume, the others are stale.
+        final Set<String> resumableFiles = syncPairs.stream()
+                .filter(createCopyFilter())
+                .map(pair -> LocalhostReceiver.getTempFile(pair.getSenderItem().getRelativePath()))
+                .collect(Collectors.toSet());
+        final Predicate<SyncPair> isResumable = p -> resumableFiles.contains(p.getReceiverItem().getRelativePath());
+
         final Predicate<SyncPair> filter = isExisting
                 .and(isFile)
-                .and(isOnlyInTarget);
+                .and(isOnlyInTarget)
+                .and(isResumable.negate());
+
+        final ReceiverBatcher batcher = createBatcher(clientListener);
 
         syncPairs.stream()
                 .filter(filter)
-                .forEach(pair -> delete(pair.getReceiverItem(), clientListener))
+                .forEach(pair -> delete(pair.getReceiverItem(), clientListener, batcher))
         ;
+
+        batcher.flush();
+    }
+
+    /**
+     * An interrupted Synchronisation must not leave a valid {@link SyncManifest}.
+     */
+    protected void deleteManifest() {
+        if (manifestFile == null || getOptions().isDryRun()) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(manifestFile);
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The negotiated Algorithm, see {@link #connectFileSystems()}.
+     */
+    protected ChecksumAlgorithm getChecksumAlgorithm() {
+        return checksumAlgorithm;
     }
 
     protected Logger getLogger() {
@@ -259,6 +468,46 @@ public abstract class AbstractClient implements Client {
         return receiverUri;
     }
 
+    /**
+     * The Position of the partial File of an interrupted Transfer, if the last Chunk is equal to the File of the Sender.<br>
+     * Only Files bigger than a {@link ResumePoint#CHUNK_SIZE} can be resumed.<br>
+     * The Receiver is only asked, if its Listing contains a partial File, which is not older than the File of the Sender.
+     */
+    protected long getResumePosition(final SyncItem syncItem) {
+        if (syncItem.getSize() <= ResumePoint.CHUNK_SIZE) {
+            return 0L;
+        }
+
+        final SyncItem partialFile = partialFiles.get(LocalhostReceiver.getTempFile(syncItem.getRelativePath()));
+
+        if (partialFile == null) {
+            return 0L;
+        }
+
+        if (partialFile.getLastModifiedTime() < syncItem.getLastModifiedTime()) {
+            // The File of the Sender was changed after the interrupted Transfer, the Prefix is outdated.
+            // Without Checksum only the last Chunk of the Prefix would be compared.
+            return 0L;
+        }
+
+        final ResumePoint resumePoint = getReceiver().getResumePoint(getReceiverPath(), syncItem.getRelativePath(), getChecksumAlgorithm());
+
+        if (!resumePoint.isResumable() || resumePoint.position() > syncItem.getSize()) {
+            return 0L;
+        }
+
+        final String checksum = getSender().generateChunkChecksum(getSenderPath(), syncItem.getRelativePath(), resumePoint.position() - ResumePoint.CHUNK_SIZE,
+                ResumePoint.CHUNK_SIZE, getChecksumAlgorithm());
+
+        if (!resumePoint.checksum().equals(checksum)) {
+            return 0L;
+        }
+
+        getLogger().info("resume transfer: {}, position={}", syncItem.getRelativePath(), resumePoint.position());
+
+        return resumePoint.position();
+    }
+
     protected Sender getSender() {
         return sender;
     }
@@ -271,15 +520,83 @@ public abstract class AbstractClient implements Client {
         return senderUri;
     }
 
-    protected void update(final SyncItem syncItem, final ClientListener clientListener) {
-        clientListener.update(getOptions(), syncItem);
-
-        if (getOptions().isDryRun()) {
+    /**
+     * Saves the State of the Receiver after a successful Synchronisation as {@link SyncManifest}.<br>
+     * The Items of the Sender are now on the Receiver, without {@link Options#isDelete()} also the Items only existing in the Receiver.<br>
+     * The Directories get the real Modification-Time of the Receiver, so a changed Directory is detected like by a Listing.
+     */
+    protected void saveManifest() {
+        if (manifestFile == null || getOptions().isDryRun()) {
             return;
         }
 
+        // Merge-Join of the sorted Items, like DefaultClient#mergeSyncItems(Flux, Flux).
+        final SyncItemStore items = new SyncItemStore();
+        final Map<String, SyncItem> senderDirectories = new HashMap<>();
+        int receiverIndex = 0;
+
+        for (final SyncItem senderItem : manifestSenderItems) {
+            final String senderPath = senderItem.getRelativePath();
+
+            while (receiverIndex < manifestReceiverItems.size()) {
+                final SyncItem receiverItem = manifestReceiverItems.get(receiverIndex);
+                final int comparison = receiverItem.getRelativePath().compareTo(senderPath);
+
+                if (comparison > 0) {
+                    break;
+                }
+
+                if (comparison < 0) {
+                    addReceiverOnly(items, senderDirectories, receiverItem);
+                }
+
+                receiverIndex++;
+            }
+
+            final SyncItem syncItem = items.append(senderItem);
+
+            if (syncItem.isDirectory()) {
+                senderDirectories.put(senderPath, syncItem);
+            }
+        }
+
+        for (; receiverIndex < manifestReceiverItems.size(); receiverIndex++) {
+            addReceiverOnly(items, senderDirectories, manifestReceiverItems.get(receiverIndex));
+        }
+
+        items.trimToSize();
+
         try {
-            getReceiver().update(getReceiverPath(), syncItem);
+            final long[] directoryTimes = SyncManifest.getModificationTimes(getReceiver(), getReceiverPath(), SyncManifest.getDirectories(items));
+
+            int directoryIndex = 1;
+
+            for (final SyncItem syncItem : items) {
+                if (syncItem.isDirectory()) {
+                    syncItem.setLastModifiedTime(TimeUnit.MILLISECONDS.toSeconds(directoryTimes[directoryIndex++]));
+                }
+            }
+
+            new SyncManifest(items, getOptions().isChecksum() ? getChecksumAlgorithm() : null, directoryTimes).save(manifestFile);
+        }
+        catch (final Exception ex) {
+            // Without Manifest the next Synchronisation lists the Receiver.
+            getLogger().warn("can not save manifest: {}", manifestFile, ex);
+        }
+    }
+
+    protected void validateFile(final SyncItem syncItem, final ClientListener clientListener) {
+        validateFile(syncItem, clientListener, getOptions().isChecksum());
+    }
+
+    /**
+     * @param withChecksum boolean; false if the Checksum was already compared while writing the File
+     */
+    protected void validateFile(final SyncItem syncItem, final ClientListener clientListener, final boolean withChecksum) {
+        try {
+            // Datei überprüfen.
+            clientListener.validate(getOptions(), syncItem);
+            getReceiver().validateFile(getReceiverPath(), syncItem, withChecksum ? getChecksumAlgorithm() : null, bytesRead -> clientListener.checksumProgress(getOptions(), syncItem, bytesRead));
         }
         catch (final Exception ex) {
             clientListener.error(ex.getMessage(), ex);
@@ -298,10 +615,14 @@ public abstract class AbstractClient implements Client {
                         .or(isDifferentTimestamp)
                 );
 
+        final ReceiverBatcher batcher = createBatcher(clientListener);
+
         syncPairs.stream()
                 .filter(filter)
-                .forEach(pair -> update(pair.getSenderItem(), clientListener))
+                .forEach(pair -> update(pair.getSenderItem(), clientListener, batcher))
         ;
+
+        batcher.flush();
     }
 
     protected void updateFiles(final List<SyncPair> syncPairs, final ClientListener clientListener) {
@@ -316,9 +637,128 @@ public abstract class AbstractClient implements Client {
                         .or(isDifferentTimestamp)
                 );
 
+        final ReceiverBatcher batcher = createBatcher(clientListener);
+
         syncPairs.stream()
                 .filter(filter)
-                .forEach(pair -> update(pair.getSenderItem(), clientListener))
+                .forEach(pair -> update(pair.getSenderItem(), clientListener, batcher))
         ;
+
+        batcher.flush();
+    }
+
+    /**
+     * Without {@link Options#isDelete()} the Item stays on the Receiver, the Directory of the Sender has then one Entry more.
+     */
+    private void addReceiverOnly(final SyncItemStore items, final Map<String, SyncItem> senderDirectories, final SyncItem receiverItem) {
+        if (getOptions().isDelete()) {
+            return;
+        }
+
+        final SyncItem parent = senderDirectories.get(getParentPath(receiverItem.getRelativePath()));
+
+        if (parent != null) {
+            parent.setSize(parent.getSize() + 1);
+        }
+
+        items.append(receiverItem);
+    }
+
+    /**
+     * Local Files are copied with Zero-Copy, the Delta-Transfer is not worth it here.<br>
+     * With {@link Options#isDelta()} only the Difference to an existing File of the Receiver is transferred.
+     */
+    private void copyFile(final SyncPair syncPair, final ClientListener clientListener) {
+        final SyncItem receiverItem = syncPair.getReceiverItem();
+
+        if (localTransfer) {
+            copyFileLocal(syncPair.getSenderItem(), clientListener);
+        } else if (getOptions().isDelta() && receiverItem != null && receiverItem.isFile() && receiverItem.getSize() > 0L) {
+            copyFileDelta(syncPair.getSenderItem(), clientListener);
+        } else {
+            copyFile(syncPair.getSenderItem(), clientListener);
+        }
+    }
+
+    private void copyFile(final SyncPair syncPair, final ClientListener clientListener, final InFlightBytesLimiter bytesLimiter) {
+        final long sizeOfFile = syncPair.getSenderItem().getSize();
+
+        try {
+            bytesLimiter.acquire(sizeOfFile);
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            clientListener.error(ex.getMessage(), ex);
+
+            return;
+        }
+
+        try {
+            copyFile(syncPair, clientListener);
+        }
+        finally {
+            bytesLimiter.release(sizeOfFile);
+        }
+    }
+
+    private ReceiverBatcher createBatcher(final ClientListener clientListener) {
+        return new ReceiverBatcher(getReceiver(), getReceiverPath(), clientListener);
+    }
+
+    /**
+     * The Files of the Sender, which are missing or different in the Receiver.
+     */
+    private Predicate<SyncPair> createCopyFilter() {
+        final Predicate<SyncPair> isExisting = p -> p.getSenderItem() != null;
+        final Predicate<SyncPair> isFile = p -> p.getSenderItem().isFile();
+        final Predicate<SyncPair> isOnlyInSource = p -> SyncStatus.ONLY_IN_SOURCE.equals(p.getStatus());
+        final Predicate<SyncPair> isDifferentTimestamp = p -> SyncStatus.DIFFERENT_LAST_MODIFIEDTIME.equals(p.getStatus());
+        final Predicate<SyncPair> isDifferentSize = p -> SyncStatus.DIFFERENT_SIZE.equals(p.getStatus());
+        final Predicate<SyncPair> isDifferentChecksum = p -> SyncStatus.DIFFERENT_CHECKSUM.equals(p.getStatus());
+
+        return isExisting
+                .and(isFile)
+                .and(isOnlyInSource
+                        .or(isDifferentTimestamp)
+                        .or(isDifferentSize)
+                        .or(isDifferentChecksum)
+                );
+    }
+
+    private void createDirectory(final SyncItem syncItem, final ReceiverBatcher batcher) {
+        if (getOptions().isDryRun()) {
+            return;
+        }
+
+        batcher.add(ReceiverOperation.createDirectory(syncItem.getRelativePath()));
+    }
+
+    private void delete(final SyncItem syncItem, final ClientListener clientListener, final ReceiverBatcher batcher) {
+        clientListener.delete(getOptions(), syncItem);
+
+        if (getOptions().isDryRun()) {
+            return;
+        }
+
+        batcher.add(ReceiverOperation.delete(syncItem.getRelativePath(), getOptions().isFollowSymLinks()));
+    }
+
+    /**
+     * The Separator depends on the Operating-System of the Receiver.
+     */
+    private String getParentPath(final String relativePath) {
+        final int index = Math.max(relativePath.lastIndexOf('/'), relativePath.lastIndexOf('\\'));
+
+        return index < 0 ? "" : relativePath.substring(0, index);
+    }
+
+    private void update(final SyncItem syncItem, final ClientListener clientListener, final ReceiverBatcher batcher) {
+        clientListener.update(getOptions(), syncItem);
+
+        if (getOptions().isDryRun()) {
+            return;
+        }
+
+        batcher.add(ReceiverOperation.update(syncItem));
     }
 }
@@ -41,5 +41,11 @@ public interface Client {
      */
     List<SyncPair> mergeSyncItems(List<SyncItem> syncItemsSender, List<SyncItem> syncItemsReceiver);
 
+    /**
+     * Like {@link #mergeSyncItems(List, List)}, but streaming.<br>
+     * Both Streams must be sorted by the relative Path, like {@link #generateSyncItems(EFileSystem, PathFilter)} delivers them.
+     */
+    Flux<SyncPair> mergeSyncItems(Flux<SyncItem> syncItemsSender, Flux<SyncItem> syncItemsReceiver);
+
     void syncReceiver(List<SyncPair> syncPairs, ClientListener clientListener);
 }
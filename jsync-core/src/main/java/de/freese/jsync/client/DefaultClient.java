@@ -3,18 +3,22 @@ package de.freese.jsync.client;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import reactor.core.publisher.Flux;
 
 import de.freese.jsync.Options;
 import de.freese.jsync.client.listener.ClientListener;
 import de.freese.jsync.client.listener.EmptyClientListener;
+import de.freese.jsync.filesystem.EFileSystem;
 import de.freese.jsync.model.SyncItem;
 import de.freese.jsync.model.SyncPair;
 import de.freese.jsync.model.SyncPairComparator;
@@ -28,11 +32,23 @@ public class DefaultClient extends AbstractClient {
         super(options, senderUri, receiverUri);
     }
 
+    /**
+     * Merge-Join of two by relative Path sorted Streams, like the {@link de.freese.jsync.generator.Generator} delivers them.<br>
+     * Only the two current Items are hold, the Result is also sorted.
+     */
+    @Override
     public Flux<SyncPair> mergeSyncItems(final Flux<SyncItem> syncItemsSender, final Flux<SyncItem> syncItemsReceiver) {
-        return Flux.<SyncPair>create(sink -> {
-            mergeSyncItems(syncItemsSender.collectList().block(), syncItemsReceiver.collectList().block(), sink::next);
-            sink.complete();
-        }).sort(new SyncPairComparator());
+        return Flux.generate(() -> new MergeCursor(syncItemsSender.toStream(), syncItemsReceiver.toStream()), (cursor, sink) -> {
+            final SyncPair syncPair = cursor.next();
+
+            if (syncPair == null) {
+                sink.complete();
+            } else {
+                sink.next(syncPair);
+            }
+
+            return cursor;
+        }, MergeCursor::close);
     }
 
     @Override
@@ -46,13 +62,18 @@ public class DefaultClient extends AbstractClient {
         return syncPairs;
     }
 
+    /**
+     * The {@link SyncManifest} is only saved, if no Error occurred.
+     */
     @Override
     public void syncReceiver(final List<SyncPair> syncPairs, final ClientListener clientListener) {
-        final ClientListener cl = clientListener != null ? clientListener : new EmptyClientListener();
+        final ErrorCountingClientListener cl = new ErrorCountingClientListener(clientListener != null ? clientListener : new EmptyClientListener());
+
+        deleteManifest();
 
-        // Filter all items, which are synchronized.
+        // Filter all items, which are synchronized; a List without them, like a SyncPairStore, is not copied.
         final Predicate<SyncPair> isSynchronised = p -> SyncStatus.SYNCHRONIZED.equals(p.getStatus());
-        final List<SyncPair> sync = syncPairs.stream().filter(isSynchronised.negate()).toList();
+        final List<SyncPair> sync = syncPairs.stream().anyMatch(isSynchronised) ? syncPairs.stream().filter(isSynchronised.negate()).toList() : syncPairs;
 
         // Delete
         if (getOptions().isDelete()) {
@@ -67,10 +88,157 @@ public class DefaultClient extends AbstractClient {
         updateFiles(sync, cl);
 
         // Create new and empty Directories.
-        createDirectories(sync, clientListener);
+        createDirectories(sync, cl);
 
         // Update Directory-Attributes.
         updateDirectories(sync, cl);
+
+        if (cl.getErrors() == 0) {
+            saveManifest();
+        } else {
+            getLogger().warn("manifest is not saved, errors: {}", cl.getErrors());
+        }
+    }
+
+    /**
+     * Counts the Errors of the Synchronisation.
+     *
+     * @author Thomas Freese
+     */
+    private static final class ErrorCountingClientListener implements ClientListener {
+        private final ClientListener delegate;
+        private final AtomicInteger errors = new AtomicInteger(0);
+
+        private ErrorCountingClientListener(final ClientListener delegate) {
+            super();
+
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void checksumProgress(final Options options, final SyncItem syncItem, final long bytesRead) {
+            delegate.checksumProgress(options, syncItem, bytesRead);
+        }
+
+        @Override
+        public void compression(final Options options, final long rawBytes, final long compressedBytes) {
+            delegate.compression(options, rawBytes, compressedBytes);
+        }
+
+        @Override
+        public void copyProgress(final Options options, final SyncItem syncItem, final long bytesTransferred) {
+            delegate.copyProgress(options, syncItem, bytesTransferred);
+        }
+
+        @Override
+        public void delete(final Options options, final SyncItem syncItem) {
+            delegate.delete(options, syncItem);
+        }
+
+        @Override
+        public void error(final String message, final Throwable th) {
+            errors.incrementAndGet();
+
+            delegate.error(message, th);
+        }
+
+        @Override
+        public void update(final Options options, final SyncItem syncItem) {
+            delegate.update(options, syncItem);
+        }
+
+        @Override
+        public void validate(final Options options, final SyncItem syncItem) {
+            delegate.validate(options, syncItem);
+        }
+
+        int getErrors() {
+            return errors.get();
+        }
+    }
+
+    /**
+     * Holds the current Item of each Side.
+     *
+     * @author Thomas Freese
+     */
+    private static final class MergeCursor {
+        private final Iterator<SyncItem> iteratorReceiver;
+        private final Iterator<SyncItem> iteratorSender;
+        private final Stream<SyncItem> streamReceiver;
+        private final Stream<SyncItem> streamSender;
+
+        private SyncItem receiverItem;
+        private SyncItem senderItem;
+
+        private MergeCursor(final Stream<SyncItem> streamSender, final Stream<SyncItem> streamReceiver) {
+            super();
+
+            this.streamSender = streamSender;
+            this.streamReceiver = streamReceiver;
+
+            iteratorSender = streamSender.iterator();
+            iteratorReceiver = streamReceiver.iterator();
+
+            senderItem = next(iteratorSender, null, EFileSystem.SENDER);
+            receiverItem = next(iteratorReceiver, null, EFileSystem.RECEIVER);
+        }
+
+        void close() {
+            streamSender.close();
+            streamReceiver.close();
+        }
+
+        /**
+         * Returns null, if both Sides are finished.
+         */
+        SyncPair next() {
+            if (senderItem == null && receiverItem == null) {
+                return null;
+            }
+
+            final int comparison;
+
+            if (senderItem == null) {
+                comparison = 1;
+            } else if (receiverItem == null) {
+                comparison = -1;
+            } else {
+                comparison = senderItem.getRelativePath().compareTo(receiverItem.getRelativePath());
+            }
+
+            final SyncPair syncPair;
+
+            if (comparison < 0) {
+                // Only in Sender.
+                syncPair = new SyncPair(senderItem, null);
+                senderItem = next(iteratorSender, senderItem, EFileSystem.SENDER);
+            } else if (comparison > 0) {
+                // Only in Receiver.
+                syncPair = new SyncPair(null, receiverItem);
+                receiverItem = next(iteratorReceiver, receiverItem, EFileSystem.RECEIVER);
+            } else {
+                syncPair = new SyncPair(senderItem, receiverItem);
+                senderItem = next(iteratorSender, senderItem, EFileSystem.SENDER);
+                receiverItem = next(iteratorReceiver, receiverItem, EFileSystem.RECEIVER);
+            }
+
+            return syncPair;
+        }
+
+        private SyncItem next(final Iterator<SyncItem> iterator, final SyncItem previous, final EFileSystem fileSystem) {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+
+            final SyncItem syncItem = iterator.next();
+
+            if (previous != null && previous.getRelativePath().compareTo(syncItem.getRelativePath()) >= 0) {
+                throw new IllegalStateException(fileSystem + ": SyncItems are not sorted: " + previous.getRelativePath() + " >= " + syncItem.getRelativePath());
+            }
+
+            return syncItem;
+        }
     }
 
     private void mergeSyncItems(final List<SyncItem> syncItemsSender, final List<SyncItem> syncItemsReceiver, final Consumer<SyncPair> consumer) {
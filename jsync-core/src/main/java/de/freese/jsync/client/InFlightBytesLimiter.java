@@ -0,0 +1,38 @@
+// Created: 18.10.2026
+package de.freese.jsync.client;
+
+/**
+ * Begrenzt die Summe der Bytes, die gleichzeitig kopiert werden.<br>
+ * Eine Datei, die größer als das Budget ist, wird zugelassen, wenn gerade nichts anderes kopiert wird.
+ *
+ * @author Thomas Freese
+ */
+final class InFlightBytesLimiter {
+    private final long maxBytes;
+
+    private long bytesInFlight;
+
+    InFlightBytesLimiter(final long maxBytes) {
+        super();
+
+        if (maxBytes <= 0L) {
+            throw new IllegalArgumentException("maxBytes must be > 0: " + maxBytes);
+        }
+
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void acquire(final long bytes) throws InterruptedException {
+        while (bytesInFlight > 0L && (bytesInFlight + bytes) > maxBytes) {
+            wait();
+        }
+
+        bytesInFlight += bytes;
+    }
+
+    synchronized void release(final long bytes) {
+        bytesInFlight -= bytes;
+
+        notifyAll();
+    }
+}
@@ -0,0 +1,82 @@
+// Created: 18.10.2026
+package de.freese.jsync.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import de.freese.jsync.client.listener.ClientListener;
+import de.freese.jsync.filesystem.Receiver;
+import de.freese.jsync.model.ReceiverOperation;
+
+/**
+ * Sammelt kleine Operationen für den {@link Receiver} und führt sie mit {@link Receiver#batch(String, List)} aus.<br>
+ * Ein Remote-Receiver benötigt dann nur noch einen Request für viele Operationen.
+ *
+ * @author Thomas Freese
+ */
+final class ReceiverBatcher {
+    /**
+     * Geschätzte Bytes einer Operation ohne die Pfade (SyncItem-Attribute, User, Group).
+     */
+    private static final int BYTES_PER_OPERATION = 256;
+    /**
+     * Ein Batch muss in einen Frame/Payload passen.
+     */
+    private static final int MAX_BYTES = 1024 * 1024;
+    private static final int MAX_OPERATIONS = 512;
+
+    private final String baseDir;
+    private final ClientListener clientListener;
+    private final List<ReceiverOperation> operations = new ArrayList<>(MAX_OPERATIONS);
+    private final Receiver receiver;
+
+    private int estimatedBytes;
+
+    ReceiverBatcher(final Receiver receiver, final String baseDir, final ClientListener clientListener) {
+        super();
+
+        this.receiver = Objects.requireNonNull(receiver, "receiver required");
+        this.baseDir = Objects.requireNonNull(baseDir, "baseDir required");
+        this.clientListener = Objects.requireNonNull(clientListener, "clientListener required");
+    }
+
+    void add(final ReceiverOperation operation) {
+        operations.add(operation);
+
+        // UTF-8: max. 3 Bytes per Char, the Path of an Update is also in the SyncItem.
+        final int pathBytes = operation.relativePath().length() * 3;
+        estimatedBytes += BYTES_PER_OPERATION + (operation.syncItem() == null ? pathBytes : pathBytes * 2);
+
+        if (operations.size() >= MAX_OPERATIONS || estimatedBytes >= MAX_BYTES) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        try {
+            final List<String> results = receiver.batch(baseDir, operations);
+
+            for (int i = 0; i < results.size(); i++) {
+                final String errorMessage = results.get(i);
+
+                if (errorMessage != null) {
+                    final String message = operations.get(i).relativePath() + ": " + errorMessage;
+
+                    clientListener.error(message, new Exception(message));
+                }
+            }
+        }
+        catch (final Exception ex) {
+            clientListener.error(ex.getMessage(), ex);
+        }
+        finally {
+            operations.clear();
+            estimatedBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+// Created: 18.10.2026
+package de.freese.jsync.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.filesystem.Receiver;
+import de.freese.jsync.model.DefaultSyncItem;
+import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.model.SyncItemStore;
+import de.freese.jsync.utils.DigestUtils;
+import de.freese.jsync.utils.JSyncUtils;
+
+/**
+ * The {@link SyncItem}s of the Receiver after the last successful Synchronisation of a Sender/Receiver-Pair.<br>
+ * The Manifest is valid, as long as the Modification-Times of all Directories of the Receiver are unchanged,
+ * then the Receiver must not be listed again.<br>
+ * A Directory gets a new Modification-Time if an Entry is created, deleted or renamed,
+ * but not if a File is changed in place, such a Change is not detected.<br>
+ * <br>
+ * The Entries are sorted by the relative Path and are read by a memory-mapped File.<br>
+ * <br>
+ * System-Properties:<br>
+ * <ul>
+ * <li>jsync.manifest.dir: Default ~/.cache/jsync/manifests</li>
+ * </ul>
+ *
+ * @author Thomas Freese
+ */
+public final class SyncManifest {
+    private static final byte FLAG_CHECKSUM = 0x02;
+    private static final byte FLAG_FILE = 0x01;
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyncManifest.class);
+    private static final int MAGIC = 0x4A534D46; // JSMF
+    /**
+     * Maximum Paths of a Request for the Modification-Times.
+     */
+    private static final int MAX_PATHS = 512;
+    private static final int VERSION = 1;
+
+    /**
+     * The Paths of the Directories to check, the first is the Base-Directory.
+     */
+    public static List<String> getDirectories(final List<SyncItem> syncItems) {
+        final List<String> directories = new ArrayList<>();
+        directories.add("");
+
+        for (final SyncItem syncItem : syncItems) {
+            if (syncItem.isDirectory()) {
+                directories.add(syncItem.getRelativePath());
+            }
+        }
+
+        return directories;
+    }
+
+    public static Path getManifestFile(final URI senderUri, final URI receiverUri) {
+        final Path manifestDir = Paths.get(System.getProperty("jsync.manifest.dir", Paths.get(System.getProperty("user.home"), ".cache", "jsync", "manifests").toString()));
+        final String key = senderUri.toString() + "|" + receiverUri.toString();
+        final String fileName = JSyncUtils.bytesToHex(DigestUtils.sha256Digest(key.getBytes(StandardCharsets.UTF_8))).substring(0, 32);
+
+        return manifestDir.resolve(fileName + ".manifest");
+    }
+
+    /**
+     * The Modification-Times in Millis of the Directories, requested in Chunks.
+     */
+    public static long[] getModificationTimes(final Receiver receiver, final String baseDir, final List<String> directories) {
+        final long[] lastModifiedTimes = new long[directories.size()];
+
+        for (int start = 0; start < directories.size(); start += MAX_PATHS) {
+            final int end = Math.min(start + MAX_PATHS, directories.size());
+            final long[] chunk = receiver.getLastModifiedTimes(baseDir, directories.subList(start, end));
+
+            System.arraycopy(chunk, 0, lastModifiedTimes, start, chunk.length);
+        }
+
+        return lastModifiedTimes;
+    }
+
+    /**
+     * @return {@link SyncManifest}; null if not existing or not readable
+     */
+    public static SyncManifest load(final Path manifestFile) {
+        if (Files.notExists(manifestFile)) {
+            return null;
+        }
+
+        // The Arena unmaps the File immediately, not first by the GC.
+        try (FileChannel fileChannel = FileChannel.open(manifestFile, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            final MemorySegment segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, fileChannel.size(), arena);
+            final ByteBuffer buffer = segment.asByteBuffer();
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                LOGGER.warn("ignore unknown manifest: {}", manifestFile);
+                return null;
+            }
+
+            final String algorithmName = readString(buffer);
+            final ChecksumAlgorithm checksumAlgorithm = algorithmName.isEmpty() ? null : ChecksumAlgorithm.fromName(algorithmName);
+            final int count = buffer.getInt();
+
+            final SyncItemStore syncItems = new SyncItemStore();
+            final List<Long> directoryTimes = new ArrayList<>();
+            directoryTimes.add(buffer.getLong());
+
+            // The Store copies the Attributes, the temporary Item is not held.
+            for (int i = 0; i < count; i++) {
+                final SyncItem syncItem = new DefaultSyncItem(readString(buffer));
+                final byte flags = buffer.get();
+
+                syncItem.setFile((flags & FLAG_FILE) != 0);
+                syncItem.setSize(buffer.getLong());
+                syncItem.setLastModifiedTime(buffer.getLong());
+
+                if ((flags & FLAG_CHECKSUM) != 0) {
+                    syncItem.setChecksum(readString(buffer));
+                }
+
+                if (syncItem.isDirectory()) {
+                    directoryTimes.add(buffer.getLong());
+                }
+
+                syncItems.add(syncItem);
+            }
+
+            syncItems.trimToSize();
+
+            return new SyncManifest(syncItems, checksumAlgorithm, directoryTimes.stream().mapToLong(Long::longValue).toArray());
+        }
+        catch (final IOException | BufferUnderflowException | IllegalArgumentException ex) {
+            // A corrupt Manifest only means a full Listing.
+            LOGGER.warn("can not load manifest: {}", manifestFile, ex);
+
+            return null;
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(final DataOutputStream outputStream, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private final ChecksumAlgorithm checksumAlgorithm;
+    private final long[] directoryTimes;
+    private final List<SyncItem> syncItems;
+
+    /**
+     * @param syncItems {@link List}; sorted by the relative Path
+     * @param checksumAlgorithm {@link ChecksumAlgorithm}; Algorithm of the Checksums, null without Checksums
+     * @param directoryTimes long[]; Modification-Times in Millis of {@link #getDirectories(List)}
+     */
+    public SyncManifest(final List<SyncItem> syncItems, final ChecksumAlgorithm checksumAlgorithm, final long[] directoryTimes) {
+        super();
+
+        this.syncItems = Objects.requireNonNull(syncItems, "syncItems required");
+        this.checksumAlgorithm = checksumAlgorithm;
+        this.directoryTimes = Objects.requireNonNull(directoryTimes, "directoryTimes required");
+    }
+
+    /**
+     * Copies of the Entries, the Checksums are only taken with the same Algorithm.
+     */
+    public List<SyncItem> createSyncItems(final ChecksumAlgorithm algorithm) {
+        final SyncItemStore store = new SyncItemStore();
+        store.addAll(syncItems);
+
+        if (!Objects.equals(checksumAlgorithm, algorithm)) {
+            store.forEach(syncItem -> syncItem.setChecksum(null));
+        }
+
+        return store;
+    }
+
+    /**
+     * true, if all Directories of the Receiver have the same Modification-Time like after the last Synchronisation.
+     */
+    public boolean isUpToDate(final Receiver receiver, final String baseDir) {
+        final List<String> directories = getDirectories(syncItems);
+
+        if (directories.size() != directoryTimes.length) {
+            return false;
+        }
+
+        final long[] lastModifiedTimes = getModificationTimes(receiver, baseDir, directories);
+
+        for (int i = 0; i < lastModifiedTimes.length; i++) {
+            if (lastModifiedTimes[i] != directoryTimes[i]) {
+                LOGGER.debug("manifest outdated by directory: '{}'", directories.get(i));
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes the Manifest into a temporary File and moves it atomically over the Manifest-File.
+     */
+    public void save(final Path manifestFile) {
+        final Path tmpFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(manifestFile.getParent());
+
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                writeString(outputStream, checksumAlgorithm == null ? "" : checksumAlgorithm.getName());
+                outputStream.writeInt(syncItems.size());
+                outputStream.writeLong(directoryTimes[0]);
+
+                int directoryIndex = 1;
+
+                for (final SyncItem syncItem : syncItems) {
+                    final String checksum = syncItem.getChecksum();
+                    byte flags = syncItem.isFile() ? FLAG_FILE : 0;
+
+                    if (checksum != null) {
+                        flags |= FLAG_CHECKSUM;
+                    }
+
+                    writeString(outputStream, syncItem.getRelativePath());
+                    outputStream.writeByte(flags);
+                    outputStream.writeLong(syncItem.getSize());
+                    outputStream.writeLong(syncItem.getLastModifiedTime());
+
+                    if (checksum != null) {
+                        writeString(outputStream, checksum);
+                    }
+
+                    if (syncItem.isDirectory()) {
+                        outputStream.writeLong(directoryTimes[directoryIndex++]);
+                    }
+                }
+            }
+
+            try {
+                Files.move(tmpFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException _) {
+                Files.move(tmpFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public int size() {
+        return syncItems.size();
+    }
+}
@@ -30,6 +30,13 @@ public abstract class AbstractClientListener implements ClientListener {
         return message;
     }
 
+    protected String compressionMessage(final Options options, final long rawBytes, final long compressedBytes) {
+        final double ratio = rawBytes == 0L ? 1D : (double) compressedBytes / rawBytes;
+
+        return String.format("compression %s: %s -> %s = %6.2f %%", options.getCompressionCodec().getName(), JSyncUtils.toHumanReadableSize(rawBytes),
+                JSyncUtils.toHumanReadableSize(compressedBytes), ratio * 100D);
+    }
+
     protected String copyMessage(final Options options, final SyncItem syncItem) {
         String message = String.format("copy: %s", syncItem.getRelativePath());
 
@@ -12,6 +12,13 @@ import de.freese.jsync.model.SyncItem;
 public interface ClientListener extends EventListener {
     void checksumProgress(Options options, SyncItem syncItem, long bytesRead);
 
+    /**
+     * Bytes of the copied Files before and after the Compression, see {@link Options#getCompressionCodec()}.
+     */
+    default void compression(final Options options, final long rawBytes, final long compressedBytes) {
+        // Empty
+    }
+
     void copyProgress(Options options, SyncItem syncItem, long bytesTransferred);
 
     void delete(Options options, SyncItem syncItem);
@@ -47,6 +47,11 @@ public class ConsoleClientListener extends AbstractClientListener {
         getPrintStream().println(message);
     }
 
+    @Override
+    public void compression(final Options options, final long rawBytes, final long compressedBytes) {
+        getPrintStream().println(compressionMessage(options, rawBytes, compressedBytes));
+    }
+
     @Override
     public void copyProgress(final Options options, final SyncItem syncItem, final long bytesTransferred) {
         if (bytesTransferred == 0) {
@@ -24,6 +24,11 @@ public class LoggerClientListener extends AbstractClientListener {
         getLogger().info(message);
     }
 
+    @Override
+    public void compression(final Options options, final long rawBytes, final long compressedBytes) {
+        getLogger().info(compressionMessage(options, rawBytes, compressedBytes));
+    }
+
     @Override
     public void copyProgress(final Options options, final SyncItem syncItem, final long bytesTransferred) {
         final String message = copyProgressMessage(options, syncItem, bytesTransferred);
@@ -0,0 +1,152 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
+
+/**
+ * Compresses the Chunks of one File-Transfer.<br>
+ * Chunk: [byte codecId][int rawLength][data]<br>
+ * Incompressible Chunks are stored, after several of them the next Chunks are stored without a Try (e.g. Archives, Images).
+ *
+ * @author Thomas Freese
+ */
+public final class ChunkCompressor {
+    /**
+     * [byte codecId][int rawLength]
+     */
+    public static final int HEADER_SIZE = 1 + 4;
+    /**
+     * Maximum uncompressed Bytes of a Chunk, so the Buffers stay in the Size-Classes of the {@link ByteBufferPool}.<br>
+     * Default: 1 MB
+     */
+    public static final int MAX_CHUNK_SIZE = 1024 * 1024;
+    /**
+     * Stored Chunks after {@link #MAX_INCOMPRESSIBLE} incompressible Chunks in a Row.
+     */
+    private static final int CHUNKS_TO_SKIP = 8;
+    private static final int MAX_INCOMPRESSIBLE = 2;
+    /**
+     * A compressed Chunk must save at least 10 %.
+     */
+    private static final double MAX_RATIO = 0.9D;
+
+    /**
+     * Returns a flipped {@link ByteBuffer} of the {@link ByteBufferPool} with the decompressed Data.<br>
+     * The raw Length comes from the Peer, it is checked against {@link #MAX_CHUNK_SIZE} before the Buffer is allocated.
+     */
+    public static ByteBuffer decompress(final ByteBuffer chunk, final ByteBufferPool bufferPool) {
+        final ByteBuffer source = chunk.duplicate();
+
+        final CompressionCodec codec = CompressionCodecs.get(source.get());
+        final int rawLength = source.getInt();
+
+        if (rawLength < 0 || rawLength > MAX_CHUNK_SIZE) {
+            throw new IllegalStateException("invalid raw length of chunk: " + rawLength);
+        }
+
+        final ByteBuffer target = bufferPool.get(rawLength);
+        target.limit(rawLength);
+
+        codec.decompress(source, target);
+
+        if (target.position() != rawLength) {
+            bufferPool.free(target);
+
+            throw new IllegalStateException("decompressed length " + target.position() + " != " + rawLength);
+        }
+
+        return target.flip();
+    }
+
+    private final ByteBufferPool bufferPool;
+    private final CompressionCodec codec;
+    private final int level;
+    private final CompressionStatistics statistics;
+
+    private int chunksToSkip;
+    private int incompressibleChunks;
+
+    public ChunkCompressor(final CompressionCodec codec, final int level, final ByteBufferPool bufferPool, final CompressionStatistics statistics) {
+        super();
+
+        this.codec = Objects.requireNonNull(codec, "codec required");
+        this.level = level;
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool required");
+        this.statistics = Objects.requireNonNull(statistics, "statistics required");
+    }
+
+    /**
+     * Returns flipped {@link ByteBuffer}s of the {@link ByteBufferPool} with the Chunks, the Position of the Source is not changed.
+     */
+    public List<ByteBuffer> compress(final ByteBuffer source) {
+        final ByteBuffer raw = source.duplicate();
+        final List<ByteBuffer> chunks = new ArrayList<>((raw.remaining() / MAX_CHUNK_SIZE) + 1);
+
+        while (raw.hasRemaining()) {
+            final int length = Math.min(raw.remaining(), MAX_CHUNK_SIZE);
+
+            chunks.add(compressChunk(raw.slice(raw.position(), length)));
+
+            raw.position(raw.position() + length);
+        }
+
+        return chunks;
+    }
+
+    private ByteBuffer compressChunk(final ByteBuffer source) {
+        final ByteBuffer raw = source.duplicate();
+        final int rawLength = raw.remaining();
+
+        if (chunksToSkip > 0) {
+            chunksToSkip--;
+
+            return store(raw, rawLength);
+        }
+
+        final ByteBuffer chunk = bufferPool.get(HEADER_SIZE + Math.max(rawLength, codec.maxCompressedLength(rawLength)));
+        chunk.put(codec.getId());
+        chunk.putInt(rawLength);
+
+        codec.compress(raw, chunk, level);
+
+        final int compressedLength = chunk.position() - HEADER_SIZE;
+
+        if (compressedLength > (rawLength * MAX_RATIO)) {
+            incompressibleChunks++;
+
+            if (incompressibleChunks >= MAX_INCOMPRESSIBLE) {
+                incompressibleChunks = 0;
+                chunksToSkip = CHUNKS_TO_SKIP;
+            }
+
+            // Store the Chunk into the same Buffer.
+            chunk.clear();
+
+            return storeInto(chunk, source.duplicate(), rawLength);
+        }
+
+        incompressibleChunks = 0;
+        statistics.add(rawLength, chunk.position());
+
+        return chunk.flip();
+    }
+
+    private ByteBuffer store(final ByteBuffer raw, final int rawLength) {
+        return storeInto(bufferPool.get(HEADER_SIZE + rawLength), raw, rawLength);
+    }
+
+    private ByteBuffer storeInto(final ByteBuffer chunk, final ByteBuffer raw, final int rawLength) {
+        chunk.put(CompressionCodecs.NONE.getId());
+        chunk.putInt(rawLength);
+        chunk.put(raw);
+
+        statistics.add(rawLength, chunk.position());
+
+        return chunk.flip();
+    }
+}
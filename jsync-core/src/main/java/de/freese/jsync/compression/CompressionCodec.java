@@ -0,0 +1,36 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compression of the File-Data between remote FileSystems.<br>
+ * Further Codecs are registered by the {@link java.util.ServiceLoader}: META-INF/services/de.freese.jsync.compression.CompressionCodec
+ *
+ * @author Thomas Freese
+ */
+public interface CompressionCodec {
+    /**
+     * Compresses the remaining Bytes of the Source into the Target.
+     *
+     * @param level int; Codec specific, -1 = Default of the Codec
+     */
+    void compress(ByteBuffer source, ByteBuffer target, int level);
+
+    /**
+     * Decompresses the remaining Bytes of the Source into the Target.
+     */
+    void decompress(ByteBuffer source, ByteBuffer target);
+
+    /**
+     * Unique ID in the Chunk-Header, see {@link ChunkCompressor}.
+     */
+    byte getId();
+
+    String getName();
+
+    /**
+     * Maximum Size of the compressed Data.
+     */
+    int maxCompressedLength(int length);
+}
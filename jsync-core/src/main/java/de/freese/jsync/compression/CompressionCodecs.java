@@ -0,0 +1,70 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Registry of the {@link CompressionCodec}s: none, deflate, lz4 and the Codecs of the {@link ServiceLoader}.
+ *
+ * @author Thomas Freese
+ */
+public final class CompressionCodecs {
+    public static final CompressionCodec NONE = new NoneCompressionCodec();
+
+    private static final CompressionCodec[] CODECS_BY_ID = new CompressionCodec[256];
+    private static final Map<String, CompressionCodec> CODECS_BY_NAME = new TreeMap<>();
+
+    static {
+        register(NONE);
+        register(new DeflateCompressionCodec());
+        register(new Lz4CompressionCodec());
+
+        ServiceLoader.load(CompressionCodec.class).forEach(CompressionCodecs::register);
+    }
+
+    public static CompressionCodec get(final byte id) {
+        final CompressionCodec codec = CODECS_BY_ID[id & 0xFF];
+
+        if (codec == null) {
+            throw new IllegalArgumentException("unknown compression codec: " + id);
+        }
+
+        return codec;
+    }
+
+    public static CompressionCodec get(final String name) {
+        final CompressionCodec codec = CODECS_BY_NAME.get(name);
+
+        if (codec == null) {
+            throw new IllegalArgumentException("unknown compression codec: " + name);
+        }
+
+        return codec;
+    }
+
+    public static Set<String> getNames() {
+        return CODECS_BY_NAME.keySet();
+    }
+
+    public static boolean isNone(final CompressionCodec codec) {
+        return codec == null || codec.getId() == NONE.getId();
+    }
+
+    private static void register(final CompressionCodec codec) {
+        final int index = codec.getId() & 0xFF;
+
+        if (CODECS_BY_ID[index] != null || CODECS_BY_NAME.containsKey(codec.getName())) {
+            throw new IllegalStateException("compression codec already registered: " + codec.getName() + " / " + codec.getId());
+        }
+
+        CODECS_BY_ID[index] = codec;
+        CODECS_BY_NAME.put(codec.getName(), codec);
+    }
+
+    private CompressionCodecs() {
+        super();
+    }
+}
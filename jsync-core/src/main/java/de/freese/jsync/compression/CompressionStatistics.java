@@ -0,0 +1,45 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bytes of the File-Data before and after the Compression.
+ *
+ * @author Thomas Freese
+ */
+public final class CompressionStatistics {
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+
+    public void add(final long raw, final long compressed) {
+        rawBytes.add(raw);
+        compressedBytes.add(compressed);
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * compressed / raw, 1.0 = no Compression.
+     */
+    public double getRatio() {
+        final long raw = getRawBytes();
+
+        if (raw == 0L) {
+            return 1D;
+        }
+
+        return (double) getCompressedBytes() / raw;
+    }
+
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: raw=%d, compressed=%d, ratio=%.3f", getClass().getSimpleName(), getRawBytes(), getCompressedBytes(), getRatio());
+    }
+}
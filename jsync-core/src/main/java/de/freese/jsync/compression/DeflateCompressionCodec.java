@@ -0,0 +1,74 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Deflater} with Level 1 (fast) to 9 (best), -1 = {@link Deflater#DEFAULT_COMPRESSION}.
+ *
+ * @author Thomas Freese
+ */
+final class DeflateCompressionCodec implements CompressionCodec {
+    static final String NAME = "deflate";
+
+    @Override
+    public void compress(final ByteBuffer source, final ByteBuffer target, final int level) {
+        final Deflater deflater = new Deflater(level);
+
+        try {
+            deflater.setInput(source);
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                if (deflater.deflate(target) == 0 && !target.hasRemaining()) {
+                    throw new IllegalStateException("target buffer too small");
+                }
+            }
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void decompress(final ByteBuffer source, final ByteBuffer target) {
+        final Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(source);
+
+            while (!inflater.finished()) {
+                if (inflater.inflate(target) == 0 && (inflater.needsInput() || inflater.needsDictionary() || !target.hasRemaining())) {
+                    throw new IllegalStateException("corrupt deflate data");
+                }
+            }
+        }
+        catch (final DataFormatException ex) {
+            throw new IllegalStateException(ex);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public byte getId() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * compressBound of zlib + Header/Trailer.
+     */
+    @Override
+    public int maxCompressedLength(final int length) {
+        return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13 + 6;
+    }
+}
@@ -0,0 +1,239 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fast Compression in the LZ4-Block-Format, pure Java without Dependencies.<br>
+ * Only one Level: the Matches are found by a Hash-Table of the last Positions.
+ *
+ * @author Thomas Freese
+ */
+final class Lz4CompressionCodec implements CompressionCodec {
+    static final String NAME = "lz4";
+
+    private static final int HASH_LOG = 16;
+    /**
+     * The last 5 Bytes are always Literals.
+     */
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_OFFSET = 65535;
+    /**
+     * The last Match must start 12 Bytes before the End.
+     */
+    private static final int MF_LIMIT = 12;
+    private static final int MIN_MATCH = 4;
+    private static final int ML_MASK = 0x0F;
+    private static final int RUN_MASK = 0x0F;
+
+    private static int hash(final int value) {
+        return (value * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(final byte[] bytes, final int index) {
+        return (bytes[index] & 0xFF) | (bytes[index + 1] & 0xFF) << 8 | (bytes[index + 2] & 0xFF) << 16 | (bytes[index + 3] & 0xFF) << 24;
+    }
+
+    private static byte[] toArray(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+    private static int writeLength(final byte[] dst, final int index, final int length) {
+        int op = index;
+        int remaining = length;
+
+        while (remaining >= 255) {
+            dst[op++] = (byte) 255;
+            remaining -= 255;
+        }
+
+        dst[op++] = (byte) remaining;
+
+        return op;
+    }
+
+    private static int writeSequence(final byte[] src, final int anchor, final int literalLength, final int offset, final int matchLength, final byte[] dst, final int index) {
+        int op = index;
+        final int tokenIndex = op++;
+        int token;
+
+        // Literals
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            op = writeLength(dst, op, literalLength - RUN_MASK);
+        } else {
+            token = literalLength << 4;
+        }
+
+        System.arraycopy(src, anchor, dst, op, literalLength);
+        op += literalLength;
+
+        if (matchLength > 0) {
+            // Offset: Little Endian
+            dst[op++] = (byte) offset;
+            dst[op++] = (byte) (offset >>> 8);
+
+            final int length = matchLength - MIN_MATCH;
+
+            if (length >= ML_MASK) {
+                token |= ML_MASK;
+                op = writeLength(dst, op, length - ML_MASK);
+            } else {
+                token |= length;
+            }
+        }
+
+        dst[tokenIndex] = (byte) token;
+
+        return op;
+    }
+
+    @Override
+    public void compress(final ByteBuffer source, final ByteBuffer target, final int level) {
+        final byte[] src = toArray(source);
+        final byte[] dst = new byte[maxCompressedLength(src.length)];
+
+        final int length = compress(src, dst);
+
+        target.put(dst, 0, length);
+    }
+
+    @Override
+    public void decompress(final ByteBuffer source, final ByteBuffer target) {
+        final byte[] src = toArray(source);
+        final byte[] dst = new byte[target.remaining()];
+
+        final int length;
+
+        try {
+            length = decompress(src, dst);
+        }
+        catch (final IndexOutOfBoundsException ex) {
+            throw new IllegalStateException("corrupt lz4 data", ex);
+        }
+
+        target.put(dst, 0, length);
+    }
+
+    @Override
+    public byte getId() {
+        return 2;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int maxCompressedLength(final int length) {
+        return length + (length / 255) + 16;
+    }
+
+    int compress(final byte[] src, final byte[] dst) {
+        final int srcLength = src.length;
+        int op = 0;
+        int anchor = 0;
+
+        if (srcLength > MF_LIMIT) {
+            final int[] hashTable = new int[1 << HASH_LOG];
+            Arrays.fill(hashTable, -1);
+
+            final int matchLimit = srcLength - LAST_LITERALS;
+            final int limit = srcLength - MF_LIMIT;
+            int ip = 0;
+
+            while (ip < limit) {
+                final int sequence = readInt(src, ip);
+                final int hash = hash(sequence);
+                final int ref = hashTable[hash];
+                hashTable[hash] = ip;
+
+                if (ref < 0 || (ip - ref) > MAX_OFFSET || readInt(src, ref) != sequence) {
+                    ip++;
+                    continue;
+                }
+
+                int matchLength = MIN_MATCH;
+
+                while ((ip + matchLength) < matchLimit && src[ref + matchLength] == src[ip + matchLength]) {
+                    matchLength++;
+                }
+
+                op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+
+                ip += matchLength;
+                anchor = ip;
+            }
+        }
+
+        // Last Literals
+        return writeSequence(src, anchor, srcLength - anchor, 0, 0, dst, op);
+    }
+
+    int decompress(final byte[] src, final byte[] dst) {
+        int ip = 0;
+        int op = 0;
+
+        while (ip < src.length) {
+            final int token = src[ip++] & 0xFF;
+
+            // Literals
+            int literalLength = token >>> 4;
+
+            if (literalLength == RUN_MASK) {
+                int value;
+
+                do {
+                    value = src[ip++] & 0xFF;
+                    literalLength += value;
+                }
+                while (value == 255);
+            }
+
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+
+            if (ip >= src.length) {
+                // Last Literals
+                break;
+            }
+
+            // Match
+            final int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+            ip += 2;
+
+            if (offset == 0 || offset > op) {
+                throw new IllegalStateException("corrupt lz4 data: offset " + offset);
+            }
+
+            int matchLength = token & ML_MASK;
+
+            if (matchLength == ML_MASK) {
+                int value;
+
+                do {
+                    value = src[ip++] & 0xFF;
+                    matchLength += value;
+                }
+                while (value == 255);
+            }
+
+            matchLength += MIN_MATCH;
+
+            // The Match can overlap the Output.
+            int ref = op - offset;
+
+            for (int i = 0; i < matchLength; i++) {
+                dst[op++] = dst[ref++];
+            }
+        }
+
+        return op;
+    }
+}
@@ -0,0 +1,38 @@
+// Created: 18.10.2026
+package de.freese.jsync.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stores the Data uncompressed, also used for incompressible Chunks.
+ *
+ * @author Thomas Freese
+ */
+final class NoneCompressionCodec implements CompressionCodec {
+    static final String NAME = "none";
+
+    @Override
+    public void compress(final ByteBuffer source, final ByteBuffer target, final int level) {
+        target.put(source);
+    }
+
+    @Override
+    public void decompress(final ByteBuffer source, final ByteBuffer target) {
+        target.put(source);
+    }
+
+    @Override
+    public byte getId() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int maxCompressedLength(final int length) {
+        return length;
+    }
+}
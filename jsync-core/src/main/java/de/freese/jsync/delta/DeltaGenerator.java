@@ -0,0 +1,322 @@
+// Created: 18.10.2026
+package de.freese.jsync.delta;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import reactor.core.publisher.SynchronousSink;
+
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
+
+/**
+ * Sender-Side of the Delta-Transfer: searches the Blocks of the {@link FileSignature} in the File with the {@link RollingChecksum}.<br>
+ * Every {@link ByteBuffer} contains only complete Instructions:
+ * <ul>
+ * <li>COPY: byte 1, int blockIndex, int blockCount</li>
+ * <li>LITERAL: byte 2, int length, bytes</li>
+ * <li>CHECKSUM: byte 3, int length, bytes; MD5 of the whole File, the last Instruction</li>
+ * </ul>
+ * The Receiver verifies the patched File with the CHECKSUM, like the final Checksum of rsync.
+ *
+ * @author Thomas Freese
+ */
+public class DeltaGenerator implements Consumer<SynchronousSink<ByteBuffer>> {
+    public static final byte CHECKSUM = 3;
+    public static final byte COPY = 1;
+    public static final byte LITERAL = 2;
+
+    /**
+     * byte type, int length, 16 bytes MD5
+     */
+    private static final int CHECKSUM_SIZE = 1 + 4 + 16;
+    /**
+     * Copied Bytes, after which the Buffer is emitted for the Progress of the Receiver.
+     */
+    private static final long COPY_RUN_LIMIT = 1024L * 1024L * 64L;
+    private static final int COPY_SIZE = 1 + 4 + 4;
+    private static final int LITERAL_HEADER_SIZE = 1 + 4;
+    private static final int READ_SIZE = 1024 * 1024;
+
+    private final Map<Integer, int[]> blocksByWeakChecksum = new HashMap<>();
+    private final int blockSize;
+    private final ReadableByteChannel channel;
+    private final MessageDigest fileDigest;
+    private final MessageDigest messageDigest;
+    private final RollingChecksum rollingChecksum = new RollingChecksum();
+    private final FileSignature signature;
+    private final byte[] window;
+
+    private int copyBlockCount;
+    private int copyBlockIndex = -1;
+    private int end;
+    private boolean endOfFile;
+    private boolean finished;
+    private int literalStart;
+    private boolean rollingValid;
+    private int start;
+
+    public DeltaGenerator(final ReadableByteChannel channel, final FileSignature signature) {
+        super();
+
+        this.channel = Objects.requireNonNull(channel, "channel required");
+        this.signature = Objects.requireNonNull(signature, "signature required");
+        this.blockSize = signature.getBlockSize();
+        this.window = new byte[Math.max(2 * blockSize, blockSize + READ_SIZE)];
+
+        try {
+            this.messageDigest = MessageDigest.getInstance("MD5");
+            this.fileDigest = MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        for (int i = 0; i < signature.getBlockCount(); i++) {
+            final int index = i;
+
+            blocksByWeakChecksum.merge(signature.getWeakChecksum(i), new int[]{i}, (existing, value) -> {
+                final int[] merged = Arrays.copyOf(existing, existing.length + 1);
+                merged[existing.length] = index;
+
+                return merged;
+            });
+        }
+    }
+
+    @Override
+    public void accept(final SynchronousSink<ByteBuffer> sink) {
+        if (finished) {
+            sink.complete();
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBufferPool.DEFAULT.get();
+
+        try {
+            encode(buffer);
+        }
+        catch (IOException ex) {
+            ByteBufferPool.DEFAULT.free(buffer);
+            sink.error(new UncheckedIOException(ex));
+
+            return;
+        }
+
+        if (buffer.position() == 0) {
+            ByteBufferPool.DEFAULT.free(buffer);
+            sink.complete();
+
+            return;
+        }
+
+        sink.next(buffer.flip());
+    }
+
+    private void encode(final ByteBuffer buffer) throws IOException {
+        final int minRemaining = COPY_SIZE + LITERAL_HEADER_SIZE + 1;
+
+        while (buffer.remaining() >= minRemaining) {
+            if (!endOfFile && (end - start) <= blockSize) {
+                // Enough Data for a Block and the next Byte to roll.
+                if (!flushLiteral(buffer)) {
+                    return;
+                }
+
+                fillWindow();
+                continue;
+            }
+
+            final int available = end - start;
+
+            if (available == 0) {
+                if (flushLiteral(buffer)) {
+                    flushCopy(buffer);
+
+                    // Otherwise in the next Buffer.
+                    if (buffer.remaining() >= CHECKSUM_SIZE) {
+                        final byte[] checksum = fileDigest.digest();
+
+                        buffer.put(CHECKSUM);
+                        buffer.putInt(checksum.length);
+                        buffer.put(checksum);
+
+                        finished = true;
+                    }
+                }
+
+                return;
+            }
+
+            if (available < blockSize) {
+                // Tail: only the last, shorter Block can match.
+                final int lastBlockIndex = signature.getBlockCount() - 1;
+                final int lastBlockLength = lastBlockIndex < 0 ? 0 : signature.getBlockLength(lastBlockIndex);
+
+                if (lastBlockLength > 0 && available > lastBlockLength) {
+                    start = end - lastBlockLength;
+                    continue;
+                }
+
+                if (lastBlockLength == available && matches(lastBlockIndex, rollingChecksum.reset(window, start, available), available)) {
+                    if (!flushLiteral(buffer)) {
+                        return;
+                    }
+
+                    appendCopy(buffer, lastBlockIndex);
+                    literalStart = end;
+                }
+
+                start = end;
+                continue;
+            }
+
+            final int weakChecksum = rollingValid ? rollingChecksum.getValue() : rollingChecksum.reset(window, start, blockSize);
+            rollingValid = true;
+
+            final int blockIndex = findBlock(weakChecksum);
+
+            if (blockIndex >= 0) {
+                if (!flushLiteral(buffer)) {
+                    return;
+                }
+
+                appendCopy(buffer, blockIndex);
+
+                start += blockSize;
+                literalStart = start;
+                rollingValid = false;
+
+                if (((long) copyBlockCount * blockSize) >= COPY_RUN_LIMIT) {
+                    flushCopy(buffer);
+                    return;
+                }
+
+                continue;
+            }
+
+            if ((start + blockSize) < end) {
+                rollingChecksum.roll(window[start], window[start + blockSize], blockSize);
+            } else {
+                rollingValid = false;
+            }
+
+            start++;
+        }
+    }
+
+    private void appendCopy(final ByteBuffer buffer, final int blockIndex) {
+        if (copyBlockCount > 0 && blockIndex == (copyBlockIndex + copyBlockCount)) {
+            copyBlockCount++;
+            return;
+        }
+
+        flushCopy(buffer);
+
+        copyBlockIndex = blockIndex;
+        copyBlockCount = 1;
+    }
+
+    private void fillWindow() throws IOException {
+        // The Literal is flushed, literalStart == start.
+        final int length = end - start;
+        System.arraycopy(window, start, window, 0, length);
+
+        start = 0;
+        literalStart = 0;
+        end = length;
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(window, end, window.length - end);
+
+        while (byteBuffer.hasRemaining()) {
+            if (channel.read(byteBuffer) < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+
+        fileDigest.update(window, end, byteBuffer.position() - end);
+
+        end = byteBuffer.position();
+    }
+
+    private int findBlock(final int weakChecksum) {
+        final int[] candidates = blocksByWeakChecksum.get(weakChecksum);
+
+        if (candidates == null) {
+            return -1;
+        }
+
+        // Prefer the following Block of the current COPY-Run (equal Blocks).
+        final int nextBlockIndex = copyBlockIndex + copyBlockCount;
+
+        if (copyBlockCount > 0 && nextBlockIndex < signature.getBlockCount() && matches(nextBlockIndex, weakChecksum, blockSize)) {
+            return nextBlockIndex;
+        }
+
+        for (int blockIndex : candidates) {
+            if (matches(blockIndex, weakChecksum, blockSize)) {
+                return blockIndex;
+            }
+        }
+
+        return -1;
+    }
+
+    private void flushCopy(final ByteBuffer buffer) {
+        if (copyBlockCount == 0) {
+            return;
+        }
+
+        buffer.put(COPY);
+        buffer.putInt(copyBlockIndex);
+        buffer.putInt(copyBlockCount);
+
+        copyBlockIndex = -1;
+        copyBlockCount = 0;
+    }
+
+    /**
+     * @return boolean; false if the Buffer is full and the Literal is not complete written
+     */
+    private boolean flushLiteral(final ByteBuffer buffer) {
+        if (literalStart == start) {
+            return true;
+        }
+
+        flushCopy(buffer);
+
+        final int length = Math.min(start - literalStart, buffer.remaining() - LITERAL_HEADER_SIZE);
+
+        if (length <= 0) {
+            return false;
+        }
+
+        buffer.put(LITERAL);
+        buffer.putInt(length);
+        buffer.put(window, literalStart, length);
+
+        literalStart += length;
+
+        return literalStart == start;
+    }
+
+    private boolean matches(final int blockIndex, final int weakChecksum, final int length) {
+        if (signature.getWeakChecksum(blockIndex) != weakChecksum || signature.getBlockLength(blockIndex) != length) {
+            return false;
+        }
+
+        messageDigest.update(window, start, length);
+
+        return Arrays.equals(messageDigest.digest(), signature.getStrongChecksum(blockIndex));
+    }
+}
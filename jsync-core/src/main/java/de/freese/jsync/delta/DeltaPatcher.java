@@ -0,0 +1,175 @@
+// Created: 18.10.2026
+package de.freese.jsync.delta;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
+
+/**
+ * Receiver-Side of the Delta-Transfer: applies the Instructions of the {@link DeltaGenerator} into a new File.<br>
+ * The COPY-Blocks are taken from the old File.<br>
+ * The written Bytes are digested, the CHECKSUM-Instruction of the Sender must match, see {@link #verify()}.
+ *
+ * @author Thomas Freese
+ */
+public class DeltaPatcher implements Closeable {
+    private final FileChannel basisChannel;
+    private final long basisSize;
+    private final int blockSize;
+    private final MessageDigest fileDigest;
+    private final FileChannel targetChannel;
+
+    private boolean verified;
+
+    /**
+     * @param basisFile {@link Path}; the old File, can be missing
+     * @param targetFile {@link Path}; the new File
+     */
+    public DeltaPatcher(final Path basisFile, final Path targetFile, final int blockSize) throws IOException {
+        super();
+
+        Objects.requireNonNull(basisFile, "basisFile required");
+        Objects.requireNonNull(targetFile, "targetFile required");
+
+        this.blockSize = blockSize;
+
+        try {
+            fileDigest = MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        if (Files.exists(basisFile)) {
+            basisChannel = FileChannel.open(basisFile, StandardOpenOption.READ);
+            basisSize = basisChannel.size();
+        } else {
+            basisChannel = null;
+            basisSize = 0L;
+        }
+
+        targetChannel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Applies all Instructions of the Buffer, the Buffer is released.
+     *
+     * @return long; written Bytes
+     */
+    public long apply(final ByteBuffer buffer) {
+        long bytesWritten = 0L;
+
+        try {
+            while (buffer.hasRemaining()) {
+                final byte type = buffer.get();
+
+                if (type == DeltaGenerator.COPY) {
+                    final int blockIndex = buffer.getInt();
+                    final int blockCount = buffer.getInt();
+
+                    bytesWritten += copyBlocks(blockIndex, blockCount);
+                } else if (type == DeltaGenerator.LITERAL) {
+                    final int length = buffer.getInt();
+                    final ByteBuffer literal = buffer.slice(buffer.position(), length);
+
+                    fileDigest.update(literal.duplicate());
+
+                    while (literal.hasRemaining()) {
+                        targetChannel.write(literal);
+                    }
+
+                    buffer.position(buffer.position() + length);
+                    bytesWritten += length;
+                } else if (type == DeltaGenerator.CHECKSUM) {
+                    final byte[] checksum = new byte[buffer.getInt()];
+                    buffer.get(checksum);
+
+                    if (!MessageDigest.isEqual(checksum, fileDigest.digest())) {
+                        throw new IllegalStateException("patched file does not match the checksum of the sender");
+                    }
+
+                    verified = true;
+                } else {
+                    throw new IllegalStateException("unknown delta instruction: " + type);
+                }
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        finally {
+            ByteBufferPool.DEFAULT.free(buffer);
+        }
+
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (basisChannel != null) {
+                basisChannel.close();
+            }
+        }
+        finally {
+            targetChannel.close();
+        }
+    }
+
+    /**
+     * The Patch is only complete with a matching CHECKSUM-Instruction.
+     */
+    public void verify() {
+        if (!verified) {
+            throw new IllegalStateException("delta without checksum of the sender");
+        }
+    }
+
+    /**
+     * The Blocks pass the Heap for the Digest.
+     */
+    private long copyBlocks(final int blockIndex, final int blockCount) throws IOException {
+        if (basisChannel == null) {
+            throw new IllegalStateException("delta references blocks of a missing file");
+        }
+
+        final long position = (long) blockIndex * blockSize;
+        final long length = Math.min((long) blockCount * blockSize, basisSize - position);
+
+        final ByteBuffer buffer = ByteBufferPool.DEFAULT.get();
+
+        try {
+            long transferred = 0L;
+
+            while (transferred < length) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), length - transferred));
+
+                if (basisChannel.read(buffer, position + transferred) <= 0) {
+                    throw new IOException("basis file has changed while patching");
+                }
+
+                buffer.flip();
+                fileDigest.update(buffer.duplicate());
+
+                while (buffer.hasRemaining()) {
+                    transferred += targetChannel.write(buffer);
+                }
+            }
+        }
+        finally {
+            ByteBufferPool.DEFAULT.free(buffer);
+        }
+
+        return length;
+    }
+}
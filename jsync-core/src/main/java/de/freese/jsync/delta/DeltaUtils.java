@@ -0,0 +1,146 @@
+// Created: 18.10.2026
+package de.freese.jsync.delta;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.utils.ReactiveUtils;
+
+/**
+ * Delta-Transfer like rsync:<br>
+ * <ol>
+ * <li>Receiver: {@link #createSignature(Path)} of the old File</li>
+ * <li>Sender: {@link #readDelta(Path, FileSignature)} of the new File with COPY/LITERAL Instructions</li>
+ * <li>Receiver: {@link #patch(Path, int, Flux)} into a temporary File, which replaces the old File</li>
+ * </ol>
+ *
+ * @author Thomas Freese
+ */
+public final class DeltaUtils {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeltaUtils.class);
+
+    /**
+     * A missing File has a Signature without Blocks.
+     */
+    public static FileSignature createSignature(final Path file) {
+        if (!Files.exists(file)) {
+            return new FileSignature(0L, FileSignature.calculateBlockSize(0L), new int[0], new byte[0][]);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final int blockSize = FileSignature.calculateBlockSize(fileSize);
+            final int blockCount = (int) ((fileSize + blockSize - 1) / blockSize);
+
+            final int[] weakChecksums = new int[blockCount];
+            final byte[][] strongChecksums = new byte[blockCount][];
+
+            final MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            final RollingChecksum rollingChecksum = new RollingChecksum();
+            final byte[] block = new byte[blockSize];
+
+            for (int i = 0; i < blockCount; i++) {
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(block, 0, (int) Math.min(blockSize, fileSize - ((long) i * blockSize)));
+
+                while (byteBuffer.hasRemaining()) {
+                    if (channel.read(byteBuffer) < 0) {
+                        throw new IOException("file has changed while creating the signature: " + file);
+                    }
+                }
+
+                final int length = byteBuffer.position();
+
+                weakChecksums[i] = rollingChecksum.reset(block, 0, length);
+
+                messageDigest.update(block, 0, length);
+                strongChecksums[i] = messageDigest.digest();
+            }
+
+            return new FileSignature(fileSize, blockSize, weakChecksums, strongChecksums);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes the Delta into a temporary File in the same Directory, which replaces the File atomically at the End.<br>
+     * The patched File is verified with the Checksum of the Sender before, see {@link DeltaPatcher#verify()}.<br>
+     * An incomplete, invalid or cancelled Patch deletes the temporary File.<br>
+     * Returns a {@link Flux} with the written Bytes for each ByteBuffer/Chunk.
+     */
+    public static Flux<Long> patch(final Path file, final int blockSize, final Flux<ByteBuffer> deltaFlux) {
+        final Path tmpFile = file.resolveSibling("." + file.getFileName() + ".jsync-delta");
+        final AtomicBoolean committed = new AtomicBoolean(false);
+
+        return Flux.using(() -> new DeltaPatcher(file, tmpFile, blockSize),
+                        deltaPatcher -> deltaFlux.map(deltaPatcher::apply).concatWith(Mono.fromRunnable(deltaPatcher::verify)), deltaPatcher -> {
+                            try {
+                                deltaPatcher.close();
+                            }
+                            catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                        })
+                .concatWith(Mono.fromRunnable(() -> {
+                    move(tmpFile, file);
+                    committed.set(true);
+                }))
+                .doFinally(signal -> {
+                    if (committed.get()) {
+                        return;
+                    }
+
+                    try {
+                        Files.deleteIfExists(tmpFile);
+                    }
+                    catch (IOException ex) {
+                        LOGGER.warn("can not delete temporary file: {}", tmpFile, ex);
+                    }
+                });
+    }
+
+    /**
+     * To release the {@link ByteBuffer}, the return-Flux must be subscribed with {@link ReactiveUtils#releaseConsumer()}.
+     */
+    public static Flux<ByteBuffer> readDelta(final Path file, final FileSignature signature) {
+        return Flux.using(() -> FileChannel.open(file, StandardOpenOption.READ), channel -> Flux.generate(new DeltaGenerator(channel, signature)), ReactiveUtils::close);
+    }
+
+    private static void move(final Path source, final Path target) {
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException _) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private DeltaUtils() {
+        super();
+    }
+}
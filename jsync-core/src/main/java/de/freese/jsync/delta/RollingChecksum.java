@@ -0,0 +1,50 @@
+// Created: 18.10.2026
+package de.freese.jsync.delta;
+
+/**
+ * Weak rolling Checksum of rsync (Adler-32 like, without Modulo-Prime).<br>
+ * The Window can be moved by one Byte in O(1).
+ *
+ * @author Thomas Freese
+ */
+public final class RollingChecksum {
+    private int a;
+    private int b;
+
+    /**
+     * Calculates the Checksum of the Window.
+     */
+    public int reset(final byte[] data, final int offset, final int length) {
+        a = 0;
+        b = 0;
+
+        for (int i = 0; i < length; i++) {
+            final int value = data[offset + i] & 0xFF;
+
+            a += value;
+            b += (length - i) * value;
+        }
+
+        return getValue();
+    }
+
+    /**
+     * Moves the Window by one Byte.
+     *
+     * @param outByte byte; leaves the Window
+     * @param inByte byte; enters the Window
+     * @param length int; Length of the Window
+     */
+    public int roll(final byte outByte, final byte inByte, final int length) {
+        final int out = outByte & 0xFF;
+
+        a += (inByte & 0xFF) - out;
+        b += a - (length * out);
+
+        return getValue();
+    }
+
+    public int getValue() {
+        return (b << 16) | (a & 0xFFFF);
+    }
+}
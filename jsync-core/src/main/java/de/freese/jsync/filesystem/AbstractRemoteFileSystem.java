@@ -0,0 +1,106 @@
+// Created: 18.10.2026
+package de.freese.jsync.filesystem;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.compression.CompressionStatistics;
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
+
+/**
+ * Basis-Implementierung eines entfernten {@link FileSystem}.<br>
+ * The Compression-Codec and the Checksum-Algorithm are negotiated with the Server:
+ * the Server sends his Codecs and Algorithms with the Response of the CONNECT-Command.
+ *
+ * @author Thomas Freese
+ */
+public abstract class AbstractRemoteFileSystem extends AbstractFileSystem {
+    /**
+     * Separator of the Codec- and Algorithm-Names in the CONNECT-Response.
+     */
+    public static final String CODEC_SEPARATOR = ",";
+
+    public static String getLocalChecksumAlgorithms() {
+        return String.join(CODEC_SEPARATOR, ChecksumAlgorithm.getNames());
+    }
+
+    public static String getLocalCompressionCodecs() {
+        return String.join(CODEC_SEPARATOR, CompressionCodecs.getNames());
+    }
+
+    private static Set<String> toNames(final String names) {
+        if (names == null || names.isBlank()) {
+            return Set.of();
+        }
+
+        return Arrays.stream(names.split(CODEC_SEPARATOR)).map(String::strip).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private CompressionCodec compressionCodec = CompressionCodecs.NONE;
+    private int compressionLevel = -1;
+    private CompressionStatistics compressionStatistics = new CompressionStatistics();
+    private Set<String> remoteChecksumAlgorithms = Set.of();
+    private Set<String> remoteCompressionCodecs = Set.of();
+
+    /**
+     * SHA-256 is supported by every Server.
+     */
+    @Override
+    public boolean isChecksumAlgorithmSupported(final ChecksumAlgorithm algorithm) {
+        return ChecksumAlgorithm.SHA256.equals(algorithm) || remoteChecksumAlgorithms.contains(algorithm.getName());
+    }
+
+    @Override
+    public void setCompression(final CompressionCodec codec, final int level, final CompressionStatistics statistics) {
+        this.compressionCodec = Objects.requireNonNull(codec, "codec required");
+        this.compressionLevel = level;
+        this.compressionStatistics = Objects.requireNonNull(statistics, "statistics required");
+    }
+
+    protected ChunkCompressor createChunkCompressor(final ByteBufferPool bufferPool) {
+        return new ChunkCompressor(getCompressionCodec(), getCompressionLevel(), bufferPool, getCompressionStatistics());
+    }
+
+    /**
+     * Returns the configured Codec, if the Server supports it, otherwise {@link CompressionCodecs#NONE}.
+     */
+    protected CompressionCodec getCompressionCodec() {
+        if (remoteCompressionCodecs.contains(compressionCodec.getName())) {
+            return compressionCodec;
+        }
+
+        return CompressionCodecs.NONE;
+    }
+
+    protected int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    protected CompressionStatistics getCompressionStatistics() {
+        return compressionStatistics;
+    }
+
+    /**
+     * @param algorithms String; Names of the Server-Algorithms, see {@link #getLocalChecksumAlgorithms()}
+     */
+    protected void setRemoteChecksumAlgorithms(final String algorithms) {
+        remoteChecksumAlgorithms = toNames(algorithms);
+    }
+
+    /**
+     * @param codecs String; Names of the Server-Codecs, see {@link #getLocalCompressionCodecs()}
+     */
+    protected void setRemoteCompressionCodecs(final String codecs) {
+        remoteCompressionCodecs = toNames(codecs);
+
+        if (!CompressionCodecs.isNone(compressionCodec) && !remoteCompressionCodecs.contains(compressionCodec.getName())) {
+            getLogger().warn("compression codec '{}' is not supported by the server, using no compression", compressionCodec.getName());
+        }
+    }
+}
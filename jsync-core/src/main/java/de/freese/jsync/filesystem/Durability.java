@@ -0,0 +1,46 @@
+// Created: 18.10.2026
+package de.freese.jsync.filesystem;
+
+/**
+ * Durability of a written File, see {@link Receiver#writeFile}.<br>
+ * The File is always written into a Temp-File and renamed atomically, the Modes only differ by the fsync before and after the Rename.
+ *
+ * @author Thomas Freese
+ */
+public enum Durability {
+    /**
+     * fsync of the File and the Directory, the Rename survives a Crash.
+     */
+    DIRECTORY("dir"),
+    /**
+     * fsync of the File before the Rename.
+     */
+    FILE("file"),
+    /**
+     * No fsync, the Operating-System decides when the Data are written.
+     */
+    NONE("none");
+
+    /**
+     * @throws IllegalArgumentException if the Durability is unknown
+     */
+    public static Durability fromName(final String name) {
+        for (final Durability durability : values()) {
+            if (durability.getName().equalsIgnoreCase(name)) {
+                return durability;
+            }
+        }
+
+        throw new IllegalArgumentException("unknown durability: " + name);
+    }
+
+    private final String name;
+
+    Durability(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
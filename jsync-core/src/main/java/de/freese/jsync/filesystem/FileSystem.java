@@ -6,6 +6,9 @@ import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionStatistics;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.model.SyncItem;
 
@@ -15,9 +18,30 @@ import de.freese.jsync.model.SyncItem;
 public interface FileSystem {
     void connect(URI uri);
 
+    /**
+     * Remote FileSystems compress the Data of the transferred Files, see {@link de.freese.jsync.compression.ChunkCompressor}.
+     */
+    default void setCompression(final CompressionCodec codec, final int level, final CompressionStatistics statistics) {
+        // Empty
+    }
+
     void disconnect();
 
-    String generateChecksum(String baseDir, String relativeFile, LongConsumer consumerChecksumBytesRead);
+    String generateChecksum(String baseDir, String relativeFile, ChecksumAlgorithm algorithm, LongConsumer consumerChecksumBytesRead);
+
+    default Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
+        return generateSyncItems(baseDir, followSymLinks, 1, pathFilter);
+    }
+
+    /**
+     * @param parallelism int; Anzahl der Threads, welche die Verzeichnisse gleichzeitig durchlaufen
+     */
+    Flux<SyncItem> generateSyncItems(String baseDir, boolean followSymLinks, int parallelism, PathFilter pathFilter);
 
-    Flux<SyncItem> generateSyncItems(String baseDir, boolean followSymLinks, PathFilter pathFilter);
+    /**
+     * Remote FileSystems support only the Algorithms of the Server, see {@link AbstractRemoteFileSystem}.
+     */
+    default boolean isChecksumAlgorithmSupported(final ChecksumAlgorithm algorithm) {
+        return true;
+    }
 }
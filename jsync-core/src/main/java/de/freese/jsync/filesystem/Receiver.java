@@ -2,10 +2,16 @@
 package de.freese.jsync.filesystem;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
 
 /**
@@ -14,17 +20,77 @@ import de.freese.jsync.model.SyncItem;
  * @author Thomas Freese
  */
 public interface Receiver extends FileSystem {
+    /**
+     * Executes many small Operations, a remote Receiver needs only one Request.<br>
+     * Returns for each Operation the Error-Message, null if successful.
+     */
+    default List<String> batch(final String baseDir, final List<ReceiverOperation> operations) {
+        final List<String> results = new ArrayList<>(operations.size());
+
+        for (final ReceiverOperation operation : operations) {
+            try {
+                switch (operation.type()) {
+                    case CREATE_DIRECTORY -> createDirectory(baseDir, operation.relativePath());
+                    case DELETE -> delete(baseDir, operation.relativePath(), operation.followSymLinks());
+                    case UPDATE -> update(baseDir, operation.syncItem());
+                }
+
+                results.add(null);
+            }
+            catch (final Exception ex) {
+                results.add(ex.getMessage() == null ? ex.getClass().getName() : ex.getMessage());
+            }
+        }
+
+        return results;
+    }
+
     void createDirectory(String baseDir, String relativePath);
 
     void delete(String baseDir, String relativePath, boolean followSymLinks);
 
+    /**
+     * Erzeugt die Block-Signatur der vorhandenen Datei für den Delta-Transfer.
+     */
+    FileSignature generateSignature(String baseDir, String relativeFile);
+
+    /**
+     * The Modification-Times in Millis of the Files or Directories, -1 if not existing.<br>
+     * Used by the {@link de.freese.jsync.client.SyncManifest} to check a Directory cheaply without listing it.
+     */
+    long[] getLastModifiedTimes(String baseDir, List<String> relativePaths);
+
+    /**
+     * The verified Prefix of the partial File of an interrupted {@link #writeFile}, {@link ResumePoint#NONE} if there is none.
+     */
+    ResumePoint getResumePoint(String baseDir, String relativeFile, ChecksumAlgorithm algorithm);
+
+    /**
+     * Writes the Delta of {@link Sender#readDelta(String, String, long, FileSignature)} into a temporary File, which replaces the File.<br>
+     * Returns a {@link Flux} with the written Bytes for each ByteBuffer/Chunk.
+     */
+    Flux<Long> patchFile(String baseDir, String relativeFile, long sizeOfFile, int blockSize, Flux<ByteBuffer> deltaFlux);
+
     void update(String baseDir, SyncItem syncItem);
 
-    void validateFile(String baseDir, SyncItem syncItem, boolean withChecksum, LongConsumer consumerChecksumBytesRead);
+    /**
+     * @param checksumAlgorithm {@link ChecksumAlgorithm}; optional, without Algorithm only the Size is validated
+     */
+    void validateFile(String baseDir, SyncItem syncItem, ChecksumAlgorithm checksumAlgorithm, LongConsumer consumerChecksumBytesRead);
 
     /**
      * Writes the {@link Flux} into the File.<br>
-     * Returns a {@link Flux} with the written Bytes for each ByteBuffer/Chunk.
+     * Returns a {@link Flux} with the written Bytes for each ByteBuffer/Chunk.<br>
+     * If the Checksum of the Sender is given, it is compared with the Digest of the written Bytes,
+     * the File must not be read again by {@link #validateFile(String, SyncItem, ChecksumAlgorithm, LongConsumer)}.<br>
+     * The existing File is only replaced after a complete and valid Transfer.<br>
+     * The partial File of an interrupted Transfer is kept, the Transfer can be continued by the Position of the {@link ResumePoint}.
+     *
+     * @param position long; Start of the File, &gt; 0 for a resumed Transfer
+     * @param checksumAlgorithm {@link ChecksumAlgorithm}; Algorithm of the Checksum
+     * @param checksum String; optional
+     * @param durability {@link Durability}; fsync of the written File
      */
-    Flux<Long> writeFile(String baseDir, String relativeFile, long sizeOfFile, Flux<ByteBuffer> fileFlux);
+    Flux<Long> writeFile(String baseDir, String relativeFile, long position, long sizeOfFile, ChecksumAlgorithm checksumAlgorithm, String checksum, Durability durability,
+                         Flux<ByteBuffer> fileFlux);
 }
@@ -3,6 +3,7 @@ package de.freese.jsync.filesystem;
 
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.LongConsumer;
 
@@ -10,7 +11,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionStatistics;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
 
 /**
@@ -32,6 +39,13 @@ public class ReceiverDelegateLogger implements Receiver {
         }
     }
 
+    @Override
+    public List<String> batch(final String baseDir, final List<ReceiverOperation> operations) {
+        getLogger().info("batch: {}, operations={}", baseDir, operations.size());
+
+        return delegate.batch(baseDir, operations);
+    }
+
     @Override
     public void connect(final URI uri) {
         getLogger().info("connect to {}", uri);
@@ -61,17 +75,55 @@ public class ReceiverDelegateLogger implements Receiver {
     }
 
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        getLogger().info("create checksum: {}/{}", baseDir, relativeFile);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        getLogger().info("create checksum: {}/{}, algorithm={}", baseDir, relativeFile, algorithm.getName());
+
+        return delegate.generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead);
+    }
+
+    @Override
+    public FileSignature generateSignature(final String baseDir, final String relativeFile) {
+        getLogger().info("create signature: {}/{}", baseDir, relativeFile);
+
+        return delegate.generateSignature(baseDir, relativeFile);
+    }
+
+    @Override
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        getLogger().info("generate SyncItems: {}, followSymLinks={}, parallelism={}", baseDir, followSymLinks, parallelism);
+
+        return delegate.generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter);
+    }
+
+    @Override
+    public long[] getLastModifiedTimes(final String baseDir, final List<String> relativePaths) {
+        getLogger().info("get last modified times: {}, count={}", baseDir, relativePaths.size());
 
-        return delegate.generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead);
+        return delegate.getLastModifiedTimes(baseDir, relativePaths);
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        getLogger().info("generate SyncItems: {}, followSymLinks={}", baseDir, followSymLinks);
+    public ResumePoint getResumePoint(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm) {
+        getLogger().info("get resume point: {}/{}", baseDir, relativeFile);
 
-        return delegate.generateSyncItems(baseDir, followSymLinks, pathFilter);
+        return delegate.getResumePoint(baseDir, relativeFile, algorithm);
+    }
+
+    @Override
+    public boolean isChecksumAlgorithmSupported(final ChecksumAlgorithm algorithm) {
+        return delegate.isChecksumAlgorithmSupported(algorithm);
+    }
+
+    @Override
+    public Flux<Long> patchFile(final String baseDir, final String relativeFile, final long sizeOfFile, final int blockSize, final Flux<ByteBuffer> deltaFlux) {
+        getLogger().info("patch file: {}/{}, sizeOfFile={}, blockSize={}", baseDir, relativeFile, sizeOfFile, blockSize);
+
+        return delegate.patchFile(baseDir, relativeFile, sizeOfFile, blockSize, deltaFlux);
+    }
+
+    @Override
+    public void setCompression(final CompressionCodec codec, final int level, final CompressionStatistics statistics) {
+        delegate.setCompression(codec, level, statistics);
     }
 
     @Override
@@ -82,17 +134,18 @@ public class ReceiverDelegateLogger implements Receiver {
     }
 
     @Override
-    public void validateFile(final String baseDir, final SyncItem syncItem, final boolean withChecksum, final LongConsumer consumerChecksumBytesRead) {
-        getLogger().info("validate file: {}/{}, withChecksum={}", baseDir, syncItem.getRelativePath(), withChecksum);
+    public void validateFile(final String baseDir, final SyncItem syncItem, final ChecksumAlgorithm checksumAlgorithm, final LongConsumer consumerChecksumBytesRead) {
+        getLogger().info("validate file: {}/{}, withChecksum={}", baseDir, syncItem.getRelativePath(), checksumAlgorithm != null);
 
-        delegate.validateFile(baseDir, syncItem, withChecksum, consumerChecksumBytesRead);
+        delegate.validateFile(baseDir, syncItem, checksumAlgorithm, consumerChecksumBytesRead);
     }
 
     @Override
-    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long sizeOfFile, final Flux<ByteBuffer> fileFlux) {
-        getLogger().info("write file: {}/{}, sizeOfFile={}", baseDir, relativeFile, sizeOfFile);
+    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile, final ChecksumAlgorithm checksumAlgorithm,
+                                final String checksum, final Durability durability, final Flux<ByteBuffer> fileFlux) {
+        getLogger().info("write file: {}/{}, position={}, sizeOfFile={}, durability={}", baseDir, relativeFile, position, sizeOfFile, durability.getName());
 
-        return delegate.writeFile(baseDir, relativeFile, sizeOfFile, fileFlux);
+        return delegate.writeFile(baseDir, relativeFile, position, sizeOfFile, checksumAlgorithm, checksum, durability, fileFlux);
     }
 
     protected Logger getLogger() {
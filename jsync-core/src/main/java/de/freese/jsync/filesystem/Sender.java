@@ -5,11 +5,27 @@ import java.nio.ByteBuffer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.model.FileSignature;
+
 /**
  * Datenquelle.
  *
  * @author Thomas Freese
  */
 public interface Sender extends FileSystem {
-    Flux<ByteBuffer> readFile(String baseDir, String relativeFile, long sizeOfFile);
+    /**
+     * Checksum of a Range of the File, see {@link de.freese.jsync.model.ResumePoint}.
+     */
+    String generateChunkChecksum(String baseDir, String relativeFile, long position, long length, ChecksumAlgorithm algorithm);
+
+    /**
+     * Liefert die Unterschiede der Datei zur {@link FileSignature} des Receivers als COPY/LITERAL Anweisungen.
+     */
+    Flux<ByteBuffer> readDelta(String baseDir, String relativeFile, long sizeOfFile, FileSignature signature);
+
+    /**
+     * @param position long; Start of the File, &gt; 0 for a resumed Transfer
+     */
+    Flux<ByteBuffer> readFile(String baseDir, String relativeFile, long position, long sizeOfFile);
 }
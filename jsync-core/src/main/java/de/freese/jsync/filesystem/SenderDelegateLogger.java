@@ -10,7 +10,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionStatistics;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.SyncItem;
 
 /**
@@ -47,24 +51,48 @@ public class SenderDelegateLogger implements Sender {
     }
 
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        getLogger().info("create checksum: {}/{}", baseDir, relativeFile);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        getLogger().info("create checksum: {}/{}, algorithm={}", baseDir, relativeFile, algorithm.getName());
 
-        return delegate.generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead);
+        return delegate.generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead);
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        getLogger().info("generate SyncItems: {}, followSymLinks={}", baseDir, followSymLinks);
+    public String generateChunkChecksum(final String baseDir, final String relativeFile, final long position, final long length, final ChecksumAlgorithm algorithm) {
+        getLogger().info("create chunk checksum: {}/{}, position={}, length={}", baseDir, relativeFile, position, length);
 
-        return delegate.generateSyncItems(baseDir, followSymLinks, pathFilter);
+        return delegate.generateChunkChecksum(baseDir, relativeFile, position, length, algorithm);
     }
 
     @Override
-    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long sizeOfFile) {
-        getLogger().info("read file: {}/{}, sizeOfFile={}", baseDir, relativeFile, sizeOfFile);
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        getLogger().info("generate SyncItems: {}, followSymLinks={}, parallelism={}", baseDir, followSymLinks, parallelism);
 
-        return delegate.readFile(baseDir, relativeFile, sizeOfFile);
+        return delegate.generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter);
+    }
+
+    @Override
+    public boolean isChecksumAlgorithmSupported(final ChecksumAlgorithm algorithm) {
+        return delegate.isChecksumAlgorithmSupported(algorithm);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readDelta(final String baseDir, final String relativeFile, final long sizeOfFile, final FileSignature signature) {
+        getLogger().info("read delta: {}/{}, sizeOfFile={}, {}", baseDir, relativeFile, sizeOfFile, signature);
+
+        return delegate.readDelta(baseDir, relativeFile, sizeOfFile, signature);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile) {
+        getLogger().info("read file: {}/{}, position={}, sizeOfFile={}", baseDir, relativeFile, position, sizeOfFile);
+
+        return delegate.readFile(baseDir, relativeFile, position, sizeOfFile);
+    }
+
+    @Override
+    public void setCompression(final CompressionCodec codec, final int level, final CompressionStatistics statistics) {
+        delegate.setCompression(codec, level, statistics);
     }
 
     protected Logger getLogger() {
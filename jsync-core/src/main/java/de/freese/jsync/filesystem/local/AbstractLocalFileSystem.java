@@ -6,6 +6,7 @@ import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
 import de.freese.jsync.filesystem.AbstractFileSystem;
 import de.freese.jsync.filesystem.FileSystem;
 import de.freese.jsync.filter.PathFilter;
@@ -28,12 +29,12 @@ public abstract class AbstractLocalFileSystem extends AbstractFileSystem {
     }
 
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        return getGenerator().generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        return getGenerator().generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead);
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        return getGenerator().generateItems(baseDir, followSymLinks, pathFilter);
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        return getGenerator().generateItems(baseDir, followSymLinks, parallelism, pathFilter);
     }
 }
@@ -0,0 +1,84 @@
+// Created: 18.10.2026
+package de.freese.jsync.filesystem.local;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import reactor.core.publisher.Flux;
+
+import de.freese.jsync.model.JSyncProtocol;
+import de.freese.jsync.utils.ReactiveUtils;
+
+/**
+ * Zero-Copy of a File between two local Filesystems with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.<br>
+ * The Kernel can use copy_file_range/sendfile, the Data are not copied through the Heap.
+ *
+ * @author Thomas Freese
+ */
+public final class LocalFileTransfer {
+    /**
+     * Bytes per transferTo-Call, after each Chunk the Progress is emitted.
+     */
+    private static final long CHUNK_SIZE = 1024L * 1024L * 16L;
+
+    public static boolean isLocal(final URI senderUri, final URI receiverUri) {
+        final String scheme = JSyncProtocol.FILE.getScheme();
+
+        return scheme.equals(senderUri.getScheme()) && scheme.equals(receiverUri.getScheme());
+    }
+
+    /**
+     * Returns a {@link Flux} with the transferred Bytes for each Chunk.
+     */
+    public static Flux<Long> transfer(final Path source, final Path target) {
+        return Flux.using(() -> FileChannel.open(source, StandardOpenOption.READ),
+                sourceChannel -> Flux.using(() -> openTarget(target),
+                        targetChannel -> Flux.<Long, Long>generate(() -> 0L, (position, sink) -> {
+                            try {
+                                final long remaining = sourceChannel.size() - position;
+
+                                if (remaining <= 0L) {
+                                    targetChannel.force(false);
+                                    sink.complete();
+
+                                    return position;
+                                }
+
+                                final long transferred = sourceChannel.transferTo(position, Math.min(CHUNK_SIZE, remaining), targetChannel);
+
+                                if (transferred <= 0L) {
+                                    throw new IOException("file has changed while transferring: " + source);
+                                }
+
+                                sink.next(transferred);
+
+                                return position + transferred;
+                            }
+                            catch (IOException ex) {
+                                sink.error(new UncheckedIOException(ex));
+
+                                return position;
+                            }
+                        }), ReactiveUtils::close),
+                ReactiveUtils::close);
+    }
+
+    private static FileChannel openTarget(final Path target) throws IOException {
+        final Path parentPath = target.getParent();
+
+        if (Files.notExists(parentPath)) {
+            Files.createDirectories(parentPath);
+        }
+
+        return FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private LocalFileTransfer() {
+        super();
+    }
+}
@@ -5,19 +5,30 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.Options;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.checksum.ChecksumDigest;
+import de.freese.jsync.delta.DeltaUtils;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.filter.PathFilterNoOp;
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
 import de.freese.jsync.utils.DigestUtils;
 import de.freese.jsync.utils.JSyncUtils;
@@ -29,6 +40,21 @@ import de.freese.jsync.utils.ReactiveUtils;
  * @author Thomas Freese
  */
 public class LocalhostReceiver extends AbstractLocalFileSystem implements Receiver {
+    /**
+     * Suffix of the hidden Temp-File, into which a File is written before it is renamed to the Target.
+     */
+    public static final String TEMP_FILE_SUFFIX = ".jsync-tmp";
+
+    /**
+     * The hidden Temp-File in the same Directory: '.name.jsync-tmp'.<br>
+     * A remaining Temp-File in the Listing is the partial File of an interrupted Transfer.
+     */
+    public static String getTempFile(final String relativeFile) {
+        final int index = Math.max(relativeFile.lastIndexOf('/'), relativeFile.lastIndexOf('\\'));
+
+        return relativeFile.substring(0, index + 1) + "." + relativeFile.substring(index + 1) + TEMP_FILE_SUFFIX;
+    }
+
     @Override
     public void createDirectory(final String baseDir, final String relativePath) {
         final Path path = Paths.get(baseDir, relativePath);
@@ -56,8 +82,76 @@ public class LocalhostReceiver extends AbstractLocalFileSystem implements Receiv
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        return super.generateSyncItems(baseDir, followSymLinks, PathFilterNoOp.INSTANCE);
+    public FileSignature generateSignature(final String baseDir, final String relativeFile) {
+        return DeltaUtils.createSignature(Paths.get(baseDir, relativeFile));
+    }
+
+    @Override
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        return super.generateSyncItems(baseDir, followSymLinks, parallelism, PathFilterNoOp.INSTANCE);
+    }
+
+    @Override
+    public long[] getLastModifiedTimes(final String baseDir, final List<String> relativePaths) {
+        final long[] lastModifiedTimes = new long[relativePaths.size()];
+
+        for (int i = 0; i < lastModifiedTimes.length; i++) {
+            final Path path = Paths.get(baseDir, relativePaths.get(i));
+
+            try {
+                lastModifiedTimes[i] = Files.getLastModifiedTime(path).toMillis();
+            }
+            catch (final NoSuchFileException _) {
+                lastModifiedTimes[i] = -1L;
+            }
+            catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        return lastModifiedTimes;
+    }
+
+    @Override
+    public ResumePoint getResumePoint(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm) {
+        final Path tempPath = getTempPath(Paths.get(baseDir, relativeFile));
+
+        try {
+            if (Files.notExists(tempPath)) {
+                return ResumePoint.NONE;
+            }
+
+            // Only complete Chunks, the last Chunk can be written partially.
+            final long position = (Files.size(tempPath) / ResumePoint.CHUNK_SIZE) * ResumePoint.CHUNK_SIZE;
+
+            if (position == 0L) {
+                return ResumePoint.NONE;
+            }
+
+            final String checksum = DigestUtils.digestAsHex(tempPath, position - ResumePoint.CHUNK_SIZE, ResumePoint.CHUNK_SIZE, algorithm);
+
+            return new ResumePoint(position, checksum);
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Flux<Long> patchFile(final String baseDir, final String relativeFile, final long sizeOfFile, final int blockSize, final Flux<ByteBuffer> deltaFlux) {
+        final Path path = Paths.get(baseDir, relativeFile);
+        final Path parentPath = path.getParent();
+
+        try {
+            if (Files.notExists(parentPath)) {
+                Files.createDirectories(parentPath);
+            }
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return DeltaUtils.patch(path, blockSize, deltaFlux);
     }
 
     @Override
@@ -113,7 +207,7 @@ public class LocalhostReceiver extends AbstractLocalFileSystem implements Receiv
     }
 
     @Override
-    public void validateFile(final String baseDir, final SyncItem syncItem, final boolean withChecksum, final LongConsumer consumerChecksumBytesRead) {
+    public void validateFile(final String baseDir, final SyncItem syncItem, final ChecksumAlgorithm checksumAlgorithm, final LongConsumer consumerChecksumBytesRead) {
         final Path path = Paths.get(baseDir, syncItem.getRelativePath());
 
         try {
@@ -122,10 +216,10 @@ public class LocalhostReceiver extends AbstractLocalFileSystem implements Receiv
                 throw new IllegalStateException(message);
             }
 
-            if (withChecksum) {
+            if (checksumAlgorithm != null) {
                 getLogger().debug("building Checksum: {}/{}", baseDir, syncItem.getRelativePath());
 
-                final String checksum = DigestUtils.sha256DigestAsHex(path, consumerChecksumBytesRead);
+                final String checksum = DigestUtils.digestAsHex(path, checksumAlgorithm, consumerChecksumBytesRead);
 
                 if (!checksum.equals(syncItem.getChecksum())) {
                     final String message = String.format("checksum does not match with source: %s/%s", baseDir, syncItem.getRelativePath());
@@ -139,26 +233,105 @@ public class LocalhostReceiver extends AbstractLocalFileSystem implements Receiv
     }
 
     @Override
-    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long sizeOfFile, final Flux<ByteBuffer> fileFlux) {
+    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile, final ChecksumAlgorithm checksumAlgorithm,
+                                final String checksum, final Durability durability, final Flux<ByteBuffer> fileFlux) {
         final Path path = Paths.get(baseDir, relativeFile);
         final Path parentPath = path.getParent();
+        final Path tempPath = getTempPath(path);
 
         try {
             if (Files.notExists(parentPath)) {
                 Files.createDirectories(parentPath);
             }
 
-            if (Files.notExists(path)) {
-                Files.createFile(path);
+            // Without SYNC, the Data are written once by the fsync of the Durability.
+            // The partial File of an interrupted Transfer is continued at the Position.
+            final FileChannel fileChannelReceiver = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+
+            try {
+                fileChannelReceiver.truncate(position).position(position);
             }
+            catch (final IOException ex) {
+                JSyncUtils.close(fileChannelReceiver);
 
-            final FileChannel fileChannelReceiver = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.SYNC);
+                throw ex;
+            }
+
+            final Flux<Long> flux;
+
+            if (checksum == null) {
+                flux = ReactiveUtils.write(fileFlux, fileChannelReceiver);
+            } else {
+                // Checksum of the written Bytes, only the Prefix of a resumed Transfer is read again.
+                final ChecksumDigest checksumDigest = checksumAlgorithm.newDigest();
+                DigestUtils.digest(fileChannelReceiver, 0L, position, checksumDigest);
+
+                flux = ReactiveUtils.write(fileFlux, fileChannelReceiver, checksumDigest)
+                        .doOnComplete(() -> {
+                            if (!checksum.equals(checksumDigest.digestAsHex())) {
+                                // The partial File is useless.
+                                JSyncUtils.close(fileChannelReceiver);
+                                deleteTempFile(tempPath);
+
+                                final String message = String.format("checksum does not match with source: %s/%s", baseDir, relativeFile);
+                                throw new IllegalStateException(message);
+                            }
+                        });
+            }
 
-            return ReactiveUtils.write(fileFlux, fileChannelReceiver).doFinally(type -> JSyncUtils.close(fileChannelReceiver));
+            // The existing File is unchanged until the Commit, the partial File of a failed Transfer is kept for a Resume.
+            return flux
+                    .doOnComplete(() -> commit(fileChannelReceiver, tempPath, path, durability))
+                    .doFinally(type -> JSyncUtils.close(fileChannelReceiver));
         }
         catch (final IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
+
+    /**
+     * fsync of the Temp-File, atomic Rename to the Target and fsync of the Directory, depending on the {@link Durability}.
+     */
+    private void commit(final FileChannel fileChannel, final Path tempPath, final Path path, final Durability durability) {
+        try {
+            if (!Durability.NONE.equals(durability)) {
+                fileChannel.force(true);
+            }
+
+            fileChannel.close();
+
+            try {
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (Durability.DIRECTORY.equals(durability) && !Options.IS_WINDOWS) {
+                // Windows can not open a Directory as Channel.
+                try (FileChannel directoryChannel = FileChannel.open(path.getParent(), StandardOpenOption.READ)) {
+                    directoryChannel.force(true);
+                }
+            }
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void deleteTempFile(final Path tempPath) {
+        try {
+            Files.deleteIfExists(tempPath);
+        }
+        catch (final IOException ex) {
+            getLogger().warn("can not delete temp file: {}", tempPath, ex);
+        }
+    }
+
+    /**
+     * Sibling in the same Directory, so the Rename is atomic.
+     */
+    private Path getTempPath(final Path path) {
+        return path.resolveSibling(getTempFile(path.getFileName().toString()));
+    }
 }
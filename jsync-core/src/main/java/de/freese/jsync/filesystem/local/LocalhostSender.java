@@ -10,7 +10,11 @@ import java.nio.file.StandardOpenOption;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.delta.DeltaUtils;
 import de.freese.jsync.filesystem.Sender;
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.utils.DigestUtils;
 import de.freese.jsync.utils.ReactiveUtils;
 
 /**
@@ -20,7 +24,28 @@ import de.freese.jsync.utils.ReactiveUtils;
  */
 public class LocalhostSender extends AbstractLocalFileSystem implements Sender {
     @Override
-    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long sizeOfFile) {
+    public String generateChunkChecksum(final String baseDir, final String relativeFile, final long position, final long length, final ChecksumAlgorithm algorithm) {
+        final Path path = Paths.get(baseDir, relativeFile);
+
+        return DigestUtils.digestAsHex(path, position, length, algorithm);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readDelta(final String baseDir, final String relativeFile, final long sizeOfFile, final FileSignature signature) {
+        final Path path = Paths.get(baseDir, relativeFile);
+
+        if (!Files.exists(path)) {
+            final String message = String.format("file doesn't exist anymore: %s", path);
+            getLogger().warn(message);
+
+            return Flux.empty();
+        }
+
+        return DeltaUtils.readDelta(path, signature);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile) {
         final Path path = Paths.get(baseDir, relativeFile);
 
         if (!Files.exists(path)) {
@@ -30,6 +55,6 @@ public class LocalhostSender extends AbstractLocalFileSystem implements Sender {
             return Flux.empty();
         }
 
-        return ReactiveUtils.readByteChannel(() -> FileChannel.open(path, StandardOpenOption.READ));
+        return ReactiveUtils.readByteChannel(() -> FileChannel.open(path, StandardOpenOption.READ).position(position));
     }
 }
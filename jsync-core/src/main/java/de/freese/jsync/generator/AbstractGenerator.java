@@ -6,35 +6,78 @@ import java.io.UncheckedIOException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 import reactor.core.publisher.Flux;
 
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.utils.io.FileVisitorHierarchie;
+import de.freese.jsync.utils.io.ParallelFileWalker;
 
 /**
  * @author Thomas Freese
  */
 public abstract class AbstractGenerator implements Generator {
-    protected Flux<Path> getPathsAsFlux(final Path base, final FileVisitOption[] visitOptions, final PathFilter pathFilter) {
-        return Flux.<Path>create(sink -> {
-            walkFileTree(base, visitOptions, pathFilter, sink::next);
+    /**
+     * A walked Path with the Number of Entries of a Directory, counted by the Walker.
+     *
+     * @param childCount long; -1 for Files and Directories which are not walked, like Symlinks without following
+     */
+    protected record PathEntry(Path path, long childCount) {
+        public boolean isWalkedDirectory() {
+            return childCount >= 0L;
+        }
+    }
+
+    /**
+     * Sorts by the String of the Path, this is the same Order as the relative Paths of the {@link de.freese.jsync.model.SyncItem}.<br>
+     * The natural Order of {@link Path} is platform dependent.
+     */
+    protected static final Comparator<Path> PATH_COMPARATOR = Comparator.comparing(Path::toString);
+
+    private static final Comparator<PathEntry> PATH_ENTRY_COMPARATOR = Comparator.comparing(PathEntry::path, PATH_COMPARATOR);
+
+    protected Flux<PathEntry> getPathsAsFlux(final Path base, final FileVisitOption[] visitOptions, final PathFilter pathFilter) {
+        return Flux.<PathEntry>create(sink -> {
+            walkFileTree(base, visitOptions, pathFilter, (path, childCount) -> sink.next(new PathEntry(path, childCount)));
             sink.complete();
-        }).sort();
+        }).sort(PATH_ENTRY_COMPARATOR);
+    }
+
+    /**
+     * @param parallelism int; if > 1 the Directories are walked concurrently, the Result is sorted anyway
+     */
+    protected Flux<PathEntry> getPathsAsFlux(final Path base, final FileVisitOption[] visitOptions, final int parallelism, final PathFilter pathFilter) {
+        if (parallelism <= 1) {
+            return getPathsAsFlux(base, visitOptions, pathFilter);
+        }
+
+        final boolean followSymLinks = Arrays.asList(visitOptions).contains(FileVisitOption.FOLLOW_LINKS);
+
+        return Flux.<PathEntry>create(sink -> {
+            try {
+                new ParallelFileWalker(base, followSymLinks, parallelism, pathFilter, (path, childCount) -> sink.next(new PathEntry(path, childCount))).walk();
+                sink.complete();
+            }
+            catch (final IOException ex) {
+                sink.error(new UncheckedIOException(ex));
+            }
+        }).sort(PATH_ENTRY_COMPARATOR);
     }
 
     protected Set<Path> getPathsAsSet(final Path base, final FileVisitOption[] visitOptions, final PathFilter pathFilter) {
-        final Set<Path> set = new TreeSet<>();
+        final Set<Path> set = new TreeSet<>(PATH_COMPARATOR);
 
-        walkFileTree(base, visitOptions, pathFilter, set::add);
+        walkFileTree(base, visitOptions, pathFilter, (path, childCount) -> set.add(path));
 
         return set;
     }
 
-    private void walkFileTree(final Path base, final FileVisitOption[] visitOptions, final PathFilter pathFilter, final Consumer<Path> consumer) {
+    private void walkFileTree(final Path base, final FileVisitOption[] visitOptions, final PathFilter pathFilter, final ObjLongConsumer<Path> consumer) {
         //  Exception here if Files are corrupt, use own FileWalker !
         // try (Stream<Path> stream = Files.walk(base, visitOptions)) {...}
 
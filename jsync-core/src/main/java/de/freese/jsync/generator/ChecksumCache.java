@@ -0,0 +1,287 @@
+// Created: 18.10.2026
+package de.freese.jsync.generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.utils.DigestUtils;
+import de.freese.jsync.utils.JSyncUtils;
+
+/**
+ * Persistent Cache of the Checksums of a Base-Directory.<br>
+ * An Entry is only valid, if Size, Modification-Time (nanos) and Inode (FileKey) of the File are unchanged.<br>
+ * The least recently used Entries are evicted, the Cache-File is replaced atomically.<br>
+ * A Checksum is not cached, if the File was changed while hashing or its Modification-Time is too close to now:
+ * a following Change within the Timestamp-Granularity of the Filesystem would not be detected.<br>
+ * Only the {@link #MAX_CACHES} least recently used Base-Directories are held in Memory.<br>
+ * <br>
+ * System-Properties:<br>
+ * <ul>
+ * <li>jsync.checksum.cache.enabled: Default true</li>
+ * <li>jsync.checksum.cache.dir: Default ~/.cache/jsync/checksums</li>
+ * </ul>
+ *
+ * @author Thomas Freese
+ */
+public final class ChecksumCache {
+    public static final int DEFAULT_MAX_ENTRIES = 200_000;
+    /**
+     * Maximum Caches in Memory, an evicted Cache is saved.
+     */
+    public static final int MAX_CACHES = 16;
+
+    /**
+     * accessOrder = true: LRU; guarded by itself
+     */
+    private static final Map<String, ChecksumCache> CACHES = new LinkedHashMap<>(MAX_CACHES, 0.75F, true);
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChecksumCache.class);
+    private static final int MAGIC = 0x4A534343; // JSCC
+    private static final long SAVE_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * Coarsest Granularity of the Modification-Time of common Filesystems: FAT 2 Seconds.
+     */
+    private static final long TIMESTAMP_GRANULARITY_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int VERSION = 1;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ChecksumCache::saveAll, "checksum-cache-save"));
+    }
+
+    /**
+     * Every {@link ChecksumAlgorithm} has its own Cache.
+     *
+     * @return {@link ChecksumCache}; null if disabled
+     */
+    public static ChecksumCache getInstance(final Path baseDir, final ChecksumAlgorithm algorithm) {
+        if (!Boolean.parseBoolean(System.getProperty("jsync.checksum.cache.enabled", "true"))) {
+            return null;
+        }
+
+        final Path base = baseDir.toAbsolutePath().normalize();
+
+        // The Cache-Files of SHA-256 keep their Names.
+        final String cacheKey = ChecksumAlgorithm.SHA256.equals(algorithm) ? base.toString() : base + ":" + algorithm.getName();
+
+        final ChecksumCache cache;
+        ChecksumCache evicted = null;
+
+        synchronized (CACHES) {
+            cache = CACHES.computeIfAbsent(cacheKey, key -> {
+                final Path cacheDir = Paths.get(System.getProperty("jsync.checksum.cache.dir", Paths.get(System.getProperty("user.home"), ".cache", "jsync", "checksums").toString()));
+                final String fileName = JSyncUtils.bytesToHex(DigestUtils.sha256Digest(key.getBytes(StandardCharsets.UTF_8))).substring(0, 32);
+
+                return new ChecksumCache(cacheDir.resolve(fileName + ".cache"), DEFAULT_MAX_ENTRIES);
+            });
+
+            if (CACHES.size() > MAX_CACHES) {
+                final Iterator<ChecksumCache> iterator = CACHES.values().iterator();
+                evicted = iterator.next();
+                iterator.remove();
+            }
+        }
+
+        // Outside the Lock, the other Lookups do not wait for the Disk.
+        if (evicted != null) {
+            evicted.save();
+        }
+
+        return cache;
+    }
+
+    public static void saveAll() {
+        final List<ChecksumCache> caches;
+
+        synchronized (CACHES) {
+            caches = List.copyOf(CACHES.values());
+        }
+
+        caches.forEach(ChecksumCache::save);
+    }
+
+    private static BasicFileAttributes readAttributes(final Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @author Thomas Freese
+     */
+    private record Entry(long size, long lastModifiedNanos, String fileKey, String checksum) {
+        boolean matches(final long size, final long lastModifiedNanos, final String fileKey) {
+            return this.size == size && this.lastModifiedNanos == lastModifiedNanos && this.fileKey.equals(fileKey);
+        }
+    }
+
+    private final Path cacheFile;
+    private final Map<String, Entry> entries;
+
+    private boolean dirty;
+    private long lastSave = System.currentTimeMillis();
+
+    public ChecksumCache(final Path cacheFile, final int maxEntries) {
+        super();
+
+        this.cacheFile = Objects.requireNonNull(cacheFile, "cacheFile required");
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0: " + maxEntries);
+        }
+
+        // accessOrder = true: LRU
+        this.entries = new LinkedHashMap<>(1024, 0.75F, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        load();
+    }
+
+    /**
+     * Liefert die Prüfsumme aus dem Cache oder berechnet sie neu.
+     *
+     * @param checksumSupplier {@link Supplier}; calculates the Checksum if not cached or outdated
+     */
+    public String getChecksum(final String relativeFile, final Path file, final Supplier<String> checksumSupplier) {
+        final BasicFileAttributes attributes = readAttributes(file);
+
+        final long size = attributes.size();
+        final long lastModifiedNanos = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        final String fileKey = attributes.fileKey() == null ? "" : attributes.fileKey().toString();
+
+        synchronized (this) {
+            final Entry entry = entries.get(relativeFile);
+
+            if (entry != null && entry.matches(size, lastModifiedNanos, fileKey)) {
+                return entry.checksum();
+            }
+        }
+
+        // Outside the Lock, the Calculation of large Files takes a long Time.
+        final String checksum = checksumSupplier.get();
+
+        final BasicFileAttributes attributesAfter = readAttributes(file);
+        final String fileKeyAfter = attributesAfter.fileKey() == null ? "" : attributesAfter.fileKey().toString();
+
+        if (attributesAfter.size() != size || attributesAfter.lastModifiedTime().to(TimeUnit.NANOSECONDS) != lastModifiedNanos || !fileKeyAfter.equals(fileKey)) {
+            // Changed while hashing.
+            return checksum;
+        }
+
+        if ((TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - lastModifiedNanos) < TIMESTAMP_GRANULARITY_NANOS) {
+            // A Change within the Granularity would keep the Modification-Time.
+            return checksum;
+        }
+
+        synchronized (this) {
+            entries.put(relativeFile, new Entry(size, lastModifiedNanos, fileKey, checksum));
+            dirty = true;
+
+            if ((System.currentTimeMillis() - lastSave) > SAVE_INTERVAL_MILLIS) {
+                save();
+            }
+        }
+
+        return checksum;
+    }
+
+    /**
+     * Writes the Cache into a temporary File and moves it atomically over the Cache-File.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+
+        final Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(entries.size());
+
+                for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                    final Entry entry = mapEntry.getValue();
+
+                    outputStream.writeUTF(mapEntry.getKey());
+                    outputStream.writeLong(entry.size());
+                    outputStream.writeLong(entry.lastModifiedNanos());
+                    outputStream.writeUTF(entry.fileKey());
+                    outputStream.writeUTF(entry.checksum());
+                }
+            }
+
+            try {
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException _) {
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            dirty = false;
+            lastSave = System.currentTimeMillis();
+        }
+        catch (IOException ex) {
+            LOGGER.warn("can not save checksum cache: {}", cacheFile, ex);
+        }
+    }
+
+    private void load() {
+        if (Files.notExists(cacheFile)) {
+            return;
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+                LOGGER.warn("ignore unknown checksum cache: {}", cacheFile);
+                return;
+            }
+
+            final int count = inputStream.readInt();
+
+            for (int i = 0; i < count; i++) {
+                final String relativeFile = inputStream.readUTF();
+                final Entry entry = new Entry(inputStream.readLong(), inputStream.readLong(), inputStream.readUTF(), inputStream.readUTF());
+
+                entries.put(relativeFile, entry);
+            }
+        }
+        catch (IOException ex) {
+            // A corrupt Cache is only a Cache-Miss.
+            LOGGER.warn("can not load checksum cache: {}", cacheFile, ex);
+            entries.clear();
+        }
+    }
+}
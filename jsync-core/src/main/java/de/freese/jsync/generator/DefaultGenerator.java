@@ -15,6 +15,7 @@ import java.util.stream.Stream;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.model.DefaultSyncItem;
 import de.freese.jsync.model.SyncItem;
@@ -25,15 +26,39 @@ import de.freese.jsync.utils.JSyncUtils;
  * @author Thomas Freese
  */
 public class DefaultGenerator extends AbstractGenerator {
+    /**
+     * Unchanged Files are looked up in the {@link ChecksumCache}, the Consumer then gets the File-Size at once.
+     */
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
         final Path path = Paths.get(baseDir, relativeFile);
+        final ChecksumCache checksumCache = ChecksumCache.getInstance(Paths.get(baseDir), algorithm);
+
+        if (checksumCache == null) {
+            return DigestUtils.digestAsHex(path, algorithm, consumerChecksumBytesRead);
+        }
+
+        final boolean[] calculated = {false};
+
+        final String checksum = checksumCache.getChecksum(relativeFile, path, () -> {
+            calculated[0] = true;
+            return DigestUtils.digestAsHex(path, algorithm, consumerChecksumBytesRead);
+        });
+
+        if (!calculated[0] && consumerChecksumBytesRead != null) {
+            try {
+                consumerChecksumBytesRead.accept(Files.size(path));
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
 
-        return DigestUtils.sha256DigestAsHex(path, consumerChecksumBytesRead);
+        return checksum;
     }
 
     @Override
-    public Flux<SyncItem> generateItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
+    public Flux<SyncItem> generateItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
         final Path base = Paths.get(baseDir);
 
         if (Files.notExists(base)) {
@@ -43,9 +68,16 @@ public class DefaultGenerator extends AbstractGenerator {
         final FileVisitOption[] visitOptions = JSyncUtils.getFileVisitOptions(followSymLinks);
         final LinkOption[] linkOptions = JSyncUtils.getLinkOptions(followSymLinks);
 
-        return getPathsAsFlux(base, visitOptions, pathFilter)
-                .mapNotNull(path -> {
+        return getPathsAsFlux(base, visitOptions, parallelism, pathFilter)
+                .mapNotNull(pathEntry -> {
+                    final Path path = pathEntry.path();
+
+                    if (pathEntry.isWalkedDirectory()) {
+                        return toDirectoryItem(path, base.relativize(path).toString(), pathEntry.childCount(), linkOptions);
+                    }
+
                     if (Files.isDirectory(path)) {
+                        // Not walked, like a Symlink without following.
                         return toDirectoryItem(path, base.relativize(path).toString(), linkOptions);
                     }
 
@@ -58,6 +90,14 @@ public class DefaultGenerator extends AbstractGenerator {
      * @param linkOptions {@link LinkOption}; if LinkOption#NOFOLLOW_LINKS null than Follow
      */
     protected SyncItem toDirectoryItem(final Path directory, final String relativeDir, final LinkOption[] linkOptions) {
+        return toDirectoryItem(directory, relativeDir, -1L, linkOptions);
+    }
+
+    /**
+     * @param childCount long; Number of Entries counted by the Walker, if < 0 the Directory is listed
+     * @param linkOptions {@link LinkOption}; if LinkOption#NOFOLLOW_LINKS null than Follow
+     */
+    protected SyncItem toDirectoryItem(final Path directory, final String relativeDir, final long childCount, final LinkOption[] linkOptions) {
         if (relativeDir.isEmpty()) {
             // relativeDir = directory
             return null;
@@ -66,13 +106,17 @@ public class DefaultGenerator extends AbstractGenerator {
         final SyncItem syncItem = new DefaultSyncItem(relativeDir);
 
         try {
-            try (Stream<Path> children = Files.list(directory)) {
+            if (childCount >= 0L) {
+                syncItem.setSize(childCount);
+            } else {
+                try (Stream<Path> children = Files.list(directory)) {
 
-                final long count = children
-                        .filter(child -> !child.equals(directory)) // We do not want the Base-Directory.
-                        .count();
+                    final long count = children
+                            .filter(child -> !child.equals(directory)) // We do not want the Base-Directory.
+                            .count();
 
-                syncItem.setSize(count);
+                    syncItem.setSize(count);
+                }
             }
 
             final long lastModifiedTime = Files.getLastModifiedTime(directory, linkOptions).to(TimeUnit.SECONDS);
@@ -7,6 +7,7 @@ import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.model.SyncItem;
 
@@ -21,12 +22,22 @@ public interface Generator {
      *
      * @param consumerChecksumBytesRead {@link LongConsumer}; optional
      */
-    String generateChecksum(String baseDir, String relativeFile, LongConsumer consumerChecksumBytesRead);
+    String generateChecksum(String baseDir, String relativeFile, ChecksumAlgorithm algorithm, LongConsumer consumerChecksumBytesRead);
 
     /**
      * Erzeugt die SyncItems (Verzeichnisse, Dateien) des Basis-Verzeichnisses.<br>
      */
-    Flux<SyncItem> generateItems(String baseDir, boolean followSymLinks, PathFilter pathFilter);
+    default Flux<SyncItem> generateItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
+        return generateItems(baseDir, followSymLinks, 1, pathFilter);
+    }
+
+    /**
+     * Erzeugt die SyncItems (Verzeichnisse, Dateien) des Basis-Verzeichnisses.<br>
+     * Die Reihenfolge ist unabhängig von der Parallelität immer nach dem relativen Pfad sortiert.
+     *
+     * @param parallelism int; Anzahl der Threads, welche die Verzeichnisse gleichzeitig durchlaufen
+     */
+    Flux<SyncItem> generateItems(String baseDir, boolean followSymLinks, int parallelism, PathFilter pathFilter);
 
     /**
      * Erzeugt die SyncItems (Verzeichnisse, Dateien) des Basis-Verzeichnisses.<br>
@@ -0,0 +1,101 @@
+// Created: 18.10.2026
+package de.freese.jsync.model;
+
+import java.util.Objects;
+
+/**
+ * Block-Signature of a File for the Delta-Transfer like rsync.<br>
+ * Every Block has a weak rolling Checksum and a strong MD5-Checksum, the last Block can be shorter.
+ *
+ * @author Thomas Freese
+ */
+public final class FileSignature {
+    /**
+     * Size of a Block-Entry: weak int + 16 Bytes MD5.
+     */
+    public static final int BYTES_PER_BLOCK = 4 + 16;
+    /**
+     * The Signature must fit into one Frame/Payload: max. 3 MB.
+     */
+    public static final int MAX_BLOCK_COUNT = (1024 * 1024 * 3) / BYTES_PER_BLOCK;
+    public static final int MIN_BLOCK_SIZE = 2048;
+
+    /**
+     * Like rsync: Block-Size ~ sqrt(fileSize), but at least {@link #MIN_BLOCK_SIZE} and limited by {@link #MAX_BLOCK_COUNT}.
+     */
+    public static int calculateBlockSize(final long fileSize) {
+        long blockSize = (long) Math.sqrt(fileSize);
+
+        blockSize = Math.max(blockSize, (fileSize + MAX_BLOCK_COUNT - 1) / MAX_BLOCK_COUNT);
+        blockSize = Math.max(blockSize, MIN_BLOCK_SIZE);
+
+        // Multiple of 8.
+        blockSize = (blockSize + 7) & ~7L;
+
+        return (int) blockSize;
+    }
+
+    private final int blockSize;
+    private final long fileSize;
+    private final byte[][] strongChecksums;
+    private final int[] weakChecksums;
+
+    public FileSignature(final long fileSize, final int blockSize, final int[] weakChecksums, final byte[][] strongChecksums) {
+        super();
+
+        this.fileSize = fileSize;
+        this.blockSize = blockSize;
+        this.weakChecksums = Objects.requireNonNull(weakChecksums, "weakChecksums required");
+        this.strongChecksums = Objects.requireNonNull(strongChecksums, "strongChecksums required");
+
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be > 0: " + blockSize);
+        }
+
+        if (weakChecksums.length != strongChecksums.length) {
+            throw new IllegalArgumentException("weakChecksums and strongChecksums must have the same length");
+        }
+    }
+
+    public int getBlockCount() {
+        return weakChecksums.length;
+    }
+
+    /**
+     * The last Block can be shorter.
+     */
+    public int getBlockLength(final int blockIndex) {
+        final long offset = (long) blockIndex * blockSize;
+
+        return (int) Math.min(blockSize, fileSize - offset);
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public byte[] getStrongChecksum(final int blockIndex) {
+        return strongChecksums[blockIndex];
+    }
+
+    public int getWeakChecksum(final int blockIndex) {
+        return weakChecksums[blockIndex];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName());
+        sb.append(" [");
+        sb.append("fileSize=").append(fileSize);
+        sb.append(", blockSize=").append(blockSize);
+        sb.append(", blockCount=").append(getBlockCount());
+        sb.append("]");
+
+        return sb.toString();
+    }
+}
@@ -11,10 +11,16 @@ public enum JSyncCommand {
 
     SOURCE_CHECKSUM,
 
+    SOURCE_CHUNK_CHECKSUM,
+
     SOURCE_CREATE_SYNC_ITEMS,
 
+    SOURCE_READ_DELTA,
+
     SOURCE_READ_FILE,
 
+    TARGET_BATCH,
+
     TARGET_CHECKSUM,
 
     TARGET_CREATE_DIRECTORY,
@@ -23,6 +29,14 @@ public enum JSyncCommand {
 
     TARGET_DELETE,
 
+    TARGET_LAST_MODIFIED_TIMES,
+
+    TARGET_PATCH_FILE,
+
+    TARGET_RESUME_POINT,
+
+    TARGET_SIGNATURE,
+
     TARGET_UPDATE,
 
     TARGET_VALIDATE_FILE,
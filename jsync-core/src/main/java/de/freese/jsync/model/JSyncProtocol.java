@@ -44,6 +44,28 @@ public enum JSyncProtocol {
         }
     },
 
+    /**
+     * NIO with TLS.
+     */
+    NIOS {
+        @Override
+        public String getScheme() {
+            return "nios";
+        }
+
+        @Override
+        public boolean isRemote() {
+            return true;
+        }
+
+        @Override
+        public URI toUri(final String hostPort, final String path) {
+            final URI uri = Paths.get(path).toUri();
+
+            return URI.create(getScheme() + "://" + hostPort + uri.getRawPath());
+        }
+    },
+
     RSOCKET {
         @Override
         public String getScheme() {
@@ -0,0 +1,40 @@
+// Created: 18.10.2026
+package de.freese.jsync.model;
+
+import java.util.Objects;
+
+/**
+ * Small Operation of a {@link de.freese.jsync.filesystem.Receiver}, many of them are executed with one Request.
+ *
+ * @author Thomas Freese
+ */
+public record ReceiverOperation(Type type, String relativePath, boolean followSymLinks, SyncItem syncItem) {
+    public enum Type {
+        CREATE_DIRECTORY,
+
+        DELETE,
+
+        UPDATE
+    }
+
+    public static ReceiverOperation createDirectory(final String relativePath) {
+        return new ReceiverOperation(Type.CREATE_DIRECTORY, relativePath, false, null);
+    }
+
+    public static ReceiverOperation delete(final String relativePath, final boolean followSymLinks) {
+        return new ReceiverOperation(Type.DELETE, relativePath, followSymLinks, null);
+    }
+
+    public static ReceiverOperation update(final SyncItem syncItem) {
+        return new ReceiverOperation(Type.UPDATE, syncItem.getRelativePath(), false, syncItem);
+    }
+
+    public ReceiverOperation {
+        Objects.requireNonNull(type, "type required");
+        Objects.requireNonNull(relativePath, "relativePath required");
+
+        if (Type.UPDATE.equals(type)) {
+            Objects.requireNonNull(syncItem, "syncItem required");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+// Created: 18.10.2026
+package de.freese.jsync.model;
+
+import de.freese.jsync.Options;
+
+/**
+ * Verified Prefix of a partial transferred File, see {@link de.freese.jsync.filesystem.Receiver#getResumePoint}.<br>
+ * The Position is a Multiple of {@link #CHUNK_SIZE}, the Checksum is of the last Chunk before the Position.<br>
+ * The Client compares it with the Checksum of the Sender, if equal the Transfer is continued at the Position.
+ *
+ * @author Thomas Freese
+ */
+public record ResumePoint(long position, String checksum) {
+    /**
+     * Default: 4 MB
+     */
+    public static final int CHUNK_SIZE = Options.BUFFER_SIZE;
+    public static final ResumePoint NONE = new ResumePoint(0L, null);
+
+    public boolean isResumable() {
+        return position > 0L && checksum != null;
+    }
+}
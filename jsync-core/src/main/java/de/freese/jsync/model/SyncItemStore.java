@@ -0,0 +1,302 @@
+// Created: 18.10.2026
+package de.freese.jsync.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import de.freese.jsync.utils.JSyncUtils;
+
+/**
+ * Compact {@link List} of {@link SyncItem}s, the Attributes are stored column by column in primitive Arrays.<br>
+ * A Path is split into the Parent-Directory, which is stored only once in a Table, and the Name, which is stored as UTF-8 in a Byte-Array.<br>
+ * The Checksums are stored binary, all Checksums must have the same Length like with one {@link de.freese.jsync.checksum.ChecksumAlgorithm}.<br>
+ * The Items of {@link #get(int)} are Flyweights: they only hold the Index, the Setters write into the Store.<br>
+ * About 30 Bytes per Item plus the Name and the Checksum, instead of several Objects with Headers and Strings.<br>
+ * Not thread-safe.
+ *
+ * @author Thomas Freese
+ */
+public final class SyncItemStore extends AbstractList<SyncItem> implements RandomAccess {
+    private static final byte FLAG_CHECKSUM = 0x02;
+    private static final byte FLAG_FILE = 0x01;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * View of one Entry of the Store.
+     *
+     * @author Thomas Freese
+     */
+    private final class FlyweightSyncItem implements SyncItem {
+        private final int index;
+
+        private FlyweightSyncItem(final int index) {
+            super();
+
+            this.index = index;
+        }
+
+        @Override
+        public String getChecksum() {
+            return SyncItemStore.this.getChecksum(index);
+        }
+
+        @Override
+        public long getLastModifiedTime() {
+            return lastModifiedTimes[index];
+        }
+
+        @Override
+        public String getRelativePath() {
+            return SyncItemStore.this.getRelativePath(index);
+        }
+
+        @Override
+        public long getSize() {
+            return sizes[index];
+        }
+
+        @Override
+        public boolean isFile() {
+            return (flags[index] & FLAG_FILE) != 0;
+        }
+
+        @Override
+        public void setChecksum(final String checksum) {
+            SyncItemStore.this.setChecksum(index, checksum);
+        }
+
+        @Override
+        public void setFile(final boolean isFile) {
+            flags[index] = (byte) (isFile ? flags[index] | FLAG_FILE : flags[index] & ~FLAG_FILE);
+        }
+
+        @Override
+        public void setLastModifiedTime(final long lastModifiedTime) {
+            lastModifiedTimes[index] = lastModifiedTime;
+        }
+
+        @Override
+        public void setSize(final long size) {
+            sizes[index] = size;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("SyncItem [");
+            sb.append("relativePath=").append(getRelativePath());
+
+            if (isFile()) {
+                sb.append(", size=").append(getSize());
+            }
+
+            sb.append("]");
+
+            return sb.toString();
+        }
+    }
+
+    private final Map<String, Integer> parentIndices = new HashMap<>();
+    /**
+     * Parent-Directories with the trailing Separator, the first is the Base-Directory: "".
+     */
+    private final List<String> parents = new ArrayList<>();
+
+    private int checksumLength = -1;
+    private byte[] checksums = new byte[0];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private long[] lastModifiedTimes = new long[INITIAL_CAPACITY];
+    private int[] nameOffsets = new int[INITIAL_CAPACITY];
+    private byte[] names = new byte[INITIAL_CAPACITY * 16];
+    private int namesLength;
+    private int[] parentIds = new int[INITIAL_CAPACITY];
+    private int size;
+    private long[] sizes = new long[INITIAL_CAPACITY];
+
+    public SyncItemStore() {
+        super();
+
+        parents.add("");
+        parentIndices.put("", 0);
+    }
+
+    /**
+     * Copies the Attributes of the {@link SyncItem} into the Store.
+     */
+    @Override
+    public boolean add(final SyncItem syncItem) {
+        append(syncItem);
+
+        return true;
+    }
+
+    /**
+     * Copies the Attributes of the {@link SyncItem} into the Store.
+     *
+     * @return {@link SyncItem}; the Flyweight of the new Entry
+     */
+    public SyncItem append(final SyncItem syncItem) {
+        ensureCapacity(size + 1);
+
+        final int index = size++;
+        final String relativePath = syncItem.getRelativePath();
+
+        // The Separator depends on the Operating-System of the FileSystem.
+        final int separatorIndex = Math.max(relativePath.lastIndexOf('/'), relativePath.lastIndexOf('\\'));
+        final String parent = relativePath.substring(0, separatorIndex + 1);
+
+        parentIds[index] = parentIndices.computeIfAbsent(parent, key -> {
+            parents.add(key);
+
+            return parents.size() - 1;
+        });
+
+        final byte[] name = relativePath.substring(separatorIndex + 1).getBytes(StandardCharsets.UTF_8);
+
+        if (namesLength + name.length > names.length) {
+            names = Arrays.copyOf(names, Math.max(namesLength + name.length, names.length + (names.length >> 1)));
+        }
+
+        System.arraycopy(name, 0, names, namesLength, name.length);
+        nameOffsets[index] = namesLength;
+        namesLength += name.length;
+
+        flags[index] = syncItem.isFile() ? FLAG_FILE : 0;
+        sizes[index] = syncItem.getSize();
+        lastModifiedTimes[index] = syncItem.getLastModifiedTime();
+        setChecksum(index, syncItem.getChecksum());
+
+        return new FlyweightSyncItem(index);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        namesLength = 0;
+        checksumLength = -1;
+        checksums = new byte[0];
+
+        parents.clear();
+        parentIndices.clear();
+        parents.add("");
+        parentIndices.put("", 0);
+    }
+
+    @Override
+    public SyncItem get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+
+        return new FlyweightSyncItem(index);
+    }
+
+    /**
+     * The Checksum can be stored binary: null or an upper case Hex-String with the Length of the other Checksums.
+     */
+    public boolean isStorable(final String checksum) {
+        if (checksum == null) {
+            return true;
+        }
+
+        if (checksum.isEmpty() || checksum.length() % 2 != 0 || (checksumLength >= 0 && checksum.length() != checksumLength * 2)) {
+            return false;
+        }
+
+        for (int i = 0; i < checksum.length(); i++) {
+            final char c = checksum.charAt(i);
+
+            if ((c < '0' || c > '9') && (c < 'A' || c > 'F')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes the unused Capacity of the Arrays.
+     */
+    public void trimToSize() {
+        flags = Arrays.copyOf(flags, size);
+        lastModifiedTimes = Arrays.copyOf(lastModifiedTimes, size);
+        nameOffsets = Arrays.copyOf(nameOffsets, size);
+        parentIds = Arrays.copyOf(parentIds, size);
+        sizes = Arrays.copyOf(sizes, size);
+        names = Arrays.copyOf(names, namesLength);
+
+        if (checksumLength > 0) {
+            checksums = Arrays.copyOf(checksums, size * checksumLength);
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= flags.length) {
+            return;
+        }
+
+        final int newCapacity = Math.max(capacity, flags.length + (flags.length >> 1));
+
+        flags = Arrays.copyOf(flags, newCapacity);
+        lastModifiedTimes = Arrays.copyOf(lastModifiedTimes, newCapacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, newCapacity);
+        parentIds = Arrays.copyOf(parentIds, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+
+        if (checksumLength > 0) {
+            checksums = Arrays.copyOf(checksums, newCapacity * checksumLength);
+        }
+    }
+
+    private String getChecksum(final int index) {
+        if ((flags[index] & FLAG_CHECKSUM) == 0) {
+            return null;
+        }
+
+        return JSyncUtils.bytesToHex(Arrays.copyOfRange(checksums, index * checksumLength, (index + 1) * checksumLength));
+    }
+
+    private String getRelativePath(final int index) {
+        final int nameEnd = index + 1 < size ? nameOffsets[index + 1] : namesLength;
+        final String name = new String(names, nameOffsets[index], nameEnd - nameOffsets[index], StandardCharsets.UTF_8);
+
+        return parents.get(parentIds[index]).concat(name);
+    }
+
+    /**
+     * The Checksum is stored binary, it must be an upper case Hex-String like {@link JSyncUtils#bytesToHex(byte[])}.
+     */
+    private void setChecksum(final int index, final String checksum) {
+        if (checksum == null) {
+            flags[index] = (byte) (flags[index] & ~FLAG_CHECKSUM);
+            return;
+        }
+
+        final byte[] bytes = JSyncUtils.hexToBytes(checksum);
+
+        if (!JSyncUtils.bytesToHex(bytes).equals(checksum)) {
+            throw new IllegalArgumentException("checksum must be an upper case hex string: " + checksum);
+        }
+
+        if (checksumLength < 0) {
+            checksumLength = bytes.length;
+            checksums = new byte[flags.length * checksumLength];
+        } else if (checksumLength != bytes.length) {
+            throw new IllegalArgumentException("all checksums must have the same length: " + checksumLength + " != " + bytes.length);
+        }
+
+        System.arraycopy(bytes, 0, checksums, index * checksumLength, checksumLength);
+        flags[index] = (byte) (flags[index] | FLAG_CHECKSUM);
+    }
+}
@@ -31,6 +31,15 @@ public class SyncPair {
         }
     }
 
+    /**
+     * With an already validated Status, see {@link SyncPairStore}.
+     */
+    public SyncPair(final SyncItem senderItem, final SyncItem receiverItem, final SyncStatus status) {
+        this(senderItem, receiverItem);
+
+        this.status = Objects.requireNonNull(status, "status required");
+    }
+
     public SyncItem getReceiverItem() {
         return receiverItem;
     }
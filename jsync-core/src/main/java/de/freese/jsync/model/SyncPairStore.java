@@ -0,0 +1,107 @@
+// Created: 18.10.2026
+package de.freese.jsync.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact {@link List} of {@link SyncPair}s, the Items are copied into a {@link SyncItemStore} for the Sender and one for the Receiver.<br>
+ * The Pairs of {@link #get(int)} are created on Demand with the Flyweights of the Stores and the stored Status,
+ * so the Items of a Listing, e.g. of a remote Batch, are not held after the Copy.<br>
+ * A changed Status of a returned Pair is not written into the Store.<br>
+ * Not thread-safe for adding, concurrent Reading is possible.
+ *
+ * @author Thomas Freese
+ */
+public final class SyncPairStore extends AbstractList<SyncPair> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final SyncStatus[] STATUSES = SyncStatus.values();
+
+    private final SyncItemStore receiverItems = new SyncItemStore();
+    private final SyncItemStore senderItems = new SyncItemStore();
+
+    /**
+     * -1 if the Receiver has no Item.
+     */
+    private int[] receiverIndices = new int[INITIAL_CAPACITY];
+    /**
+     * -1 if the Sender has no Item.
+     */
+    private int[] senderIndices = new int[INITIAL_CAPACITY];
+    private int size;
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+
+    public SyncPairStore() {
+        super();
+    }
+
+    /**
+     * Copies the Items and the Status of the {@link SyncPair} into the Store.
+     */
+    @Override
+    public boolean add(final SyncPair syncPair) {
+        if (size == statuses.length) {
+            final int newCapacity = Math.max(INITIAL_CAPACITY, statuses.length + (statuses.length >> 1));
+
+            receiverIndices = Arrays.copyOf(receiverIndices, newCapacity);
+            senderIndices = Arrays.copyOf(senderIndices, newCapacity);
+            statuses = Arrays.copyOf(statuses, newCapacity);
+        }
+
+        senderIndices[size] = append(senderItems, syncPair.getSenderItem());
+        receiverIndices[size] = append(receiverItems, syncPair.getReceiverItem());
+        statuses[size] = (byte) syncPair.getStatus().ordinal();
+        size++;
+
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+
+        receiverItems.clear();
+        senderItems.clear();
+    }
+
+    @Override
+    public SyncPair get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+
+        final SyncItem senderItem = senderIndices[index] < 0 ? null : senderItems.get(senderIndices[index]);
+        final SyncItem receiverItem = receiverIndices[index] < 0 ? null : receiverItems.get(receiverIndices[index]);
+
+        return new SyncPair(senderItem, receiverItem, STATUSES[statuses[index]]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes the unused Capacity of the Arrays.
+     */
+    public void trimToSize() {
+        receiverIndices = Arrays.copyOf(receiverIndices, size);
+        senderIndices = Arrays.copyOf(senderIndices, size);
+        statuses = Arrays.copyOf(statuses, size);
+
+        receiverItems.trimToSize();
+        senderItems.trimToSize();
+    }
+
+    private int append(final SyncItemStore store, final SyncItem syncItem) {
+        if (syncItem == null) {
+            return -1;
+        }
+
+        store.append(syncItem);
+
+        return store.size() - 1;
+    }
+}
@@ -1,14 +1,21 @@
 package de.freese.jsync.serialisation;
 
+import java.util.List;
+
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
+import de.freese.jsync.model.ReceiverOperation;
 import de.freese.jsync.model.SyncItem;
 import de.freese.jsync.serialisation.io.DataReader;
 import de.freese.jsync.serialisation.io.DataWriter;
 import de.freese.jsync.serialisation.serializer.ClassSerializer;
 import de.freese.jsync.serialisation.serializer.ExceptionSerializer;
+import de.freese.jsync.serialisation.serializer.FileSignatureSerializer;
 import de.freese.jsync.serialisation.serializer.JSyncCommandSerializer;
 import de.freese.jsync.serialisation.serializer.PathFilterSerializer;
+import de.freese.jsync.serialisation.serializer.ReceiverOperationSerializer;
+import de.freese.jsync.serialisation.serializer.SyncItemListSerializer;
 import de.freese.jsync.serialisation.serializer.SyncItemSerializer;
 
 public interface Serializer<R, W> {
@@ -28,6 +35,14 @@ public interface Serializer<R, W> {
         return read(input, ExceptionSerializer.getInstance());
     }
 
+    default FileSignature readFileSignature(final R input) {
+        return read(input, FileSignatureSerializer.getInstance());
+    }
+
+    default int readInteger(final R input) {
+        return getReader().readInteger(input);
+    }
+
     default JSyncCommand readJSyncCommand(final R input) {
         return read(input, JSyncCommandSerializer.getInstance());
     }
@@ -40,6 +55,10 @@ public interface Serializer<R, W> {
         return read(input, PathFilterSerializer.getInstance());
     }
 
+    default ReceiverOperation readReceiverOperation(final R input) {
+        return read(input, ReceiverOperationSerializer.getInstance());
+    }
+
     default String readString(final R input) {
         return getReader().readString(input);
     }
@@ -48,6 +67,10 @@ public interface Serializer<R, W> {
         return read(input, SyncItemSerializer.getInstance());
     }
 
+    default List<SyncItem> readSyncItems(final R input) {
+        return read(input, SyncItemListSerializer.getInstance());
+    }
+
     default void write(final W output, final JSyncCommand value) {
         write(output, value, JSyncCommandSerializer.getInstance());
     }
@@ -60,6 +83,14 @@ public interface Serializer<R, W> {
         write(output, value, SyncItemSerializer.getInstance());
     }
 
+    default void write(final W output, final FileSignature value) {
+        write(output, value, FileSignatureSerializer.getInstance());
+    }
+
+    default void write(final W output, final ReceiverOperation value) {
+        write(output, value, ReceiverOperationSerializer.getInstance());
+    }
+
     default void write(final W output, final Exception value) {
         write(output, value, ExceptionSerializer.getInstance());
     }
@@ -72,6 +103,10 @@ public interface Serializer<R, W> {
         getWriter().writeBoolean(output, value);
     }
 
+    default void writeInteger(final W output, final int value) {
+        getWriter().writeInteger(output, value);
+    }
+
     default void writeLong(final W output, final long value) {
         getWriter().writeLong(output, value);
     }
@@ -79,4 +114,8 @@ public interface Serializer<R, W> {
     default void writeString(final W output, final String value) {
         getWriter().writeString(output, value);
     }
+
+    default void writeSyncItems(final W output, final List<SyncItem> value) {
+        write(output, value, SyncItemListSerializer.getInstance());
+    }
 }
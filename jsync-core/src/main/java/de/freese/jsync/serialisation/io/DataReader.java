@@ -111,4 +111,26 @@ public interface DataReader<R> {
 
         return new String(bytes, charset);
     }
+
+    /**
+     * Unsigned LEB128, see {@link DataWriter#writeVarLong(Object, long)}.
+     */
+    default long readVarLong(final R input) {
+        long value = 0L;
+        int shift = 0;
+        byte b;
+
+        do {
+            if (shift > 63) {
+                throw new IllegalStateException("varlong is too long");
+            }
+
+            b = readByte(input);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+
+        return value;
+    }
 }
@@ -125,4 +125,18 @@ public interface DataWriter<W> {
         writeInteger(output, bytes.length);
         writeBytes(output, bytes);
     }
+
+    /**
+     * Unsigned LEB128: 7 Bits per Byte, small Values need only 1 Byte, negative Values 10 Bytes.
+     */
+    default void writeVarLong(final W output, final long value) {
+        long remaining = value;
+
+        while ((remaining & ~0x7FL) != 0L) {
+            writeByte(output, (byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+
+        writeByte(output, (byte) remaining);
+    }
 }
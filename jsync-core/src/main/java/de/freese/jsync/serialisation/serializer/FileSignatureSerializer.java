@@ -0,0 +1,56 @@
+// Created: 18.10.2026
+package de.freese.jsync.serialisation.serializer;
+
+import de.freese.jsync.model.FileSignature;
+import de.freese.jsync.serialisation.io.DataReader;
+import de.freese.jsync.serialisation.io.DataWriter;
+
+/**
+ * @author Thomas Freese
+ */
+public final class FileSignatureSerializer implements ClassSerializer<FileSignature> {
+    private static final class FileSignatureSerializerHolder {
+        private static final FileSignatureSerializer INSTANCE = new FileSignatureSerializer();
+
+        private FileSignatureSerializerHolder() {
+            super();
+        }
+    }
+
+    public static FileSignatureSerializer getInstance() {
+        return FileSignatureSerializerHolder.INSTANCE;
+    }
+
+    private FileSignatureSerializer() {
+        super();
+    }
+
+    @Override
+    public <R> FileSignature read(final DataReader<R> reader, final R input) {
+        final long fileSize = reader.readLong(input);
+        final int blockSize = reader.readInteger(input);
+        final int blockCount = reader.readInteger(input);
+
+        final int[] weakChecksums = new int[blockCount];
+        final byte[][] strongChecksums = new byte[blockCount][];
+
+        for (int i = 0; i < blockCount; i++) {
+            weakChecksums[i] = reader.readInteger(input);
+            strongChecksums[i] = reader.readBytes(input, 16);
+        }
+
+        return new FileSignature(fileSize, blockSize, weakChecksums, strongChecksums);
+    }
+
+    @Override
+    public <W> void write(final DataWriter<W> writer, final W output, final FileSignature value) {
+        writer.writeLong(output, value.getFileSize());
+        writer.writeInteger(output, value.getBlockSize());
+        writer.writeInteger(output, value.getBlockCount());
+
+        for (int i = 0; i < value.getBlockCount(); i++) {
+            writer.writeInteger(output, value.getWeakChecksum(i));
+            writer.writeBytes(output, value.getStrongChecksum(i));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+// Created: 18.10.2026
+package de.freese.jsync.serialisation.serializer;
+
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.serialisation.io.DataReader;
+import de.freese.jsync.serialisation.io.DataWriter;
+
+/**
+ * @author Thomas Freese
+ */
+public final class ReceiverOperationSerializer implements ClassSerializer<ReceiverOperation> {
+    private static final class ReceiverOperationSerializerHolder {
+        private static final ReceiverOperationSerializer INSTANCE = new ReceiverOperationSerializer();
+
+        private ReceiverOperationSerializerHolder() {
+            super();
+        }
+    }
+
+    public static ReceiverOperationSerializer getInstance() {
+        return ReceiverOperationSerializerHolder.INSTANCE;
+    }
+
+    private ReceiverOperationSerializer() {
+        super();
+    }
+
+    @Override
+    public <R> ReceiverOperation read(final DataReader<R> reader, final R input) {
+        final ReceiverOperation.Type type = ReceiverOperation.Type.valueOf(reader.readString(input));
+        final String relativePath = reader.readString(input);
+        final boolean followSymLinks = reader.readBoolean(input);
+
+        SyncItem syncItem = null;
+
+        if (reader.readBoolean(input)) {
+            syncItem = SyncItemSerializer.getInstance().read(reader, input);
+        }
+
+        return new ReceiverOperation(type, relativePath, followSymLinks, syncItem);
+    }
+
+    @Override
+    public <W> void write(final DataWriter<W> writer, final W output, final ReceiverOperation value) {
+        writer.writeString(output, value.type().name());
+        writer.writeString(output, value.relativePath());
+        writer.writeBoolean(output, value.followSymLinks());
+
+        if (value.syncItem() == null) {
+            writer.writeBoolean(output, false);
+        } else {
+            writer.writeBoolean(output, true);
+            SyncItemSerializer.getInstance().write(writer, output, value.syncItem());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+// Created: 18.10.2026
+package de.freese.jsync.serialisation.serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+
+import de.freese.jsync.model.DefaultSyncItem;
+import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.model.SyncItemStore;
+import de.freese.jsync.serialisation.io.DataReader;
+import de.freese.jsync.serialisation.io.DataWriter;
+
+/**
+ * Many {@link SyncItem}s of a sorted Listing in one Frame/Payload.<br>
+ * Front-Coding: a Path only contains the Bytes after the common Prefix with the previous Path.<br>
+ * Size and Modification-Time (as Difference to the previous Item) are written as Var-Longs.<br>
+ * Every List is independent, the first Path is written completely.<br>
+ * A read List is a {@link SyncItemStore}, the Items are Flyweights; only Checksums in another Format than Hex keep the Objects.
+ *
+ * @author Thomas Freese
+ */
+public final class SyncItemListSerializer implements ClassSerializer<List<SyncItem>> {
+    /**
+     * Estimated maximum Bytes of a List, it must fit into a Frame/Payload.
+     */
+    public static final int MAX_BYTES = 1024 * 1024;
+    public static final int MAX_ITEMS = 4096;
+
+    private static final byte FLAG_CHECKSUM = 0x02;
+    private static final byte FLAG_FILE = 0x01;
+
+    private static final class SyncItemListSerializerHolder {
+        private static final SyncItemListSerializer INSTANCE = new SyncItemListSerializer();
+
+        private SyncItemListSerializerHolder() {
+            super();
+        }
+    }
+
+    /**
+     * Collects the Items to Lists with {@link #MAX_ITEMS} or {@link #MAX_BYTES}.
+     */
+    public static Flux<List<SyncItem>> batch(final Flux<SyncItem> syncItems) {
+        return Flux.defer(() -> {
+            final int[] state = new int[2]; // Items, Bytes
+
+            return syncItems.bufferUntil(syncItem -> {
+                state[0]++;
+                state[1] += estimateSize(syncItem);
+
+                if (state[0] >= MAX_ITEMS || state[1] >= MAX_BYTES) {
+                    state[0] = 0;
+                    state[1] = 0;
+
+                    return true;
+                }
+
+                return false;
+            });
+        });
+    }
+
+    public static SyncItemListSerializer getInstance() {
+        return SyncItemListSerializerHolder.INSTANCE;
+    }
+
+    /**
+     * UTF-8: max. 3 Bytes per Char, plus the Var-Longs and Flags.
+     */
+    private static int estimateSize(final SyncItem syncItem) {
+        final int checksumLength = syncItem.getChecksum() == null ? 0 : syncItem.getChecksum().length();
+
+        return 40 + (syncItem.getRelativePath().length() * 3) + (checksumLength * 3);
+    }
+
+    private static int prefixLength(final byte[] previous, final byte[] current) {
+        final int mismatch = Arrays.mismatch(previous, current);
+
+        return mismatch < 0 ? current.length : mismatch;
+    }
+
+    private static long zigZagDecode(final long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private static long zigZagEncode(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private SyncItemListSerializer() {
+        super();
+    }
+
+    /**
+     * @return {@link List}; a {@link SyncItemStore}, if all Checksums can be stored
+     */
+    @Override
+    public <R> List<SyncItem> read(final DataReader<R> reader, final R input) {
+        final int count = (int) reader.readVarLong(input);
+        final List<SyncItem> syncItems = new ArrayList<>(count);
+
+        byte[] previousPath = new byte[0];
+        long previousLastModifiedTime = 0L;
+
+        for (int i = 0; i < count; i++) {
+            final int prefixLength = (int) reader.readVarLong(input);
+            final int suffixLength = (int) reader.readVarLong(input);
+
+            final byte[] path = Arrays.copyOf(previousPath, prefixLength + suffixLength);
+
+            if (suffixLength > 0) {
+                System.arraycopy(reader.readBytes(input, suffixLength), 0, path, prefixLength, suffixLength);
+            }
+
+            final SyncItem syncItem = new DefaultSyncItem(new String(path, StandardCharsets.UTF_8));
+            final byte flags = reader.readByte(input);
+
+            syncItem.setFile((flags & FLAG_FILE) != 0);
+            syncItem.setSize(zigZagDecode(reader.readVarLong(input)));
+
+            final long lastModifiedTime = previousLastModifiedTime + zigZagDecode(reader.readVarLong(input));
+            syncItem.setLastModifiedTime(lastModifiedTime);
+
+            if ((flags & FLAG_CHECKSUM) != 0) {
+                final int checksumLength = (int) reader.readVarLong(input);
+                syncItem.setChecksum(new String(reader.readBytes(input, checksumLength), StandardCharsets.UTF_8));
+            }
+
+            syncItems.add(syncItem);
+
+            previousPath = path;
+            previousLastModifiedTime = lastModifiedTime;
+        }
+
+        // The Store copies the Attributes, the temporary Items of the Batch are not held.
+        final SyncItemStore store = new SyncItemStore();
+
+        for (final SyncItem syncItem : syncItems) {
+            if (!store.isStorable(syncItem.getChecksum())) {
+                return syncItems;
+            }
+
+            store.append(syncItem);
+        }
+
+        store.trimToSize();
+
+        return store;
+    }
+
+    @Override
+    public <W> void write(final DataWriter<W> writer, final W output, final List<SyncItem> value) {
+        writer.writeVarLong(output, value.size());
+
+        byte[] previousPath = new byte[0];
+        long previousLastModifiedTime = 0L;
+
+        for (final SyncItem syncItem : value) {
+            final byte[] path = syncItem.getRelativePath().getBytes(StandardCharsets.UTF_8);
+            final int prefixLength = prefixLength(previousPath, path);
+
+            writer.writeVarLong(output, prefixLength);
+            writer.writeVarLong(output, path.length - prefixLength);
+
+            if (path.length > prefixLength) {
+                writer.writeBytes(output, Arrays.copyOfRange(path, prefixLength, path.length));
+            }
+
+            final String checksum = syncItem.getChecksum();
+            byte flags = syncItem.isFile() ? FLAG_FILE : 0;
+
+            if (checksum != null) {
+                flags |= FLAG_CHECKSUM;
+            }
+
+            writer.writeByte(output, flags);
+            writer.writeVarLong(output, zigZagEncode(syncItem.getSize()));
+            writer.writeVarLong(output, zigZagEncode(syncItem.getLastModifiedTime() - previousLastModifiedTime));
+
+            if (checksum != null) {
+                final byte[] checksumBytes = checksum.getBytes(StandardCharsets.UTF_8);
+
+                writer.writeVarLong(output, checksumBytes.length);
+                writer.writeBytes(output, checksumBytes);
+            }
+
+            previousPath = path;
+            previousLastModifiedTime = syncItem.getLastModifiedTime();
+        }
+    }
+}
@@ -1,12 +1,13 @@
 // Created: 17.11.2018
 package de.freese.jsync.utils;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
@@ -14,6 +15,9 @@ import java.security.NoSuchAlgorithmException;
 import java.util.function.LongConsumer;
 
 import de.freese.jsync.Options;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.checksum.ChecksumDigest;
+import de.freese.jsync.checksum.Sha256TreeDigest;
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
@@ -34,12 +38,84 @@ public final class DigestUtils {
         byteBuffer.position(position);
     }
 
+    /**
+     * Updates the {@link ChecksumDigest} with a Range of the {@link FileChannel}, the Position of the Channel is unchanged.
+     */
+    public static void digest(final FileChannel channel, final long position, final long length, final ChecksumDigest checksumDigest) throws IOException {
+        final ByteBuffer buffer = ByteBufferPool.DEFAULT.get();
+
+        try {
+            long current = position;
+            final long end = position + length;
+
+            while (current < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - current));
+
+                final int bytesRead = channel.read(buffer, current);
+
+                if (bytesRead < 0) {
+                    throw new EOFException("file is shorter than expected");
+                }
+
+                current += bytesRead;
+
+                checksumDigest.update(buffer.flip());
+            }
+        }
+        finally {
+            ByteBufferPool.DEFAULT.free(buffer);
+        }
+    }
+
+    /**
+     * Checksum of the File with the {@link ChecksumAlgorithm}.<br>
+     * The Chunks of {@link ChecksumAlgorithm#SHA256_TREE} are hashed parallel.
+     *
+     * @param consumerBytesRead {@link LongConsumer}; optional
+     */
+    public static String digestAsHex(final Path path, final ChecksumAlgorithm algorithm, final LongConsumer consumerBytesRead) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ChecksumAlgorithm.SHA256_TREE.equals(algorithm)) {
+                return JSyncUtils.bytesToHex(Sha256TreeDigest.digest(channel, consumerBytesRead));
+            }
+
+            final ChecksumDigest checksumDigest = algorithm.newDigest();
+
+            digest(channel, checksumDigest, consumerBytesRead);
+
+            return checksumDigest.digestAsHex();
+        }
+        catch (final IOException iex) {
+            throw new UncheckedIOException(iex);
+        }
+    }
+
+    /**
+     * Checksum of a Range of the File with the {@link ChecksumAlgorithm}.
+     */
+    public static String digestAsHex(final Path path, final long position, final long length, final ChecksumAlgorithm algorithm) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ChecksumDigest checksumDigest = algorithm.newDigest();
+
+            digest(channel, position, length, checksumDigest);
+
+            return checksumDigest.digestAsHex();
+        }
+        catch (final IOException iex) {
+            throw new UncheckedIOException(iex);
+        }
+    }
+
     public static String digestAsHex(final MessageDigest messageDigest) {
         final byte[] digest = messageDigest.digest();
 
         return JSyncUtils.bytesToHex(digest);
     }
 
+    public static MessageDigest createSha256Digest() {
+        return createMessageDigest("SHA-256");
+    }
+
     public static byte[] sha256Digest(final byte[] bytes) {
         final MessageDigest messageDigest = createSha256Digest();
 
@@ -72,14 +148,7 @@ public final class DigestUtils {
     }
 
     public static String sha256DigestAsHex(final Path path, final LongConsumer consumerBytesRead) {
-        try (ReadableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ)) {
-            final byte[] bytes = sha256Digest(channel, consumerBytesRead);
-
-            return JSyncUtils.bytesToHex(bytes);
-        }
-        catch (final IOException iex) {
-            throw new UncheckedIOException(iex);
-        }
+        return digestAsHex(path, ChecksumAlgorithm.SHA256, consumerBytesRead);
     }
 
     /**
@@ -99,17 +168,10 @@ public final class DigestUtils {
         }
     }
 
-    private static MessageDigest createSha256Digest() {
-        return createMessageDigest("SHA-256");
-    }
-
     /**
      * @param consumerBytesRead {@link LongConsumer}; optional
      */
-    private static byte[] sha256Digest(final ReadableByteChannel readableByteChannel, final LongConsumer consumerBytesRead) throws IOException {
-        final MessageDigest messageDigest = createSha256Digest();
-        byte[] bytes = null;
-
+    private static void digest(final ReadableByteChannel readableByteChannel, final ChecksumDigest checksumDigest, final LongConsumer consumerBytesRead) throws IOException {
         if (consumerBytesRead != null) {
             consumerBytesRead.accept(0);
         }
@@ -127,17 +189,13 @@ public final class DigestUtils {
                 }
 
                 buffer.flip();
-                messageDigest.update(buffer);
+                checksumDigest.update(buffer);
                 buffer.clear();
             }
-
-            bytes = messageDigest.digest();
         }
         finally {
             ByteBufferPool.DEFAULT.free(buffer);
         }
-
-        return bytes;
     }
 
     private DigestUtils() {
@@ -16,6 +16,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HexFormat;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -217,6 +218,30 @@ public final class JSyncUtils {
         return path;
     }
 
+    /**
+     * Size in Bytes with an optional binary Unit: '512', '64k', '10M', '1g'.
+     */
+    public static long parseSize(final String value) {
+        Objects.requireNonNull(value, "value required");
+
+        final String size = value.strip();
+
+        if (size.isEmpty()) {
+            throw new IllegalArgumentException("size is empty");
+        }
+
+        final int shift = switch (Character.toLowerCase(size.charAt(size.length() - 1))) {
+            case 'k' -> 10;
+            case 'm' -> 20;
+            case 'g' -> 30;
+            default -> 0;
+        };
+
+        final String number = shift == 0 ? size : size.substring(0, size.length() - 1).strip();
+
+        return Long.parseLong(number) << shift;
+    }
+
     public static void shutdown(final AsynchronousChannelGroup channelGroup, final Logger logger) {
         logger.info("shutdown AsynchronousChannelGroup");
 
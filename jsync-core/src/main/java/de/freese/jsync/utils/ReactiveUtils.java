@@ -6,13 +6,20 @@ import java.nio.channels.Channel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import de.freese.jsync.checksum.ChecksumDigest;
+import de.freese.jsync.utils.bandwidth.TokenBucket;
 import de.freese.jsync.utils.io.ReadableByteChannelGenerator;
 import de.freese.jsync.utils.io.WritableByteChannelSubscriber;
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
@@ -32,6 +39,37 @@ public final class ReactiveUtils {
         JSyncUtils.close(channel);
     }
 
+    /**
+     * Paces the Chunks to the Rate of the {@link TokenBucket}, like {@link #pace(Flux, TokenBucket, int)} without splitting them.<br>
+     * For Chunks with a Format, which can not be split, like the Instructions of a Delta.
+     */
+    public static Flux<ByteBuffer> pace(final Flux<ByteBuffer> chunks, final TokenBucket tokenBucket) {
+        Objects.requireNonNull(chunks, "chunks required");
+        Objects.requireNonNull(tokenBucket, "tokenBucket required");
+
+        // Prefetch 0: the next Chunk is requested after the current one is emitted.
+        return chunks.concatMap(chunk -> Mono.just(chunk).delayUntil(c -> delay(tokenBucket, c.remaining())), 0);
+    }
+
+    /**
+     * Paces the Chunks to the Rate of the {@link TokenBucket}, every Chunk is split into Slices of maximum sliceSize.<br>
+     * Every Slice is delayed until its Tokens are available, so a Burst is not greater than a Slice.<br>
+     * The next Chunk is requested only after the last Slice of the current Chunk is emitted,
+     * so a Source respecting the Demand, like a Network-Stream with Flow-Control, is read with the Rate too.<br>
+     * The Slices are Copies from the {@link ByteBufferPool#DEFAULT}, the Chunk is released after it is split.<br>
+     * The Delays run on the bounded-elastic Scheduler, the Slices can be written blocking.
+     */
+    public static Flux<ByteBuffer> pace(final Flux<ByteBuffer> chunks, final TokenBucket tokenBucket, final int sliceSize) {
+        Objects.requireNonNull(chunks, "chunks required");
+        Objects.requireNonNull(tokenBucket, "tokenBucket required");
+
+        if (sliceSize <= 0) {
+            throw new IllegalArgumentException("sliceSize <= 0: " + sliceSize);
+        }
+
+        return chunks.concatMap(chunk -> Flux.fromIterable(split(chunk, sliceSize)).delayUntil(slice -> delay(tokenBucket, slice.remaining())), 0);
+    }
+
     /**
      * Read the {@link Channel} as Flux from the {@link ByteBuffer}.<br>
      * The {@link Channel} will close after reading.<br>
@@ -60,15 +98,50 @@ public final class ReactiveUtils {
      * The {@link ByteBuffer} will be released in the {@link WritableByteChannelSubscriber}.
      */
     public static Flux<Long> write(final Publisher<ByteBuffer> source, final WritableByteChannel channel) {
+        return write(source, channel, null);
+    }
+
+    /**
+     * Like {@link #write(Publisher, WritableByteChannel)}, the {@link ChecksumDigest} is updated with each written ByteBuffer/Chunk.<br>
+     * So the Checksum of the written Data is available without reading the File again.
+     */
+    public static Flux<Long> write(final Publisher<ByteBuffer> source, final WritableByteChannel channel, final ChecksumDigest checksumDigest) {
         final Flux<ByteBuffer> flux = Flux.from(source);
 
         return Flux.create(sink -> {
-            final WritableByteChannelSubscriber subscriber = new WritableByteChannelSubscriber(sink, channel);
+            final WritableByteChannelSubscriber subscriber = new WritableByteChannelSubscriber(sink, channel, checksumDigest);
             sink.onDispose(subscriber);
             flux.subscribe(subscriber);
         });
     }
 
+    private static Mono<Long> delay(final TokenBucket tokenBucket, final long bytes) {
+        final long waitNanos = tokenBucket.reserve(bytes);
+
+        return waitNanos == 0L ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos), Schedulers.boundedElastic());
+    }
+
+    private static List<ByteBuffer> split(final ByteBuffer chunk, final int sliceSize) {
+        final List<ByteBuffer> slices = new ArrayList<>((chunk.remaining() / sliceSize) + 1);
+
+        try {
+            while (chunk.hasRemaining()) {
+                final int length = Math.min(sliceSize, chunk.remaining());
+                final ByteBuffer slice = ByteBufferPool.DEFAULT.get(length);
+
+                slice.clear().put(chunk.slice(chunk.position(), length)).flip();
+                chunk.position(chunk.position() + length);
+
+                slices.add(slice);
+            }
+        }
+        finally {
+            release(chunk);
+        }
+
+        return slices;
+    }
+
     private ReactiveUtils() {
         super();
     }
@@ -0,0 +1,358 @@
+// Created: 18.10.2026
+package de.freese.jsync.utils.bandwidth;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.freese.jsync.utils.JSyncThreadFactory;
+import de.freese.jsync.utils.JSyncUtils;
+
+/**
+ * Bandwidth of a Server: a global {@link TokenBucket} and one per {@link Client}, the Chunks of the Clients are granted by Weighted Fair Queuing.<br>
+ * Every Chunk gets a virtual Finish-Time: Start + Bytes / Weight, the Start is the later of the virtual Time and the Finish of the previous Chunk of the Client.<br>
+ * The waiting Chunk with the smallest Finish-Time, whose Client-Bucket allows it, gets the Tokens of the global Bucket next.<br>
+ * So a Client with few Chunks starts at the current virtual Time and does not wait behind the queued Chunks of a Bulk-Job.<br>
+ * Without Limits the Chunks are granted immediately, there is nothing to share.<br>
+ * <br>
+ * System-Properties of {@link #fromSystemProperties()}, Sizes like {@link JSyncUtils#parseSize(String)}:<br>
+ * <ul>
+ * <li>jsync.server.bandwidth: global Bytes per Second, Default 0 = unlimited</li>
+ * <li>jsync.server.bandwidth.client: Bytes per Second per Client, Default 0 = unlimited</li>
+ * <li>jsync.server.bandwidth.weights: Weights of the Client-Hosts, Format 'host=weight,host=weight', Default 1</li>
+ * </ul>
+ *
+ * @author Thomas Freese
+ */
+public final class BandwidthScheduler implements AutoCloseable {
+    /**
+     * Maximum Bytes of a Chunk to grant, greater Transfers are split.
+     */
+    public static final int QUANTUM = 256 * 1024;
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    /**
+     * One Connection to the Server.
+     *
+     * @author Thomas Freese
+     */
+    public final class Client {
+        private final TokenBucket bucket;
+        private final String name;
+        private final int weight;
+
+        /**
+         * Guarded by the Lock of the Scheduler.
+         */
+        private double lastFinishTag;
+
+        private Client(final String name, final int weight) {
+            super();
+
+            this.name = name;
+            this.weight = weight;
+
+            bucket = clientBytesPerSecond > 0L ? new TokenBucket(clientBytesPerSecond) : null;
+        }
+
+        /**
+         * Waits until the Chunk is granted, for Virtual-Threads.
+         */
+        public void acquire(final long bytes) throws InterruptedException {
+            final CompletableFuture<Void> future = reserve(bytes);
+
+            try {
+                future.get();
+            }
+            catch (final InterruptedException ex) {
+                future.cancel(false);
+
+                throw ex;
+            }
+            catch (final ExecutionException | CancellationException _) {
+                // Scheduler closed.
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public boolean isLimited() {
+            return BandwidthScheduler.this.isLimited();
+        }
+
+        /**
+         * The Future is completed by the Thread of the Scheduler, reactive Callers should continue on their own Scheduler.
+         *
+         * @return {@link CompletableFuture}; completed if the Chunk is granted
+         */
+        public CompletableFuture<Void> reserve(final long bytes) {
+            if (!BandwidthScheduler.this.isLimited() || bytes <= 0L) {
+                return GRANTED;
+            }
+
+            return enqueue(this, bytes);
+        }
+
+        @Override
+        public String toString() {
+            return "Client[" + name + ", weight=" + weight + "]";
+        }
+    }
+
+    /**
+     * @param sequence long; Order of equal Finish-Times
+     */
+    private record Request(Client client, long bytes, double startTag, double finishTag, long sequence, CompletableFuture<Void> future) {
+        boolean isBefore(final Request other) {
+            return finishTag < other.finishTag || (finishTag == other.finishTag && sequence < other.sequence);
+        }
+    }
+
+    public static BandwidthScheduler fromSystemProperties() {
+        final long bytesPerSecond = JSyncUtils.parseSize(System.getProperty("jsync.server.bandwidth", "0"));
+        final long clientBytesPerSecond = JSyncUtils.parseSize(System.getProperty("jsync.server.bandwidth.client", "0"));
+
+        final BandwidthScheduler scheduler = new BandwidthScheduler(bytesPerSecond, clientBytesPerSecond);
+
+        final String weights = System.getProperty("jsync.server.bandwidth.weights", "");
+
+        for (final String entry : weights.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            final int separatorIndex = entry.lastIndexOf('=');
+
+            if (separatorIndex <= 0) {
+                throw new IllegalArgumentException("weight must be 'host=weight': " + entry);
+            }
+
+            scheduler.setWeight(entry.substring(0, separatorIndex).strip(), Integer.parseInt(entry.substring(separatorIndex + 1).strip()));
+        }
+
+        return scheduler;
+    }
+
+    private final long clientBytesPerSecond;
+    private final Condition changed;
+    private final TokenBucket globalBucket;
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Guarded by the Lock.
+     */
+    private final List<Request> queue = new ArrayList<>();
+    private final Map<String, Integer> weights = Collections.synchronizedMap(new HashMap<>());
+
+    private boolean closed;
+    private long sequence;
+    private Thread thread;
+    /**
+     * Start-Time of the last granted Chunk.
+     */
+    private double virtualTime;
+
+    /**
+     * @param bytesPerSecond long; all Clients together, 0 = unlimited
+     * @param clientBytesPerSecond long; every Client, 0 = unlimited
+     */
+    public BandwidthScheduler(final long bytesPerSecond, final long clientBytesPerSecond) {
+        super();
+
+        if (bytesPerSecond < 0L) {
+            throw new IllegalArgumentException("bytesPerSecond < 0: " + bytesPerSecond);
+        }
+
+        if (clientBytesPerSecond < 0L) {
+            throw new IllegalArgumentException("clientBytesPerSecond < 0: " + clientBytesPerSecond);
+        }
+
+        this.clientBytesPerSecond = clientBytesPerSecond;
+
+        globalBucket = bytesPerSecond > 0L ? new TokenBucket(bytesPerSecond) : null;
+        changed = lock.newCondition();
+    }
+
+    /**
+     * Grants all waiting Chunks and stops the Thread.
+     */
+    @Override
+    public void close() {
+        final List<Request> requests;
+
+        lock.lock();
+
+        try {
+            closed = true;
+            requests = new ArrayList<>(queue);
+            queue.clear();
+
+            changed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+
+        requests.forEach(request -> request.future().complete(null));
+    }
+
+    /**
+     * @param host String; Address of the Client, it's Weight is used for Fair Queuing
+     */
+    public Client createClient(final String host) {
+        Objects.requireNonNull(host, "host required");
+
+        return new Client(host, weights.getOrDefault(host, 1));
+    }
+
+    public boolean isLimited() {
+        return globalBucket != null || clientBytesPerSecond > 0L;
+    }
+
+    /**
+     * @param weight int; Share of the Bandwidth in Relation to the other Clients, Default 1
+     */
+    public void setWeight(final String host, final int weight) {
+        Objects.requireNonNull(host, "host required");
+
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight < 1: " + weight);
+        }
+
+        weights.put(host, weight);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[global=" + globalBucket + ", client=" + clientBytesPerSecond + " B/s]";
+    }
+
+    private CompletableFuture<Void> enqueue(final Client client, final long bytes) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        lock.lock();
+
+        try {
+            if (closed) {
+                return GRANTED;
+            }
+
+            final double startTag = Math.max(virtualTime, client.lastFinishTag);
+            final double finishTag = startTag + ((double) bytes / client.weight);
+            client.lastFinishTag = finishTag;
+
+            queue.add(new Request(client, bytes, startTag, finishTag, sequence++, future));
+
+            if (thread == null) {
+                thread = new JSyncThreadFactory("jsync-bandwidth-").newThread(this::grantLoop);
+                thread.start();
+            }
+
+            changed.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+
+        return future;
+    }
+
+    /**
+     * @return {@link Request}; null if closed
+     */
+    private Request grantNext() throws InterruptedException {
+        lock.lock();
+
+        try {
+            while (!closed) {
+                Request next = null;
+                long waitNanos = Long.MAX_VALUE;
+
+                for (final Iterator<Request> iterator = queue.iterator(); iterator.hasNext(); ) {
+                    final Request request = iterator.next();
+
+                    if (request.future().isDone()) {
+                        // Cancelled by the Caller.
+                        iterator.remove();
+                        continue;
+                    }
+
+                    final long clientWait = request.client().bucket == null ? 0L : request.client().bucket.waitNanos(request.bytes());
+
+                    if (clientWait > 0L) {
+                        waitNanos = Math.min(waitNanos, clientWait);
+                    } else if (next == null || request.isBefore(next)) {
+                        next = request;
+                    }
+                }
+
+                if (next != null) {
+                    final long globalWait = globalBucket == null ? 0L : globalBucket.waitNanos(next.bytes());
+
+                    if (globalWait == 0L) {
+                        queue.remove(next);
+
+                        if (globalBucket != null) {
+                            globalBucket.take(next.bytes());
+                        }
+
+                        if (next.client().bucket != null) {
+                            next.client().bucket.take(next.bytes());
+                        }
+
+                        virtualTime = Math.max(virtualTime, next.startTag());
+
+                        return next;
+                    }
+
+                    waitNanos = Math.min(waitNanos, globalWait);
+                }
+
+                // A new Chunk with a smaller Finish-Time signals the Condition.
+                if (waitNanos == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitNanos);
+                }
+            }
+
+            return null;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The Futures are completed outside the Lock.
+     */
+    private void grantLoop() {
+        try {
+            Request request = grantNext();
+
+            while (request != null) {
+                request.future().complete(null);
+
+                request = grantNext();
+            }
+        }
+        catch (final InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
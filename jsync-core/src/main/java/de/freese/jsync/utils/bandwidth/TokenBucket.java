@@ -0,0 +1,102 @@
+// Created: 18.10.2026
+package de.freese.jsync.utils.bandwidth;
+
+/**
+ * Token-Bucket for Bytes per Second, a Burst of maximum {@link #getBurstBytes()} Bytes is allowed.<br>
+ * Requests greater than the Burst are allowed with a full Bucket, the Tokens become negative
+ * and the following Requests wait until the Debt is paid, so the Rate is exact over Time.<br>
+ * Thread-safe.
+ *
+ * @author Thomas Freese
+ */
+public final class TokenBucket {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long burstBytes;
+    private final long bytesPerSecond;
+
+    private long lastRefill;
+    private double tokens;
+
+    /**
+     * The Burst is 100 ms of the Rate, at least 64 kB.
+     */
+    public TokenBucket(final long bytesPerSecond) {
+        this(bytesPerSecond, Math.max(64L * 1024L, bytesPerSecond / 10L));
+    }
+
+    public TokenBucket(final long bytesPerSecond, final long burstBytes) {
+        super();
+
+        if (bytesPerSecond <= 0L) {
+            throw new IllegalArgumentException("bytesPerSecond <= 0: " + bytesPerSecond);
+        }
+
+        if (burstBytes <= 0L) {
+            throw new IllegalArgumentException("burstBytes <= 0: " + burstBytes);
+        }
+
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes;
+
+        tokens = burstBytes;
+        lastRefill = System.nanoTime();
+    }
+
+    public long getBurstBytes() {
+        return burstBytes;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Takes the Tokens without waiting, for non-blocking Callers.
+     *
+     * @return long; Nanos until the Debt is paid, 0 = now
+     */
+    public synchronized long reserve(final long bytes) {
+        take(bytes);
+
+        return tokens < 0D ? toNanos(-tokens) : 0L;
+    }
+
+    /**
+     * Takes the Tokens without waiting, they can become negative.
+     */
+    public synchronized void take(final long bytes) {
+        refill(System.nanoTime());
+
+        tokens -= bytes;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + bytesPerSecond + " B/s, burst=" + burstBytes + "]";
+    }
+
+    /**
+     * @return long; Nanos until the Tokens for the Bytes, maximum the Burst, are available, 0 = now
+     */
+    public synchronized long waitNanos(final long bytes) {
+        refill(System.nanoTime());
+
+        final double needed = Math.min(bytes, burstBytes);
+
+        return tokens >= needed ? 0L : Math.max(1L, toNanos(needed - tokens));
+    }
+
+    private void refill(final long now) {
+        final long elapsed = now - lastRefill;
+
+        if (elapsed > 0L) {
+            tokens = Math.min(burstBytes, tokens + ((double) elapsed * bytesPerSecond / NANOS_PER_SECOND));
+            lastRefill = now;
+        }
+    }
+
+    private long toNanos(final double bytes) {
+        return (long) Math.ceil(bytes * NANOS_PER_SECOND / bytesPerSecond);
+    }
+}
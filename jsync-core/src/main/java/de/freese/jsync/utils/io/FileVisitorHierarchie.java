@@ -6,8 +6,11 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,16 +18,32 @@ import org.slf4j.LoggerFactory;
 import de.freese.jsync.filter.PathFilter;
 
 /**
+ * Directories are delivered after their Children with the Number of their Entries, Files with -1.<br>
+ * The Entries are counted while walking, excluded Entries are counted too, like {@link java.nio.file.Files#list}.
+ *
  * @author Thomas Freese
  */
 public class FileVisitorHierarchie implements FileVisitor<Path> {
     private static final Logger LOGGER = LoggerFactory.getLogger(FileVisitorHierarchie.class);
 
     private final Path basePath;
-    private final Consumer<Path> consumer;
+    /**
+     * Number of Entries for each open Directory, the Top is the current Directory.
+     */
+    private final Deque<long[]> childCounts = new ArrayDeque<>();
+    private final ObjLongConsumer<Path> consumer;
     private final PathFilter pathFilter;
 
     public FileVisitorHierarchie(final Path basePath, final PathFilter pathFilter, final Consumer<Path> consumer) {
+        this(basePath, pathFilter, (path, childCount) -> consumer.accept(path));
+
+        Objects.requireNonNull(consumer, "consumer required");
+    }
+
+    /**
+     * @param consumer {@link ObjLongConsumer}; Path and Number of Entries of a Directory, -1 for Files
+     */
+    public FileVisitorHierarchie(final Path basePath, final PathFilter pathFilter, final ObjLongConsumer<Path> consumer) {
         super();
 
         this.basePath = Objects.requireNonNull(basePath, "basePath required");
@@ -36,11 +55,13 @@ public class FileVisitorHierarchie implements FileVisitor<Path> {
     public FileVisitResult postVisitDirectory(final Path dir, final IOException ex) {
         Objects.requireNonNull(dir);
 
+        final long[] childCount = childCounts.pop();
+
         if (ex != null) {
             getLogger().error(dir.toString(), ex);
         } else if (!basePath.endsWith(dir)) {
             // We do not want the Base-Directory.
-            consumer.accept(dir);
+            consumer.accept(dir, childCount[0]);
         }
 
         return FileVisitResult.CONTINUE;
@@ -51,12 +72,16 @@ public class FileVisitorHierarchie implements FileVisitor<Path> {
         Objects.requireNonNull(dir);
         Objects.requireNonNull(attrs);
 
+        countChild();
+
         if (pathFilter.isExcludedDirectory(dir)) {
             getLogger().debug("exclude directory: {}", dir);
 
             return FileVisitResult.SKIP_SUBTREE;
         }
 
+        childCounts.push(new long[1]);
+
         return FileVisitResult.CONTINUE;
     }
 
@@ -65,10 +90,12 @@ public class FileVisitorHierarchie implements FileVisitor<Path> {
         Objects.requireNonNull(file);
         Objects.requireNonNull(attrs);
 
+        countChild();
+
         if (pathFilter.isExcludedFile(file)) {
             getLogger().debug("exclude file: {}", file);
         } else {
-            consumer.accept(file);
+            consumer.accept(file, -1L);
         }
 
         return FileVisitResult.CONTINUE;
@@ -78,6 +105,8 @@ public class FileVisitorHierarchie implements FileVisitor<Path> {
     public FileVisitResult visitFileFailed(final Path file, final IOException ex) {
         Objects.requireNonNull(file);
 
+        countChild();
+
         if (ex != null) {
             getLogger().error(file.toString(), ex);
         }
@@ -88,4 +117,12 @@ public class FileVisitorHierarchie implements FileVisitor<Path> {
     protected Logger getLogger() {
         return LOGGER;
     }
+
+    private void countChild() {
+        final long[] childCount = childCounts.peek();
+
+        if (childCount != null) {
+            childCount[0]++;
+        }
+    }
 }
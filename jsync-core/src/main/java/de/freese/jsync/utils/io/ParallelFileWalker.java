@@ -0,0 +1,210 @@
+// Created: 18.10.2026
+package de.freese.jsync.utils.io;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.freese.jsync.filter.PathFilter;
+
+/**
+ * Walks the Directories concurrently in a {@link ForkJoinPool}, every Directory is a Task.<br>
+ * Same Semantic as {@link Files#walkFileTree} with {@link FileVisitorHierarchie}:
+ * Files are delivered when visited with -1, Directories after their Children with the Number of their Entries;
+ * the Base-Directory is not delivered.<br>
+ * The Consumer is called by several Threads, the Order is not defined.
+ *
+ * @author Thomas Freese
+ */
+public class ParallelFileWalker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelFileWalker.class);
+    /**
+     * The Parallelism can come from a remote Client, more Threads bring nothing for the Disk.
+     */
+    private static final int MAX_PARALLELISM = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * @author Thomas Freese
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Object> ancestorKeys;
+        private final transient Path directory;
+
+        private DirectoryTask(final Path directory, final List<Object> ancestorKeys) {
+            super();
+
+            this.directory = directory;
+            this.ancestorKeys = ancestorKeys;
+        }
+
+        @Override
+        protected void compute() {
+            final List<DirectoryTask> subTasks = new ArrayList<>();
+            boolean failed = false;
+            long childCount = 0L;
+
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (Path child : children) {
+                    childCount++;
+                    visit(child, subTasks);
+                }
+            }
+            catch (IOException | DirectoryIteratorException ex) {
+                getLogger().error(directory.toString(), ex);
+                failed = true;
+            }
+
+            invokeAll(subTasks);
+
+            if (!failed && !basePath.equals(directory)) {
+                // We do not want the Base-Directory.
+                consumer.accept(directory, childCount);
+            }
+        }
+
+        private void visit(final Path child, final List<DirectoryTask> subTasks) {
+            final BasicFileAttributes attrs;
+
+            try {
+                attrs = readAttributes(child);
+            }
+            catch (final IOException ex) {
+                getLogger().error(child.toString(), ex);
+                return;
+            }
+
+            if (!attrs.isDirectory()) {
+                if (pathFilter.isExcludedFile(child)) {
+                    getLogger().debug("exclude file: {}", child);
+                } else {
+                    consumer.accept(child, -1L);
+                }
+
+                return;
+            }
+
+            final Object fileKey = attrs.fileKey();
+
+            if (followSymLinks && fileKey != null && ancestorKeys.contains(fileKey)) {
+                getLogger().error(child.toString(), new FileSystemLoopException(child.toString()));
+                return;
+            }
+
+            if (pathFilter.isExcludedDirectory(child)) {
+                getLogger().debug("exclude directory: {}", child);
+                return;
+            }
+
+            final List<Object> keys = new ArrayList<>(ancestorKeys.size() + 1);
+            keys.addAll(ancestorKeys);
+
+            if (fileKey != null) {
+                keys.add(fileKey);
+            }
+
+            subTasks.add(new DirectoryTask(child, keys));
+        }
+    }
+
+    private final Path basePath;
+    private final ObjLongConsumer<Path> consumer;
+    private final boolean followSymLinks;
+    private final int parallelism;
+    private final PathFilter pathFilter;
+
+    public ParallelFileWalker(final Path basePath, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter, final Consumer<Path> consumer) {
+        this(basePath, followSymLinks, parallelism, pathFilter, (path, childCount) -> consumer.accept(path));
+
+        Objects.requireNonNull(consumer, "consumer required");
+    }
+
+    /**
+     * @param consumer {@link ObjLongConsumer}; Path and Number of Entries of a Directory, -1 for Files
+     */
+    public ParallelFileWalker(final Path basePath, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter,
+                              final ObjLongConsumer<Path> consumer) {
+        super();
+
+        this.basePath = Objects.requireNonNull(basePath, "basePath required");
+        this.pathFilter = Objects.requireNonNull(pathFilter, "pathFilter required");
+        this.consumer = Objects.requireNonNull(consumer, "consumer required");
+        this.followSymLinks = followSymLinks;
+
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be > 0: " + parallelism);
+        }
+
+        this.parallelism = Math.min(parallelism, MAX_PARALLELISM);
+    }
+
+    public void walk() throws IOException {
+        final BasicFileAttributes attrs = readAttributes(basePath);
+
+        if (!attrs.isDirectory()) {
+            if (!pathFilter.isExcludedFile(basePath)) {
+                consumer.accept(basePath, -1L);
+            }
+
+            return;
+        }
+
+        if (pathFilter.isExcludedDirectory(basePath)) {
+            getLogger().debug("exclude directory: {}", basePath);
+            return;
+        }
+
+        final List<Object> ancestorKeys = attrs.fileKey() == null ? List.of() : List.of(attrs.fileKey());
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism, pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("walker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+
+            return thread;
+        }, null, false);
+
+        try {
+            forkJoinPool.invoke(new DirectoryTask(basePath, ancestorKeys));
+        }
+        finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    protected Logger getLogger() {
+        return LOGGER;
+    }
+
+    private BasicFileAttributes readAttributes(final Path path) throws IOException {
+        if (followSymLinks) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            catch (IOException _) {
+                // Broken Link, like Files#walkFileTree.
+            }
+        }
+
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    }
+}
@@ -12,6 +12,7 @@ import org.reactivestreams.Subscription;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.FluxSink;
 
+import de.freese.jsync.checksum.ChecksumDigest;
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
@@ -22,6 +23,7 @@ import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 public class WritableByteChannelSubscriber extends BaseSubscriber<ByteBuffer> // implements Subscriber<ByteBuffer>
 {
     private final WritableByteChannel channel;
+    private final ChecksumDigest checksumDigest;
     private final FluxSink<Long> sink;
 
     // private Subscription subscription;
@@ -37,10 +39,19 @@ public class WritableByteChannelSubscriber extends BaseSubscriber<ByteBuffer> //
      * @param sink {@link FluxSink} Number of written Bytes for each ByteBuffer/Chunk
      */
     public WritableByteChannelSubscriber(final FluxSink<Long> sink, final WritableByteChannel channel) {
+        this(sink, channel, null);
+    }
+
+    /**
+     * @param sink {@link FluxSink} Number of written Bytes for each ByteBuffer/Chunk
+     * @param checksumDigest {@link ChecksumDigest}; optional, is updated with each ByteBuffer/Chunk before writing
+     */
+    public WritableByteChannelSubscriber(final FluxSink<Long> sink, final WritableByteChannel channel, final ChecksumDigest checksumDigest) {
         super();
 
         this.sink = sink;
         this.channel = channel;
+        this.checksumDigest = checksumDigest;
     }
 
     // @Override
@@ -91,6 +102,10 @@ public class WritableByteChannelSubscriber extends BaseSubscriber<ByteBuffer> //
         try {
             final long limit = buffer.limit();
 
+            if (checksumDigest != null) {
+                checksumDigest.update(buffer);
+            }
+
             while (buffer.hasRemaining()) {
                 channel.write(buffer);
             }
@@ -3,11 +3,21 @@ package de.freese.jsync.utils.pool.bytebuffer;
 
 import java.nio.ByteBuffer;
 
+import de.freese.jsync.Options;
+
 /**
  * @author Thomas Freese
  */
 public interface ByteBufferPool {
-    ByteBufferPool DEFAULT = new SimpleByteBufferPool();
+    /**
+     * System-Properties:<br>
+     * <ul>
+     * <li>jsync.bytebuffer.direct: Default false</li>
+     * <li>jsync.bytebuffer.pool.max.bytes: Default 64 MB for the shared Caches</li>
+     * </ul>
+     */
+    ByteBufferPool DEFAULT = new TieredByteBufferPool(Boolean.parseBoolean(System.getProperty("jsync.bytebuffer.direct", "false")),
+            Long.parseLong(System.getProperty("jsync.bytebuffer.pool.max.bytes", Long.toString(TieredByteBufferPool.DEFAULT_MAX_POOLED_BYTES))));
 
     void clear();
 
@@ -16,5 +26,12 @@ public interface ByteBufferPool {
     /**
      * {@link ByteBuffer} with DEFAULT Size.
      */
-    ByteBuffer get();
+    default ByteBuffer get() {
+        return get(Options.BUFFER_SIZE);
+    }
+
+    /**
+     * {@link ByteBuffer} with a Capacity &gt;= minCapacity.
+     */
+    ByteBuffer get(int minCapacity);
 }
@@ -3,8 +3,6 @@ package de.freese.jsync.utils.pool.bytebuffer;
 
 import java.nio.ByteBuffer;
 
-import de.freese.jsync.Options;
-
 /**
  * @author Thomas Freese
  */
@@ -27,10 +25,10 @@ class NoByteBufferPool implements ByteBufferPool {
     }
 
     @Override
-    public ByteBuffer get() {
+    public ByteBuffer get(final int minCapacity) {
         created++;
 
-        return ByteBuffer.allocate(Options.BUFFER_SIZE);
+        return ByteBuffer.allocate(minCapacity);
     }
 
     @Override
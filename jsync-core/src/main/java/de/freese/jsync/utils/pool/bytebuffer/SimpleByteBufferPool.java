@@ -33,13 +33,24 @@ class SimpleByteBufferPool implements ByteBufferPool {
             return;
         }
 
+        // Foreign Buffers (e.g. Payload-Data) with an other Capacity would cause a BufferOverflowException by the next get.
+        if (buffer.capacity() != Options.BUFFER_SIZE || buffer.isReadOnly()) {
+            return;
+        }
+
         free++;
 
         cache.offer(buffer);
     }
 
     @Override
-    public ByteBuffer get() {
+    public ByteBuffer get(final int minCapacity) {
+        if (minCapacity > Options.BUFFER_SIZE) {
+            created++;
+
+            return ByteBuffer.allocate(minCapacity);
+        }
+
         ByteBuffer buffer = cache.poll();
 
         if (buffer == null) {
@@ -15,7 +15,11 @@ class SoftReferenceByteBufferPool extends Pool<ByteBuffer> implements ByteBuffer
     }
 
     @Override
-    public ByteBuffer get() {
+    public ByteBuffer get(final int minCapacity) {
+        if (minCapacity > Options.BUFFER_SIZE) {
+            return ByteBuffer.allocate(minCapacity);
+        }
+
         return obtain();
     }
 
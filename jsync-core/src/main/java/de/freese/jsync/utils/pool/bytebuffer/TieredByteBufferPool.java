@@ -0,0 +1,176 @@
+// Created: 18.10.2026
+package de.freese.jsync.utils.pool.bytebuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.freese.jsync.Options;
+
+/**
+ * Pool with Size-Classes: 64 B, 4 KB, 64 KB, 1 MB, 4 MB.<br>
+ * Every Thread has a small Cache for the small Size-Classes (not for virtual Threads), the shared Caches are limited by {@link #getMaxPooledBytes()}.<br>
+ * Buffers bigger than the largest Size-Class and foreign Buffers are not pooled.
+ *
+ * @author Thomas Freese
+ */
+class TieredByteBufferPool implements ByteBufferPool {
+    /**
+     * Default: 64 MB
+     */
+    static final long DEFAULT_MAX_POOLED_BYTES = 1024L * 1024L * 64L;
+
+    private static final int[] SIZE_CLASSES = {64, 1024 * 4, 1024 * 64, 1024 * 1024, Options.BUFFER_SIZE};
+    /**
+     * The large Buffers are only in the shared Cache, many Threads would hold too much Memory.
+     */
+    private static final int[] THREAD_CACHE_SIZES = {16, 8, 4, 0, 0};
+
+    private static int sizeClassIndex(final int capacity) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (capacity <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private final LongAdder created = new LongAdder();
+    private final boolean direct;
+    private final LongAdder free = new LongAdder();
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong(0L);
+    private final List<Deque<ByteBuffer>> sharedCaches = new ArrayList<>(SIZE_CLASSES.length);
+    private final ThreadLocal<List<Deque<ByteBuffer>>> threadCaches;
+
+    TieredByteBufferPool(final boolean direct, final long maxPooledBytes) {
+        super();
+
+        if (maxPooledBytes < 0L) {
+            throw new IllegalArgumentException("maxPooledBytes must be >= 0: " + maxPooledBytes);
+        }
+
+        this.direct = direct;
+        this.maxPooledBytes = maxPooledBytes;
+
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            sharedCaches.add(new ConcurrentLinkedDeque<>());
+        }
+
+        threadCaches = ThreadLocal.withInitial(() -> {
+            final List<Deque<ByteBuffer>> caches = new ArrayList<>(SIZE_CLASSES.length);
+
+            for (int i = 0; i < SIZE_CLASSES.length; i++) {
+                caches.add(new ArrayDeque<>(THREAD_CACHE_SIZES[i]));
+            }
+
+            return caches;
+        });
+    }
+
+    @Override
+    public void clear() {
+        for (final Deque<ByteBuffer> cache : sharedCaches) {
+            cache.clear();
+        }
+
+        pooledBytes.set(0L);
+
+        // Only the Cache of the current Thread can be reached.
+        threadCaches.remove();
+    }
+
+    @Override
+    public void free(final ByteBuffer buffer) {
+        if (buffer == null || buffer.isReadOnly() || buffer.isDirect() != direct) {
+            return;
+        }
+
+        final int index = sizeClassIndex(buffer.capacity());
+
+        // Foreign Buffers (e.g. Payload-Data) have an other Capacity than the Size-Class.
+        if (index < 0 || buffer.capacity() != SIZE_CLASSES[index]) {
+            return;
+        }
+
+        free.increment();
+
+        if (!Thread.currentThread().isVirtual()) {
+            final Deque<ByteBuffer> threadCache = threadCaches.get().get(index);
+
+            if (threadCache.size() < THREAD_CACHE_SIZES[index]) {
+                threadCache.push(buffer);
+                return;
+            }
+        }
+
+        final int capacity = buffer.capacity();
+
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            // Limit reached, the Buffer is left to the GC.
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+
+        sharedCaches.get(index).push(buffer);
+    }
+
+    @Override
+    public ByteBuffer get(final int minCapacity) {
+        final int index = sizeClassIndex(minCapacity);
+
+        if (index < 0) {
+            created.increment();
+
+            return allocate(minCapacity);
+        }
+
+        ByteBuffer buffer = null;
+
+        if (!Thread.currentThread().isVirtual()) {
+            buffer = threadCaches.get().get(index).poll();
+        }
+
+        if (buffer == null) {
+            buffer = sharedCaches.get(index).poll();
+
+            if (buffer != null) {
+                pooledBytes.addAndGet(-buffer.capacity());
+            }
+        }
+
+        if (buffer == null) {
+            created.increment();
+
+            return allocate(SIZE_CLASSES[index]);
+        }
+
+        return buffer.clear();
+    }
+
+    public long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append(":");
+        sb.append(" direct=").append(direct);
+        sb.append(", created=").append(created.sum());
+        sb.append(", free=").append(free.sum());
+        sb.append(", pooledBytes=").append(pooledBytes.get());
+
+        return sb.toString();
+    }
+
+    private ByteBuffer allocate(final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -10,6 +10,8 @@ import java.nio.channels.spi.SelectorProvider;
 import java.util.Objects;
 import java.util.concurrent.Semaphore;
 
+import javax.net.ssl.SSLContext;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.scheduler.Schedulers;
@@ -18,7 +20,9 @@ import de.freese.jsync.nio.server.dispatcher.Dispatcher;
 import de.freese.jsync.nio.server.dispatcher.DispatcherPool;
 import de.freese.jsync.nio.server.handler.IoHandler;
 import de.freese.jsync.nio.server.handler.JSyncIoHandler;
+import de.freese.jsync.nio.transport.NioTls;
 import de.freese.jsync.utils.JSyncThreadFactory;
+import de.freese.jsync.utils.bandwidth.BandwidthScheduler;
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
@@ -26,17 +30,31 @@ import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
  * The {@link Acceptor} handles the Client-Connections and delegate them to the {@link Dispatcher}.<br>
  * The {@link Dispatcher} handles the Client Connections after the 'accept'.<br>
  * The {@link IoHandler} handles the Request and Response in a separate Thread.<br>
+ * Without a Number of Workers the Dispatchers use a Virtual-Thread per Task, see {@link DispatcherPool}.<br>
+ * With a {@link SSLContext} the Server only accepts TLS-Connections, the Clients use the Scheme 'nios'.<br>
  *
  * @author Thomas Freese
  */
 public final class JSyncNioServer implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JSyncNioServer.class);
 
+    /**
+     * Arguments: port [numOfDispatcher], Default of the Dispatchers is the Number of Cores.<br>
+     * TLS with the System-Property 'jsync.nio.tls.keystore', see {@link NioTls}.<br>
+     * Bandwidth-Limits with the System-Properties of {@link BandwidthScheduler#fromSystemProperties()}.
+     */
     static void main(final String[] args) {
         final int port = Integer.parseInt(args[0]);
+        final int numOfDispatcher = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
 
-        final JSyncNioServer server = new JSyncNioServer(port, 2, 4);
-        server.setIoHandler(new JSyncIoHandler());
+        final JSyncNioServer server = new JSyncNioServer(port, numOfDispatcher);
+        final JSyncIoHandler ioHandler = new JSyncIoHandler();
+        ioHandler.setBandwidthScheduler(BandwidthScheduler.fromSystemProperties());
+        server.setIoHandler(ioHandler);
+
+        if (System.getProperty("jsync.nio.tls.keystore") != null) {
+            server.setSslContext(NioTls.getDefaultContext());
+        }
         server.start();
 
         Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-stop"));
@@ -66,12 +84,31 @@ public final class JSyncNioServer implements Runnable {
     private IoHandler<SelectionKey> ioHandler;
     private String name = getClass().getSimpleName();
     private ServerSocketChannel serverSocketChannel;
+    private SSLContext sslContext;
+
+    /**
+     * One Dispatcher per Core, Virtual-Threads as Workers.
+     */
+    public JSyncNioServer(final int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Virtual-Threads as Workers.
+     */
+    public JSyncNioServer(final int port, final int numOfDispatcher) {
+        this(port, new DispatcherPool(numOfDispatcher), SelectorProvider.provider());
+    }
 
     public JSyncNioServer(final int port, final int numOfDispatcher, final int numOfWorker) {
         this(port, numOfDispatcher, numOfWorker, SelectorProvider.provider());
     }
 
     public JSyncNioServer(final int port, final int numOfDispatcher, final int numOfWorker, final SelectorProvider selectorProvider) {
+        this(port, new DispatcherPool(numOfDispatcher, numOfWorker), selectorProvider);
+    }
+
+    private JSyncNioServer(final int port, final DispatcherPool dispatcherPool, final SelectorProvider selectorProvider) {
         super();
 
         if (port <= 0) {
@@ -79,9 +116,9 @@ public final class JSyncNioServer implements Runnable {
         }
 
         this.port = port;
+        this.dispatcherPool = Objects.requireNonNull(dispatcherPool, "dispatcherPool required");
         this.selectorProvider = Objects.requireNonNull(selectorProvider, "selectorProvider required");
 
-        dispatcherPool = new DispatcherPool(numOfDispatcher, numOfWorker);
         startLock.acquireUninterruptibly();
     }
 
@@ -132,7 +169,7 @@ public final class JSyncNioServer implements Runnable {
             // socket.bind(new InetSocketAddress(port), 50);
 
             // Create Dispatcher.
-            dispatcherPool.start(ioHandler, selectorProvider, name + "-" + port);
+            dispatcherPool.start(ioHandler, selectorProvider, name + "-" + port, sslContext);
 
             // Create Acceptor.
             acceptor = new Acceptor(selectorProvider.openSelector(), serverSocketChannel, dispatcherPool);
@@ -157,6 +194,13 @@ public final class JSyncNioServer implements Runnable {
         this.name = Objects.requireNonNull(name, "name required");
     }
 
+    /**
+     * @param sslContext {@link SSLContext}; null without TLS
+     */
+    public void setSslContext(final SSLContext sslContext) {
+        this.sslContext = sslContext;
+    }
+
     public void start() {
         run();
 
@@ -10,12 +10,17 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 
+import javax.net.ssl.SSLContext;
+
 import de.freese.jsync.nio.server.AbstractNioProcessor;
 import de.freese.jsync.nio.server.handler.IoHandler;
+import de.freese.jsync.nio.transport.NioTls;
+import de.freese.jsync.nio.transport.TlsChannel;
 
 /**
  * The {@link Dispatcher} handles the Client Connections after the 'accept'.<br>
  * The {@link IoHandler} handles the Request and Response in a separate Thread.<br>
+ * With a {@link SSLContext} every Channel gets a {@link TlsChannel} as Attachment.<br>
  *
  * @author Thomas Freese
  */
@@ -23,12 +28,17 @@ class DefaultDispatcher extends AbstractNioProcessor implements Dispatcher {
     private final Executor executor;
     private final IoHandler<SelectionKey> ioHandler;
     private final Queue<SocketChannel> newSessions = new ConcurrentLinkedQueue<>();
+    private final SSLContext sslContext;
 
-    DefaultDispatcher(final Selector selector, final IoHandler<SelectionKey> ioHandler, final Executor executor) {
+    /**
+     * @param sslContext {@link SSLContext}; null without TLS
+     */
+    DefaultDispatcher(final Selector selector, final IoHandler<SelectionKey> ioHandler, final Executor executor, final SSLContext sslContext) {
         super(selector);
 
         this.ioHandler = Objects.requireNonNull(ioHandler, "ioHandler required");
         this.executor = Objects.requireNonNull(executor, "executor required");
+        this.sslContext = sslContext;
     }
 
     @Override
@@ -127,9 +137,10 @@ class DefaultDispatcher extends AbstractNioProcessor implements Dispatcher {
 
                 getLogger().debug("{}: register channel on selector", socketChannel.getRemoteAddress());
 
-                //                SelectionKey selectionKey =
-                socketChannel.register(getSelector(), SelectionKey.OP_READ);
-                // selectionKey.attach(obj)
+                // The Handshake is done by the IoHandler.
+                final Object attachment = sslContext == null ? null : new TlsChannel(socketChannel, NioTls.createServerEngine(sslContext));
+
+                socketChannel.register(getSelector(), SelectionKey.OP_READ, attachment);
             }
             catch (final Exception ex) {
                 getLogger().error(ex.getMessage(), ex);
@@ -9,6 +9,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
+import javax.net.ssl.SSLContext;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,6 +19,7 @@ import de.freese.jsync.utils.JSyncThreadFactory;
 
 /**
  * The {@link Dispatcher} handles the Client Connections after the 'accept'.<br>
+ * The Workers are a fixed Pool of Platform-Threads or a Virtual-Thread per Task.
  *
  * @author Thomas Freese
  */
@@ -26,9 +29,25 @@ public class DispatcherPool implements Dispatcher {
     private final LinkedList<DefaultDispatcher> dispatchers = new LinkedList<>();
     private final int numOfDispatcher;
     private final int numOfWorker;
+    private final boolean virtualThreads;
 
     private ExecutorService executorServiceWorker;
 
+    /**
+     * A Virtual-Thread per Task, the Number of Workers is not limited.
+     */
+    public DispatcherPool(final int numOfDispatcher) {
+        super();
+
+        if (numOfDispatcher < 1) {
+            throw new IllegalArgumentException("numOfDispatcher < 1: " + numOfDispatcher);
+        }
+
+        this.numOfDispatcher = numOfDispatcher;
+        this.numOfWorker = 0;
+        this.virtualThreads = true;
+    }
+
     public DispatcherPool(final int numOfDispatcher, final int numOfWorker) {
         super();
 
@@ -47,6 +66,7 @@ public class DispatcherPool implements Dispatcher {
 
         this.numOfDispatcher = numOfDispatcher;
         this.numOfWorker = numOfWorker;
+        this.virtualThreads = false;
     }
 
     @Override
@@ -54,15 +74,23 @@ public class DispatcherPool implements Dispatcher {
         nextDispatcher().register(socketChannel);
     }
 
-    public void start(final IoHandler<SelectionKey> ioHandler, final SelectorProvider selectorProvider, final String serverName) throws Exception {
+    /**
+     * @param sslContext {@link SSLContext}; null without TLS
+     */
+    public void start(final IoHandler<SelectionKey> ioHandler, final SelectorProvider selectorProvider, final String serverName, final SSLContext sslContext) throws Exception {
         final ThreadFactory threadFactoryDispatcher = new JSyncThreadFactory(serverName + "-dispatcher-");
-        final ThreadFactory threadFactoryWorker = new JSyncThreadFactory(serverName + "-worker-");
 
-        // executorServiceWorker = new ThreadPoolExecutor(1, numOfWorker, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactoryWorker);
-        executorServiceWorker = Executors.newFixedThreadPool(numOfWorker, threadFactoryWorker);
+        if (virtualThreads) {
+            executorServiceWorker = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(serverName + "-worker-", 1).factory());
+        } else {
+            final ThreadFactory threadFactoryWorker = new JSyncThreadFactory(serverName + "-worker-");
+
+            // executorServiceWorker = new ThreadPoolExecutor(1, numOfWorker, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactoryWorker);
+            executorServiceWorker = Executors.newFixedThreadPool(numOfWorker, threadFactoryWorker);
+        }
 
         while (dispatchers.size() < numOfDispatcher) {
-            final DefaultDispatcher dispatcher = new DefaultDispatcher(selectorProvider.openSelector(), ioHandler, executorServiceWorker);
+            final DefaultDispatcher dispatcher = new DefaultDispatcher(selectorProvider.openSelector(), ioHandler, executorServiceWorker, sslContext);
             dispatchers.add(dispatcher);
 
             final Thread thread = threadFactoryDispatcher.newThread(dispatcher);
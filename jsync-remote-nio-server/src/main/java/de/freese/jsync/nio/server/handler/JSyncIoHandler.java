@@ -1,17 +1,38 @@
 // Created: 04.11.2018
 package de.freese.jsync.nio.server.handler;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.function.LongConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.compression.CompressionStatistics;
+import de.freese.jsync.filesystem.AbstractRemoteFileSystem;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.FileSystem;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filesystem.ReceiverDelegateLogger;
@@ -20,16 +41,27 @@ import de.freese.jsync.filesystem.SenderDelegateLogger;
 import de.freese.jsync.filesystem.local.LocalhostReceiver;
 import de.freese.jsync.filesystem.local.LocalhostSender;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.nio.transport.NioConnection;
 import de.freese.jsync.nio.transport.NioFrameProtocol;
+import de.freese.jsync.nio.transport.NioStream;
+import de.freese.jsync.nio.transport.TlsChannel;
 import de.freese.jsync.serialisation.DefaultSerializer;
 import de.freese.jsync.serialisation.Serializer;
 import de.freese.jsync.serialisation.io.ByteBufferReader;
 import de.freese.jsync.serialisation.io.ByteBufferWriter;
+import de.freese.jsync.serialisation.serializer.SyncItemListSerializer;
+import de.freese.jsync.utils.bandwidth.BandwidthScheduler;
 import de.freese.jsync.utils.pool.Pool;
 
 /**
+ * The File-Chunks of {@link JSyncCommand#SOURCE_READ_FILE} and {@link JSyncCommand#TARGET_WRITE_FILE} are granted by a {@link BandwidthScheduler},
+ * every Connection is a Client of it.
+ *
  * @author Thomas Freese
  */
 public class JSyncIoHandler implements IoHandler<SelectionKey> {
@@ -49,85 +81,103 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     };
 
-    private final NioFrameProtocol frameProtocol = new NioFrameProtocol();
+    /**
+     * The Streams are blocking on their Frames, they must not block the Workers of the Dispatcher which read the Frames.<br>
+     * A Virtual-Thread per Stream, the Number of concurrent Requests is limited by the Permits.
+     */
+    private static final ExecutorService STREAM_EXECUTOR = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jsync-stream-", 1).factory());
 
+    private final NioFrameProtocol frameProtocol = new NioFrameProtocol();
+    private final Semaphore requestPermits;
     private final Serializer<ByteBuffer, ByteBuffer> serializer = new DefaultSerializer<>(new ByteBufferReader(), new ByteBufferWriter());
 
+    private BandwidthScheduler bandwidthScheduler = new BandwidthScheduler(0L, 0L);
+
+    /**
+     * Concurrent Requests of the System-Property 'jsync.server.max.requests', Default 512.
+     */
+    public JSyncIoHandler() {
+        this(Integer.parseInt(System.getProperty("jsync.server.max.requests", "512")));
+    }
+
+    /**
+     * @param maxConcurrentRequests int; more Requests wait for a Permit, until then their Streams only have the small initial Credit of the Flow-Control
+     */
+    public JSyncIoHandler(final int maxConcurrentRequests) {
+        super();
+
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests < 1: " + maxConcurrentRequests);
+        }
+
+        requestPermits = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    /**
+     * With TLS the Attachment is the {@link TlsChannel} until the Handshake is complete.
+     */
     @Override
     public void read(final SelectionKey selectionKey) {
-        final Sender sender = POOL_SENDER.obtain();
-        final Receiver receiver = POOL_RECEIVER.obtain();
-
         try {
-            final SocketChannel channel = (SocketChannel) selectionKey.channel();
+            if (selectionKey.attachment() instanceof final TlsChannel tlsChannel) {
+                if (!tlsChannel.handshake()) {
+                    // Wait for the next Message of the Client.
+                    selectionKey.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
 
-            final ByteBuffer buffer = frameProtocol.readFrame(channel);
+                getLogger().debug("{}: {}", getRemoteAddress(selectionKey), tlsChannel);
 
-            final JSyncCommand command = getSerializer().readJSyncCommand(buffer);
+                selectionKey.attach(createConnection(tlsChannel, selectionKey));
 
-            frameProtocol.bufferPool().free(buffer);
+                if (!tlsChannel.hasBufferedInput()) {
+                    selectionKey.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+            }
 
-            getLogger().debug("{}: read command: {}", getRemoteAddress(selectionKey), command);
+            NioConnection connection = (NioConnection) selectionKey.attachment();
 
-            if (command == null) {
-                getLogger().error("unknown JSyncCommand");
-                selectionKey.interestOps(SelectionKey.OP_READ);
-                return;
+            if (connection == null) {
+                connection = createConnection((SocketChannel) selectionKey.channel(), selectionKey);
+                selectionKey.attach(connection);
             }
 
-            getLogger().debug("{}", frameProtocol.bufferPool());
-
-            switch (command) {
-                case DISCONNECT -> {
-                    // FINISH-Frame
-                    frameProtocol.readFrame(channel);
-                    frameProtocol.writeData(channel, buf -> getSerializer().writeString(buf, "DISCONNECTED"));
-                    frameProtocol.writeFinish(channel);
-                    selectionKey.attach(null);
-                    // selectionKey.interestOps(SelectionKey.OP_CONNECT);
-                    selectionKey.channel().close();
-                    selectionKey.cancel();
-                }
-                case CONNECT -> {
-                    // FINISH-Frame
-                    frameProtocol.readFrame(channel);
-                    frameProtocol.writeData(channel, buf -> getSerializer().writeString(buf, "CONNECTED"));
-                    frameProtocol.writeFinish(channel);
-                }
-                case SOURCE_CHECKSUM -> createChecksum(channel, sender);
-                case SOURCE_CREATE_SYNC_ITEMS -> createSyncItems(channel, sender);
-                case SOURCE_READ_FILE -> readFile(channel, sender);
-                case TARGET_CHECKSUM -> createChecksum(channel, receiver);
-                case TARGET_CREATE_DIRECTORY -> createDirectory(channel, receiver);
-                case TARGET_CREATE_SYNC_ITEMS -> createSyncItems(channel, receiver);
-                case TARGET_DELETE -> delete(channel, receiver);
-                case TARGET_UPDATE -> update(channel, receiver);
-                case TARGET_VALIDATE_FILE -> validate(channel, receiver);
-                case TARGET_WRITE_FILE -> writeFile(channel, receiver);
-                default -> {
-                    // Empty
-                }
+            // Only one Frame, the Streams are handled by the StreamExecutor.
+            // The Selector does not signal the buffered Frames of TLS.
+            do {
+                connection.readFrame();
             }
+            while (connection.hasBufferedInput());
 
             if (selectionKey.isValid()) {
                 selectionKey.interestOps(SelectionKey.OP_READ);
             }
         }
+        catch (final EOFException _) {
+            // Client has closed the Connection.
+            getLogger().debug("{}: connection closed", getRemoteAddress(selectionKey));
+
+            closeConnection(selectionKey);
+        }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
+
+            closeConnection(selectionKey);
         }
-        finally {
-            POOL_SENDER.free(sender);
-            POOL_RECEIVER.free(receiver);
-        }
+    }
+
+    /**
+     * @param bandwidthScheduler {@link BandwidthScheduler}; must be set before the Server is started
+     */
+    public void setBandwidthScheduler(final BandwidthScheduler bandwidthScheduler) {
+        this.bandwidthScheduler = Objects.requireNonNull(bandwidthScheduler, "bandwidthScheduler required");
     }
 
     @Override
     public void write(final SelectionKey selectionKey) {
         try {
             if (selectionKey.attachment() instanceof final Runnable task) {
-                selectionKey.attach(null);
-
                 task.run();
             }
 
@@ -138,35 +188,75 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
+    protected void batch(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final int count = getSerializer().readInteger(buffer);
+
+            final List<ReceiverOperation> operations = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                operations.add(getSerializer().readReceiverOperation(buffer));
+            }
+
+            final List<String> results = receiver.batch(baseDir, operations);
+
+            stream.writeData(buf -> {
+                getSerializer().writeInteger(buf, results.size());
+
+                for (final String result : results) {
+                    getSerializer().writeString(buf, result);
+                }
+            });
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
     /**
      * Create the checksum.
      */
-    protected void createChecksum(final SocketChannel channel, final FileSystem fileSystem) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    protected void createChecksum(final NioStream stream, final FileSystem fileSystem) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
             final String relativeFile = getSerializer().readString(buffer);
+            final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(getSerializer().readString(buffer));
 
             final LongConsumer consumer = checksumBytesRead -> {
                 try {
-                    frameProtocol.writeData(channel, buf -> getSerializer().writeString(buf, Long.toString(checksumBytesRead)));
+                    stream.writeData(buf -> getSerializer().writeString(buf, Long.toString(checksumBytesRead)));
                 }
                 catch (final IOException ex) {
                     throw new UncheckedIOException(ex);
                 }
             };
 
-            final String checksum = fileSystem.generateChecksum(baseDir, relativeFile, consumer);
+            final String checksum = fileSystem.generateChecksum(baseDir, relativeFile, algorithm, consumer);
 
-            frameProtocol.writeData(channel, buf -> getSerializer().writeString(buf, checksum));
-            frameProtocol.writeFinish(channel);
+            stream.writeData(buf -> getSerializer().writeString(buf, checksum));
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
 
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final Exception ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -177,8 +267,38 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
-    protected void createDirectory(final SocketChannel channel, final Receiver receiver) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    protected void createChunkChecksum(final NioStream stream, final Sender sender) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final String relativeFile = getSerializer().readString(buffer);
+            final long position = getSerializer().readLong(buffer);
+            final long length = getSerializer().readLong(buffer);
+            final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(getSerializer().readString(buffer));
+
+            final String checksum = sender.generateChunkChecksum(baseDir, relativeFile, position, length, algorithm);
+
+            stream.writeData(buf -> getSerializer().writeString(buf, checksum));
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
+    protected void createDirectory(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
@@ -186,13 +306,40 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
 
             receiver.createDirectory(baseDir, relativePath);
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
+    protected void createSignature(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final String relativeFile = getSerializer().readString(buffer);
+
+            final FileSignature signature = receiver.generateSignature(baseDir, relativeFile);
+
+            stream.writeData(buf -> getSerializer().write(buf, signature));
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
 
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final IOException ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -203,30 +350,32 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
-    protected void createSyncItems(final SocketChannel channel, final FileSystem fileSystem) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    protected void createSyncItems(final NioStream stream, final FileSystem fileSystem) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
             final boolean followSymLinks = getSerializer().readBoolean(buffer);
+            final int parallelism = getSerializer().readInteger(buffer);
             final PathFilter pathFilter = getSerializer().readPathFilter(buffer);
 
-            fileSystem.generateSyncItems(baseDir, followSymLinks, pathFilter).subscribe(syncItem -> {
+            // Many Items per Frame.
+            SyncItemListSerializer.batch(fileSystem.generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter)).subscribe(syncItems -> {
                 try {
-                    frameProtocol.writeData(channel, buf -> getSerializer().write(buf, syncItem));
+                    stream.writeData(buf -> getSerializer().writeSyncItems(buf, syncItems));
                 }
                 catch (final IOException ex) {
                     throw new UncheckedIOException(ex);
                 }
             });
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
 
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final Exception ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -237,8 +386,8 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
-    protected void delete(final SocketChannel channel, final Receiver receiver) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    protected void delete(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
@@ -247,11 +396,11 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
 
             receiver.delete(baseDir, relativePath, followSymLinks);
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final IOException ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -279,17 +428,172 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         return serializer;
     }
 
-    protected void readFile(final SocketChannel channel, final Sender sender) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    /**
+     * Handles the Request of one Stream, the Frames of the Stream are read by {@link #read(SelectionKey)}.
+     */
+    protected void handle(final NioStream stream, final BandwidthScheduler.Client client) {
+        final Sender sender = POOL_SENDER.obtain();
+        final Receiver receiver = POOL_RECEIVER.obtain();
+
+        try {
+            final ByteBuffer buffer = stream.readFrame();
+
+            final JSyncCommand command = getSerializer().readJSyncCommand(buffer);
+
+            frameProtocol.bufferPool().free(buffer);
+
+            getLogger().debug("{}: read command: {}", stream, command);
+
+            if (command == null) {
+                getLogger().error("unknown JSyncCommand");
+                return;
+            }
+
+            getLogger().debug("{}", frameProtocol.bufferPool());
+
+            switch (command) {
+                case DISCONNECT -> {
+                    // FINISH-Frame
+                    stream.readFrame();
+                    stream.writeData(buf -> getSerializer().writeString(buf, "DISCONNECTED"));
+                    stream.writeFinish();
+                    // The Client closes the Connection.
+                }
+                case CONNECT -> {
+                    // FINISH-Frame
+                    stream.readFrame();
+                    stream.writeData(buf -> {
+                        getSerializer().writeString(buf, "CONNECTED");
+                        getSerializer().writeString(buf, AbstractRemoteFileSystem.getLocalCompressionCodecs());
+                        getSerializer().writeString(buf, AbstractRemoteFileSystem.getLocalChecksumAlgorithms());
+                    });
+                    stream.writeFinish();
+                }
+                case SOURCE_CHECKSUM -> createChecksum(stream, sender);
+                case SOURCE_CHUNK_CHECKSUM -> createChunkChecksum(stream, sender);
+                case SOURCE_CREATE_SYNC_ITEMS -> createSyncItems(stream, sender);
+                case SOURCE_READ_DELTA -> readDelta(stream, sender);
+                case SOURCE_READ_FILE -> readFile(stream, sender, client);
+                case TARGET_BATCH -> batch(stream, receiver);
+                case TARGET_CHECKSUM -> createChecksum(stream, receiver);
+                case TARGET_CREATE_DIRECTORY -> createDirectory(stream, receiver);
+                case TARGET_CREATE_SYNC_ITEMS -> createSyncItems(stream, receiver);
+                case TARGET_DELETE -> delete(stream, receiver);
+                case TARGET_LAST_MODIFIED_TIMES -> lastModifiedTimes(stream, receiver);
+                case TARGET_PATCH_FILE -> patchFile(stream, receiver);
+                case TARGET_RESUME_POINT -> resumePoint(stream, receiver);
+                case TARGET_SIGNATURE -> createSignature(stream, receiver);
+                case TARGET_UPDATE -> update(stream, receiver);
+                case TARGET_VALIDATE_FILE -> validate(stream, receiver);
+                case TARGET_WRITE_FILE -> writeFile(stream, receiver, client);
+                default -> {
+                    // Empty
+                }
+            }
+        }
+        catch (final EOFException _) {
+            // Stream cancelled or Connection closed.
+            getLogger().debug("{}: stream closed", stream);
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+        }
+        finally {
+            stream.close();
+
+            POOL_SENDER.free(sender);
+            POOL_RECEIVER.free(receiver);
+        }
+    }
+
+    protected void lastModifiedTimes(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final int count = getSerializer().readInteger(buffer);
+
+            final List<String> relativePaths = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                relativePaths.add(getSerializer().readString(buffer));
+            }
+
+            final long[] lastModifiedTimes = receiver.getLastModifiedTimes(baseDir, relativePaths);
+
+            stream.writeData(buf -> {
+                getSerializer().writeInteger(buf, lastModifiedTimes.length);
+
+                for (final long lastModifiedTime : lastModifiedTimes) {
+                    getSerializer().writeLong(buf, lastModifiedTime);
+                }
+            });
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
+    protected void patchFile(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFrame();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
             final String relativeFile = getSerializer().readString(buffer);
             final long sizeOfFile = getSerializer().readLong(buffer);
+            final int blockSize = getSerializer().readInteger(buffer);
 
-            sender.readFile(baseDir, relativeFile, sizeOfFile).subscribe(buf -> {
+            final Flux<ByteBuffer> data = stream.readAll();
+
+            receiver.patchFile(baseDir, relativeFile, sizeOfFile, blockSize, data).subscribe(bytesWritten -> {
                 try {
-                    frameProtocol.writeData(channel, buf);
+                    stream.writeData(buf -> getSerializer().writeLong(buf, bytesWritten));
+                }
+                catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
+    protected void readDelta(final NioStream stream, final Sender sender) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final String relativeFile = getSerializer().readString(buffer);
+            final long sizeOfFile = getSerializer().readLong(buffer);
+            final FileSignature signature = getSerializer().readFileSignature(buffer);
+
+            sender.readDelta(baseDir, relativeFile, sizeOfFile, signature).subscribe(buf -> {
+                try {
+                    stream.writeData(buf);
                 }
                 catch (final IOException ex) {
                     throw new UncheckedIOException(ex);
@@ -299,11 +603,68 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
                 }
             });
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
+    /**
+     * The File is written with sendfile directly into the Socket, the {@link Sender} is not used.<br>
+     * With Compression the File is read in Chunks of {@link ChunkCompressor#MAX_CHUNK_SIZE}.<br>
+     * With a limited Bandwidth the File is sent in Chunks of {@link BandwidthScheduler#QUANTUM}.
+     */
+    protected void readFile(final NioStream stream, final Sender sender, final BandwidthScheduler.Client client) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final String relativeFile = getSerializer().readString(buffer);
+            final long position = getSerializer().readLong(buffer);
+            final long sizeOfFile = getSerializer().readLong(buffer);
+            final CompressionCodec codec = CompressionCodecs.get(getSerializer().readString(buffer));
+            final int compressionLevel = getSerializer().readInteger(buffer);
+
+            final Path path = Paths.get(baseDir, relativeFile);
+
+            if (Files.exists(path)) {
+                getLogger().debug("readFile: {}, position={}, sizeOfFile={}, compression={}", path, position, sizeOfFile, codec.getName());
+
+                try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    if (!CompressionCodecs.isNone(codec)) {
+                        fileChannel.position(position);
+                        writeCompressed(stream, fileChannel, new ChunkCompressor(codec, compressionLevel, frameProtocol.bufferPool(), new CompressionStatistics()), client);
+                    } else if (client.isLimited()) {
+                        final long size = fileChannel.size();
+
+                        for (long current = position; current < size; current += BandwidthScheduler.QUANTUM) {
+                            final long length = Math.min(BandwidthScheduler.QUANTUM, size - current);
+
+                            client.acquire(length);
+                            stream.writeData(fileChannel, current, length);
+                        }
+                    } else {
+                        stream.writeData(fileChannel, position);
+                    }
+                }
+            } else {
+                getLogger().warn("file doesn't exist anymore: {}", path);
+            }
+
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final IOException ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -314,8 +675,39 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
-    protected void update(final SocketChannel channel, final Receiver receiver) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    protected void resumePoint(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
+
+        try {
+            final String baseDir = getSerializer().readString(buffer);
+            final String relativeFile = getSerializer().readString(buffer);
+            final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(getSerializer().readString(buffer));
+
+            final ResumePoint resumePoint = receiver.getResumePoint(baseDir, relativeFile, algorithm);
+
+            stream.writeData(buf -> {
+                getSerializer().writeLong(buf, resumePoint.position());
+                getSerializer().writeString(buf, resumePoint.checksum());
+            });
+            stream.writeFinish();
+        }
+        catch (final Exception ex) {
+            getLogger().error(ex.getMessage(), ex);
+
+            try {
+                stream.writeError(buf -> getSerializer().write(buf, ex));
+            }
+            catch (final IOException ex2) {
+                getLogger().error(ex2.getMessage(), ex2);
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
+
+    protected void update(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
@@ -323,13 +715,13 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
 
             receiver.update(baseDir, syncItem);
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
 
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final IOException ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -340,32 +732,33 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
-    protected void validate(final SocketChannel channel, final Receiver receiver) {
-        final ByteBuffer buffer = frameProtocol.readAll(channel).blockFirst();
+    protected void validate(final NioStream stream, final Receiver receiver) throws Exception {
+        final ByteBuffer buffer = stream.readFirst();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
             final SyncItem syncItem = getSerializer().readSyncItem(buffer);
-            final boolean withChecksum = getSerializer().readBoolean(buffer);
+            final String algorithmName = getSerializer().readString(buffer);
+            final ChecksumAlgorithm checksumAlgorithm = algorithmName == null ? null : ChecksumAlgorithm.fromName(algorithmName);
 
             final LongConsumer consumer = checksumBytesRead -> {
                 try {
-                    frameProtocol.writeData(channel, buf -> getSerializer().writeLong(buf, checksumBytesRead));
+                    stream.writeData(buf -> getSerializer().writeLong(buf, checksumBytesRead));
                 }
                 catch (final IOException ex) {
                     throw new UncheckedIOException(ex);
                 }
             };
 
-            receiver.validateFile(baseDir, syncItem, withChecksum, consumer);
+            receiver.validateFile(baseDir, syncItem, checksumAlgorithm, consumer);
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
 
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final IOException ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -376,32 +769,52 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
         }
     }
 
-    protected void writeFile(final SocketChannel channel, final Receiver receiver) throws Exception {
-        final ByteBuffer buffer = frameProtocol.readFrame(channel);
+    protected void writeFile(final NioStream stream, final Receiver receiver, final BandwidthScheduler.Client client) throws Exception {
+        final ByteBuffer buffer = stream.readFrame();
 
         try {
             final String baseDir = getSerializer().readString(buffer);
             final String relativeFile = getSerializer().readString(buffer);
+            final long position = getSerializer().readLong(buffer);
             final long sizeOfFile = getSerializer().readLong(buffer);
+            final ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.fromName(getSerializer().readString(buffer));
+            final String checksum = getSerializer().readString(buffer);
+            final Durability durability = Durability.fromName(getSerializer().readString(buffer));
+            final CompressionCodec codec = CompressionCodecs.get(getSerializer().readString(buffer));
+
+            Flux<ByteBuffer> data = stream.readAll();
+
+            if (client.isLimited()) {
+                // The Credit of the Stream is given back slower, the Client has to wait.
+                data = data.doOnNext(chunk -> acquire(client, chunk.remaining()));
+            }
 
-            final Flux<ByteBuffer> data = frameProtocol.readAll(channel);
+            if (!CompressionCodecs.isNone(codec)) {
+                data = data.map(chunk -> {
+                    final ByteBuffer raw = ChunkCompressor.decompress(chunk, frameProtocol.bufferPool());
+                    frameProtocol.bufferPool().free(chunk);
 
-            receiver.writeFile(baseDir, relativeFile, sizeOfFile, data).subscribe(bytesWritten -> {
+                    return raw;
+                });
+            }
+
+            // A different Checksum is sent as ERROR-Frame.
+            receiver.writeFile(baseDir, relativeFile, position, sizeOfFile, checksumAlgorithm, checksum, durability, data).doOnNext(bytesWritten -> {
                 try {
-                    frameProtocol.writeData(channel, buf -> getSerializer().writeLong(buf, bytesWritten));
+                    stream.writeData(buf -> getSerializer().writeLong(buf, bytesWritten));
                 }
                 catch (final IOException ex) {
                     throw new UncheckedIOException(ex);
                 }
-            });
+            }).blockLast();
 
-            frameProtocol.writeFinish(channel);
+            stream.writeFinish();
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
 
             try {
-                frameProtocol.writeError(channel, buf -> getSerializer().write(buf, ex));
+                stream.writeError(buf -> getSerializer().write(buf, ex));
             }
             catch (final IOException ex2) {
                 getLogger().error(ex2.getMessage(), ex2);
@@ -411,4 +824,101 @@ public class JSyncIoHandler implements IoHandler<SelectionKey> {
             frameProtocol.bufferPool().free(buffer);
         }
     }
+
+    private void acquire(final BandwidthScheduler.Client client, final long bytes) {
+        try {
+            client.acquire(bytes);
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void closeConnection(final SelectionKey selectionKey) {
+        if (selectionKey.attachment() instanceof final NioConnection connection) {
+            connection.close();
+        } else if (selectionKey.attachment() instanceof final TlsChannel tlsChannel) {
+            try {
+                tlsChannel.close();
+            }
+            catch (final IOException ex) {
+                getLogger().error(ex.getMessage(), ex);
+            }
+        }
+
+        try {
+            selectionKey.attach(null);
+            selectionKey.cancel();
+            selectionKey.channel().close();
+        }
+        catch (final IOException ex) {
+            getLogger().error(ex.getMessage(), ex);
+        }
+    }
+
+    private NioConnection createConnection(final ByteChannel channel, final SelectionKey selectionKey) {
+        final BandwidthScheduler.Client client = bandwidthScheduler.createClient(getRemoteHost(selectionKey));
+
+        return new NioConnection(channel, frameProtocol, stream -> STREAM_EXECUTOR.execute(() -> handleAdmitted(stream, client)));
+    }
+
+    private String getRemoteHost(final SelectionKey selectionKey) {
+        try {
+            return ((InetSocketAddress) ((SocketChannel) selectionKey.channel()).getRemoteAddress()).getAddress().getHostAddress();
+        }
+        catch (IOException _) {
+            return "";
+        }
+    }
+
+    /**
+     * Waits for a Permit, only the Virtual-Thread of the Stream is blocked.
+     */
+    private void handleAdmitted(final NioStream stream, final BandwidthScheduler.Client client) {
+        requestPermits.acquireUninterruptibly();
+
+        try {
+            handle(stream, client);
+        }
+        finally {
+            requestPermits.release();
+        }
+    }
+
+    private void writeCompressed(final NioStream stream, final FileChannel fileChannel, final ChunkCompressor compressor, final BandwidthScheduler.Client client)
+            throws IOException, InterruptedException {
+        final ByteBuffer buffer = frameProtocol.bufferPool().get(ChunkCompressor.MAX_CHUNK_SIZE);
+
+        try {
+            int bytesRead = 0;
+
+            while (bytesRead >= 0) {
+                buffer.clear().limit(ChunkCompressor.MAX_CHUNK_SIZE);
+
+                // Fill the Chunk.
+                while (buffer.hasRemaining() && bytesRead >= 0) {
+                    bytesRead = fileChannel.read(buffer);
+                }
+
+                if (buffer.position() == 0) {
+                    break;
+                }
+
+                for (final ByteBuffer chunk : compressor.compress(buffer.flip())) {
+                    try {
+                        client.acquire(chunk.remaining());
+                        stream.writeData(chunk);
+                    }
+                    finally {
+                        frameProtocol.bufferPool().free(chunk);
+                    }
+                }
+            }
+        }
+        finally {
+            frameProtocol.bufferPool().free(buffer);
+        }
+    }
 }
@@ -3,48 +3,99 @@ package de.freese.jsync.nio.filesystem;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import de.freese.jsync.filesystem.AbstractFileSystem;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.filesystem.AbstractRemoteFileSystem;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.model.JSyncCommand;
+import de.freese.jsync.model.JSyncProtocol;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.nio.transport.NioConnection;
 import de.freese.jsync.nio.transport.NioFrameProtocol;
-import de.freese.jsync.nio.utils.pool.SocketChannelPool;
+import de.freese.jsync.nio.transport.NioStream;
+import de.freese.jsync.nio.transport.NioTls;
+import de.freese.jsync.nio.transport.TlsChannel;
 import de.freese.jsync.serialisation.DefaultSerializer;
 import de.freese.jsync.serialisation.Serializer;
 import de.freese.jsync.serialisation.io.ByteBufferReader;
 import de.freese.jsync.serialisation.io.ByteBufferWriter;
+import de.freese.jsync.utils.JSyncThreadFactory;
 
 /**
  * @author Thomas Freese
  */
-public abstract class AbstractNioFileSystem extends AbstractFileSystem {
+public abstract class AbstractNioFileSystem extends AbstractRemoteFileSystem {
     private final NioFrameProtocol frameProtocol = new NioFrameProtocol();
     private final Serializer<ByteBuffer, ByteBuffer> serializer = new DefaultSerializer<>(new ByteBufferReader(), new ByteBufferWriter());
 
-    private SocketChannelPool channelPool;
+    private NioConnection connection;
 
+    /**
+     * All Requests are Streams of one Connection.<br>
+     * The Scheme 'nios' uses TLS with the Context of {@link NioTls#getDefaultContext()}.
+     */
     @Override
     public void connect(final URI uri) {
-        channelPool = new SocketChannelPool(uri);
+        try {
+            final SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress(uri.getHost(), uri.getPort()));
+            socketChannel.configureBlocking(true);
+
+            ByteChannel channel = socketChannel;
+
+            if (JSyncProtocol.NIOS.getScheme().equals(uri.getScheme())) {
+                final TlsChannel tlsChannel = new TlsChannel(socketChannel, NioTls.createClientEngine(NioTls.getDefaultContext(), uri.getHost(), uri.getPort()));
+
+                try {
+                    tlsChannel.handshake();
+                }
+                catch (final IOException ex) {
+                    tlsChannel.close();
+
+                    throw ex;
+                }
+
+                getLogger().debug("client {}", tlsChannel);
+
+                channel = tlsChannel;
+            }
+
+            connection = new NioConnection(channel, getFrameProtocol(), null);
+            connection.startReader(new JSyncThreadFactory("nio-client-reader-"));
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
 
-        final SocketChannel channel = getChannelPool().obtain();
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.CONNECT));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.CONNECT));
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
-            // Response
-            getFrameProtocol().readAll(channel).doFinally(signal -> getLogger().info("client connected")).subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
+            // Response: CONNECTED, the Compression-Codecs and the Checksum-Algorithms of the Server.
+            stream.readAll(buffer -> {
+                getLogger().info("client {}", getSerializer().readString(buffer));
+                setRemoteCompressionCodecs(getSerializer().readString(buffer));
+                setRemoteChecksumAlgorithms(getSerializer().readString(buffer));
+
+                getFrameProtocol().bufferPool().free(buffer);
+            });
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -56,55 +107,57 @@ public abstract class AbstractNioFileSystem extends AbstractFileSystem {
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
 
     @Override
     public void disconnect() {
-        final SocketChannel channel = getChannelPool().obtain();
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.DISCONNECT));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.DISCONNECT));
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            getFrameProtocol().readAll(channel).doFinally(signal -> getLogger().info("client disconnected")).subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
+            stream.readAll().doFinally(signal -> getLogger().info("client disconnected")).subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
         }
         catch (final Exception ex) {
             getLogger().error(ex.getMessage(), ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
 
-            channelPool.clear();
-            channelPool = null;
+            connection.close();
+            connection = null;
 
             frameProtocol.bufferPool().clear();
         }
     }
 
-    protected String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead, final JSyncCommand command) {
-        final SocketChannel channel = getChannelPool().obtain();
+    protected String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead,
+                                      final JSyncCommand command) {
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, command));
+            stream.writeData(buffer -> getSerializer().write(buffer, command));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
                 getSerializer().writeString(buffer, relativeFile);
+                getSerializer().writeString(buffer, algorithm.getName());
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            return getFrameProtocol().readAll(channel).map(buffer -> {
+            return stream.readAll().map(buffer -> {
                 final String value = getSerializer().readString(buffer);
                 getFrameProtocol().bufferPool().free(buffer);
 
@@ -125,50 +178,64 @@ public abstract class AbstractNioFileSystem extends AbstractFileSystem {
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
 
-    protected Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter, final JSyncCommand command) {
-        return Flux.create(sink -> {
-            final SocketChannel channel = getChannelPool().obtain();
+    protected Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter, final JSyncCommand command) {
+        // The Frames are read on Demand, so the Client can consume the Items streaming.
+        return Flux.using(() -> {
+                final NioStream stream = openStream();
+
+                try {
+                    // MetaData-Frame
+                    stream.writeData(buffer -> getSerializer().write(buffer, command));
+
+                    // Data-Frame
+                    stream.writeData(buffer -> {
+                        getSerializer().writeString(buffer, baseDir);
+                        getSerializer().writeBoolean(buffer, followSymLinks);
+                        getSerializer().writeInteger(buffer, parallelism);
+                        getSerializer().write(buffer, pathFilter);
+                    });
+
+                    // Finish-Frame
+                    stream.writeFinish();
+                }
+                catch (final Exception ex) {
+                    stream.close();
 
-            try {
-                // MetaData-Frame
-                getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, command));
+                    throw ex;
+                }
 
-                // Data-Frame
-                getFrameProtocol().writeData(channel, buffer -> {
-                    getSerializer().writeString(buffer, baseDir);
-                    getSerializer().writeBoolean(buffer, followSymLinks);
-                    getSerializer().write(buffer, pathFilter);
-                });
+                return stream;
+            }, stream -> Flux.<List<SyncItem>>generate(sink -> {
+                // Response: many Items per Frame.
+                try {
+                    final ByteBuffer buffer = stream.readFrame();
 
-                // Finish-Frame
-                getFrameProtocol().writeFinish(channel);
+                    if (buffer == null) {
+                        // FINISH-Frame
+                        sink.complete();
 
-                // Response
-                getFrameProtocol().readAll(channel, buffer -> {
-                    final SyncItem syncItem = getSerializer().readSyncItem(buffer);
+                        return;
+                    }
 
-                    sink.next(syncItem);
+                    final List<SyncItem> syncItems = getSerializer().readSyncItems(buffer);
 
                     getFrameProtocol().bufferPool().free(buffer);
-                });
-            }
-            catch (final Exception ex) {
-                sink.error(ex);
-            }
-            finally {
-                getChannelPool().free(channel);
 
-                sink.complete();
-            }
-        });
+                    sink.next(syncItems);
+                }
+                catch (final Exception ex) {
+                    // ERROR-Frame has no FINISH-Frame.
+                    sink.error(ex);
+                }
+            }).flatMapIterable(Function.identity(), 1), NioStream::close); // Cancelled: the Server gets a CANCEL-Frame.
     }
 
-    protected SocketChannelPool getChannelPool() {
-        return channelPool;
+    protected NioConnection getConnection() {
+        return connection;
     }
 
     protected NioFrameProtocol getFrameProtocol() {
@@ -178,4 +245,48 @@ public abstract class AbstractNioFileSystem extends AbstractFileSystem {
     protected Serializer<ByteBuffer, ByteBuffer> getSerializer() {
         return serializer;
     }
+
+    /**
+     * The Chunks are not pooled, they are released by the Garbage-Collector.
+     */
+    protected Flux<Long> writeChunks(final NioStream stream, final Flux<ByteBuffer> chunks) {
+        return writeChunks(stream, chunks, buffer -> {
+            // Empty
+        });
+    }
+
+    /**
+     * Writes the Chunks and the FINISH-Frame, the Responses with the written Bytes of the Receiver are read concurrently.<br>
+     * So the Sending does not wait for the Acknowledges, only the Credit of the Stream limits the Chunks in flight.
+     *
+     * @param release {@link Consumer}; called for every Chunk after it is written or dropped
+     */
+    protected Flux<Long> writeChunks(final NioStream stream, final Flux<ByteBuffer> chunks, final Consumer<ByteBuffer> release) {
+        final Mono<Long> request = stream.writeData(chunks, release).then(Mono.fromCallable(() -> {
+            // Finish-Frame
+            stream.writeFinish();
+
+            return null;
+        }));
+
+        // Response: blocks a Thread until the FINISH-Frame.
+        final Flux<Long> response = stream.readAll().map(buffer -> {
+            final long bytesWritten = getSerializer().readLong(buffer);
+            getFrameProtocol().bufferPool().free(buffer);
+
+            return bytesWritten;
+        }).subscribeOn(Schedulers.boundedElastic());
+
+        // An ERROR-Frame of the Receiver cancels the Sending.
+        return Flux.merge(request, response);
+    }
+
+    protected NioStream openStream() {
+        try {
+            return getConnection().openStream();
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
@@ -24,6 +24,6 @@ public class RemoteNioFileSystemProvider implements FileSystemProvider {
 
     @Override
     public boolean supportsProtocol(final String scheme) {
-        return JSyncProtocol.NIO.getScheme().equals(scheme);
+        return JSyncProtocol.NIO.getScheme().equals(scheme) || JSyncProtocol.NIOS.getScheme().equals(scheme);
     }
 }
@@ -4,40 +4,100 @@ package de.freese.jsync.nio.filesystem;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.filter.PathFilterNoOp;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.nio.transport.NioStream;
 
 /**
  * @author Thomas Freese
  */
 public class RemoteReceiverNio extends AbstractNioFileSystem implements Receiver {
+    @Override
+    public List<String> batch(final String baseDir, final List<ReceiverOperation> operations) {
+        final NioStream stream = openStream();
+
+        try {
+            // MetaData-Frame
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_BATCH));
+
+            // Data-Frame
+            stream.writeData(buffer -> {
+                getSerializer().writeString(buffer, baseDir);
+                getSerializer().writeInteger(buffer, operations.size());
+
+                for (final ReceiverOperation operation : operations) {
+                    getSerializer().write(buffer, operation);
+                }
+            });
+
+            // Finish-Frame
+            stream.writeFinish();
+
+            // Response
+            final List<String> results = new ArrayList<>(operations.size());
+
+            stream.readAll(buffer -> {
+                final int count = getSerializer().readInteger(buffer);
+
+                for (int i = 0; i < count; i++) {
+                    results.add(getSerializer().readString(buffer));
+                }
+
+                getFrameProtocol().bufferPool().free(buffer);
+            });
+
+            return results;
+        }
+        catch (final RuntimeException ex) {
+            throw ex;
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (final Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        finally {
+            stream.close();
+        }
+    }
+
     @Override
     public void createDirectory(final String baseDir, final String relativePath) {
-        final SocketChannel channel = getChannelPool().obtain();
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_CREATE_DIRECTORY));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_CREATE_DIRECTORY));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
                 getSerializer().writeString(buffer, relativePath);
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            getFrameProtocol().readAll(channel).subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
+            stream.readAll().subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -49,30 +109,30 @@ public class RemoteReceiverNio extends AbstractNioFileSystem implements Receiver
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
 
     @Override
     public void delete(final String baseDir, final String relativePath, final boolean followSymLinks) {
-        final SocketChannel channel = getChannelPool().obtain();
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_DELETE));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_DELETE));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
                 getSerializer().writeString(buffer, relativePath);
                 getSerializer().writeBoolean(buffer, followSymLinks);
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            getFrameProtocol().readAll(channel).subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
+            stream.readAll().subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -84,39 +144,94 @@ public class RemoteReceiverNio extends AbstractNioFileSystem implements Receiver
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
 
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        return generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead, JSyncCommand.TARGET_CHECKSUM);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        return generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead, JSyncCommand.TARGET_CHECKSUM);
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        return generateSyncItems(baseDir, followSymLinks, PathFilterNoOp.INSTANCE, JSyncCommand.TARGET_CREATE_SYNC_ITEMS);
+    public FileSignature generateSignature(final String baseDir, final String relativeFile) {
+        final NioStream stream = openStream();
+
+        try {
+            // MetaData-Frame
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_SIGNATURE));
+
+            // Data-Frame
+            stream.writeData(buffer -> {
+                getSerializer().writeString(buffer, baseDir);
+                getSerializer().writeString(buffer, relativeFile);
+            });
+
+            // Finish-Frame
+            stream.writeFinish();
+
+            // Response
+            return stream.readAll().map(buffer -> {
+                final FileSignature signature = getSerializer().readFileSignature(buffer);
+                getFrameProtocol().bufferPool().free(buffer);
+
+                return signature;
+            }).blockLast();
+        }
+        catch (final RuntimeException ex) {
+            throw ex;
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (final Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        finally {
+            stream.close();
+        }
     }
 
     @Override
-    public void update(final String baseDir, final SyncItem syncItem) {
-        final SocketChannel channel = getChannelPool().obtain();
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        return generateSyncItems(baseDir, followSymLinks, parallelism, PathFilterNoOp.INSTANCE, JSyncCommand.TARGET_CREATE_SYNC_ITEMS);
+    }
+
+    @Override
+    public long[] getLastModifiedTimes(final String baseDir, final List<String> relativePaths) {
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_UPDATE));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_LAST_MODIFIED_TIMES));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
-                getSerializer().write(buffer, syncItem);
+                getSerializer().writeInteger(buffer, relativePaths.size());
+
+                for (final String relativePath : relativePaths) {
+                    getSerializer().writeString(buffer, relativePath);
+                }
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            getFrameProtocol().readAll(channel).subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
+            final long[] lastModifiedTimes = new long[relativePaths.size()];
+
+            stream.readAll(buffer -> {
+                final int count = getSerializer().readInteger(buffer);
+
+                for (int i = 0; i < count; i++) {
+                    lastModifiedTimes[i] = getSerializer().readLong(buffer);
+                }
+
+                getFrameProtocol().bufferPool().free(buffer);
+            });
+
+            return lastModifiedTimes;
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -128,35 +243,35 @@ public class RemoteReceiverNio extends AbstractNioFileSystem implements Receiver
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
 
     @Override
-    public void validateFile(final String baseDir, final SyncItem syncItem, final boolean withChecksum, final LongConsumer consumerChecksumBytesRead) {
-        final SocketChannel channel = getChannelPool().obtain();
+    public ResumePoint getResumePoint(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm) {
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_VALIDATE_FILE));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_RESUME_POINT));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
-                getSerializer().write(buffer, syncItem);
-                getSerializer().writeBoolean(buffer, withChecksum);
+                getSerializer().writeString(buffer, relativeFile);
+                getSerializer().writeString(buffer, algorithm.getName());
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            getFrameProtocol().readAll(channel).map(buffer -> {
-                final long value = getSerializer().readLong(buffer);
+            return stream.readAll().map(buffer -> {
+                final ResumePoint resumePoint = new ResumePoint(getSerializer().readLong(buffer), getSerializer().readString(buffer));
                 getFrameProtocol().bufferPool().free(buffer);
 
-                return value;
-            }).doOnNext(consumerChecksumBytesRead::accept).subscribe();
+                return resumePoint;
+            }).blockLast();
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -168,44 +283,93 @@ public class RemoteReceiverNio extends AbstractNioFileSystem implements Receiver
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
 
     @Override
-    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long sizeOfFile, final Flux<ByteBuffer> fileFlux) {
-        final SocketChannel channel = getChannelPool().obtain();
+    public Flux<Long> patchFile(final String baseDir, final String relativeFile, final long sizeOfFile, final int blockSize, final Flux<ByteBuffer> deltaFlux) {
+        // The Stream is closed after the Response is consumed.
+        return Flux.using(this::openStream, stream -> {
+            try {
+                // MetaData-Frame
+                stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_PATCH_FILE));
+
+                // Data-Frame
+                stream.writeData(buffer -> {
+                    getSerializer().writeString(buffer, baseDir);
+                    getSerializer().writeString(buffer, relativeFile);
+                    getSerializer().writeLong(buffer, sizeOfFile);
+                    getSerializer().writeInteger(buffer, blockSize);
+                });
+
+                return writeChunks(stream, deltaFlux);
+            }
+            catch (final IOException ex) {
+                return Flux.error(new UncheckedIOException(ex));
+            }
+        }, NioStream::close);
+    }
+
+    @Override
+    public void update(final String baseDir, final SyncItem syncItem) {
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_WRITE_FILE));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_UPDATE));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
-                getSerializer().writeString(buffer, relativeFile);
-                getSerializer().writeLong(buffer, sizeOfFile);
+                getSerializer().write(buffer, syncItem);
             });
 
-            fileFlux.subscribe(buffer -> {
-                try {
-                    getFrameProtocol().writeData(channel, buffer);
-                }
-                catch (final IOException ex) {
-                    throw new UncheckedIOException(ex);
-                }
+            // Finish-Frame
+            stream.writeFinish();
+
+            // Response
+            stream.readAll().subscribe(buffer -> getFrameProtocol().bufferPool().free(buffer));
+        }
+        catch (final RuntimeException ex) {
+            throw ex;
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (final Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+    @Override
+    public void validateFile(final String baseDir, final SyncItem syncItem, final ChecksumAlgorithm checksumAlgorithm, final LongConsumer consumerChecksumBytesRead) {
+        final NioStream stream = openStream();
+
+        try {
+            // MetaData-Frame
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_VALIDATE_FILE));
+
+            // Data-Frame
+            stream.writeData(buffer -> {
+                getSerializer().writeString(buffer, baseDir);
+                getSerializer().write(buffer, syncItem);
+                getSerializer().writeString(buffer, checksumAlgorithm == null ? null : checksumAlgorithm.getName());
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            return getFrameProtocol().readAll(channel).map(buffer -> {
-                final long bytesWritten = getSerializer().readLong(buffer);
+            stream.readAll().map(buffer -> {
+                final long value = getSerializer().readLong(buffer);
                 getFrameProtocol().bufferPool().free(buffer);
 
-                return bytesWritten;
-            });
+                return value;
+            }).doOnNext(consumerChecksumBytesRead::accept).subscribe();
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -217,7 +381,45 @@ public class RemoteReceiverNio extends AbstractNioFileSystem implements Receiver
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
+
+    @Override
+    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile, final ChecksumAlgorithm checksumAlgorithm,
+                                final String checksum, final Durability durability, final Flux<ByteBuffer> fileFlux) {
+        // The Stream is closed after the Response is consumed.
+        return Flux.using(this::openStream, stream -> {
+            try {
+                // MetaData-Frame
+                stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.TARGET_WRITE_FILE));
+
+                final CompressionCodec codec = getCompressionCodec();
+
+                // Data-Frame
+                stream.writeData(buffer -> {
+                    getSerializer().writeString(buffer, baseDir);
+                    getSerializer().writeString(buffer, relativeFile);
+                    getSerializer().writeLong(buffer, position);
+                    getSerializer().writeLong(buffer, sizeOfFile);
+                    getSerializer().writeString(buffer, checksumAlgorithm.getName());
+                    getSerializer().writeString(buffer, checksum);
+                    getSerializer().writeString(buffer, durability.getName());
+                    getSerializer().writeString(buffer, codec.getName());
+                });
+
+                if (CompressionCodecs.isNone(codec)) {
+                    return writeChunks(stream, fileFlux);
+                }
+
+                final ChunkCompressor compressor = createChunkCompressor(getFrameProtocol().bufferPool());
+
+                // One Buffer of the Sender at a Time, the compressed Chunks are requested by the Credit.
+                return writeChunks(stream, fileFlux.concatMapIterable(compressor::compress, 1), getFrameProtocol().bufferPool()::free);
+            }
+            catch (final IOException ex) {
+                return Flux.error(new UncheckedIOException(ex));
+            }
+        }, NioStream::close);
+    }
 }
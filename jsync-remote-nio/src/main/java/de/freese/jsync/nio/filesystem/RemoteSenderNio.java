@@ -4,50 +4,57 @@ package de.freese.jsync.nio.filesystem;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.SocketChannel;
 import java.util.function.LongConsumer;
 
 import reactor.core.publisher.Flux;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
 import de.freese.jsync.filesystem.Sender;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.nio.transport.NioStream;
 
 /**
  * @author Thomas Freese
  */
 public class RemoteSenderNio extends AbstractNioFileSystem implements Sender {
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        return generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead, JSyncCommand.SOURCE_CHECKSUM);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        return generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead, JSyncCommand.SOURCE_CHECKSUM);
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        return generateSyncItems(baseDir, followSymLinks, pathFilter, JSyncCommand.SOURCE_CREATE_SYNC_ITEMS);
-    }
-
-    @Override
-    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long sizeOfFile) {
-        final SocketChannel channel = getChannelPool().obtain();
+    public String generateChunkChecksum(final String baseDir, final String relativeFile, final long position, final long length, final ChecksumAlgorithm algorithm) {
+        final NioStream stream = openStream();
 
         try {
             // MetaData-Frame
-            getFrameProtocol().writeData(channel, buffer -> getSerializer().write(buffer, JSyncCommand.SOURCE_READ_FILE));
+            stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.SOURCE_CHUNK_CHECKSUM));
 
             // Data-Frame
-            getFrameProtocol().writeData(channel, buffer -> {
+            stream.writeData(buffer -> {
                 getSerializer().writeString(buffer, baseDir);
                 getSerializer().writeString(buffer, relativeFile);
-                getSerializer().writeLong(buffer, sizeOfFile);
+                getSerializer().writeLong(buffer, position);
+                getSerializer().writeLong(buffer, length);
+                getSerializer().writeString(buffer, algorithm.getName());
             });
 
             // Finish-Frame
-            getFrameProtocol().writeFinish(channel);
+            stream.writeFinish();
 
             // Response
-            return getFrameProtocol().readAll(channel);
+            return stream.readAll().map(buffer -> {
+                final String value = getSerializer().readString(buffer);
+                getFrameProtocol().bufferPool().free(buffer);
+
+                return value;
+            }).blockLast();
         }
         catch (final RuntimeException ex) {
             throw ex;
@@ -59,7 +66,82 @@ public class RemoteSenderNio extends AbstractNioFileSystem implements Sender {
             throw new RuntimeException(ex);
         }
         finally {
-            getChannelPool().free(channel);
+            stream.close();
         }
     }
+
+    @Override
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        return generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter, JSyncCommand.SOURCE_CREATE_SYNC_ITEMS);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readDelta(final String baseDir, final String relativeFile, final long sizeOfFile, final FileSignature signature) {
+        // The Stream is closed after the Response is consumed.
+        return Flux.using(this::openStream, stream -> {
+            try {
+                // MetaData-Frame
+                stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.SOURCE_READ_DELTA));
+
+                // Data-Frame
+                stream.writeData(buffer -> {
+                    getSerializer().writeString(buffer, baseDir);
+                    getSerializer().writeString(buffer, relativeFile);
+                    getSerializer().writeLong(buffer, sizeOfFile);
+                    getSerializer().write(buffer, signature);
+                });
+
+                // Finish-Frame
+                stream.writeFinish();
+
+                // Response
+                return stream.readAll();
+            }
+            catch (final IOException ex) {
+                return Flux.error(new UncheckedIOException(ex));
+            }
+        }, NioStream::close);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile) {
+        // The Stream is closed after the Response is consumed.
+        return Flux.using(this::openStream, stream -> {
+            try {
+                // MetaData-Frame
+                stream.writeData(buffer -> getSerializer().write(buffer, JSyncCommand.SOURCE_READ_FILE));
+
+                final CompressionCodec codec = getCompressionCodec();
+
+                // Data-Frame
+                stream.writeData(buffer -> {
+                    getSerializer().writeString(buffer, baseDir);
+                    getSerializer().writeString(buffer, relativeFile);
+                    getSerializer().writeLong(buffer, position);
+                    getSerializer().writeLong(buffer, sizeOfFile);
+                    getSerializer().writeString(buffer, codec.getName());
+                    getSerializer().writeInteger(buffer, getCompressionLevel());
+                });
+
+                // Finish-Frame
+                stream.writeFinish();
+
+                // Response
+                if (CompressionCodecs.isNone(codec)) {
+                    return stream.readAll();
+                }
+
+                return stream.readAll().map(chunk -> {
+                    final ByteBuffer buffer = ChunkCompressor.decompress(chunk, getFrameProtocol().bufferPool());
+                    getCompressionStatistics().add(buffer.remaining(), chunk.remaining());
+                    getFrameProtocol().bufferPool().free(chunk);
+
+                    return buffer;
+                });
+            }
+            catch (final IOException ex) {
+                return Flux.error(new UncheckedIOException(ex));
+            }
+        }, NioStream::close);
+    }
 }
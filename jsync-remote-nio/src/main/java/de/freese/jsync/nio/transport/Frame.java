@@ -0,0 +1,12 @@
+// Created: 18.10.2026
+package de.freese.jsync.nio.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Frame of a Stream, the Buffer is only set for DATA- and ERROR-Frames.
+ *
+ * @author Thomas Freese
+ */
+public record Frame(FrameType frameType, int streamId, int length, ByteBuffer buffer) {
+}
@@ -9,13 +9,23 @@ package de.freese.jsync.nio.transport;
 public enum FrameType {
     DATA(1),
     ERROR(2),
-    FINISH(3);
+    FINISH(3),
+    /**
+     * Flow-Control: the Receiver grants the Sender of the Stream the Length of the Frame in Bytes.
+     */
+    WINDOW_UPDATE(4),
+    /**
+     * The Stream is closed by the other Side, no more Frames are accepted.
+     */
+    CANCEL(5);
 
     public static FrameType fromEncodedType(final int encodedType) {
         return switch (encodedType) {
             case 1 -> DATA;
             case 2 -> ERROR;
             case 3 -> FINISH;
+            case 4 -> WINDOW_UPDATE;
+            case 5 -> CANCEL;
 
             default -> throw new IllegalArgumentException("Frame Type is unknown: " + encodedType);
         };
@@ -0,0 +1,259 @@
+// Created: 18.10.2026
+package de.freese.jsync.nio.transport;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One Connection with many interleaved {@link NioStream}s.<br>
+ * The Client opens the Streams with {@link #openStream()}, the Server gets them by the Consumer for new Streams.<br>
+ * Every Frame is written completely under a Lock, so the Streams can write concurrently.
+ *
+ * @author Thomas Freese
+ */
+public class NioConnection implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioConnection.class);
+    /**
+     * Maximum Distance of a new Stream-ID to the last one, the Client opens fewer Streams concurrently.<br>
+     * Older skipped Stream-IDs are forgotten, so the remembered IDs are limited too.
+     */
+    private static final int MAX_STREAM_ID_GAP = 1024;
+
+    private final ByteChannel channel;
+    private final NioFrameProtocol frameProtocol;
+    private final AtomicInteger lastStreamId = new AtomicInteger(0);
+    private final Consumer<NioStream> newStreamConsumer;
+    private final NavigableSet<Integer> skippedStreamIds = new ConcurrentSkipListSet<>();
+    private final Map<Integer, NioStream> streams = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final WritableSelector writableSelector;
+
+    private volatile boolean closed;
+
+    /**
+     * @param newStreamConsumer {@link Consumer}; Server-Side: called for every new Stream of the Client, null on the Client-Side
+     */
+    public NioConnection(final ByteChannel channel, final NioFrameProtocol frameProtocol, final Consumer<NioStream> newStreamConsumer) {
+        super();
+
+        this.channel = Objects.requireNonNull(channel, "channel required");
+        this.frameProtocol = Objects.requireNonNull(frameProtocol, "frameProtocol required");
+        this.newStreamConsumer = newStreamConsumer;
+
+        // The TlsChannel waits itself for the SocketChannel.
+        writableSelector = new WritableSelector(channel);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        for (final NioStream stream : streams.values()) {
+            stream.onConnectionClosed();
+        }
+
+        streams.clear();
+
+        try {
+            writableSelector.close();
+            channel.close();
+        }
+        catch (final IOException ex) {
+            getLogger().warn(ex.getMessage());
+        }
+    }
+
+    public NioFrameProtocol getFrameProtocol() {
+        return frameProtocol;
+    }
+
+    /**
+     * With TLS the Channel can have buffered Data, for which the Selector does not signal.
+     */
+    public boolean hasBufferedInput() {
+        return channel instanceof final TlsChannel tlsChannel && tlsChannel.hasBufferedInput();
+    }
+
+    public boolean isClosed() {
+        return closed || !channel.isOpen();
+    }
+
+    /**
+     * Client-Side: opens a new Stream with the next Stream-ID.
+     */
+    public NioStream openStream() throws IOException {
+        if (isClosed()) {
+            throw new EOFException("connection closed");
+        }
+
+        final NioStream stream = new NioStream(this, lastStreamId.incrementAndGet());
+        streams.put(stream.getId(), stream);
+
+        return stream;
+    }
+
+    /**
+     * Reads one Frame and dispatches it to the Stream.
+     */
+    public void readFrame() throws IOException {
+        final Frame frame = frameProtocol.readFrame(channel);
+
+        NioStream stream = streams.get(frame.streamId());
+
+        if (stream == null && newStreamConsumer != null && FrameType.DATA.equals(frame.frameType()) && isNewStream(frame)) {
+            // Server-Side: new Stream of the Client.
+            stream = new NioStream(this, frame.streamId());
+            streams.put(stream.getId(), stream);
+
+            stream.onFrame(frame);
+            newStreamConsumer.accept(stream);
+
+            return;
+        }
+
+        if (stream == null) {
+            // Stream is already closed.
+            if (frame.buffer() != null) {
+                frameProtocol.bufferPool().free(frame.buffer());
+            }
+
+            return;
+        }
+
+        switch (frame.frameType()) {
+            case WINDOW_UPDATE -> stream.onWindowUpdate(frame.length());
+            case CANCEL -> stream.onCancel();
+            default -> stream.onFrame(frame);
+        }
+    }
+
+    /**
+     * Client-Side: reads the Frames in a separate Thread until the Connection is closed.
+     */
+    public void startReader(final ThreadFactory threadFactory) {
+        final Thread thread = threadFactory.newThread(() -> {
+            try {
+                while (!isClosed()) {
+                    readFrame();
+                }
+            }
+            catch (final Exception ex) {
+                if (!isClosed()) {
+                    getLogger().error(ex.getMessage(), ex);
+                }
+            }
+            finally {
+                close();
+            }
+        });
+
+        thread.start();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[streams=" + streams.size() + "]";
+    }
+
+    protected Logger getLogger() {
+        return LOGGER;
+    }
+
+    void removeStream(final NioStream stream) {
+        streams.remove(stream.getId(), stream);
+    }
+
+    void write(final FrameType frameType, final int streamId, final ByteBuffer buffer) throws IOException {
+        writeLock.lock();
+
+        try {
+            checkOpen();
+            frameProtocol.writeFrame(channel, writableSelector, frameType, streamId, buffer);
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    void write(final int streamId, final FileChannel fileChannel, final long position, final int length) throws IOException {
+        writeLock.lock();
+
+        try {
+            checkOpen();
+            frameProtocol.writeFrame(channel, writableSelector, streamId, fileChannel, position, length);
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    void writeHeader(final FrameType frameType, final int streamId, final int length) throws IOException {
+        writeLock.lock();
+
+        try {
+            checkOpen();
+            frameProtocol.writeFrameHeader(channel, writableSelector, frameType, streamId, length);
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (isClosed()) {
+            throw new EOFException("connection closed");
+        }
+    }
+
+    /**
+     * The Stream-IDs are ascending, but the first Frames of concurrently opened Streams can be written in another Order.<br>
+     * The skipped IDs are remembered, so the Frames of already closed Streams can be distinguished.<br>
+     * A Stream-ID more than {@link #MAX_STREAM_ID_GAP} ahead throws a {@link ProtocolException}, the Connection must be closed.
+     */
+    private boolean isNewStream(final Frame frame) throws ProtocolException {
+        final int streamId = frame.streamId();
+        final int last = lastStreamId.get();
+
+        if (streamId > last) {
+            if (streamId - last > MAX_STREAM_ID_GAP) {
+                frameProtocol.bufferPool().free(frame.buffer());
+
+                throw new ProtocolException("stream id too far ahead of " + last + ": " + streamId);
+            }
+
+            for (int id = last + 1; id < streamId; id++) {
+                skippedStreamIds.add(id);
+            }
+
+            lastStreamId.set(streamId);
+
+            // Streams this far behind are not opened concurrently anymore.
+            skippedStreamIds.headSet(streamId - MAX_STREAM_ID_GAP, true).clear();
+
+            return true;
+        }
+
+        return skippedStreamIds.remove(streamId);
+    }
+}
@@ -1,29 +1,35 @@
 // Created: 22.08.2021
 package de.freese.jsync.nio.transport;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.net.ProtocolException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
-import java.nio.charset.StandardCharsets;
 import java.util.Objects;
-import java.util.function.Consumer;
-
-import reactor.core.publisher.Flux;
 
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
  * NIO Transfer protocol by Frames.<br>
+ * Every Frame belongs to a Stream, so many Streams can be interleaved on one Connection, see {@link NioConnection}.<br>
+ * Header: [int type][int streamId][int length]<br>
  * See <a href="https://github.com/rsocket/rsocket/blob/master/Protocol.md">rSocket-Protocol</a>
  *
  * @author Thomas Freese
  */
 public record NioFrameProtocol(ByteBufferPool bufferPool) {
     /**
+     * Maximum Content of a Frame.<br>
      * Default: 4 MB
      */
-    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024 * 4;
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024 * 4;
+    /**
+     * [int type][int streamId][int length]
+     */
+    private static final int HEADER_SIZE = 12;
 
     public NioFrameProtocol() {
         this(ByteBufferPool.DEFAULT);
@@ -35,84 +41,56 @@ public record NioFrameProtocol(ByteBufferPool bufferPool) {
     }
 
     /**
-     * Read all Frames to the FINISH-Frame.<br>
-     * They can be reused by the {@link ByteBufferPool}.
-     */
-    public Flux<ByteBuffer> readAll(final ReadableByteChannel channel) {
-        return Flux.create(sink -> {
-            try {
-                readAll(channel, sink::next);
-            }
-            catch (final Exception ex) {
-                sink.error(ex);
-            }
-            finally {
-                sink.complete();
-            }
-        });
-    }
-
-    /**
-     * Read all Frames to the FINISH-Frame.<br>
-     * They can be reused by the {@link ByteBufferPool}.
+     * The Content of DATA- and ERROR-Frames can be reused by the {@link ByteBufferPool}.<br>
+     * A Length outside the Protocol throws a {@link ProtocolException}, the Connection must be closed.
      */
-    public void readAll(final ReadableByteChannel channel, final Consumer<ByteBuffer> consumer) throws Exception {
-        while (true) {
-            final ByteBuffer buffer = readFrame(channel);
-
-            if (buffer == null) {
-                // FINISH-Frame
-                break;
-            }
-
-            consumer.accept(buffer);
-        }
-    }
-
-    /**
-     * The DATA-Frame returns the {@link ByteBuffer} of the Content.<br>
-     * ERROR-Frame throws an Exception.<br>
-     * FINISH-Frame returns null.
-     */
-    public ByteBuffer readFrame(final ReadableByteChannel channel) throws Exception {
+    public Frame readFrame(final ReadableByteChannel channel) throws IOException {
         // Header
-        ByteBuffer buffer = readFrameHeader(channel);
+        final ByteBuffer header = bufferPool().get(HEADER_SIZE);
 
-        final FrameType frameType = FrameType.fromEncodedType(buffer.getInt());
-        final int contentLength = buffer.getInt();
+        final FrameType frameType;
+        final int streamId;
+        final int length;
 
-        bufferPool().free(buffer);
+        try {
+            read(channel, header, HEADER_SIZE);
+            header.flip();
 
-        // Content
-        buffer = bufferPool().get();
+            frameType = FrameType.fromEncodedType(header.getInt());
+            streamId = header.getInt();
+            length = header.getInt();
+        }
+        finally {
+            bufferPool().free(header);
+        }
 
-        if (FrameType.DATA.equals(frameType)) {
-            read(channel, buffer, contentLength);
+        if (length < 0) {
+            throw new ProtocolException("invalid frame length: " + length);
+        }
 
-            return buffer.flip();
-        } else if (FrameType.ERROR.equals(frameType)) {
-            read(channel, buffer, contentLength);
-            buffer.flip();
+        if (FrameType.DATA.equals(frameType) || FrameType.ERROR.equals(frameType)) {
+            if (length > DEFAULT_BUFFER_SIZE) {
+                throw new ProtocolException("frame length exceeds " + DEFAULT_BUFFER_SIZE + ": " + length);
+            }
 
-            final byte[] bytes = new byte[contentLength];
-            buffer.get(bytes);
-            final String message = new String(bytes, StandardCharsets.UTF_8);
+            // Content
+            final ByteBuffer buffer = bufferPool().get(length);
 
-            bufferPool().free(buffer);
+            read(channel, buffer, length);
 
-            throw new Exception(message);
+            return new Frame(frameType, streamId, length, buffer.flip());
         }
 
-        // FINISH-Frame
-        bufferPool().free(buffer);
-
-        return null;
+        // The Length of a WINDOW_UPDATE-Frame are the granted Bytes.
+        return new Frame(frameType, streamId, length, null);
     }
 
     /**
-     * Write the DATA-Frame.
+     * Write a Frame, the Content is written from Position 0 to the Position or to the Limit if the Position is 0.<br>
+     * A non-blocking Channel with a full Send-Buffer waits by the {@link WritableSelector}.
      */
-    public void writeData(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+    public void writeFrame(final WritableByteChannel channel, final WritableSelector writableSelector, final FrameType frameType, final int streamId, final ByteBuffer buffer)
+            throws IOException {
         int contentLength = 0;
 
         if (buffer.position() == 0) {
@@ -121,20 +99,23 @@ public record NioFrameProtocol(ByteBufferPool bufferPool) {
             contentLength = buffer.position();
         }
 
-        writeFrameHeader(channel, FrameType.DATA, contentLength);
-        write(channel, buffer);
+        writeFrameHeader(channel, writableSelector, frameType, streamId, contentLength);
+        write(channel, writableSelector, buffer);
     }
 
     /**
-     * Write the DATA-Frame.
+     * Write a Frame without Content.
      */
-    public void writeData(final WritableByteChannel channel, final Consumer<ByteBuffer> consumer) throws IOException {
-        final ByteBuffer buffer = bufferPool().get();
+    public void writeFrameHeader(final WritableByteChannel channel, final WritableSelector writableSelector, final FrameType frameType, final int streamId, final int length)
+            throws IOException {
+        final ByteBuffer buffer = bufferPool().get(HEADER_SIZE);
 
         try {
-            consumer.accept(buffer);
+            buffer.putInt(frameType.getEncodedType());
+            buffer.putInt(streamId);
+            buffer.putInt(length);
 
-            writeData(channel, buffer);
+            write(channel, writableSelector, buffer.flip());
         }
         finally {
             bufferPool().free(buffer);
@@ -142,46 +123,31 @@ public record NioFrameProtocol(ByteBufferPool bufferPool) {
     }
 
     /**
-     * Write the ERROR-Frame.
+     * Write a DATA-Frame with {@link FileChannel#transferTo(long, long, WritableByteChannel)} (sendfile).<br>
+     * The Content does not pass the Heap, a full Send-Buffer waits by the {@link WritableSelector}.
      */
-    public void writeError(final WritableByteChannel channel, final Consumer<ByteBuffer> consumer) throws IOException {
-        final ByteBuffer buffer = bufferPool().get();
+    public void writeFrame(final WritableByteChannel channel, final WritableSelector writableSelector, final int streamId, final FileChannel fileChannel, final long position,
+                           final int length) throws IOException {
+        writeFrameHeader(channel, writableSelector, FrameType.DATA, streamId, length);
 
-        try {
-            consumer.accept(buffer);
+        final long end = position + length;
+        long current = position;
 
-            int contentLength = 0;
+        while (current < end) {
+            final long bytesTransferred = fileChannel.transferTo(current, end - current, channel);
 
-            if (buffer.position() == 0) {
-                contentLength = buffer.limit();
-            } else {
-                contentLength = buffer.position();
+            if (bytesTransferred < 0L || (bytesTransferred == 0L && current >= fileChannel.size())) {
+                // The Frame-Header is already written, the Stream can not be continued.
+                throw new EOFException("file has changed while transferring");
             }
 
-            writeFrameHeader(channel, FrameType.ERROR, contentLength);
-            write(channel, buffer);
-        }
-        finally {
-            bufferPool().free(buffer);
-        }
-    }
-
-    /**
-     * Write the ERROR-Frame.
-     */
-    public void writeError(final WritableByteChannel channel, final Throwable th) throws IOException {
-        writeError(channel, buffer -> {
-            final String message = th.getMessage() == null ? "" : th.getMessage();
-            final byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
-            buffer.put(messageBytes);
-        });
-    }
+            if (bytesTransferred == 0L) {
+                // Send-Buffer is full, do not spin under the Write-Lock of the Connection.
+                writableSelector.await();
+            }
 
-    /**
-     * Write the FINISH-Frame.
-     */
-    public void writeFinish(final WritableByteChannel channel) throws IOException {
-        writeFrameHeader(channel, FrameType.FINISH, 0);
+            current += bytesTransferred;
+        }
     }
 
     /**
@@ -191,10 +157,15 @@ public record NioFrameProtocol(ByteBufferPool bufferPool) {
         // The Buffer can be bigger than required.
         final ByteBuffer bb = buffer.slice(0, contentLength);
 
-        int totalRead = channel.read(bb);
+        int totalRead = 0;
 
         while (totalRead < contentLength) {
             final int bytesRead = channel.read(bb);
+
+            if (bytesRead < 0) {
+                throw new EOFException("channel closed by peer");
+            }
+
             totalRead += bytesRead;
         }
 
@@ -202,25 +173,7 @@ public record NioFrameProtocol(ByteBufferPool bufferPool) {
         buffer.limit(bb.limit());
     }
 
-    private ByteBuffer readFrameHeader(final ReadableByteChannel channel) throws IOException {
-        final ByteBuffer buffer = bufferPool().get();
-
-        read(channel, buffer, 8);
-
-        return buffer.flip();
-    }
-
-    private long write(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
-        // for (ByteBuffer buffer : buffers) {
-        // if (buffer.position() > 0)
-        // // if (buffer.remaining() != buffer.limit()) {
-        // buffer.flip();
-        // }
-        // }
-        //
-        // return channel.write(buffers);
-
-        // if (buffer.remaining() != buffer.limit())
+    private long write(final WritableByteChannel channel, final WritableSelector writableSelector, final ByteBuffer buffer) throws IOException {
         if (buffer.position() > 0) {
             buffer.flip();
         }
@@ -230,23 +183,14 @@ public record NioFrameProtocol(ByteBufferPool bufferPool) {
         while (buffer.hasRemaining()) {
             final long bytesWritten = channel.write(buffer);
 
+            if (bytesWritten == 0L) {
+                // Send-Buffer is full, do not spin under the Write-Lock of the Connection.
+                writableSelector.await();
+            }
+
             totalWritten += bytesWritten;
         }
 
         return totalWritten;
     }
-
-    private void writeFrameHeader(final WritableByteChannel channel, final FrameType frameType, final int contentLength) throws IOException {
-        final ByteBuffer buffer = bufferPool().get();
-
-        try {
-            buffer.putInt(frameType.getEncodedType());
-            buffer.putInt(contentLength);
-
-            write(channel, buffer.flip());
-        }
-        finally {
-            bufferPool().free(buffer);
-        }
-    }
 }
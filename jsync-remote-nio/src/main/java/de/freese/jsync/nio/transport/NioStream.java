@@ -0,0 +1,654 @@
+// Created: 18.10.2026
+package de.freese.jsync.nio.transport;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
+
+/**
+ * A Request/Response of a {@link NioConnection}.<br>
+ * Flow-Control: the Sender of DATA-Frames needs Credit in Bytes, which the Receiver grants with WINDOW_UPDATE-Frames after the Frame is consumed,
+ * that is when the next Frame is read.<br>
+ * The Receiver grants its whole Receive-Window with the first read Frame, so more Frames are in flight on Links with high Latency.<br>
+ * Until then only the small {@link #INITIAL_WINDOW} is available, so the Streams waiting for a Permit of the Server hold no Frames with maximum Size.<br>
+ * <br>
+ * System-Properties:<br>
+ * <ul>
+ * <li>jsync.nio.window.frames: Receive-Window in Frames with maximum Size, Default 4</li>
+ * </ul>
+ *
+ * @author Thomas Freese
+ */
+public final class NioStream implements Closeable {
+    /**
+     * Credit of a new Stream: 64 kB, enough for a Request.<br>
+     * A waiting Stream of the Server can not receive more, the Receive-Window is granted with the first read Frame.
+     */
+    static final int INITIAL_WINDOW = 64 * 1024;
+
+    /**
+     * Marks the closed Connection in the Queue.
+     */
+    private static final Frame CONNECTION_CLOSED = new Frame(FrameType.CANCEL, 0, 0, null);
+    /**
+     * Chunks requested in Advance by {@link #writeData(Flux, Consumer)}, so the Producer can work while a Chunk is written.
+     */
+    private static final int PREFETCH_CHUNKS = 2;
+    /**
+     * Credit of a Stream after the first read Frame, at least {@link #INITIAL_WINDOW}.
+     */
+    private static final long RECEIVE_WINDOW = Math.max(INITIAL_WINDOW,
+            (long) NioFrameProtocol.DEFAULT_BUFFER_SIZE * Integer.parseInt(System.getProperty("jsync.nio.window.frames", "4")));
+    /**
+     * Marks the closed Stream in the Queue.
+     */
+    private static final Frame STREAM_CLOSED = new Frame(FrameType.CANCEL, 0, 0, null);
+
+    /**
+     * Writes the Chunks of {@link #writeData(Flux, Consumer)}, every written Chunk requests the next one.<br>
+     * Without Credit the Chunks wait in the Queue, a WINDOW_UPDATE-Frame continues the Writing in another Thread.
+     *
+     * @author Thomas Freese
+     */
+    private final class ChunkWriter extends BaseSubscriber<ByteBuffer> {
+        private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+        private final Consumer<ByteBuffer> release;
+        private final MonoSink<Void> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean done;
+        private volatile boolean dropped;
+        private volatile Throwable error;
+        private boolean finished;
+
+        private ChunkWriter(final MonoSink<Void> sink, final Consumer<ByteBuffer> release) {
+            super();
+
+            this.sink = sink;
+            this.release = release;
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            done = true;
+
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(final Throwable throwable) {
+            error = throwable;
+            done = true;
+
+            drain();
+        }
+
+        @Override
+        protected void hookOnNext(final ByteBuffer value) {
+            pending.offer(value);
+
+            drain();
+        }
+
+        @Override
+        protected void hookOnSubscribe(final Subscription subscription) {
+            request(PREFETCH_CHUNKS);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            do {
+                drainPending();
+
+                missed = wip.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        /**
+         * Only one Thread at a Time, see {@link #drain()}.
+         */
+        private void drainPending() {
+            while (!finished) {
+                if (dropped) {
+                    // Cancelled by the Subscriber of the Mono.
+                    finish();
+                    return;
+                }
+
+                if (error != null) {
+                    finish();
+                    sink.error(error);
+                    return;
+                }
+
+                if (cancelled) {
+                    finish();
+                    sink.error(new EOFException("stream cancelled: " + id));
+                    return;
+                }
+
+                final ByteBuffer chunk = pending.peek();
+
+                if (chunk == null) {
+                    if (done) {
+                        finish();
+                        sink.success();
+                    }
+
+                    return;
+                }
+
+                if (!tryAcquireWindow(getContentLength(chunk))) {
+                    // Continued by onWindowUpdate.
+                    return;
+                }
+
+                pending.poll();
+
+                try {
+                    connection.write(FrameType.DATA, id, chunk);
+                }
+                catch (final IOException ex) {
+                    error = ex;
+                }
+                finally {
+                    release.accept(chunk);
+                }
+
+                request(1);
+            }
+        }
+
+        private void finish() {
+            finished = true;
+            windowListener = null;
+
+            dispose();
+
+            ByteBuffer chunk = pending.poll();
+
+            while (chunk != null) {
+                release.accept(chunk);
+
+                chunk = pending.poll();
+            }
+        }
+
+        private void drop() {
+            dropped = true;
+
+            drain();
+        }
+
+        private void onWindowChanged() {
+            // The Reader-Thread of the Connection must not write the Chunks.
+            Schedulers.boundedElastic().schedule(this::drain);
+        }
+    }
+
+    private static int getContentLength(final ByteBuffer buffer) {
+        return buffer.position() == 0 ? buffer.limit() : buffer.position();
+    }
+
+    private final NioConnection connection;
+    private final BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+    private final int id;
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private final Condition windowUpdated = windowLock.newCondition();
+
+    private volatile boolean cancelled;
+    private volatile boolean closed;
+    /**
+     * Content of the last read DATA-Frame, only used by the Reader.
+     */
+    private int consumedBytes;
+    private volatile boolean inboundFinished;
+    private long sendWindow = INITIAL_WINDOW;
+    private volatile Runnable windowListener;
+    private boolean windowGranted;
+
+    NioStream(final NioConnection connection, final int id) {
+        super();
+
+        this.connection = connection;
+        this.id = id;
+    }
+
+    public ByteBufferPool bufferPool() {
+        return connection.getFrameProtocol().bufferPool();
+    }
+
+    /**
+     * Releases the Stream, the other Side gets a CANCEL-Frame if the Frames of the other Side are not completely read.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        connection.removeStream(this);
+
+        if (!inboundFinished && !cancelled) {
+            try {
+                connection.writeHeader(FrameType.CANCEL, id, 0);
+            }
+            catch (final IOException _) {
+                // Connection is closed.
+            }
+        }
+
+        Frame frame = frames.poll();
+
+        while (frame != null) {
+            if (frame.buffer() != null) {
+                bufferPool().free(frame.buffer());
+            }
+
+            frame = frames.poll();
+        }
+
+        // Wakes up a blocked Reader.
+        frames.offer(STREAM_CLOSED);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Read all Frames to the FINISH-Frame.<br>
+     * A Frame is only read if the Subscriber requests it, so the Credit of the other Side follows the Demand.<br>
+     * They can be reused by the {@link ByteBufferPool}.
+     */
+    public Flux<ByteBuffer> readAll() {
+        return Flux.generate(sink -> {
+            try {
+                final ByteBuffer buffer = readFrame();
+
+                if (buffer == null) {
+                    // FINISH-Frame
+                    sink.complete();
+                    return;
+                }
+
+                sink.next(buffer);
+            }
+            catch (final Exception ex) {
+                sink.error(ex);
+            }
+        });
+    }
+
+    /**
+     * Read all Frames to the FINISH-Frame.<br>
+     * They can be reused by the {@link ByteBufferPool}.
+     */
+    public void readAll(final Consumer<ByteBuffer> consumer) throws Exception {
+        while (true) {
+            final ByteBuffer buffer = readFrame();
+
+            if (buffer == null) {
+                // FINISH-Frame
+                break;
+            }
+
+            consumer.accept(buffer);
+        }
+    }
+
+    /**
+     * Read a Request: the first DATA-Frame to the FINISH-Frame, further DATA-Frames are released.<br>
+     * It can be reused by the {@link ByteBufferPool}.
+     */
+    public ByteBuffer readFirst() throws Exception {
+        final ByteBuffer buffer = readFrame();
+
+        if (buffer == null) {
+            throw new EOFException("stream has no data: " + id);
+        }
+
+        try {
+            readAll(bufferPool()::free);
+        }
+        catch (final Exception ex) {
+            bufferPool().free(buffer);
+
+            throw ex;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * The DATA-Frame returns the {@link ByteBuffer} of the Content.<br>
+     * ERROR-Frame throws an Exception.<br>
+     * FINISH-Frame returns null.
+     */
+    public ByteBuffer readFrame() throws Exception {
+        if (inboundFinished) {
+            throw new EOFException("stream is already finished: " + id);
+        }
+
+        if (!windowGranted) {
+            windowGranted = true;
+
+            if (RECEIVE_WINDOW > INITIAL_WINDOW && !closed) {
+                // The other Side knows the Stream, it has sent or received the first Frame.
+                connection.writeHeader(FrameType.WINDOW_UPDATE, id, (int) (RECEIVE_WINDOW - INITIAL_WINDOW));
+            }
+        }
+
+        if (consumedBytes > 0) {
+            // The previous Frame is consumed, the Caller requests the next one.
+            final int credit = consumedBytes;
+            consumedBytes = 0;
+
+            if (!closed) {
+                connection.writeHeader(FrameType.WINDOW_UPDATE, id, credit);
+            }
+        }
+
+        final Frame frame = frames.take();
+
+        if (frame == CONNECTION_CLOSED) {
+            inboundFinished = true;
+            throw new EOFException("connection closed");
+        }
+
+        if (frame == STREAM_CLOSED) {
+            inboundFinished = true;
+            throw new EOFException("stream closed: " + id);
+        }
+
+        if (FrameType.DATA.equals(frame.frameType())) {
+            // Granted with the next read Frame.
+            consumedBytes = frame.length();
+
+            return frame.buffer();
+        } else if (FrameType.ERROR.equals(frame.frameType())) {
+            inboundFinished = true;
+
+            final ByteBuffer buffer = frame.buffer();
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            bufferPool().free(buffer);
+
+            throw new Exception(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        // FINISH-Frame
+        inboundFinished = true;
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[id=" + id + "]";
+    }
+
+    /**
+     * Write the DATA-Frame.
+     */
+    public void writeData(final ByteBuffer buffer) throws IOException {
+        acquireWindow(getContentLength(buffer));
+
+        connection.write(FrameType.DATA, id, buffer);
+    }
+
+    /**
+     * Write the DATA-Frame.
+     */
+    public void writeData(final Consumer<ByteBuffer> consumer) throws IOException {
+        final ByteBuffer buffer = bufferPool().get();
+
+        try {
+            consumer.accept(buffer);
+
+            writeData(buffer);
+        }
+        finally {
+            bufferPool().free(buffer);
+        }
+    }
+
+    /**
+     * Write the Chunks as DATA-Frames without blocking the Caller for Credit.<br>
+     * The Chunks are requested by Backpressure: {@link #PREFETCH_CHUNKS} in Advance and one more for every written Chunk,
+     * so the Producer is never faster than the Credit of the other Side allows.<br>
+     * Meanwhile the Caller can read the Responses of the Stream, the Sending and the Acknowledging overlap.
+     *
+     * @param release {@link Consumer}; called for every Chunk after it is written or dropped
+     *
+     * @return {@link Mono}; completes after the last Chunk is written
+     */
+    public Mono<Void> writeData(final Flux<ByteBuffer> chunks, final Consumer<ByteBuffer> release) {
+        return Mono.create(sink -> {
+            final ChunkWriter writer = new ChunkWriter(sink, release);
+
+            windowListener = writer::onWindowChanged;
+            sink.onCancel(writer::drop);
+
+            chunks.subscribe(writer);
+        });
+    }
+
+    /**
+     * Write the File as DATA-Frames with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} (sendfile).<br>
+     * The Content does not pass the Heap, the Frames have the same Format and maximum Size like {@link #writeData(ByteBuffer)}.
+     *
+     * @param position long; Start of the File
+     *
+     * @return long; written Bytes of the File
+     */
+    public long writeData(final FileChannel fileChannel, final long position) throws IOException {
+        return writeData(fileChannel, position, fileChannel.size() - position);
+    }
+
+    /**
+     * Write a Range of the File like {@link #writeData(FileChannel, long)}.
+     *
+     * @param length long; maximum Bytes, less at the End of the File
+     *
+     * @return long; written Bytes of the File
+     */
+    public long writeData(final FileChannel fileChannel, final long position, final long length) throws IOException {
+        final long end = Math.min(fileChannel.size(), position + length);
+        long current = position;
+
+        while (current < end) {
+            final int contentLength = (int) Math.min(NioFrameProtocol.DEFAULT_BUFFER_SIZE, end - current);
+
+            acquireWindow(contentLength);
+
+            connection.write(id, fileChannel, current, contentLength);
+
+            current += contentLength;
+        }
+
+        return current - position;
+    }
+
+    /**
+     * Write the ERROR-Frame.
+     */
+    public void writeError(final Consumer<ByteBuffer> consumer) throws IOException {
+        final ByteBuffer buffer = bufferPool().get();
+
+        try {
+            consumer.accept(buffer);
+
+            checkCancelled();
+            connection.write(FrameType.ERROR, id, buffer);
+        }
+        finally {
+            bufferPool().free(buffer);
+        }
+    }
+
+    /**
+     * Write the ERROR-Frame.
+     */
+    public void writeError(final Throwable th) throws IOException {
+        writeError(buffer -> {
+            final String message = th.getMessage() == null ? "" : th.getMessage();
+            final byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+            buffer.put(messageBytes);
+        });
+    }
+
+    /**
+     * Write the FINISH-Frame.
+     */
+    public void writeFinish() throws IOException {
+        checkCancelled();
+
+        connection.writeHeader(FrameType.FINISH, id, 0);
+    }
+
+    void onCancel() {
+        cancelled = true;
+
+        signalWindow();
+    }
+
+    void onConnectionClosed() {
+        cancelled = true;
+        frames.offer(CONNECTION_CLOSED);
+
+        signalWindow();
+    }
+
+    void onFrame(final Frame frame) {
+        if (closed) {
+            if (frame.buffer() != null) {
+                bufferPool().free(frame.buffer());
+            }
+
+            return;
+        }
+
+        frames.offer(frame);
+    }
+
+    /**
+     * The Credit must be positive and the Window must not exceed {@link Integer#MAX_VALUE}.
+     */
+    void onWindowUpdate(final int length) throws ProtocolException {
+        windowLock.lock();
+
+        try {
+            if (length <= 0 || sendWindow + length > Integer.MAX_VALUE) {
+                throw new ProtocolException("invalid window update of stream " + id + ": " + length);
+            }
+
+            sendWindow += length;
+            windowUpdated.signalAll();
+        }
+        finally {
+            windowLock.unlock();
+        }
+
+        notifyWindowListener();
+    }
+
+    private void acquireWindow(final int length) throws IOException {
+        windowLock.lock();
+
+        try {
+            while (sendWindow < length) {
+                checkCancelled();
+
+                windowUpdated.await();
+            }
+
+            checkCancelled();
+
+            sendWindow -= length;
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException(ex);
+        }
+        finally {
+            windowLock.unlock();
+        }
+    }
+
+    private void checkCancelled() throws IOException {
+        if (cancelled) {
+            throw new EOFException("stream cancelled: " + id);
+        }
+    }
+
+    private void notifyWindowListener() {
+        final Runnable listener = windowListener;
+
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private void signalWindow() {
+        windowLock.lock();
+
+        try {
+            windowUpdated.signalAll();
+        }
+        finally {
+            windowLock.unlock();
+        }
+
+        notifyWindowListener();
+    }
+
+    /**
+     * Takes the Credit without waiting.
+     */
+    private boolean tryAcquireWindow(final int length) {
+        windowLock.lock();
+
+        try {
+            if (sendWindow < length) {
+                return false;
+            }
+
+            sendWindow -= length;
+
+            return true;
+        }
+        finally {
+            windowLock.unlock();
+        }
+    }
+}
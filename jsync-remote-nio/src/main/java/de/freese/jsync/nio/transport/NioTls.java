@@ -0,0 +1,135 @@
+// Created: 18.10.2026
+package de.freese.jsync.nio.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Objects;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * {@link SSLContext} and {@link SSLEngine} for the TLS-Connections of the NIO-Transport, see {@link TlsChannel}.<br>
+ * Only TLS 1.3 is enabled, the Sessions of a Context are resumed by the Session-Tickets of the Server.<br>
+ * <br>
+ * System-Properties of {@link #getDefaultContext()}, without them the Default-Context of the JVM (javax.net.ssl.*) is used:<br>
+ * <ul>
+ * <li>jsync.nio.tls.keystore, jsync.nio.tls.keystore.password: Certificate of the Server</li>
+ * <li>jsync.nio.tls.truststore, jsync.nio.tls.truststore.password: trusted Certificates of the Client</li>
+ * </ul>
+ *
+ * @author Thomas Freese
+ */
+public final class NioTls {
+    public static final String PROTOCOL = "TLSv1.3";
+
+    private static SSLContext defaultContext;
+    private static String defaultContextKey;
+
+    public static SSLEngine createClientEngine(final SSLContext sslContext, final String host, final int port) {
+        // Host and Port are the Key of the Session-Cache for the Resumption.
+        final SSLEngine engine = sslContext.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+
+        final SSLParameters parameters = engine.getSSLParameters();
+        parameters.setProtocols(new String[]{PROTOCOL});
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        engine.setSSLParameters(parameters);
+
+        return engine;
+    }
+
+    /**
+     * @param keyStore {@link KeyStore}; Certificate of the Server, null for a Client
+     * @param trustStore {@link KeyStore}; trusted Certificates, null for the Default of the JVM
+     */
+    public static SSLContext createContext(final KeyStore keyStore, final char[] keyPassword, final KeyStore trustStore) {
+        try {
+            final SSLContext sslContext = SSLContext.getInstance(PROTOCOL);
+
+            KeyManagerFactory keyManagerFactory = null;
+
+            if (keyStore != null) {
+                keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                keyManagerFactory.init(keyStore, keyPassword);
+            }
+
+            final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(trustStore);
+
+            sslContext.init(keyManagerFactory == null ? null : keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+
+            return sslContext;
+        }
+        catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static SSLEngine createServerEngine(final SSLContext sslContext) {
+        final SSLEngine engine = sslContext.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setEnabledProtocols(new String[]{PROTOCOL});
+
+        return engine;
+    }
+
+    /**
+     * The Context of the System-Properties, it is only created again if they have changed.
+     */
+    public static synchronized SSLContext getDefaultContext() {
+        final String keyStore = System.getProperty("jsync.nio.tls.keystore");
+        final String keyStorePassword = System.getProperty("jsync.nio.tls.keystore.password", "");
+        final String trustStore = System.getProperty("jsync.nio.tls.truststore");
+        final String trustStorePassword = System.getProperty("jsync.nio.tls.truststore.password", "");
+
+        final String key = keyStore + "|" + keyStorePassword + "|" + trustStore + "|" + trustStorePassword;
+
+        if (defaultContext != null && key.equals(defaultContextKey)) {
+            return defaultContext;
+        }
+
+        if (keyStore == null && trustStore == null) {
+            try {
+                defaultContext = SSLContext.getDefault();
+            }
+            catch (final GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        } else {
+            defaultContext = createContext(keyStore == null ? null : loadKeyStore(Path.of(keyStore), keyStorePassword.toCharArray()), keyStorePassword.toCharArray(),
+                    trustStore == null ? null : loadKeyStore(Path.of(trustStore), trustStorePassword.toCharArray()));
+        }
+
+        defaultContextKey = key;
+
+        return defaultContext;
+    }
+
+    /**
+     * The Type (PKCS12, JKS) is detected by the Content.
+     */
+    public static KeyStore loadKeyStore(final Path path, final char[] password) {
+        Objects.requireNonNull(path, "path required");
+
+        try {
+            return KeyStore.getInstance(path.toFile(), password);
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private NioTls() {
+        super();
+    }
+}
@@ -0,0 +1,390 @@
+// Created: 18.10.2026
+package de.freese.jsync.nio.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+
+/**
+ * {@link ByteChannel} with TLS by a {@link SSLEngine} over a {@link SocketChannel}, blocking or non-blocking.<br>
+ * The encrypted Data are buffered in direct {@link ByteBuffer}s, many Records are read and written with one System-Call.<br>
+ * Reading and Writing are independent and can run concurrently like with a {@link SocketChannel}.<br>
+ * Non-blocking: {@link #handshake()} returns false until the other Side has sent enough Data,
+ * after a Read {@link #hasBufferedInput()} tells if decrypted Data are left, which the Selector can not signal.
+ *
+ * @author Thomas Freese
+ */
+public final class TlsChannel implements ByteChannel {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final int RECORD_HEADER_SIZE = 5;
+    /**
+     * Records of the encrypted Buffers.
+     */
+    private static final int RECORDS = 16;
+
+    private static int transfer(final ByteBuffer source, final ByteBuffer destination) {
+        final int length = Math.min(source.remaining(), destination.remaining());
+
+        destination.put(destination.position(), source, source.position(), length);
+        destination.position(destination.position() + length);
+        source.position(source.position() + length);
+
+        return length;
+    }
+
+    private final int applicationBufferSize;
+    /**
+     * Decrypted Data, which did not fit into the Buffer of the Reader; Read-Mode.
+     */
+    private final ByteBuffer applicationIn;
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    /**
+     * Encrypted Data of the other Side; Write-Mode.
+     */
+    private final ByteBuffer networkIn;
+    /**
+     * Encrypted Data for the other Side; Read-Mode.
+     */
+    private final ByteBuffer networkOut;
+    private final int packetBufferSize;
+    private final ReentrantLock readLock = new ReentrantLock();
+    private final WritableSelector writableSelector;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean handshakeComplete;
+    private boolean handshakeStarted;
+
+    public TlsChannel(final SocketChannel channel, final SSLEngine engine) {
+        super();
+
+        this.channel = Objects.requireNonNull(channel, "channel required");
+        this.engine = Objects.requireNonNull(engine, "engine required");
+
+        packetBufferSize = engine.getSession().getPacketBufferSize();
+        applicationBufferSize = engine.getSession().getApplicationBufferSize();
+
+        networkIn = ByteBuffer.allocateDirect(packetBufferSize * RECORDS);
+        networkOut = ByteBuffer.allocateDirect(packetBufferSize * RECORDS).limit(0);
+        applicationIn = ByteBuffer.allocateDirect(applicationBufferSize).limit(0);
+
+        writableSelector = new WritableSelector(channel);
+    }
+
+    /**
+     * Sends the close_notify, if possible, and closes the {@link SocketChannel}.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (handshakeComplete && writeLock.tryLock()) {
+                try {
+                    engine.closeOutbound();
+                    wrap(EMPTY);
+                    flush();
+                }
+                finally {
+                    writeLock.unlock();
+                }
+            }
+        }
+        catch (final IOException _) {
+            // The other Side has already closed the Connection.
+        }
+        finally {
+            writableSelector.close();
+            channel.close();
+        }
+    }
+
+    /**
+     * Continues the Handshake as far as possible.
+     *
+     * @return boolean; true if the Handshake is complete, false if a non-blocking Channel has to wait for Data of the other Side
+     */
+    public boolean handshake() throws IOException {
+        if (handshakeComplete) {
+            return true;
+        }
+
+        readLock.lock();
+        writeLock.lock();
+
+        try {
+            if (!handshakeStarted) {
+                handshakeStarted = true;
+                engine.beginHandshake();
+            }
+
+            while (true) {
+                switch (engine.getHandshakeStatus()) {
+                    case NEED_WRAP -> {
+                        wrap(EMPTY);
+                        flush();
+                    }
+                    case NEED_UNWRAP, NEED_UNWRAP_AGAIN -> {
+                        final SSLEngineResult result = unwrap(null);
+
+                        if (SSLEngineResult.Status.CLOSED.equals(result.getStatus())) {
+                            throw new SSLException("connection closed while handshaking");
+                        }
+
+                        if (SSLEngineResult.Status.BUFFER_UNDERFLOW.equals(result.getStatus()) && !readNetwork()) {
+                            return false;
+                        }
+                    }
+                    case NEED_TASK -> runDelegatedTasks();
+                    default -> {
+                        // FINISHED, NOT_HANDSHAKING
+                        handshakeComplete = true;
+
+                        return true;
+                    }
+                }
+            }
+        }
+        finally {
+            writeLock.unlock();
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Decrypted Data or a complete Record are available without reading the {@link SocketChannel}.
+     */
+    public boolean hasBufferedInput() {
+        if (applicationIn.hasRemaining()) {
+            return true;
+        }
+
+        // Record-Header: [byte type][short version][short length]
+        if (networkIn.position() < RECORD_HEADER_SIZE) {
+            return false;
+        }
+
+        final int recordLength = ((networkIn.get(3) & 0xFF) << 8) | (networkIn.get(4) & 0xFF);
+
+        return networkIn.position() >= RECORD_HEADER_SIZE + recordLength;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        if (!handshake()) {
+            return 0;
+        }
+
+        readLock.lock();
+
+        try {
+            if (applicationIn.hasRemaining()) {
+                return transfer(applicationIn, dst);
+            }
+
+            int bytesRead = 0;
+
+            while (dst.hasRemaining()) {
+                final SSLEngineResult result = unwrap(dst);
+
+                if (SSLEngineResult.HandshakeStatus.NEED_TASK.equals(result.getHandshakeStatus())) {
+                    runDelegatedTasks();
+                } else if (SSLEngineResult.HandshakeStatus.NEED_WRAP.equals(result.getHandshakeStatus())) {
+                    // Post-Handshake Message, like a KeyUpdate.
+                    writePostHandshake();
+                }
+
+                switch (result.getStatus()) {
+                    case OK -> bytesRead += result.bytesProduced() > 0 && applicationIn.hasRemaining() ? transfer(applicationIn, dst) : result.bytesProduced();
+                    case BUFFER_UNDERFLOW -> {
+                        if (bytesRead > 0) {
+                            return bytesRead;
+                        }
+
+                        if (!readNetwork()) {
+                            return channel.isOpen() ? 0 : -1;
+                        }
+                    }
+                    case CLOSED -> {
+                        return bytesRead > 0 ? bytesRead : -1;
+                    }
+                    default -> throw new SSLException("unexpected unwrap status: " + result.getStatus());
+                }
+
+                if (applicationIn.hasRemaining()) {
+                    // The Destination is full.
+                    return bytesRead;
+                }
+            }
+
+            return bytesRead;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + engine.getSession().getProtocol() + ", " + engine.getSession().getCipherSuite() + "]";
+    }
+
+    /**
+     * Encrypts the whole Content, a non-blocking Channel waits until the Records are written.
+     */
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        if (!handshake()) {
+            throw new SSLException("handshake is not complete");
+        }
+
+        writeLock.lock();
+
+        try {
+            int bytesWritten = 0;
+
+            while (src.hasRemaining()) {
+                final SSLEngineResult result = wrap(src);
+
+                if (SSLEngineResult.Status.CLOSED.equals(result.getStatus())) {
+                    throw new ClosedChannelException();
+                }
+
+                if (SSLEngineResult.HandshakeStatus.NEED_TASK.equals(result.getHandshakeStatus())) {
+                    runDelegatedTasks();
+                }
+
+                bytesWritten += result.bytesConsumed();
+
+                flush();
+            }
+
+            return bytesWritten;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all encrypted Records, a non-blocking Channel waits for a full Send-Buffer by the {@link WritableSelector}.
+     */
+    private void flush() throws IOException {
+        while (networkOut.hasRemaining()) {
+            if (channel.write(networkOut) == 0) {
+                writableSelector.await();
+            }
+        }
+    }
+
+    /**
+     * @return boolean; false if the non-blocking Channel has no Data
+     */
+    private boolean readNetwork() throws IOException {
+        final int bytesRead = channel.read(networkIn);
+
+        if (bytesRead < 0) {
+            engine.closeInbound();
+
+            throw new EOFException("channel closed by peer");
+        }
+
+        return bytesRead > 0;
+    }
+
+    private void runDelegatedTasks() {
+        Runnable task = engine.getDelegatedTask();
+
+        while (task != null) {
+            task.run();
+
+            task = engine.getDelegatedTask();
+        }
+    }
+
+    /**
+     * Decrypts the Records into the Destination, if it is too small or null into {@link #applicationIn}.
+     */
+    private SSLEngineResult unwrap(final ByteBuffer dst) throws IOException {
+        final boolean direct = dst != null && dst.remaining() >= applicationBufferSize;
+        final ByteBuffer target = direct ? dst : applicationIn.clear();
+
+        networkIn.flip();
+
+        try {
+            SSLEngineResult result = engine.unwrap(networkIn, target);
+
+            // Many Records per Call, as long as they fit.
+            while (SSLEngineResult.Status.OK.equals(result.getStatus()) && direct && target.remaining() >= applicationBufferSize && networkIn.hasRemaining()
+                    && SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING.equals(result.getHandshakeStatus())) {
+                final SSLEngineResult next = engine.unwrap(networkIn, target);
+
+                if (!SSLEngineResult.Status.OK.equals(next.getStatus())) {
+                    break;
+                }
+
+                result = new SSLEngineResult(next.getStatus(), next.getHandshakeStatus(), result.bytesConsumed() + next.bytesConsumed(),
+                        result.bytesProduced() + next.bytesProduced());
+            }
+
+            return result;
+        }
+        finally {
+            networkIn.compact();
+
+            if (!direct) {
+                applicationIn.flip();
+            }
+        }
+    }
+
+    /**
+     * Encrypts as many Records as fit into {@link #networkOut}.
+     */
+    private SSLEngineResult wrap(final ByteBuffer src) throws IOException {
+        networkOut.clear();
+
+        try {
+            SSLEngineResult result = engine.wrap(src, networkOut);
+
+            while (SSLEngineResult.Status.OK.equals(result.getStatus()) && src.hasRemaining() && networkOut.remaining() >= packetBufferSize
+                    && SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING.equals(result.getHandshakeStatus())) {
+                final SSLEngineResult next = engine.wrap(src, networkOut);
+
+                result = new SSLEngineResult(next.getStatus(), next.getHandshakeStatus(), result.bytesConsumed() + next.bytesConsumed(),
+                        result.bytesProduced() + next.bytesProduced());
+            }
+
+            return result;
+        }
+        finally {
+            networkOut.flip();
+        }
+    }
+
+    private void writePostHandshake() throws IOException {
+        writeLock.lock();
+
+        try {
+            while (SSLEngineResult.HandshakeStatus.NEED_WRAP.equals(engine.getHandshakeStatus())) {
+                wrap(EMPTY);
+                flush();
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+}
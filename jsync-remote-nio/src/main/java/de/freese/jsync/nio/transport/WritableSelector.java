@@ -0,0 +1,85 @@
+// Created: 18.10.2026
+package de.freese.jsync.nio.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Objects;
+
+/**
+ * Waits until a non-blocking Channel can write again, when a Write has returned 0 because the Send-Buffer is full.<br>
+ * The Channel is registered for OP_WRITE on an own Selector, the Selector of the Dispatcher keeps OP_READ.<br>
+ * A blocking Channel does not wait, it's Writes block anyway.<br>
+ * Not thread-safe for {@link #await()}, the Writers are serialized by the Write-Lock of the Connection.
+ *
+ * @author Thomas Freese
+ */
+public final class WritableSelector implements Closeable {
+    /**
+     * The Select is repeated by the Writer, so a closed Channel is noticed by the next Write.
+     */
+    private static final long SELECT_TIMEOUT_MILLIS = 1000L;
+
+    private final Channel channel;
+
+    private volatile boolean closed;
+    private volatile Selector selector;
+
+    public WritableSelector(final Channel channel) {
+        super();
+
+        this.channel = Objects.requireNonNull(channel, "channel required");
+    }
+
+    /**
+     * Returns when the Channel is writable or after a Timeout, the Caller repeats the Write.
+     */
+    public void await() throws IOException {
+        if (!(channel instanceof final SelectableChannel selectableChannel) || selectableChannel.isBlocking()) {
+            return;
+        }
+
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+
+        try {
+            if (selector == null) {
+                selector = Selector.open();
+                selectableChannel.register(selector, SelectionKey.OP_WRITE);
+
+                if (closed) {
+                    // Closed while opening.
+                    selector.close();
+
+                    throw new ClosedChannelException();
+                }
+            }
+
+            selector.select(SELECT_TIMEOUT_MILLIS);
+            selector.selectedKeys().clear();
+        }
+        catch (final ClosedSelectorException _) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Wakes up a waiting Writer, the Channel is closed by it's Owner.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        final Selector s = selector;
+
+        if (s != null) {
+            s.close();
+        }
+    }
+}
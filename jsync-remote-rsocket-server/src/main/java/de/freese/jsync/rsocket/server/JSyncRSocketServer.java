@@ -2,22 +2,29 @@
 package de.freese.jsync.rsocket.server;
 
 import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.netty.util.ResourceLeakDetector;
 import io.netty.util.ResourceLeakDetector.Level;
-import io.rsocket.SocketAcceptor;
+import io.rsocket.ConnectionSetupPayload;
+import io.rsocket.RSocket;
 import io.rsocket.transport.netty.server.CloseableChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
 import reactor.netty.resources.LoopResources;
 import reactor.netty.tcp.TcpResources;
 
 import de.freese.jsync.rsocket.JSyncRSocketHandlerByteBuf;
 import de.freese.jsync.rsocket.builder.RSocketBuilders;
+import de.freese.jsync.utils.bandwidth.BandwidthScheduler;
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
+ * Every Connection gets an own Handler with a {@link BandwidthScheduler.Client}.
+ *
  * @author Thomas Freese
  */
 public final class JSyncRSocketServer {
@@ -33,6 +40,7 @@ public final class JSyncRSocketServer {
         final int port = Integer.parseInt(args[0]);
 
         final JSyncRSocketServer server = new JSyncRSocketServer();
+        server.setBandwidthScheduler(BandwidthScheduler.fromSystemProperties());
 
         server.start(port);
 
@@ -47,9 +55,19 @@ public final class JSyncRSocketServer {
         // System.in.read();
     }
 
+    private final AtomicInteger connectionCounter = new AtomicInteger();
     private final String name = getClass().getSimpleName();
+
+    private BandwidthScheduler bandwidthScheduler = new BandwidthScheduler(0L, 0L);
     private CloseableChannel server;
 
+    /**
+     * RSocket does not tell the Address of a Connection, the Weights of the Hosts are not used.
+     */
+    public void setBandwidthScheduler(final BandwidthScheduler bandwidthScheduler) {
+        this.bandwidthScheduler = Objects.requireNonNull(bandwidthScheduler, "bandwidthScheduler required");
+    }
+
     public void start(final int port) {
         getLogger().info("starting '{}' on port: {}", name, port);
 
@@ -72,7 +90,7 @@ public final class JSyncRSocketServer {
         server = RSocketBuilders.serverRemote()
                 .logger(getLogger())
                 .socketAddress(new InetSocketAddress(port))
-                .socketAcceptor(SocketAcceptor.with(new JSyncRSocketHandlerByteBuf()))
+                .socketAcceptor(this::accept)
                 .resumeDefault()
                 .logTcpServerBoundStatus()
                 .build()
@@ -91,4 +109,10 @@ public final class JSyncRSocketServer {
     Logger getLogger() {
         return LOGGER;
     }
+
+    private Mono<RSocket> accept(final ConnectionSetupPayload setup, final RSocket sendingSocket) {
+        final BandwidthScheduler.Client client = bandwidthScheduler.createClient("rsocket-" + connectionCounter.incrementAndGet());
+
+        return Mono.just(new JSyncRSocketHandlerByteBuf(client));
+    }
 }
@@ -1,6 +1,10 @@
 // Created: 19.10.2020
 package de.freese.jsync.rsocket;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.LongConsumer;
 
 import io.netty.buffer.ByteBuf;
@@ -14,8 +18,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-
+import reactor.core.scheduler.Schedulers;
+
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.compression.CompressionStatistics;
+import de.freese.jsync.filesystem.AbstractRemoteFileSystem;
 import de.freese.jsync.filesystem.FileSystem;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filesystem.ReceiverDelegateLogger;
 import de.freese.jsync.filesystem.Sender;
@@ -23,17 +35,25 @@ import de.freese.jsync.filesystem.SenderDelegateLogger;
 import de.freese.jsync.filesystem.local.LocalhostReceiver;
 import de.freese.jsync.filesystem.local.LocalhostSender;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
 import de.freese.jsync.rsocket.serialisation.ByteBufReader;
 import de.freese.jsync.rsocket.serialisation.ByteBufWriter;
 import de.freese.jsync.rsocket.utils.RSocketUtils;
 import de.freese.jsync.serialisation.DefaultSerializer;
 import de.freese.jsync.serialisation.Serializer;
+import de.freese.jsync.serialisation.serializer.SyncItemListSerializer;
+import de.freese.jsync.utils.bandwidth.BandwidthScheduler;
 import de.freese.jsync.utils.pool.Pool;
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
- * Uses {@link ByteBuf} and {@link ByteBufPayload}.
+ * Uses {@link ByteBuf} and {@link ByteBufPayload}.<br>
+ * The File-Chunks of {@link JSyncCommand#SOURCE_READ_FILE} and {@link JSyncCommand#TARGET_WRITE_FILE} are granted by the {@link BandwidthScheduler.Client}
+ * of the Connection, the Chunks wait without blocking a Thread.
  *
  * @author Thomas Freese
  */
@@ -55,14 +75,17 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
         }
     };
 
+    /**
+     * The Response contains the Compression-Codecs and in the Metadata the Checksum-Algorithms of the Server.
+     */
     private static Mono<Payload> connect() {
-        final Payload responsePayload = ByteBufPayload.create("OK");
+        final Payload responsePayload = ByteBufPayload.create(AbstractRemoteFileSystem.getLocalCompressionCodecs(), AbstractRemoteFileSystem.getLocalChecksumAlgorithms());
 
         return Mono.just(responsePayload); // .doFinally(signalType -> RSocketUtils.release(responsePayload));
     }
 
     private static Mono<Payload> disconnect() {
-        return connect();
+        return Mono.just(ByteBufPayload.create("OK"));
     }
 
     private static ByteBufAllocator getByteBufAllocator() {
@@ -73,22 +96,41 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
         return LOGGER;
     }
 
+    private final BandwidthScheduler.Client client;
     private final Serializer<ByteBuf, ByteBuf> serializer = new DefaultSerializer<>(new ByteBufReader(), new ByteBufWriter());
 
+    /**
+     * Without a Bandwidth-Limit.
+     */
+    public JSyncRSocketHandlerByteBuf() {
+        this(new BandwidthScheduler(0L, 0L).createClient(""));
+    }
+
+    /**
+     * @param client {@link BandwidthScheduler.Client}; one Handler per Connection
+     */
+    public JSyncRSocketHandlerByteBuf(final BandwidthScheduler.Client client) {
+        super();
+
+        this.client = Objects.requireNonNull(client, "client required");
+    }
+
     @Override
     public Flux<Payload> requestChannel(final Publisher<Payload> payloads) {
         final Receiver receiver = POOL_RECEIVER.obtain();
 
         return Flux.from(payloads).switchOnFirst((firstSignal, flux) -> {
+            final Payload payload = firstSignal.get();
+
             try {
-                final Payload payload = firstSignal.get();
                 final ByteBuf bufferMeta = payload.metadata();
 
                 final JSyncCommand command = getSerializer().readJSyncCommand(bufferMeta);
                 getLogger().debug("read command: {}", command);
-                RSocketUtils.release(payload);
 
+                // The Arguments are read before the Payload is released.
                 return switch (command) {
+                    case TARGET_PATCH_FILE -> patchFile(payload, flux.skip(1), receiver);
                     case TARGET_WRITE_FILE -> writeFile(payload, flux.skip(1), receiver);
                     default -> throw new IllegalStateException("unknown JSyncCommand: " + command);
                 };
@@ -99,6 +141,8 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
                 return Flux.error(ex);
             }
             finally {
+                RSocketUtils.release(payload);
+
                 POOL_RECEIVER.free(receiver);
             }
         });
@@ -118,8 +162,13 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
             return switch (command) {
                 case CONNECT -> connect();
                 case DISCONNECT -> disconnect();
+                case SOURCE_CHUNK_CHECKSUM -> chunkChecksum(payload, sender);
+                case TARGET_BATCH -> batch(payload, receiver);
                 case TARGET_CREATE_DIRECTORY -> createDirectory(payload, receiver);
                 case TARGET_DELETE -> delete(payload, receiver);
+                case TARGET_LAST_MODIFIED_TIMES -> lastModifiedTimes(payload, receiver);
+                case TARGET_RESUME_POINT -> resumePoint(payload, receiver);
+                case TARGET_SIGNATURE -> signature(payload, receiver);
                 case TARGET_UPDATE -> update(payload, receiver);
                 default -> throw new IllegalStateException("unknown JSyncCommand: " + command);
             };
@@ -151,6 +200,7 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
             return switch (command) {
                 case SOURCE_CHECKSUM -> checksum(payload, sender);
                 case SOURCE_CREATE_SYNC_ITEMS -> generateSyncItems(payload, sender);
+                case SOURCE_READ_DELTA -> readDelta(payload, sender);
                 case SOURCE_READ_FILE -> readFile(payload, sender);
                 case TARGET_CHECKSUM -> checksum(payload, receiver);
                 case TARGET_CREATE_SYNC_ITEMS -> generateSyncItems(payload, receiver);
@@ -175,22 +225,61 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
         return serializer;
     }
 
+    private Mono<Payload> batch(final Payload payload, final Receiver receiver) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final int count = getSerializer().readInteger(bufferData);
+
+        final List<ReceiverOperation> operations = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            operations.add(getSerializer().readReceiverOperation(bufferData));
+        }
+
+        final List<String> results = receiver.batch(baseDir, operations);
+
+        final ByteBuf byteBuf = getByteBufAllocator().buffer();
+        getSerializer().writeInteger(byteBuf, results.size());
+
+        for (final String result : results) {
+            getSerializer().writeString(byteBuf, result);
+        }
+
+        return Mono.just(ByteBufPayload.create(byteBuf));
+    }
+
     private Flux<Payload> checksum(final Payload payload, final FileSystem fileSystem) {
         final ByteBuf bufferData = payload.data();
 
         final String baseDir = getSerializer().readString(bufferData);
         final String relativeFile = getSerializer().readString(bufferData);
+        final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(getSerializer().readString(bufferData));
 
         return Flux.create(sink -> {
             final LongConsumer consumer = checksumBytesRead -> sink.next(ByteBufPayload.create(Long.toString(checksumBytesRead)));
 
-            final String checksum = fileSystem.generateChecksum(baseDir, relativeFile, consumer);
+            final String checksum = fileSystem.generateChecksum(baseDir, relativeFile, algorithm, consumer);
             sink.next(ByteBufPayload.create(checksum));
 
             sink.complete();
         });
     }
 
+    private Mono<Payload> chunkChecksum(final Payload payload, final Sender sender) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final String relativeFile = getSerializer().readString(bufferData);
+        final long position = getSerializer().readLong(bufferData);
+        final long length = getSerializer().readLong(bufferData);
+        final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(getSerializer().readString(bufferData));
+
+        final String checksum = sender.generateChunkChecksum(baseDir, relativeFile, position, length, algorithm);
+
+        return Mono.just(ByteBufPayload.create(checksum));
+    }
+
     private Mono<Payload> createDirectory(final Payload payload, final Receiver receiver) {
         final ByteBuf bufferData = payload.data();
 
@@ -223,11 +312,13 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
 
         final String baseDir = getSerializer().readString(bufferData);
         final boolean followSymLinks = getSerializer().readBoolean(bufferData);
+        final int parallelism = getSerializer().readInteger(bufferData);
         final PathFilter pathFilter = getSerializer().readPathFilter(bufferData);
 
-        return fileSystem.generateSyncItems(baseDir, followSymLinks, pathFilter).map(syncItem -> {
+        // Many Items per Payload.
+        return SyncItemListSerializer.batch(fileSystem.generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter)).map(syncItems -> {
             final ByteBuf byteBuf = getByteBufAllocator().buffer();
-            getSerializer().write(byteBuf, syncItem);
+            getSerializer().writeSyncItems(byteBuf, syncItems);
             return byteBuf;
         }).map(ByteBufPayload::create);
 
@@ -243,18 +334,134 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
         // }).map(ByteBufPayload::create);
     }
 
-    private Flux<Payload> readFile(final Payload payload, final Sender sender) {
+    /**
+     * The Grant is completed by the Thread of the Scheduler, the Chunk continues on a Reactor-Thread.
+     */
+    private Mono<Void> grant(final long bytes) {
+        return Mono.fromFuture(() -> client.reserve(bytes)).publishOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Payload> lastModifiedTimes(final Payload payload, final Receiver receiver) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final int count = getSerializer().readInteger(bufferData);
+
+        final List<String> relativePaths = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            relativePaths.add(getSerializer().readString(bufferData));
+        }
+
+        final long[] lastModifiedTimes = receiver.getLastModifiedTimes(baseDir, relativePaths);
+
+        final ByteBuf byteBuf = getByteBufAllocator().buffer();
+        getSerializer().writeInteger(byteBuf, lastModifiedTimes.length);
+
+        for (final long lastModifiedTime : lastModifiedTimes) {
+            getSerializer().writeLong(byteBuf, lastModifiedTime);
+        }
+
+        return Mono.just(ByteBufPayload.create(byteBuf));
+    }
+
+    private Flux<Payload> patchFile(final Payload payload, final Flux<Payload> flux, final Receiver receiver) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final String relativeFile = getSerializer().readString(bufferData);
+        final long sizeOfFile = getSerializer().readLong(bufferData);
+        final int blockSize = getSerializer().readInteger(bufferData);
+
+        return receiver.patchFile(baseDir, relativeFile, sizeOfFile, blockSize, flux.map(p -> RSocketUtils.copyData(p, ByteBufferPool.DEFAULT)))
+                .map(bytesWritten -> {
+                    final ByteBuf data = getByteBufAllocator().buffer().writeLong(bytesWritten);
+                    return ByteBufPayload.create(data);
+                })
+                ;
+    }
+
+    private Flux<Payload> readDelta(final Payload payload, final Sender sender) {
         final ByteBuf bufferData = payload.data();
 
         final String baseDir = getSerializer().readString(bufferData);
         final String relativeFile = getSerializer().readString(bufferData);
         final long sizeOfFile = getSerializer().readLong(bufferData);
+        final FileSignature signature = getSerializer().readFileSignature(bufferData);
 
-        return sender.readFile(baseDir, relativeFile, sizeOfFile)
+        return sender.readDelta(baseDir, relativeFile, sizeOfFile, signature)
                 .map(DefaultPayload::create)
                 ;
     }
 
+    private Flux<Payload> readFile(final Payload payload, final Sender sender) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final String relativeFile = getSerializer().readString(bufferData);
+        final long position = getSerializer().readLong(bufferData);
+        final long sizeOfFile = getSerializer().readLong(bufferData);
+        final CompressionCodec codec = CompressionCodecs.get(getSerializer().readString(bufferData));
+        final int compressionLevel = getSerializer().readInteger(bufferData);
+
+        Flux<ByteBuffer> fileFlux = sender.readFile(baseDir, relativeFile, position, sizeOfFile);
+
+        if (CompressionCodecs.isNone(codec)) {
+            if (client.isLimited()) {
+                fileFlux = fileFlux.delayUntil(chunk -> grant(chunk.remaining()));
+            }
+
+            return fileFlux.map(DefaultPayload::create);
+        }
+
+        final ChunkCompressor compressor = new ChunkCompressor(codec, compressionLevel, ByteBufferPool.DEFAULT, new CompressionStatistics());
+
+        Flux<ByteBuffer> chunkFlux = fileFlux.concatMapIterable(compressor::compress);
+
+        if (client.isLimited()) {
+            chunkFlux = chunkFlux.delayUntil(chunk -> grant(chunk.remaining()));
+        }
+
+        return chunkFlux
+                .map(chunk -> {
+                    final ByteBuf data = getByteBufAllocator().buffer(chunk.remaining()).writeBytes(chunk);
+                    ByteBufferPool.DEFAULT.free(chunk);
+
+                    return ByteBufPayload.create(data);
+                })
+                ;
+    }
+
+    private Mono<Payload> resumePoint(final Payload payload, final Receiver receiver) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final String relativeFile = getSerializer().readString(bufferData);
+        final ChecksumAlgorithm algorithm = ChecksumAlgorithm.fromName(getSerializer().readString(bufferData));
+
+        final ResumePoint resumePoint = receiver.getResumePoint(baseDir, relativeFile, algorithm);
+
+        final ByteBuf data = getByteBufAllocator().buffer();
+        getSerializer().writeLong(data, resumePoint.position());
+        getSerializer().writeString(data, resumePoint.checksum());
+
+        return Mono.just(ByteBufPayload.create(data));
+    }
+
+    private Mono<Payload> signature(final Payload payload, final Receiver receiver) {
+        final ByteBuf bufferData = payload.data();
+
+        final String baseDir = getSerializer().readString(bufferData);
+        final String relativeFile = getSerializer().readString(bufferData);
+
+        final FileSignature signature = receiver.generateSignature(baseDir, relativeFile);
+
+        final ByteBuf data = getByteBufAllocator().buffer();
+        getSerializer().write(data, signature);
+
+        return Mono.just(ByteBufPayload.create(data));
+    }
+
     private Mono<Payload> update(final Payload payload, final Receiver receiver) {
         final ByteBuf bufferData = payload.data();
 
@@ -275,11 +482,12 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
             try {
                 final String baseDir = getSerializer().readString(bufferData);
                 final SyncItem syncItem = getSerializer().readSyncItem(bufferData);
-                final boolean withChecksum = getSerializer().readBoolean(bufferData);
+                final String algorithmName = getSerializer().readString(bufferData);
+                final ChecksumAlgorithm checksumAlgorithm = algorithmName == null ? null : ChecksumAlgorithm.fromName(algorithmName);
 
                 final LongConsumer consumer = checksumBytesRead -> sink.next(ByteBufPayload.create(Long.toString(checksumBytesRead)));
 
-                receiver.validateFile(baseDir, syncItem, withChecksum, consumer);
+                receiver.validateFile(baseDir, syncItem, checksumAlgorithm, consumer);
             }
             catch (final Exception ex) {
                 sink.error(ex);
@@ -295,12 +503,27 @@ public class JSyncRSocketHandlerByteBuf implements RSocket {
 
         final String baseDir = getSerializer().readString(bufferData);
         final String relativeFile = getSerializer().readString(bufferData);
+        final long position = getSerializer().readLong(bufferData);
         final long sizeOfFile = getSerializer().readLong(bufferData);
+        final ChecksumAlgorithm checksumAlgorithm = ChecksumAlgorithm.fromName(getSerializer().readString(bufferData));
+        final String checksum = getSerializer().readString(bufferData);
+        final Durability durability = Durability.fromName(getSerializer().readString(bufferData));
+        final CompressionCodec codec = CompressionCodecs.get(getSerializer().readString(bufferData));
+
+        // The Payloads are requested slower, the Client has to wait.
+        final Flux<Payload> payloads = client.isLimited() ? flux.delayUntil(p -> grant(p.data().readableBytes())) : flux;
+        final Flux<ByteBuffer> data;
+
+        if (CompressionCodecs.isNone(codec)) {
+            data = payloads.map(p -> RSocketUtils.copyData(p, ByteBufferPool.DEFAULT));
+        } else {
+            data = payloads.map(p -> RSocketUtils.decompressData(p, ByteBufferPool.DEFAULT));
+        }
 
-        return receiver.writeFile(baseDir, relativeFile, sizeOfFile, flux.map(Payload::getData))
+        return receiver.writeFile(baseDir, relativeFile, position, sizeOfFile, checksumAlgorithm, checksum, durability, data)
                 .map(bytesWritten -> {
-                    final ByteBuf data = getByteBufAllocator().buffer().writeLong(bytesWritten);
-                    return ByteBufPayload.create(data);
+                    final ByteBuf response = getByteBufAllocator().buffer().writeLong(bytesWritten);
+                    return ByteBufPayload.create(response);
                 })
                 .doOnError(th -> ByteBufPayload.create(th.getMessage()))
                 ;
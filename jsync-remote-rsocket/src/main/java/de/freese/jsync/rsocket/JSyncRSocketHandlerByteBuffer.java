@@ -13,7 +13,9 @@ import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
 import de.freese.jsync.filesystem.FileSystem;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filesystem.ReceiverDelegateLogger;
 import de.freese.jsync.filesystem.Sender;
@@ -28,6 +30,7 @@ import de.freese.jsync.serialisation.DefaultSerializer;
 import de.freese.jsync.serialisation.Serializer;
 import de.freese.jsync.serialisation.io.ByteBufferReader;
 import de.freese.jsync.serialisation.io.ByteBufferWriter;
+import de.freese.jsync.serialisation.serializer.SyncItemListSerializer;
 import de.freese.jsync.utils.pool.Pool;
 import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
@@ -181,7 +184,7 @@ class JSyncRSocketHandlerByteBuffer implements RSocket {
         return Flux.create(sink -> {
             final LongConsumer consumer = checksumBytesRead -> sink.next(DefaultPayload.create(Long.toString(checksumBytesRead)));
 
-            final String checksum = fileSystem.generateChecksum(baseDir, relativeFile, consumer);
+            final String checksum = fileSystem.generateChecksum(baseDir, relativeFile, ChecksumAlgorithm.SHA256, consumer);
             sink.next(DefaultPayload.create(checksum));
 
             sink.complete();
@@ -220,11 +223,12 @@ class JSyncRSocketHandlerByteBuffer implements RSocket {
 
         final String baseDir = getSerializer().readString(bufferData);
         final boolean followSymLinks = getSerializer().readBoolean(bufferData);
+        final int parallelism = getSerializer().readInteger(bufferData);
         final PathFilter pathFilter = getSerializer().readPathFilter(bufferData);
 
-        return fileSystem.generateSyncItems(baseDir, followSymLinks, pathFilter).map(syncItem -> {
+        return SyncItemListSerializer.batch(fileSystem.generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter)).map(syncItems -> {
             final ByteBuffer buffer = JSyncRSocketHandlerByteBuffer.BYTEBUFFER_POOL.get();
-            getSerializer().write(buffer, syncItem);
+            getSerializer().writeSyncItems(buffer, syncItems);
             return buffer.flip();
         }).map(DefaultPayload::create);
 
@@ -247,7 +251,7 @@ class JSyncRSocketHandlerByteBuffer implements RSocket {
         final String relativeFile = getSerializer().readString(bufferData);
         final long sizeOfFile = getSerializer().readLong(bufferData);
 
-        return sender.readFile(baseDir, relativeFile, sizeOfFile)
+        return sender.readFile(baseDir, relativeFile, 0L, sizeOfFile)
                 .map(DefaultPayload::create)
                 ;
     }
@@ -272,7 +276,7 @@ class JSyncRSocketHandlerByteBuffer implements RSocket {
         final SyncItem syncItem = getSerializer().readSyncItem(bufferData);
         final boolean withChecksum = getSerializer().readBoolean(bufferData);
 
-        receiver.validateFile(baseDir, syncItem, withChecksum, null);
+        receiver.validateFile(baseDir, syncItem, withChecksum ? ChecksumAlgorithm.SHA256 : null, null);
 
         final Payload responsePayload = DefaultPayload.create("OK");
 
@@ -286,7 +290,7 @@ class JSyncRSocketHandlerByteBuffer implements RSocket {
         final String relativeFile = getSerializer().readString(bufferData);
         final long sizeOfFile = getSerializer().readLong(bufferData);
 
-        return receiver.writeFile(baseDir, relativeFile, sizeOfFile, flux.map(Payload::getData))
+        return receiver.writeFile(baseDir, relativeFile, 0L, sizeOfFile, ChecksumAlgorithm.SHA256, null, Durability.FILE, flux.map(Payload::getData))
                 .map(bytesWritten -> {
                     final ByteBuffer buffer = JSyncRSocketHandlerByteBuffer.BYTEBUFFER_POOL.get();
                     buffer.putLong(bytesWritten).flip();
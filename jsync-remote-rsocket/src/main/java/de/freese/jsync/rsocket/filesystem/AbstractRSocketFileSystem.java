@@ -4,6 +4,7 @@ package de.freese.jsync.rsocket.filesystem;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.UnaryOperator;
 
@@ -15,7 +16,8 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.netty.tcp.TcpClient;
 
-import de.freese.jsync.filesystem.AbstractFileSystem;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.filesystem.AbstractRemoteFileSystem;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.model.JSyncCommand;
 import de.freese.jsync.model.SyncItem;
@@ -29,7 +31,16 @@ import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 /**
  * @author Thomas Freese
  */
-public abstract class AbstractRSocketFileSystem extends AbstractFileSystem {
+public abstract class AbstractRSocketFileSystem extends AbstractRemoteFileSystem {
+    /**
+     * Arguments of a Request: Paths, SyncItem, ...
+     */
+    protected static final int ARGUMENTS_BUFFER_SIZE = 1024 * 64;
+    /**
+     * Name of the {@link JSyncCommand}.
+     */
+    protected static final int COMMAND_BUFFER_SIZE = 64;
+
     private static final ByteBufferPool BYTEBUFFER_POOL = ByteBufferPool.DEFAULT;
 
     protected static ByteBufferPool getByteBufferPool() {
@@ -42,13 +53,13 @@ public abstract class AbstractRSocketFileSystem extends AbstractFileSystem {
 
     @Override
     public void disconnect() {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, JSyncCommand.DISCONNECT);
 
         getClient()
                 .requestResponse(Mono.just(DefaultPayload.create(DefaultPayload.EMPTY_BUFFER, bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> getByteBufferPool().free(bufferMeta))
                 )
+                .doFinally(signalType -> getByteBufferPool().free(bufferMeta))
                 .map(Payload::getDataUtf8)
                 .doOnNext(getLogger()::debug)
                 .doOnError(th -> getLogger().warn(th.getMessage()))
@@ -69,15 +80,19 @@ public abstract class AbstractRSocketFileSystem extends AbstractFileSystem {
             client = createClientLocal();
         }
 
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
 
         getSerializer().write(bufferMeta, JSyncCommand.CONNECT);
 
         client.requestResponse(Mono.just(DefaultPayload.create(DefaultPayload.EMPTY_BUFFER, bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> getByteBufferPool().free(bufferMeta))
                 )
-                .map(Payload::getDataUtf8)
-                .doOnNext(getLogger()::debug)
+                .doFinally(signalType -> getByteBufferPool().free(bufferMeta))
+                // The Response contains the Compression-Codecs and in the Metadata the Checksum-Algorithms of the Server.
+                .doOnNext(payload -> {
+                    getLogger().debug(payload.getDataUtf8());
+                    setRemoteCompressionCodecs(payload.getDataUtf8());
+                    setRemoteChecksumAlgorithms(payload.getMetadataUtf8());
+                })
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
                 .block()
         //.subscribe()
@@ -104,21 +119,23 @@ public abstract class AbstractRSocketFileSystem extends AbstractFileSystem {
                 ;
     }
 
-    protected String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead, final JSyncCommand command) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+    protected String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead,
+                                      final JSyncCommand command) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, command);
 
         final ByteBuffer bufferData = getByteBufferPool().get();
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().writeString(bufferData, relativeFile);
+        getSerializer().writeString(bufferData, algorithm.getName());
 
         return getClient()
                 .requestStream(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .map(Payload::getDataUtf8)
                 .doOnNext(getLogger()::debug)
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
@@ -131,28 +148,30 @@ public abstract class AbstractRSocketFileSystem extends AbstractFileSystem {
                 ;
     }
 
-    protected Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter, final JSyncCommand command) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+    protected Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter, final JSyncCommand command) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, command);
 
-        final ByteBuffer bufferData = getByteBufferPool().get();
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().writeBoolean(bufferData, followSymLinks);
+        getSerializer().writeInteger(bufferData, parallelism);
         getSerializer().write(bufferData, pathFilter);
 
         return getClient()
                 .requestStream(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .publishOn(Schedulers.boundedElastic()) // Consumer calls generateChecksum = swap to another Thread or an Exception is caused !
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
                 .map(payload -> {
                     final ByteBuffer buffer = payload.getData();
-                    return getSerializer().readSyncItem(buffer);
+                    return getSerializer().readSyncItems(buffer);
                 })
+                .flatMapIterable(Function.identity())
                 ;
     }
 
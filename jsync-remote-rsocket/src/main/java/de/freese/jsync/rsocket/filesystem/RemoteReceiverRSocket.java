@@ -3,6 +3,8 @@ package de.freese.jsync.rsocket.filesystem;
 
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.LongConsumer;
 
 import io.rsocket.Payload;
@@ -11,10 +13,18 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.resources.LoopResources;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.Receiver;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.filter.PathFilterNoOp;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
+import de.freese.jsync.model.ReceiverOperation;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
 
 /**
@@ -26,6 +36,43 @@ public class RemoteReceiverRSocket extends AbstractRSocketFileSystem implements
      */
     private static final LoopResources LOOP_RESOURCES = LoopResources.create("receiver", 4, true);
 
+    @Override
+    public List<String> batch(final String baseDir, final List<ReceiverOperation> operations) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.TARGET_BATCH);
+
+        // The Operations can be bigger than the Arguments of a single Command.
+        final ByteBuffer bufferData = getByteBufferPool().get();
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeInteger(bufferData, operations.size());
+
+        for (final ReceiverOperation operation : operations) {
+            getSerializer().write(bufferData, operation);
+        }
+
+        return getClient()
+                .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
+                )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> {
+                    final ByteBuffer buffer = payload.getData();
+                    final int count = getSerializer().readInteger(buffer);
+                    final List<String> results = new ArrayList<>(count);
+
+                    for (int i = 0; i < count; i++) {
+                        results.add(getSerializer().readString(buffer));
+                    }
+
+                    return results;
+                })
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                .block()
+                ;
+    }
+
     @Override
     public void connect(final URI uri) {
         connect(uri, tcpClient -> tcpClient.runOn(LOOP_RESOURCES));
@@ -33,20 +80,20 @@ public class RemoteReceiverRSocket extends AbstractRSocketFileSystem implements
 
     @Override
     public void createDirectory(final String baseDir, final String relativePath) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, JSyncCommand.TARGET_CREATE_DIRECTORY);
 
-        final ByteBuffer bufferData = getByteBufferPool().get();
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().writeString(bufferData, relativePath);
 
         getClient()
                 .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .map(Payload::getDataUtf8)
                 .doOnNext(getLogger()::debug)
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
@@ -56,21 +103,21 @@ public class RemoteReceiverRSocket extends AbstractRSocketFileSystem implements
 
     @Override
     public void delete(final String baseDir, final String relativePath, final boolean followSymLinks) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, JSyncCommand.TARGET_DELETE);
 
-        final ByteBuffer bufferData = getByteBufferPool().get();
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().writeString(bufferData, relativePath);
         getSerializer().writeBoolean(bufferData, followSymLinks);
 
         getClient()
                 .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .map(Payload::getDataUtf8)
                 .doOnNext(getLogger()::debug)
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
@@ -79,31 +126,143 @@ public class RemoteReceiverRSocket extends AbstractRSocketFileSystem implements
     }
 
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        return generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead, JSyncCommand.TARGET_CHECKSUM);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        return generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead, JSyncCommand.TARGET_CHECKSUM);
+    }
+
+    @Override
+    public FileSignature generateSignature(final String baseDir, final String relativeFile) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.TARGET_SIGNATURE);
+
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeString(bufferData, relativeFile);
+
+        return getClient()
+                .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
+                )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> getSerializer().readFileSignature(payload.getData()))
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                .block()
+                ;
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        return generateSyncItems(baseDir, followSymLinks, PathFilterNoOp.INSTANCE, JSyncCommand.TARGET_CREATE_SYNC_ITEMS);
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        return generateSyncItems(baseDir, followSymLinks, parallelism, PathFilterNoOp.INSTANCE, JSyncCommand.TARGET_CREATE_SYNC_ITEMS);
+    }
+
+    @Override
+    public long[] getLastModifiedTimes(final String baseDir, final List<String> relativePaths) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.TARGET_LAST_MODIFIED_TIMES);
+
+        // The Paths can be bigger than the Arguments of a single Command.
+        final ByteBuffer bufferData = getByteBufferPool().get();
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeInteger(bufferData, relativePaths.size());
+
+        for (final String relativePath : relativePaths) {
+            getSerializer().writeString(bufferData, relativePath);
+        }
+
+        return getClient()
+                .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
+                )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> {
+                    final ByteBuffer buffer = payload.getData();
+                    final long[] lastModifiedTimes = new long[getSerializer().readInteger(buffer)];
+
+                    for (int i = 0; i < lastModifiedTimes.length; i++) {
+                        lastModifiedTimes[i] = getSerializer().readLong(buffer);
+                    }
+
+                    return lastModifiedTimes;
+                })
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                .block()
+                ;
+    }
+
+    @Override
+    public ResumePoint getResumePoint(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.TARGET_RESUME_POINT);
+
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeString(bufferData, relativeFile);
+        getSerializer().writeString(bufferData, algorithm.getName());
+
+        return getClient()
+                .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
+                )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> {
+                    final ByteBuffer buffer = payload.getData();
+
+                    return new ResumePoint(getSerializer().readLong(buffer), getSerializer().readString(buffer));
+                })
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                .block()
+                ;
+    }
+
+    @Override
+    public Flux<Long> patchFile(final String baseDir, final String relativeFile, final long sizeOfFile, final int blockSize, final Flux<ByteBuffer> deltaFlux) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.TARGET_PATCH_FILE);
+
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeString(bufferData, relativeFile);
+        getSerializer().writeLong(bufferData, sizeOfFile);
+        getSerializer().writeInteger(bufferData, blockSize);
+
+        final Flux<Payload> flux = Flux.concat(
+                Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip())),
+                deltaFlux.map(DefaultPayload::create)
+        );
+
+        return getClient()
+                .requestChannel(flux)
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> payload.data().readLong())
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                ;
     }
 
     @Override
     public void update(final String baseDir, final SyncItem syncItem) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, JSyncCommand.TARGET_UPDATE);
 
-        final ByteBuffer bufferData = getByteBufferPool().get();
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().write(bufferData, syncItem);
 
         getClient()
                 .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .map(Payload::getDataUtf8)
                 .doOnNext(getLogger()::debug)
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
@@ -112,22 +271,22 @@ public class RemoteReceiverRSocket extends AbstractRSocketFileSystem implements
     }
 
     @Override
-    public void validateFile(final String baseDir, final SyncItem syncItem, final boolean withChecksum, final LongConsumer consumerChecksumBytesRead) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+    public void validateFile(final String baseDir, final SyncItem syncItem, final ChecksumAlgorithm checksumAlgorithm, final LongConsumer consumerChecksumBytesRead) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, JSyncCommand.TARGET_VALIDATE_FILE);
 
-        final ByteBuffer bufferData = getByteBufferPool().get();
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().write(bufferData, syncItem);
-        getSerializer().writeBoolean(bufferData, withChecksum);
+        getSerializer().writeString(bufferData, checksumAlgorithm == null ? null : checksumAlgorithm.getName());
 
         getClient()
                 .requestStream(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .map(Payload::getDataUtf8)
                 .doOnNext(getLogger()::debug)
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
@@ -137,26 +296,42 @@ public class RemoteReceiverRSocket extends AbstractRSocketFileSystem implements
     }
 
     @Override
-    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long sizeOfFile, final Flux<ByteBuffer> fileFlux) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
+    public Flux<Long> writeFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile, final ChecksumAlgorithm checksumAlgorithm,
+                                final String checksum, final Durability durability, final Flux<ByteBuffer> fileFlux) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
         getSerializer().write(bufferMeta, JSyncCommand.TARGET_WRITE_FILE);
 
-        final ByteBuffer bufferData = getByteBufferPool().get();
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().writeString(bufferData, relativeFile);
+        getSerializer().writeLong(bufferData, position);
         getSerializer().writeLong(bufferData, sizeOfFile);
+        getSerializer().writeString(bufferData, checksumAlgorithm.getName());
+        getSerializer().writeString(bufferData, checksum);
+        getSerializer().writeString(bufferData, durability.getName());
+
+        final CompressionCodec codec = getCompressionCodec();
+        getSerializer().writeString(bufferData, codec.getName());
+
+        Flux<ByteBuffer> data = fileFlux;
+
+        if (!CompressionCodecs.isNone(codec)) {
+            // The Chunks are owned by the Payloads.
+            final ChunkCompressor compressor = createChunkCompressor(getByteBufferPool());
+            data = fileFlux.concatMapIterable(compressor::compress);
+        }
 
         final Flux<Payload> flux = Flux.concat(
-                Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        }),
-                fileFlux.map(DefaultPayload::create)
+                Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip())),
+                data.map(DefaultPayload::create)
         );
 
         return getClient()
                 .requestChannel(flux)
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
                 .map(payload -> payload.data().readLong())
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
                 ;
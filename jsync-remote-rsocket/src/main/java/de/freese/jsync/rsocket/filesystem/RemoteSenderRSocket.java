@@ -11,10 +11,15 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.resources.LoopResources;
 
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.compression.CompressionCodec;
+import de.freese.jsync.compression.CompressionCodecs;
 import de.freese.jsync.filesystem.Sender;
 import de.freese.jsync.filter.PathFilter;
+import de.freese.jsync.model.FileSignature;
 import de.freese.jsync.model.JSyncCommand;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.rsocket.utils.RSocketUtils;
 
 /**
  * @author Thomas Freese
@@ -31,33 +36,96 @@ public class RemoteSenderRSocket extends AbstractRSocketFileSystem implements Se
     }
 
     @Override
-    public String generateChecksum(final String baseDir, final String relativeFile, final LongConsumer consumerChecksumBytesRead) {
-        return generateChecksum(baseDir, relativeFile, consumerChecksumBytesRead, JSyncCommand.SOURCE_CHECKSUM);
+    public String generateChecksum(final String baseDir, final String relativeFile, final ChecksumAlgorithm algorithm, final LongConsumer consumerChecksumBytesRead) {
+        return generateChecksum(baseDir, relativeFile, algorithm, consumerChecksumBytesRead, JSyncCommand.SOURCE_CHECKSUM);
     }
 
     @Override
-    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final PathFilter pathFilter) {
-        return generateSyncItems(baseDir, followSymLinks, pathFilter, JSyncCommand.SOURCE_CREATE_SYNC_ITEMS);
+    public String generateChunkChecksum(final String baseDir, final String relativeFile, final long position, final long length, final ChecksumAlgorithm algorithm) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.SOURCE_CHUNK_CHECKSUM);
+
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeString(bufferData, relativeFile);
+        getSerializer().writeLong(bufferData, position);
+        getSerializer().writeLong(bufferData, length);
+        getSerializer().writeString(bufferData, algorithm.getName());
+
+        return getClient()
+                .requestResponse(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
+                )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(Payload::getDataUtf8)
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                .block()
+                ;
     }
 
     @Override
-    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long sizeOfFile) {
-        final ByteBuffer bufferMeta = getByteBufferPool().get();
-        getSerializer().write(bufferMeta, JSyncCommand.SOURCE_READ_FILE);
+    public Flux<SyncItem> generateSyncItems(final String baseDir, final boolean followSymLinks, final int parallelism, final PathFilter pathFilter) {
+        return generateSyncItems(baseDir, followSymLinks, parallelism, pathFilter, JSyncCommand.SOURCE_CREATE_SYNC_ITEMS);
+    }
+
+    @Override
+    public Flux<ByteBuffer> readDelta(final String baseDir, final String relativeFile, final long sizeOfFile, final FileSignature signature) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.SOURCE_READ_DELTA);
 
         final ByteBuffer bufferData = getByteBufferPool().get();
         getSerializer().writeString(bufferData, baseDir);
         getSerializer().writeString(bufferData, relativeFile);
         getSerializer().writeLong(bufferData, sizeOfFile);
+        getSerializer().write(bufferData, signature);
 
         return getClient()
                 .requestStream(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
-                        .doOnSubscribe(subscription -> {
-                            getByteBufferPool().free(bufferMeta);
-                            getByteBufferPool().free(bufferData);
-                        })
                 )
-                .map(Payload::getData)
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> RSocketUtils.copyData(payload, getByteBufferPool()))
+                .doOnError(th -> getLogger().error(th.getMessage(), th))
+                ;
+    }
+
+    @Override
+    public Flux<ByteBuffer> readFile(final String baseDir, final String relativeFile, final long position, final long sizeOfFile) {
+        final ByteBuffer bufferMeta = getByteBufferPool().get(COMMAND_BUFFER_SIZE);
+        getSerializer().write(bufferMeta, JSyncCommand.SOURCE_READ_FILE);
+
+        final ByteBuffer bufferData = getByteBufferPool().get(ARGUMENTS_BUFFER_SIZE);
+        getSerializer().writeString(bufferData, baseDir);
+        getSerializer().writeString(bufferData, relativeFile);
+        getSerializer().writeLong(bufferData, position);
+        getSerializer().writeLong(bufferData, sizeOfFile);
+
+        final CompressionCodec codec = getCompressionCodec();
+        getSerializer().writeString(bufferData, codec.getName());
+        getSerializer().writeInteger(bufferData, getCompressionLevel());
+
+        return getClient()
+                .requestStream(Mono.just(DefaultPayload.create(bufferData.flip(), bufferMeta.flip()))
+                )
+                .doFinally(signalType -> {
+                    getByteBufferPool().free(bufferMeta);
+                    getByteBufferPool().free(bufferData);
+                })
+                .map(payload -> {
+                    if (CompressionCodecs.isNone(codec)) {
+                        return RSocketUtils.copyData(payload, getByteBufferPool());
+                    }
+
+                    final int compressedBytes = payload.data().readableBytes();
+                    final ByteBuffer buffer = RSocketUtils.decompressData(payload, getByteBufferPool());
+                    getCompressionStatistics().add(buffer.remaining(), compressedBytes);
+
+                    return buffer;
+                })
                 .doOnError(th -> getLogger().error(th.getMessage(), th))
                 ;
     }
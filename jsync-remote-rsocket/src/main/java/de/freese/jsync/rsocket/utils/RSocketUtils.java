@@ -8,10 +8,41 @@ import java.nio.channels.WritableByteChannel;
 
 import io.rsocket.Payload;
 
+import de.freese.jsync.compression.ChunkCompressor;
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
+
 /**
  * @author Thomas Freese
  */
 public final class RSocketUtils {
+    /**
+     * Copies the Data into a {@link ByteBuffer} of the {@link ByteBufferPool} and releases the {@link Payload}.<br>
+     * The Data of the Payload belong to Netty and must not get into the {@link ByteBufferPool}.
+     */
+    public static ByteBuffer copyData(final Payload payload, final ByteBufferPool byteBufferPool) {
+        try {
+            final ByteBuffer data = payload.getData();
+            final ByteBuffer buffer = byteBufferPool.get(data.remaining());
+
+            return buffer.put(data).flip();
+        }
+        finally {
+            release(payload);
+        }
+    }
+
+    /**
+     * Decompresses the Chunk of the Data into a {@link ByteBuffer} of the {@link ByteBufferPool} and releases the {@link Payload}.
+     */
+    public static ByteBuffer decompressData(final Payload payload, final ByteBufferPool byteBufferPool) {
+        try {
+            return ChunkCompressor.decompress(payload.getData(), byteBufferPool);
+        }
+        finally {
+            release(payload);
+        }
+    }
+
     public static void release(final Payload payload) {
         if (payload == null) {
             return;
@@ -20,6 +20,11 @@ import de.freese.jsync.utils.JSyncUtils;
 abstract class AbstractJSyncIoTest {
     private static final Path PATH_TEST = Paths.get(System.getProperty("java.io.tmpdir"), "jsync");
 
+    static {
+        // The Tests must not use the Checksum-Cache of the User.
+        System.setProperty("jsync.checksum.cache.dir", PATH_TEST.resolve("checksums").toString());
+    }
+
     protected static Path createDestPath(final Class<? extends AbstractJSyncIoTest> testClass) {
         return PATH_TEST.resolve("dest").resolve(testClass.getSimpleName());
     }
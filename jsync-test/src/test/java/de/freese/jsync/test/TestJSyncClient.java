@@ -1,28 +1,52 @@
 // Created: 18.07.2021
 package de.freese.jsync.test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 
 import de.freese.jsync.Options;
 import de.freese.jsync.Options.Builder;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
 import de.freese.jsync.client.Client;
 import de.freese.jsync.client.DefaultClient;
+import de.freese.jsync.client.SyncManifest;
 import de.freese.jsync.client.listener.EmptyClientListener;
+import de.freese.jsync.filesystem.Durability;
 import de.freese.jsync.filesystem.EFileSystem;
+import de.freese.jsync.filesystem.local.LocalhostReceiver;
+import de.freese.jsync.filesystem.local.LocalhostSender;
 import de.freese.jsync.filter.PathFilterNoOp;
+import de.freese.jsync.model.DefaultSyncItem;
+import de.freese.jsync.model.ResumePoint;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.model.SyncItemStore;
 import de.freese.jsync.model.SyncPair;
+import de.freese.jsync.model.SyncPairStore;
+import de.freese.jsync.model.SyncStatus;
+import de.freese.jsync.utils.DigestUtils;
+import de.freese.jsync.utils.JSyncUtils;
 
 /**
  * @author Thomas Freese
@@ -68,6 +92,214 @@ class TestJSyncClient extends AbstractJSyncIoTest {
         assertTrue(true);
     }
 
+    @Test
+    void testLocalToLocalParallel() {
+        final URI senderUri = PATH_SOURCE.toUri();
+        final URI receiverUri = PATH_DEST.toUri();
+
+        final Options optionsParallel = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false)
+                .parallel(true).maxInFlightFiles(2).maxInFlightBytes(1024L * 1024L * 8L).build();
+
+        syncDirectories(optionsParallel, senderUri, receiverUri);
+
+        assertTrue(true);
+    }
+
+    @Test
+    void testManifest() throws Exception {
+        final URI senderUri = PATH_SOURCE.toUri();
+        final URI receiverUri = PATH_DEST.toUri();
+        final Path manifestDir = Files.createTempDirectory("jsync-manifest");
+        System.setProperty("jsync.manifest.dir", manifestDir.toString());
+
+        try {
+            final Options optionsManifest = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false).manifest(true).build();
+
+            syncDirectories(optionsManifest, senderUri, receiverUri);
+
+            final Path manifestFile = SyncManifest.getManifestFile(senderUri, receiverUri);
+            final SyncManifest manifest = SyncManifest.load(manifestFile);
+            assertNotNull(manifest);
+            assertTrue(manifest.isUpToDate(new LocalhostReceiver(), PATH_DEST.toString()));
+
+            // A new File with unchanged Directory-Time is not seen, the Receiver is not listed.
+            final FileTime lastModifiedTime = Files.getLastModifiedTime(PATH_DEST);
+            Files.writeString(PATH_DEST.resolve("hidden.txt"), "hidden");
+            Files.setLastModifiedTime(PATH_DEST, lastModifiedTime);
+
+            final Client client = new DefaultClient(optionsManifest, senderUri, receiverUri);
+            client.connectFileSystems();
+            final List<SyncItem> syncItems = client.generateSyncItems(EFileSystem.RECEIVER, PathFilterNoOp.INSTANCE).collectList().block();
+            client.disconnectFileSystems();
+
+            assertNotNull(syncItems);
+            assertEquals(manifest.size(), syncItems.size());
+            assertTrue(syncItems.stream().noneMatch(syncItem -> "hidden.txt".equals(syncItem.getRelativePath())));
+
+            // A changed Directory invalidates the Manifest.
+            Files.setLastModifiedTime(PATH_DEST, FileTime.fromMillis(lastModifiedTime.toMillis() + 2000L));
+            assertFalse(manifest.isUpToDate(new LocalhostReceiver(), PATH_DEST.toString()));
+
+            // The next Synchronisation lists the Receiver and deletes the File.
+            syncDirectories(optionsManifest, senderUri, receiverUri);
+            assertFalse(Files.exists(PATH_DEST.resolve("hidden.txt")));
+            assertTrue(SyncManifest.load(manifestFile).isUpToDate(new LocalhostReceiver(), PATH_DEST.toString()));
+        }
+        finally {
+            System.clearProperty("jsync.manifest.dir");
+            JSyncUtils.delete(manifestDir, false);
+        }
+    }
+
+    @Test
+    void testMergeSyncItemsStreaming() {
+        final Client client = new DefaultClient(options, PATH_SOURCE.toUri(), PATH_DEST.toUri());
+
+        final Flux<SyncItem> syncItemsSender = Flux.just("a", "b", "c/d", "e").map(DefaultSyncItem::new);
+        final Flux<SyncItem> syncItemsReceiver = Flux.just("b", "c", "c/d", "f").map(DefaultSyncItem::new);
+
+        final List<SyncPair> syncPairs = client.mergeSyncItems(syncItemsSender, syncItemsReceiver).collectList().block();
+
+        assertNotNull(syncPairs);
+        assertEquals(List.of("a", "b", "c", "c/d", "e", "f"), syncPairs.stream().map(SyncPair::getRelativePath).toList());
+
+        syncPairs.forEach(SyncPair::validateStatus);
+        assertEquals(SyncStatus.ONLY_IN_SOURCE, syncPairs.get(0).getStatus());
+        assertEquals(SyncStatus.SYNCHRONIZED, syncPairs.get(1).getStatus());
+        assertEquals(SyncStatus.ONLY_IN_TARGET, syncPairs.get(2).getStatus());
+        assertEquals(SyncStatus.SYNCHRONIZED, syncPairs.get(3).getStatus());
+        assertEquals(SyncStatus.ONLY_IN_SOURCE, syncPairs.get(4).getStatus());
+        assertEquals(SyncStatus.ONLY_IN_TARGET, syncPairs.get(5).getStatus());
+
+        // Unsorted Input.
+        final Flux<SyncItem> syncItemsUnsorted = Flux.just("b", "a").map(DefaultSyncItem::new);
+        final Flux<SyncPair> syncPairsUnsorted = client.mergeSyncItems(syncItemsUnsorted, Flux.empty());
+        assertThrows(IllegalStateException.class, syncPairsUnsorted::blockLast);
+    }
+
+    @Test
+    void testSyncItemStore() {
+        final SyncItemStore store = new SyncItemStore();
+
+        for (final String relativePath : List.of("a", "a/b", "a/c.txt", "d\\e.txt")) {
+            final SyncItem syncItem = new DefaultSyncItem(relativePath);
+            syncItem.setFile(relativePath.endsWith(".txt"));
+            syncItem.setSize(relativePath.length());
+            syncItem.setLastModifiedTime(1_000L + relativePath.length());
+            syncItem.setChecksum(syncItem.isFile() ? JSyncUtils.bytesToHex(DigestUtils.sha256Digest(relativePath.getBytes(StandardCharsets.UTF_8))) : null);
+
+            store.add(syncItem);
+        }
+
+        assertEquals(List.of("a", "a/b", "a/c.txt", "d\\e.txt"), store.stream().map(SyncItem::getRelativePath).toList());
+        assertFalse(store.get(1).isFile());
+        assertEquals(7L, store.get(2).getSize());
+        assertEquals(1_007L, store.get(2).getLastModifiedTime());
+        assertNull(store.get(0).getChecksum());
+        assertEquals(JSyncUtils.bytesToHex(DigestUtils.sha256Digest("d\\e.txt".getBytes(StandardCharsets.UTF_8))), store.get(3).getChecksum());
+
+        // The Flyweights write into the Store.
+        store.get(2).setChecksum(null);
+        store.get(1).setSize(5L);
+        assertNull(store.get(2).getChecksum());
+        assertEquals(5L, store.get(1).getSize());
+
+        assertThrows(IllegalArgumentException.class, () -> store.get(0).setChecksum("abcd"));
+
+        final Client client = new DefaultClient(options, PATH_SOURCE.toUri(), PATH_DEST.toUri());
+        final List<SyncPair> syncPairs = client.mergeSyncItems(store, new SyncItemStore());
+        assertEquals(4, syncPairs.size());
+        syncPairs.forEach(SyncPair::validateStatus);
+        assertTrue(syncPairs.stream().allMatch(syncPair -> SyncStatus.ONLY_IN_SOURCE.equals(syncPair.getStatus())));
+    }
+
+    @Test
+    void testSyncPairStore() {
+        final SyncItem senderItem = new DefaultSyncItem("dir/new.txt");
+        senderItem.setFile(true);
+        senderItem.setSize(3L);
+        senderItem.setChecksum(JSyncUtils.bytesToHex(DigestUtils.sha256Digest("new".getBytes(StandardCharsets.UTF_8))));
+
+        final SyncItem receiverItem = new DefaultSyncItem("dir/old.txt");
+        receiverItem.setFile(true);
+        receiverItem.setSize(5L);
+
+        final SyncPairStore store = new SyncPairStore();
+        store.add(new SyncPair(senderItem, null, SyncStatus.ONLY_IN_SOURCE));
+        store.add(new SyncPair(null, receiverItem, SyncStatus.ONLY_IN_TARGET));
+        store.trimToSize();
+
+        assertEquals(2, store.size());
+        assertEquals("dir/new.txt", store.get(0).getRelativePath());
+        assertEquals(senderItem.getChecksum(), store.get(0).getSenderItem().getChecksum());
+        assertNull(store.get(0).getReceiverItem());
+        assertEquals(SyncStatus.ONLY_IN_SOURCE, store.get(0).getStatus());
+        assertNull(store.get(1).getSenderItem());
+        assertEquals(5L, store.get(1).getReceiverItem().getSize());
+        assertEquals(SyncStatus.ONLY_IN_TARGET, store.get(1).getStatus());
+
+        // The Store grows after the Trim.
+        store.add(new SyncPair(senderItem, receiverItem, SyncStatus.DIFFERENT_SIZE));
+        assertEquals(SyncStatus.DIFFERENT_SIZE, store.get(2).getStatus());
+    }
+
+    @Test
+    void testWriteFileAtomic() throws Exception {
+        final Path path = PATH_DEST.resolve("atomic.txt");
+        Files.createDirectories(PATH_DEST);
+        Files.writeString(path, "old");
+
+        final LocalhostReceiver receiver = new LocalhostReceiver();
+        final byte[] bytes = "new content".getBytes(StandardCharsets.UTF_8);
+        final String checksum = JSyncUtils.bytesToHex(DigestUtils.sha256Digest(bytes));
+
+        // A wrong Checksum keeps the existing File.
+        final Flux<Long> invalid = receiver.writeFile(PATH_DEST.toString(), "atomic.txt", 0L, bytes.length, ChecksumAlgorithm.SHA256, "ABC", Durability.FILE,
+                Flux.just(ByteBuffer.wrap(bytes)));
+        assertThrows(IllegalStateException.class, invalid::blockLast);
+        assertEquals("old", Files.readString(path));
+        assertFalse(Files.exists(PATH_DEST.resolve(".atomic.txt" + LocalhostReceiver.TEMP_FILE_SUFFIX)));
+
+        receiver.writeFile(PATH_DEST.toString(), "atomic.txt", 0L, bytes.length, ChecksumAlgorithm.SHA256, checksum, Durability.DIRECTORY, Flux.just(ByteBuffer.wrap(bytes)))
+                .blockLast();
+        assertEquals("new content", Files.readString(path));
+        assertFalse(Files.exists(PATH_DEST.resolve(".atomic.txt" + LocalhostReceiver.TEMP_FILE_SUFFIX)));
+    }
+
+    @Test
+    void testWriteFileResume() throws Exception {
+        final byte[] bytes = new byte[(ResumePoint.CHUNK_SIZE * 2) + 100];
+        new Random(42).nextBytes(bytes);
+
+        final Path source = PATH_SOURCE.resolve("resume.bin");
+        Files.write(source, bytes);
+
+        // Partial File of an interrupted Transfer.
+        assertEquals(".resume.bin" + LocalhostReceiver.TEMP_FILE_SUFFIX, LocalhostReceiver.getTempFile("resume.bin"));
+        assertEquals("dir/.resume.bin" + LocalhostReceiver.TEMP_FILE_SUFFIX, LocalhostReceiver.getTempFile("dir/resume.bin"));
+
+        Files.createDirectories(PATH_DEST);
+        Files.write(PATH_DEST.resolve(LocalhostReceiver.getTempFile("resume.bin")), Arrays.copyOf(bytes, ResumePoint.CHUNK_SIZE + 500));
+
+        final LocalhostSender sender = new LocalhostSender();
+        final LocalhostReceiver receiver = new LocalhostReceiver();
+
+        final ResumePoint resumePoint = receiver.getResumePoint(PATH_DEST.toString(), "resume.bin", ChecksumAlgorithm.XXH64);
+        assertEquals(ResumePoint.CHUNK_SIZE, resumePoint.position());
+        assertEquals(sender.generateChunkChecksum(PATH_SOURCE.toString(), "resume.bin", 0L, ResumePoint.CHUNK_SIZE, ChecksumAlgorithm.XXH64), resumePoint.checksum());
+
+        // The Checksum covers the whole File, also the Prefix of the partial File.
+        final String checksum = DigestUtils.digestAsHex(source, ChecksumAlgorithm.XXH64, null);
+        final Flux<ByteBuffer> data = sender.readFile(PATH_SOURCE.toString(), "resume.bin", resumePoint.position(), bytes.length);
+
+        final long bytesWritten = receiver.writeFile(PATH_DEST.toString(), "resume.bin", resumePoint.position(), bytes.length, ChecksumAlgorithm.XXH64, checksum,
+                Durability.NONE, data).reduce(0L, Long::sum).block();
+
+        assertEquals(bytes.length - ResumePoint.CHUNK_SIZE, bytesWritten);
+        assertArrayEquals(bytes, Files.readAllBytes(PATH_DEST.resolve("resume.bin")));
+        assertEquals(ResumePoint.NONE, receiver.getResumePoint(PATH_DEST.toString(), "resume.bin", ChecksumAlgorithm.XXH64));
+    }
+
     private void syncDirectories(final Options options, final URI senderUri, final URI receiverUri) {
         final Client client = new DefaultClient(options, senderUri, receiverUri);
         client.connectFileSystems();
@@ -6,11 +6,17 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,8 +25,10 @@ import org.junit.jupiter.api.Test;
 import de.freese.jsync.filter.PathFilter;
 import de.freese.jsync.filter.PathFilterEndsWith;
 import de.freese.jsync.filter.PathFilterNoOp;
+import de.freese.jsync.generator.ChecksumCache;
 import de.freese.jsync.generator.DefaultGenerator;
 import de.freese.jsync.model.SyncItem;
+import de.freese.jsync.utils.DigestUtils;
 
 /**
  * @author Thomas Freese
@@ -39,6 +47,72 @@ class TestJSyncGenerator extends AbstractJSyncIoTest {
         createSourceStructure(PATH_SOURCE);
     }
 
+    @Test
+    void testChecksumCache() throws Exception {
+        final Path cacheFile = PATH_DEST.resolve("checksums.cache");
+        final Path file = PATH_SOURCE.resolve("file.txt");
+        final AtomicInteger calculations = new AtomicInteger();
+        final Supplier<String> supplier = () -> {
+            calculations.incrementAndGet();
+            return DigestUtils.sha256DigestAsHex(file);
+        };
+
+        ChecksumCache checksumCache = new ChecksumCache(cacheFile, 2);
+
+        // Just modified: a following Change could keep the Modification-Time, not cached.
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        final String checksum = checksumCache.getChecksum("file.txt", file, supplier);
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, supplier));
+        assertEquals(2, calculations.get());
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 10_000L));
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, supplier));
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, supplier));
+        assertEquals(3, calculations.get());
+
+        checksumCache.save();
+        assertTrue(Files.exists(cacheFile));
+
+        // Reload from Disk.
+        checksumCache = new ChecksumCache(cacheFile, 2);
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, supplier));
+        assertEquals(3, calculations.get());
+
+        // Changed Modification-Time: outdated.
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000L));
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, supplier));
+        assertEquals(4, calculations.get());
+
+        // Changed while hashing: not cached.
+        final Supplier<String> changingSupplier = () -> {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000L));
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            return supplier.get();
+        };
+        checksumCache = new ChecksumCache(PATH_DEST.resolve("checksums2.cache"), 2);
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, changingSupplier));
+        assertEquals(checksum, checksumCache.getChecksum("file.txt", file, supplier));
+        assertEquals(6, calculations.get());
+    }
+
+    @Test
+    void testDirectoryChildCount() {
+        for (int parallelism : new int[]{1, 4}) {
+            final Map<String, SyncItem> map = new DefaultGenerator().generateItems(PATH_SOURCE.toString(), false, parallelism, PathFilterNoOp.INSTANCE)
+                    .collectMap(SyncItem::getRelativePath)
+                    .block();
+
+            assertNotNull(map);
+            assertEquals(1L, map.get("v1").getSize());
+            assertEquals(2L, map.get("v2").getSize());
+        }
+    }
+
     @Test
     void testFileAttributes() {
         final SyncItem syncItem = new DefaultGenerator().generateItems(System.getProperty("user.dir"), false, PathFilterNoOp.INSTANCE)
@@ -94,4 +168,21 @@ class TestJSyncGenerator extends AbstractJSyncIoTest {
 
         assertEquals(7, syncItems.size());
     }
+
+    @Test
+    void testGeneratorParallel() {
+        final List<String> sequential = new DefaultGenerator().generateItems(PATH_SOURCE.toString(), false, 1, PathFilterNoOp.INSTANCE)
+                .map(SyncItem::getRelativePath)
+                .collectList()
+                .block();
+
+        final List<String> parallel = new DefaultGenerator().generateItems(PATH_SOURCE.toString(), false, 4, PathFilterNoOp.INSTANCE)
+                .map(SyncItem::getRelativePath)
+                .collectList()
+                .block();
+
+        assertNotNull(parallel);
+        assertEquals(7, parallel.size());
+        assertEquals(sequential, parallel);
+    }
 }
@@ -1,15 +1,28 @@
 // Created: 22.10.2016
 package de.freese.jsync.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -18,7 +31,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.reactivestreams.Subscription;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Hooks;
 
 import de.freese.jsync.Options;
@@ -33,6 +49,10 @@ import de.freese.jsync.model.SyncItem;
 import de.freese.jsync.model.SyncPair;
 import de.freese.jsync.nio.server.JSyncNioServer;
 import de.freese.jsync.nio.server.handler.JSyncIoHandler;
+import de.freese.jsync.nio.transport.NioConnection;
+import de.freese.jsync.nio.transport.NioFrameProtocol;
+import de.freese.jsync.nio.transport.NioStream;
+import de.freese.jsync.nio.transport.NioTls;
 import de.freese.jsync.rsocket.server.JSyncRSocketServer;
 import de.freese.jsync.utils.JSyncUtils;
 
@@ -98,6 +118,11 @@ class TestJSyncRemote extends AbstractJSyncIoTest {
         // assertTrue(true);
     }
 
+    @Test
+    void testLocalDelta() throws IOException {
+        syncDirectoriesDelta(PATH_SOURCE.toUri(), PATH_DEST.toUri());
+    }
+
     @Test
     void testNio() {
         startServerNio(8001);
@@ -110,6 +135,178 @@ class TestJSyncRemote extends AbstractJSyncIoTest {
         // assertTrue(true);
     }
 
+    @Test
+    void testNioParallel() {
+        startServerNio(8001);
+
+        final URI senderUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_SOURCE.toString());
+        final URI receiverUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_DEST.toString());
+
+        final Options optionsParallel = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false).parallel(true).build();
+
+        syncDirectories(optionsParallel, senderUri, receiverUri);
+
+        // assertTrue(true);
+    }
+
+    @Test
+    void testNioChecksumAlgorithm() {
+        startServerNio(8001);
+
+        final URI senderUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_SOURCE.toString());
+        final URI receiverUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_DEST.toString());
+
+        final Options optionsChecksum = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false).checksumAlgorithm("xxh64").build();
+
+        syncDirectories(optionsChecksum, senderUri, receiverUri);
+    }
+
+    @Test
+    void testNioCompression() {
+        startServerNio(8001);
+
+        final URI senderUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_SOURCE.toString());
+        final URI receiverUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_DEST.toString());
+
+        final Options optionsCompression = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false).compression("deflate").compressionLevel(1).build();
+
+        syncDirectories(optionsCompression, senderUri, receiverUri);
+    }
+
+    @Test
+    void testNioDelta() throws IOException {
+        startServerNio(8001);
+
+        final URI senderUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_SOURCE.toString());
+        final URI receiverUri = JSyncProtocol.NIO.toUri("localhost:8001", PATH_DEST.toString());
+
+        syncDirectoriesDelta(senderUri, receiverUri);
+    }
+
+    /**
+     * The Server can only send the Frames of the Receive-Window in Advance, a slow Subscriber does not buffer the whole Response.
+     */
+    @Test
+    void testNioSlowSubscriber() throws Exception {
+        final int frameCount = 16;
+        final AtomicInteger framesWritten = new AtomicInteger();
+        final NioFrameProtocol frameProtocol = new NioFrameProtocol();
+
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             SocketChannel clientChannel = SocketChannel.open(serverSocketChannel.getLocalAddress());
+             SocketChannel serverChannel = serverSocketChannel.accept()) {
+            final NioConnection serverConnection = new NioConnection(serverChannel, frameProtocol, serverStream -> Thread.ofVirtual().start(() -> {
+                final ByteBuffer data = ByteBuffer.allocate(NioFrameProtocol.DEFAULT_BUFFER_SIZE);
+
+                try (serverStream) {
+                    frameProtocol.bufferPool().free(serverStream.readFirst());
+
+                    for (int i = 0; i < frameCount; i++) {
+                        serverStream.writeData(data.clear());
+                        framesWritten.incrementAndGet();
+                    }
+
+                    serverStream.writeFinish();
+                }
+                catch (final Exception ex) {
+                    LoggerFactory.getLogger(TestJSyncRemote.class).error(ex.getMessage(), ex);
+                }
+            }));
+            serverConnection.startReader(Thread.ofVirtual().factory());
+
+            final NioConnection clientConnection = new NioConnection(clientChannel, frameProtocol, null);
+            clientConnection.startReader(Thread.ofVirtual().factory());
+
+            try (NioStream stream = clientConnection.openStream()) {
+                stream.writeData(buffer -> buffer.putInt(1));
+                stream.writeFinish();
+
+                final AtomicInteger framesRead = new AtomicInteger();
+
+                final BaseSubscriber<ByteBuffer> subscriber = new BaseSubscriber<>() {
+                    @Override
+                    protected void hookOnNext(final ByteBuffer value) {
+                        framesRead.incrementAndGet();
+                        frameProtocol.bufferPool().free(value);
+                    }
+
+                    @Override
+                    protected void hookOnSubscribe(final Subscription subscription) {
+                        request(1);
+                    }
+                };
+
+                stream.readAll().subscribe(subscriber);
+
+                JSyncUtils.sleep(TimeUnit.MILLISECONDS, 500L);
+
+                // The Receive-Window: 4 Frames.
+                assertEquals(1, framesRead.get());
+                assertTrue(framesWritten.get() <= 4, "frames written: " + framesWritten.get());
+
+                subscriber.request(Long.MAX_VALUE);
+
+                assertEquals(frameCount, framesRead.get());
+                assertEquals(frameCount, framesWritten.get());
+            }
+            finally {
+                clientConnection.close();
+                serverConnection.close();
+            }
+        }
+    }
+
+    /**
+     * The self-signed Certificate is generated by the keytool of the JDK.
+     */
+    @Test
+    void testNioTls() throws Exception {
+        final Path tlsDir = Files.createTempDirectory("jsync-tls");
+        final char[] password = "jsync-test".toCharArray();
+
+        try {
+            final Path keyStoreFile = tlsDir.resolve("server.p12");
+
+            final Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(), "-genkeypair", "-alias", "jsync", "-keyalg", "EC",
+                    "-groupname", "secp256r1", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-validity", "1", "-storetype", "PKCS12", "-keystore",
+                    keyStoreFile.toString(), "-storepass", new String(password), "-keypass", new String(password)).redirectErrorStream(true).start();
+            assertEquals(0, process.waitFor());
+
+            final KeyStore keyStore = NioTls.loadKeyStore(keyStoreFile, password);
+
+            final KeyStore trustStore = KeyStore.getInstance("PKCS12");
+            trustStore.load(null, null);
+            trustStore.setCertificateEntry("jsync", keyStore.getCertificate("jsync"));
+
+            final Path trustStoreFile = tlsDir.resolve("trust.p12");
+
+            try (OutputStream outputStream = Files.newOutputStream(trustStoreFile)) {
+                trustStore.store(outputStream, password);
+            }
+
+            System.setProperty("jsync.nio.tls.truststore", trustStoreFile.toString());
+            System.setProperty("jsync.nio.tls.truststore.password", new String(password));
+
+            final JSyncNioServer server = new JSyncNioServer(8003);
+            server.setName("nios");
+            server.setIoHandler(new JSyncIoHandler());
+            server.setSslContext(NioTls.createContext(keyStore, password, null));
+            server.start();
+            CLOSEABLES.put("nios", server::stop);
+
+            final URI senderUri = JSyncProtocol.NIOS.toUri("localhost:8003", PATH_SOURCE.toString());
+            final URI receiverUri = JSyncProtocol.NIOS.toUri("localhost:8003", PATH_DEST.toString());
+
+            syncDirectories(options, senderUri, receiverUri);
+        }
+        finally {
+            System.clearProperty("jsync.nio.tls.truststore");
+            System.clearProperty("jsync.nio.tls.truststore.password");
+
+            JSyncUtils.delete(tlsDir, false);
+        }
+    }
+
     @Test
     void testRSocket() {
         JSyncUtils.sleep(TimeUnit.MILLISECONDS, 500L);
@@ -124,9 +321,31 @@ class TestJSyncRemote extends AbstractJSyncIoTest {
         // assertTrue(true);
     }
 
+    @Test
+    void testRSocketCompression() {
+        startServerRSocket(8002);
+
+        final URI senderUri = JSyncProtocol.RSOCKET.toUri("localhost:8002", PATH_SOURCE.toString());
+        final URI receiverUri = JSyncProtocol.RSOCKET.toUri("localhost:8002", PATH_DEST.toString());
+
+        final Options optionsCompression = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false).compression("lz4").build();
+
+        syncDirectories(optionsCompression, senderUri, receiverUri);
+    }
+
+    @Test
+    void testRSocketDelta() throws IOException {
+        startServerRSocket(8002);
+
+        final URI senderUri = JSyncProtocol.RSOCKET.toUri("localhost:8002", PATH_SOURCE.toString());
+        final URI receiverUri = JSyncProtocol.RSOCKET.toUri("localhost:8002", PATH_DEST.toString());
+
+        syncDirectoriesDelta(senderUri, receiverUri);
+    }
+
     private void startServerNio(final int port) {
         if (!CLOSEABLES.containsKey("nio")) {
-            final JSyncNioServer server = new JSyncNioServer(port, 2, 4);
+            final JSyncNioServer server = new JSyncNioServer(port);
             server.setName("nio");
             server.setIoHandler(new JSyncIoHandler());
             server.start();
@@ -185,33 +404,55 @@ class TestJSyncRemote extends AbstractJSyncIoTest {
         final Client client = new DefaultClient(options, senderUri, receiverUri);
         client.connectFileSystems();
 
-        final List<SyncItem> syncItemsSender = new ArrayList<>();
-        client.generateSyncItems(EFileSystem.SENDER, PathFilterNoOp.INSTANCE, syncItem -> {
-            syncItemsSender.add(syncItem);
-            final String checksum = client.generateChecksum(EFileSystem.SENDER, syncItem, i -> {
-                // getLogger().info("Sender Bytes read: {}", i);
-            });
-            syncItem.setChecksum(checksum);
-        });
-
-        final List<SyncItem> syncItemsReceiver = new ArrayList<>();
-        client.generateSyncItems(EFileSystem.RECEIVER, PathFilterNoOp.INSTANCE, syncItem -> {
-            syncItemsReceiver.add(syncItem);
-            final String checksum = client.generateChecksum(EFileSystem.RECEIVER, syncItem, i -> {
-                // getLogger().info("Receiver Bytes read: {}", i);
-            });
-            syncItem.setChecksum(checksum);
-        });
-
-        final List<SyncPair> syncPairs = client.mergeSyncItems(syncItemsSender, syncItemsReceiver);
-
-        syncPairs.forEach(SyncPair::validateStatus);
+        final Flux<SyncItem> syncItemsSender = client.generateSyncItems(EFileSystem.SENDER, PathFilterNoOp.INSTANCE)
+                .doOnNext(syncItem -> {
+                    final String checksum = client.generateChecksum(EFileSystem.SENDER, syncItem, i -> {
+                        // getLogger().info("Sender Bytes read: {}", i);
+                    });
+                    syncItem.setChecksum(checksum);
+                });
+
+        final Flux<SyncItem> syncItemsReceiver = client.generateSyncItems(EFileSystem.RECEIVER, PathFilterNoOp.INSTANCE)
+                .doOnNext(syncItem -> {
+                    final String checksum = client.generateChecksum(EFileSystem.RECEIVER, syncItem, i -> {
+                        // getLogger().info("Receiver Bytes read: {}", i);
+                    });
+                    syncItem.setChecksum(checksum);
+                });
+
+        final List<SyncPair> syncPairs = client.mergeSyncItems(syncItemsSender, syncItemsReceiver)
+                .doOnNext(SyncPair::validateStatus)
+                .collectList()
+                .block();
 
         client.syncReceiver(syncPairs, new TestClientListener());
 
         client.disconnectFileSystems();
     }
 
+    /**
+     * Changes the large File in the Middle and at the End after the first Sync.
+     */
+    private void syncDirectoriesDelta(final URI senderUri, final URI receiverUri) throws IOException {
+        syncDirectories(options, senderUri, receiverUri);
+
+        final Path sourceFile = PATH_SOURCE.resolve("largeFile.bin");
+
+        try (RandomAccessFile raf = new RandomAccessFile(sourceFile.toFile(), "rw")) {
+            raf.seek(1024L * 1024L * 10L);
+            raf.write("delta in the middle".getBytes(StandardCharsets.UTF_8));
+
+            raf.seek(raf.length());
+            raf.write("delta at the end".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final Options optionsDelta = new Builder().delete(true).checksum(true).followSymLinks(false).dryRun(false).delta(true).build();
+
+        syncDirectories(optionsDelta, senderUri, receiverUri);
+
+        assertEquals(-1L, Files.mismatch(sourceFile, PATH_DEST.resolve("largeFile.bin")));
+    }
+
     // @Test
     // void testSpringRest() {
     // JSyncUtils.sleep(TimeUnit.MILLISECONDS, 500L);
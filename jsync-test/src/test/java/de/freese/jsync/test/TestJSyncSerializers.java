@@ -10,6 +10,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -294,6 +296,37 @@ class TestJSyncSerializers {
         //        assertEquals(42, syncItem2.getUser().getUid());
     }
 
+    @ParameterizedTest(name = "{index} -> {0}")
+    @MethodSource("createArguments")
+    void testSyncItems(final String name, final Serializer<Object, Object> serializer, final DataHolder dataHolder) {
+        final Object output = dataHolder.getOutput();
+
+        final List<SyncItem> syncItems = new ArrayList<>();
+
+        for (final String relativePath : List.of("dir", "dir/file.txt", "dir/file2.txt", "dir/sub", "dir/sub/\u00E4\u00F6\u00FC.txt", "other")) {
+            final SyncItem syncItem = new DefaultSyncItem(relativePath);
+            syncItem.setFile(relativePath.endsWith(".txt"));
+            syncItem.setSize(relativePath.length() * 1000L);
+            syncItem.setLastModifiedTime(1_700_000_000L - relativePath.length());
+            syncItem.setChecksum(relativePath.endsWith("file.txt") ? "ABC" : null);
+
+            syncItems.add(syncItem);
+        }
+
+        serializer.writeSyncItems(output, syncItems);
+
+        final List<SyncItem> result = serializer.readSyncItems(dataHolder.getInput());
+        assertEquals(syncItems.size(), result.size());
+
+        for (int i = 0; i < syncItems.size(); i++) {
+            assertEquals(syncItems.get(i).getRelativePath(), result.get(i).getRelativePath());
+            assertEquals(syncItems.get(i).isFile(), result.get(i).isFile());
+            assertEquals(syncItems.get(i).getSize(), result.get(i).getSize());
+            assertEquals(syncItems.get(i).getLastModifiedTime(), result.get(i).getLastModifiedTime());
+            assertEquals(syncItems.get(i).getChecksum(), result.get(i).getChecksum());
+        }
+    }
+
     @ParameterizedTest(name = "{index} -> {0}")
     @MethodSource("createArguments")
     void testUser(final String name, final Serializer<Object, Object> serializer, final DataHolder dataHolder) {
@@ -1,22 +1,71 @@
 // Created: 22.10.2016
 package de.freese.jsync.test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import reactor.core.publisher.Flux;
 
+import de.freese.jsync.Options;
+import de.freese.jsync.checksum.ChecksumAlgorithm;
+import de.freese.jsync.checksum.ChecksumDigest;
+import de.freese.jsync.checksum.Sha256TreeDigest;
 import de.freese.jsync.utils.DigestUtils;
 import de.freese.jsync.utils.JSyncUtils;
+import de.freese.jsync.utils.ReactiveUtils;
+import de.freese.jsync.utils.bandwidth.BandwidthScheduler;
+import de.freese.jsync.utils.bandwidth.TokenBucket;
+import de.freese.jsync.utils.pool.bytebuffer.ByteBufferPool;
 
 /**
  * @author Thomas Freese
  */
 @TestMethodOrder(MethodOrderer.MethodName.class)
 class TestJSyncUtils {
+    /**
+     * The Chunk of a small Job is granted before the queued Chunks of a Bulk-Job.
+     */
+    @Test
+    void testBandwidthScheduler() {
+        assertEquals(10L * 1024L * 1024L, JSyncUtils.parseSize("10M"));
+
+        try (BandwidthScheduler scheduler = new BandwidthScheduler(JSyncUtils.parseSize("1m"), 0L)) {
+            final BandwidthScheduler.Client bulk = scheduler.createClient("bulk");
+            final BandwidthScheduler.Client interactive = scheduler.createClient("interactive");
+
+            final List<CompletableFuture<Void>> bulkChunks = new ArrayList<>();
+
+            for (int i = 0; i < 8; i++) {
+                bulkChunks.add(bulk.reserve(BandwidthScheduler.QUANTUM));
+            }
+
+            interactive.reserve(64L * 1024L).join();
+
+            final long grantedBulkChunks = bulkChunks.stream().filter(CompletableFuture::isDone).count();
+
+            assertTrue(grantedBulkChunks <= 2, "granted bulk chunks: " + grantedBulkChunks);
+        }
+    }
+
     @Test
     void testBytesToHex() {
         final String hex = "0123456789ABCDEF";
@@ -32,4 +81,128 @@ class TestJSyncUtils {
 
         assertEquals(checksum1, checksum2);
     }
+
+    @Test
+    void testChecksumAlgorithms() {
+        assertEquals("E3069283", digestAsHex(ChecksumAlgorithm.CRC32C, "123456789".getBytes(StandardCharsets.US_ASCII), 4));
+        assertEquals("EF46DB3751D8E999", digestAsHex(ChecksumAlgorithm.XXH64, new byte[0], 1));
+        assertEquals("44BC2CF5AD770999", digestAsHex(ChecksumAlgorithm.XXH64, "abc".getBytes(StandardCharsets.US_ASCII), 1));
+
+        // The Result is independent of the Chunks.
+        final byte[] bytes = new byte[10_000];
+        new Random(42).nextBytes(bytes);
+
+        for (final ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            assertEquals(digestAsHex(algorithm, bytes, bytes.length), digestAsHex(algorithm, bytes, 13));
+        }
+    }
+
+    @Test
+    void testByteBufferPool() {
+        final ByteBufferPool pool = ByteBufferPool.DEFAULT;
+
+        final ByteBuffer header = pool.get(8);
+        assertEquals(64, header.capacity());
+
+        header.putLong(1L);
+        pool.free(header);
+
+        final ByteBuffer header2 = pool.get(10);
+        assertSame(header, header2);
+        assertEquals(0, header2.position());
+        pool.free(header2);
+
+        assertEquals(1024 * 64, pool.get(5000).capacity());
+        assertEquals(1024 * 1024 * 4, pool.get().capacity());
+
+        // Foreign Buffers are not pooled.
+        final ByteBuffer foreign = ByteBuffer.allocate(100);
+        pool.free(foreign);
+        assertNotSame(foreign, pool.get(100));
+    }
+
+    @Test
+    void testChecksumTreeParallel() throws Exception {
+        // 2 full Chunks and a Rest.
+        final byte[] bytes = new byte[(Sha256TreeDigest.CHUNK_SIZE * 2) + 1000];
+        new Random(42).nextBytes(bytes);
+
+        final Path path = Files.createTempFile("jsync", ".bin");
+
+        try {
+            Files.write(path, bytes);
+
+            final List<Long> progress = new ArrayList<>();
+            final String checksum = DigestUtils.digestAsHex(path, ChecksumAlgorithm.SHA256_TREE, progress::add);
+
+            assertEquals(digestAsHex(ChecksumAlgorithm.SHA256_TREE, bytes, Options.BUFFER_SIZE), checksum);
+            assertEquals(4, progress.size());
+            assertEquals(bytes.length, progress.getLast());
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * The Chunks are sent in Slices with the Rate of the Bucket.
+     */
+    @Test
+    void testPace() {
+        final byte[] bytes = new byte[512 * 1024];
+        new Random().nextBytes(bytes);
+
+        final AtomicInteger slicesEmitted = new AtomicInteger();
+        final List<Integer> slicesEmittedAtRequest = new CopyOnWriteArrayList<>();
+
+        // The Source is only read with the Rate: the next Chunk is requested after the Slices of the current one are emitted.
+        final Flux<ByteBuffer> chunks = Flux.just(ByteBuffer.wrap(bytes, 0, 256 * 1024).slice(), ByteBuffer.wrap(bytes, 256 * 1024, 256 * 1024).slice())
+                .doOnRequest(n -> slicesEmittedAtRequest.add(slicesEmitted.get()));
+        final TokenBucket tokenBucket = new TokenBucket(JSyncUtils.parseSize("2m"), Options.PACING_SLICE_SIZE);
+
+        final long start = System.nanoTime();
+        final List<ByteBuffer> slices = ReactiveUtils.pace(chunks, tokenBucket, Options.PACING_SLICE_SIZE).doOnNext(slice -> slicesEmitted.incrementAndGet()).collectList()
+                .block();
+        final long durationMillis = (System.nanoTime() - start) / 1_000_000L;
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        for (final ByteBuffer slice : slices) {
+            assertTrue(slice.remaining() <= Options.PACING_SLICE_SIZE);
+
+            final byte[] sliceBytes = new byte[slice.remaining()];
+            slice.get(sliceBytes);
+            outputStream.writeBytes(sliceBytes);
+        }
+
+        assertEquals(8, slices.size());
+        assertArrayEquals(bytes, outputStream.toByteArray());
+        assertEquals(List.of(0, 4), slicesEmittedAtRequest);
+
+        // 448 kB after the Burst with 2 MB/s.
+        assertTrue(durationMillis >= 150L, "duration: " + durationMillis);
+    }
+
+    @Test
+    void testStreamedChecksum() {
+        final byte[] bytes = "Hello World!".getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final ChecksumDigest checksumDigest = ChecksumAlgorithm.SHA256.newDigest();
+
+        final Flux<ByteBuffer> chunks = Flux.just(ByteBuffer.wrap(bytes, 0, 5), ByteBuffer.wrap(bytes, 5, bytes.length - 5).slice());
+        final long bytesWritten = ReactiveUtils.write(chunks, Channels.newChannel(outputStream), checksumDigest).reduce(0L, Long::sum).block();
+
+        assertEquals(bytes.length, bytesWritten);
+        assertEquals(JSyncUtils.bytesToHex(DigestUtils.sha256Digest(bytes)), checksumDigest.digestAsHex());
+    }
+
+    private String digestAsHex(final ChecksumAlgorithm algorithm, final byte[] bytes, final int chunkSize) {
+        final ChecksumDigest checksumDigest = algorithm.newDigest();
+
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            checksumDigest.update(ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i)));
+        }
+
+        return checksumDigest.digestAsHex();
+    }
 }